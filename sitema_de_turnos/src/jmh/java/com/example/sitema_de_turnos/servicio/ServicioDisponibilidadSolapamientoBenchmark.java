@@ -0,0 +1,65 @@
+package com.example.sitema_de_turnos.servicio;
+
+import com.example.sitema_de_turnos.modelo.DiaSemana;
+import com.example.sitema_de_turnos.modelo.DisponibilidadProfesional;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chequeo de solapamiento de crearDisponibilidad ({@link ServicioDisponibilidad#validarSinSolapamiento}).
+ * La lista simula las disponibilidades activas del mismo día: bloques de 45 min separados por 15 min
+ * desde las 07:00. El rango nuevo cae al final del día para recorrer la lista completa (caso sin conflicto).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+public class ServicioDisponibilidadSolapamientoBenchmark {
+
+    @Param({"2", "8", "14"})
+    public int cantidadExistentes;
+
+    private List<DisponibilidadProfesional> existentes;
+    private LocalTime nuevoInicio;
+    private LocalTime nuevoFin;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        existentes = new ArrayList<>(cantidadExistentes);
+        LocalTime cursor = LocalTime.of(7, 0);
+        for (int i = 0; i < cantidadExistentes; i++) {
+            DisponibilidadProfesional d = new DisponibilidadProfesional();
+            d.setDiaSemana(DiaSemana.MARTES);
+            d.setHoraInicio(cursor);
+            d.setHoraFin(cursor.plusMinutes(45));
+            d.setActivo(true);
+            existentes.add(d);
+            cursor = cursor.plusHours(1);
+        }
+        nuevoInicio = LocalTime.of(22, 0);
+        nuevoFin = LocalTime.of(23, 0);
+    }
+
+    @Benchmark
+    public List<DisponibilidadProfesional> validarSinConflicto() {
+        ServicioDisponibilidad.validarSinSolapamiento(existentes, DiaSemana.MARTES, nuevoInicio, nuevoFin);
+        return existentes;
+    }
+}
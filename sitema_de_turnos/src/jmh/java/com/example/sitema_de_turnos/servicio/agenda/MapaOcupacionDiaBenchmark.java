@@ -0,0 +1,131 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import com.example.sitema_de_turnos.modelo.DiaSemana;
+import com.example.sitema_de_turnos.modelo.DisponibilidadProfesional;
+import com.example.sitema_de_turnos.modelo.EstadoTurno;
+import com.example.sitema_de_turnos.modelo.Turno;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo de slots de un día (reemplazo de ServicioPublico.generarSlots): armar el
+ * {@link MapaOcupacionDia} desde las entidades cargadas y obtener los inicios.
+ *
+ * - DENSA: 3 rangos (11 h) con ~75% ocupado por turnos de 20-60 min, como un profesional con agenda llena.
+ * - DISPERSA: 2 rangos (8 h) con 3 turnos.
+ *
+ * Fixtures generados con semilla fija para que las corridas sean comparables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+public class MapaOcupacionDiaBenchmark {
+
+    @Param({"DENSA", "DISPERSA"})
+    public String agenda;
+
+    @Param({"40"})
+    public int duracionTotal;
+
+    private List<DisponibilidadProfesional> disponibilidades;
+    private List<Turno> turnos;
+    private MapaOcupacionDia mapaArmado;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random random = new Random(42L);
+        disponibilidades = new ArrayList<>();
+        turnos = new ArrayList<>();
+
+        if ("DENSA".equals(agenda)) {
+            disponibilidades.add(disponibilidad(LocalTime.of(8, 0), LocalTime.of(12, 0)));
+            disponibilidades.add(disponibilidad(LocalTime.of(13, 0), LocalTime.of(17, 0)));
+            disponibilidades.add(disponibilidad(LocalTime.of(17, 30), LocalTime.of(20, 30)));
+            for (DisponibilidadProfesional d : disponibilidades) {
+                LocalTime cursor = d.getHoraInicio();
+                while (true) {
+                    LocalTime inicio = cursor.plusMinutes(random.nextInt(4) == 0 ? 15 : 0);
+                    LocalTime fin = inicio.plusMinutes(20 + random.nextInt(5) * 10);
+                    if (fin.isAfter(d.getHoraFin())) {
+                        break;
+                    }
+                    turnos.add(turno(inicio, fin));
+                    cursor = fin;
+                }
+            }
+        } else {
+            disponibilidades.add(disponibilidad(LocalTime.of(9, 0), LocalTime.of(13, 0)));
+            disponibilidades.add(disponibilidad(LocalTime.of(15, 0), LocalTime.of(19, 0)));
+            turnos.add(turno(LocalTime.of(10, 0), LocalTime.of(10, 40)));
+            turnos.add(turno(LocalTime.of(15, 30), LocalTime.of(16, 15)));
+            turnos.add(turno(LocalTime.of(17, 0), LocalTime.of(17, 30)));
+        }
+
+        mapaArmado = armar();
+    }
+
+    /** Camino completo por request sin caché: entidades → mapa → inicios. */
+    @Benchmark
+    public int[] armarYCalcularInicios() {
+        return armar().inicios(duracionTotal, 0);
+    }
+
+    /** Solo el recorrido de huecos (mapa ya armado, p. ej. leído de franjas_libres). */
+    @Benchmark
+    public int[] calcularInicios() {
+        return mapaArmado.inicios(duracionTotal, 0);
+    }
+
+    /** Indicador de calendario: corta en el primer slot válido. */
+    @Benchmark
+    public boolean tieneInicio() {
+        return mapaArmado.tieneInicio(duracionTotal, 0);
+    }
+
+    private MapaOcupacionDia armar() {
+        MapaOcupacionDia mapa = new MapaOcupacionDia();
+        for (DisponibilidadProfesional d : disponibilidades) {
+            mapa.agregarRango(d.getHoraInicio(), d.getHoraFin());
+        }
+        for (Turno t : turnos) {
+            mapa.ocupar(t.getHoraInicio(), t.getHoraFin());
+        }
+        return mapa;
+    }
+
+    private static DisponibilidadProfesional disponibilidad(LocalTime inicio, LocalTime fin) {
+        DisponibilidadProfesional d = new DisponibilidadProfesional();
+        d.setDiaSemana(DiaSemana.LUNES);
+        d.setHoraInicio(inicio);
+        d.setHoraFin(fin);
+        d.setActivo(true);
+        return d;
+    }
+
+    private static Turno turno(LocalTime inicio, LocalTime fin) {
+        Turno t = new Turno();
+        t.setHoraInicio(inicio);
+        t.setHoraFin(fin);
+        t.setEstado(EstadoTurno.CONFIRMADO);
+        return t;
+    }
+}
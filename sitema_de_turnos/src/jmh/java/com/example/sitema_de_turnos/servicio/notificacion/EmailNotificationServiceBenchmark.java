@@ -0,0 +1,97 @@
+package com.example.sitema_de_turnos.servicio.notificacion;
+
+import com.example.sitema_de_turnos.modelo.Cliente;
+import com.example.sitema_de_turnos.modelo.Empresa;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import com.example.sitema_de_turnos.modelo.Servicio;
+import com.example.sitema_de_turnos.modelo.Turno;
+import com.example.sitema_de_turnos.modelo.Usuario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Armado del HTML de emails (recordatorio y confirmación de turno) a partir de los templates del classpath.
+ * Sin envío: el servicio se construye sin repositorio ni TemplateEngine, que estos métodos no usan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+public class EmailNotificationServiceBenchmark {
+
+    private EmailNotificationService servicio;
+    private ReminderData recordatorio;
+    private Turno turno;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        servicio = new EmailNotificationService(null, null, null);
+
+        LocalDate fecha = LocalDate.now().plusDays(1);
+        LocalTime hora = LocalTime.of(10, 30);
+        recordatorio = ReminderData.builder()
+            .turnoId(1L)
+            .clienteEmail("cliente@ejemplo.com")
+            .clienteNombre("María José Fernández")
+            .fecha(fecha)
+            .horaInicio(hora)
+            .horaFin(hora.plusMinutes(45))
+            .fechaHoraCompleta(fecha.atTime(hora))
+            .servicioNombre("Corte & Peinado")
+            .profesionalNombre("Lucía Gómez")
+            .empresaNombre("Estética <Bella>")
+            .empresaTelefono("+5493814000000")
+            .empresaDireccion("Av. Mate de Luna 1234")
+            .empresaCiudad("San Miguel de Tucumán")
+            .empresaProvincia("Tucumán")
+            .build();
+
+        Empresa empresa = new Empresa();
+        empresa.setNombre("Estética <Bella>");
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Lucía");
+        usuario.setApellido("Gómez");
+        PerfilProfesional profesional = new PerfilProfesional();
+        profesional.setUsuario(usuario);
+        Servicio servicioTurno = new Servicio();
+        servicioTurno.setNombre("Corte & Peinado");
+        Cliente cliente = new Cliente();
+        cliente.setNombre("María José Fernández");
+
+        turno = new Turno();
+        turno.setEmpresa(empresa);
+        turno.setProfesional(profesional);
+        turno.setServicio(servicioTurno);
+        turno.setCliente(cliente);
+        turno.setFecha(fecha);
+        turno.setHoraInicio(hora);
+        turno.setHoraFin(hora.plusMinutes(45));
+    }
+
+    @Benchmark
+    public String cuerpoRecordatorio() {
+        return servicio.construirCuerpoHTML(recordatorio);
+    }
+
+    @Benchmark
+    public String cuerpoConfirmacionTurno() {
+        return servicio.construirCuerpoConfirmacionTurno(
+            turno, new BigDecimal("15000.00"), new BigDecimal("4500.00"), new BigDecimal("10500.00"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.sitema_de_turnos.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalización de datos de cliente que corre en cada reserva pública y en cada mensaje del bot.
+ * Las entradas simulan lo que llega del formulario: espacios de más, mayúsculas mezcladas y teléfonos con formato.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+public class NormalizadorDatosBenchmark {
+
+    @Param({"  maría   JOSÉ  fernández  "})
+    public String nombre;
+
+    @Param({"  Maria.Fernandez@Ejemplo.COM "})
+    public String email;
+
+    @Param({"+54 9 (381) 400-0000"})
+    public String telefono;
+
+    @Benchmark
+    public String normalizarNombre() {
+        return NormalizadorDatos.normalizarNombre(nombre);
+    }
+
+    @Benchmark
+    public String normalizarEmail() {
+        return NormalizadorDatos.normalizarEmail(email);
+    }
+
+    @Benchmark
+    public String normalizarTelefono() {
+        return NormalizadorDatos.normalizarTelefono(telefono);
+    }
+}
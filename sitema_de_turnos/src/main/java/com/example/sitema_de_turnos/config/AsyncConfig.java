@@ -1,5 +1,6 @@
 package com.example.sitema_de_turnos.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -33,4 +34,22 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Executor del despachador del outbox (DespachadorOutbox):
+     * - tamaño fijo configurable (app.outbox.hilos): procesa en paralelo los eventos de un lote
+     * - CallerRunsPolicy: el lote está acotado y el despachador espera a que termine, así que
+     *   nunca se descarta un evento ya reclamado
+     */
+    @Bean(name = "outboxExecutor")
+    public Executor outboxExecutor(@Value("${app.outbox.hilos:4}") int hilos) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("outbox-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
 }
@@ -0,0 +1,78 @@
+package com.example.sitema_de_turnos.configuracion;
+
+import com.example.sitema_de_turnos.repositorio.RepositorioUsuario;
+import com.example.sitema_de_turnos.servicio.ServicioNotificacion;
+import com.example.sitema_de_turnos.servicio.agenda.PublicadorDisponibilidadEnVivo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Autoriza cada SUBSCRIBE de STOMP según el destino:
+ * - {@code /topic/disponibilidad/**}: público (páginas de reserva, conexión anónima por /ws-publico).
+ * - {@code /topic/notifications/{usuarioId}}: solo el usuario dueño de ese id. Estar autenticado no
+ *   alcanza: sin este chequeo cualquier sesión podría leer las notificaciones de otro profesional.
+ * - Cualquier otro {@code /topic/**}: rechazado (no hay otros tópicos de broadcast).
+ * - Resto de destinos: requieren sesión autenticada.
+ *
+ * Las suscripciones son pocas (una por pestaña), así que la consulta del usuario por suscripción es barata.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AutorizacionSuscripcionesInterceptor implements ChannelInterceptor {
+
+    private static final String PREFIJO_TOPICOS = "/topic/";
+
+    private final RepositorioUsuario repositorioUsuario;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor != null && StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            autorizar(accessor.getDestination(), accessor.getUser());
+        }
+        return message;
+    }
+
+    void autorizar(String destino, Principal usuario) {
+        if (destino != null && destino.startsWith(PublicadorDisponibilidadEnVivo.PREFIJO_TOPICO)) {
+            return;
+        }
+        if (usuario == null) {
+            throw new AccessDeniedException("Suscripción no permitida sin autenticación");
+        }
+        if (destino != null && destino.startsWith(ServicioNotificacion.PREFIJO_TOPICO)) {
+            if (!esDuenoDelTopico(destino.substring(ServicioNotificacion.PREFIJO_TOPICO.length()), usuario)) {
+                log.warn("🚫 Suscripción rechazada: {} intentó suscribirse a {}", usuario.getName(), destino);
+                throw new AccessDeniedException("No puede suscribirse a las notificaciones de otro usuario");
+            }
+            return;
+        }
+        if (destino == null || destino.startsWith(PREFIJO_TOPICOS)) {
+            throw new AccessDeniedException("Destino de suscripción no permitido");
+        }
+    }
+
+    private boolean esDuenoDelTopico(String usuarioIdTopico, Principal usuario) {
+        Long usuarioId;
+        try {
+            usuarioId = Long.valueOf(usuarioIdTopico);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        // El principal de los usuarios del sistema es su email (ServicioDetallesUsuario)
+        return repositorioUsuario.findByEmail(usuario.getName())
+                .map(u -> usuarioId.equals(u.getId()))
+                .orElse(false);
+    }
+}
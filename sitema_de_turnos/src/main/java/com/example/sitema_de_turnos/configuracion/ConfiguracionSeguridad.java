@@ -122,6 +122,7 @@ public class ConfiguracionSeguridad {
                     .csrfTokenRequestHandler(requestHandler)
                     .ignoringRequestMatchers(
                         "/api/publico/**",        // Endpoints públicos
+                        "/ws-publico/**",         // SockJS anónimo (POST de xhr_send)
                         "/api/auth/login",        // Login usuarios no requiere CSRF
                         "/api/auth/logout",       // Logout manejado por Spring Security
                         "/api/auth/perfil",       // Perfil para verificar sesión
@@ -188,6 +189,8 @@ public class ConfiguracionSeguridad {
                 // Endpoints públicos (sin autenticación)
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/publico/**").permitAll()
+                // WebSocket de disponibilidad en vivo para la página pública de reserva
+                .requestMatchers("/ws-publico/**").permitAll()
                 // Hacer público el endpoint de políticas activas
                 .requestMatchers("/api/politicas-cancelacion/empresa/*/activas").permitAll()
                 
@@ -0,0 +1,250 @@
+package com.example.sitema_de_turnos.configuracion;
+
+import com.example.sitema_de_turnos.servicio.ServicioIdempotencia;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Soporte del header {@code Idempotency-Key} en los endpoints que crean o mueven reservas: reserva pública
+ * (y de series), escrituras del bot (n8n reintenta ante timeouts) y reprogramación del cliente.
+ *
+ * La primera solicitud con una clave se procesa normalmente y su respuesta exitosa (2xx) queda registrada;
+ * un reintento con la misma clave y el mismo cuerpo recibe esa respuesta sin llegar al controlador (ni a los
+ * locks de reserva). Mientras la original se procesa, el reintento recibe 409; con otro cuerpo, 422.
+ * Una respuesta de error no se registra: el cliente puede reintentar con la misma clave. Si falla el registro
+ * de una respuesta exitosa, la clave tampoco se libera (la operación ya se aplicó): vence como "en proceso".
+ *
+ * Corre después de la cadena de Spring Security (filtro de servlet común), así la clave queda asociada
+ * al usuario autenticado y las solicitudes rechazadas por seguridad no la consumen.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotenciaFilter extends OncePerRequestFilter {
+
+    private static final String HEADER_IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String HEADER_REPETIDA = "Idempotent-Replayed";
+    private static final int MAX_LONGITUD_CLAVE = 255;
+
+    private static final List<Endpoint> ENDPOINTS = List.of(
+        new Endpoint("POST", "/api/publico/empresa/*/turnos"),
+        new Endpoint("POST", "/api/publico/empresa/*/turnos/serie"),
+        new Endpoint("POST", "/api/v1/tenants/**"),
+        new Endpoint("PUT", "/api/cliente/reservas/*/reprogramar")
+    );
+
+    private final ServicioIdempotencia servicioIdempotencia;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (request.getHeader(HEADER_IDEMPOTENCY_KEY) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return ENDPOINTS.stream().noneMatch(e -> e.metodo().equals(request.getMethod()) && matcher.match(e.patron(), path));
+    }
+
+    @Override
+    protected void doFilterInternal(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        FilterChain filterChain
+    ) throws ServletException, IOException {
+        String claveCliente = request.getHeader(HEADER_IDEMPOTENCY_KEY).trim();
+        if (claveCliente.isEmpty() || claveCliente.length() > MAX_LONGITUD_CLAVE) {
+            escribirError(response, HttpServletResponse.SC_BAD_REQUEST, "Idempotency-Key inválida (1 a 255 caracteres)");
+            return;
+        }
+
+        byte[] cuerpo = request.getInputStream().readAllBytes();
+        String clave = sha256((usuarioActual() + " " + request.getMethod() + " " + request.getRequestURI() + " " + claveCliente)
+            .getBytes(StandardCharsets.UTF_8));
+        String huella = sha256(cuerpo);
+
+        ServicioIdempotencia.Resultado resultado;
+        try {
+            resultado = servicioIdempotencia.iniciar(clave, huella);
+        } catch (Exception e) {
+            // Sin registro de idempotencia disponible la reserva sigue su camino normal
+            log.warn("⚠️ Idempotencia no disponible, se procesa la solicitud sin clave: {}", e.getMessage());
+            filterChain.doFilter(new SolicitudConCuerpo(request, cuerpo), response);
+            return;
+        }
+
+        switch (resultado.decision()) {
+            case REPETIR -> repetir(response, resultado.respuesta());
+            case EN_PROCESO -> escribirError(response, HttpServletResponse.SC_CONFLICT,
+                "Una solicitud con esta Idempotency-Key todavía se está procesando");
+            case HUELLA_DISTINTA -> escribirError(response, 422,
+                "La Idempotency-Key ya se usó con un cuerpo de solicitud distinto");
+            case PROCESAR -> procesar(request, response, filterChain, cuerpo, clave, huella);
+        }
+    }
+
+    private void procesar(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                          byte[] cuerpo, String clave, String huella) throws ServletException, IOException {
+        ContentCachingResponseWrapper respuesta = new ContentCachingResponseWrapper(response);
+        boolean exitosa = false;
+        try {
+            filterChain.doFilter(new SolicitudConCuerpo(request, cuerpo), respuesta);
+            int estado = respuesta.getStatus();
+            exitosa = estado >= 200 && estado < 300;
+            if (exitosa) {
+                registrar(clave, huella, estado, respuesta);
+            }
+        } finally {
+            if (!exitosa) {
+                try {
+                    servicioIdempotencia.liberar(clave);
+                } catch (Exception e) {
+                    log.warn("⚠️ No se pudo liberar la Idempotency-Key (vence sola): {}", e.getMessage());
+                }
+            }
+            respuesta.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * Guardar la respuesta 2xx. Si falla, la clave NO se libera: la operación ya se aplicó y un reintento
+     * no debe repetirla, así que queda "en proceso" (409) hasta que venza app.idempotencia.en-proceso-segundos.
+     */
+    private void registrar(String clave, String huella, int estado, ContentCachingResponseWrapper respuesta) {
+        try {
+            servicioIdempotencia.completar(clave, huella, estado, respuesta.getContentType(),
+                new String(respuesta.getContentAsByteArray(), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo registrar la respuesta de la Idempotency-Key; queda en proceso hasta vencer: {}",
+                e.getMessage());
+        }
+    }
+
+    private void repetir(HttpServletResponse response, ServicioIdempotencia.RespuestaGuardada guardada) throws IOException {
+        response.setStatus(guardada.estadoHttp());
+        if (guardada.tipoContenido() != null) {
+            response.setContentType(guardada.tipoContenido());
+        }
+        response.setHeader(HEADER_REPETIDA, "true");
+        if (guardada.cuerpo() != null) {
+            response.getOutputStream().write(guardada.cuerpo().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void escribirError(HttpServletResponse response, int estado, String mensaje) throws IOException {
+        response.setStatus(estado);
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().write("{\"exito\":false,\"mensaje\":\"" + mensaje + "\"}");
+    }
+
+    private static String usuarioActual() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : "anonimo";
+    }
+
+    private static String sha256(byte[] datos) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(datos));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private record Endpoint(String metodo, String patron) {}
+
+    /**
+     * Solicitud con el cuerpo ya leído (para calcular la huella) que el controlador puede volver a leer.
+     */
+    private static final class SolicitudConCuerpo extends HttpServletRequestWrapper {
+
+        private final byte[] cuerpo;
+
+        SolicitudConCuerpo(HttpServletRequest request, byte[] cuerpo) {
+            super(request);
+            this.cuerpo = cuerpo;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(cuerpo);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * El cuerpo ya está completo en memoria: se avisa enseguida que hay datos y, una vez
+                 * consumidos (isReady siempre es true), que se leyó todo.
+                 */
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entrada.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return cuerpo.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return cuerpo.length;
+        }
+    }
+}
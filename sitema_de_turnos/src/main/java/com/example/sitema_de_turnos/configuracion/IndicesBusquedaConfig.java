@@ -0,0 +1,79 @@
+package com.example.sitema_de_turnos.configuracion;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Índices de búsqueda que JPA no puede declarar, creados al inicio de forma idempotente
+ * (IF NOT EXISTS), igual que {@link IndicesConcurrenciaConfig}.
+ *
+ * === idx_cliente_email_lower ===
+ *
+ *   CREATE INDEX idx_cliente_email_lower ON clientes (lower(email))
+ *
+ * La validación de superposición global del cliente busca por email en TODAS las empresas
+ * (misma persona reservando en varias sucursales) con {@code lower(c.email) = lower(:email)}.
+ * Un índice funcional no es expresable con {@code @Index} y el índice simple idx_cliente_email
+ * no sirve para una comparación sobre lower(email).
+ *
+ * === idx_turno_recordatorio_no_enviado ===
+ *
+ *   CREATE INDEX idx_turno_recordatorio_no_enviado ON turnos (fecha, hora_inicio)
+ *   WHERE estado = 'CONFIRMADO' AND recordatorio_enviado IS NOT TRUE
+ *
+ * El scheduler de recordatorios reclama cada minuto, en todas las empresas a la vez, los turnos con
+ * recordatorio vencido (RepositorioTurno#reclamarRecordatoriosVencidos). El índice PARCIAL solo
+ * contiene recordatorios sin enviar: no crece con el historial de turnos. No filtra por la marca de
+ * reclamo porque un reclamo vencido vuelve a ser elegible; reemplaza a idx_turno_recordatorio_pendiente,
+ * que sí lo hacía y se elimina.
+ *
+ * A diferencia de IndicesConcurrenciaConfig, un fallo NO impide iniciar: el índice es de
+ * rendimiento, no una garantía de consistencia.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndicesBusquedaConfig implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String INDICE_EMAIL_CLIENTE = "idx_cliente_email_lower";
+    private static final String INDICE_RECORDATORIO_NO_ENVIADO = "idx_turno_recordatorio_no_enviado";
+    private static final String INDICE_RECORDATORIO_ANTERIOR = "idx_turno_recordatorio_pendiente";
+
+    @Override
+    public void run(ApplicationArguments args) {
+        crearIndiceEmailCliente();
+        crearIndiceRecordatorioNoEnviado();
+    }
+
+    private void crearIndiceEmailCliente() {
+        try {
+            jdbcTemplate.execute(
+                "CREATE INDEX IF NOT EXISTS " + INDICE_EMAIL_CLIENTE + " ON clientes (lower(email))"
+            );
+            log.info("✅ Índice '{}' verificado/creado en la BD", INDICE_EMAIL_CLIENTE);
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo crear/verificar el índice '{}': la búsqueda de turnos por email del cliente " +
+                    "recorrerá la tabla clientes", INDICE_EMAIL_CLIENTE, e);
+        }
+    }
+
+    private void crearIndiceRecordatorioNoEnviado() {
+        try {
+            jdbcTemplate.execute(
+                "CREATE INDEX IF NOT EXISTS " + INDICE_RECORDATORIO_NO_ENVIADO + " ON turnos (fecha, hora_inicio) " +
+                "WHERE estado = 'CONFIRMADO' AND recordatorio_enviado IS NOT TRUE"
+            );
+            jdbcTemplate.execute("DROP INDEX IF EXISTS " + INDICE_RECORDATORIO_ANTERIOR);
+            log.info("✅ Índice '{}' verificado/creado en la BD", INDICE_RECORDATORIO_NO_ENVIADO);
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo crear/verificar el índice '{}': el reclamo de recordatorios vencidos " +
+                    "recorrerá los turnos por fecha", INDICE_RECORDATORIO_NO_ENVIADO, e);
+        }
+    }
+}
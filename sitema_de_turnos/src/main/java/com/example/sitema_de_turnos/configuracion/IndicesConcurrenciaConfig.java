@@ -34,6 +34,27 @@ import java.util.List;
  *
  * El índice es PARCIAL (ignora estados terminales) de modo que, tras cancelar
  * un turno, el mismo slot vuelve a estar disponible para reservar.
+ *
+ * === Restricción de exclusión sobre rangos (solapamiento real) ===
+ * El índice único solo detecta turnos con la MISMA hora de inicio: 10:00-11:00 y 10:30-11:30
+ * pasan los dos. Por eso además se mantiene:
+ *
+ *   ALTER TABLE turnos ADD COLUMN rango_horario tsrange
+ *       GENERATED ALWAYS AS (tsrange(fecha + hora_inicio,
+ *           CASE WHEN hora_fin > hora_inicio THEN fecha + hora_fin ELSE fecha + 1 + hora_fin END, '[)')) STORED
+ *   ALTER TABLE turnos ADD CONSTRAINT turno_sin_solapamiento
+ *       EXCLUDE USING gist (profesional_id WITH =, rango_horario WITH &&)
+ *       WHERE (estado IN ('CONFIRMADO', 'PENDIENTE_PAGO'))
+ *
+ * Con esto el INSERT/UPDATE es el único árbitro: ServicioTurno ya no hace SELECT previo de
+ * solapamiento ni bloquea filas con FOR UPDATE. Requiere la extensión btree_gist (igualdad
+ * sobre profesional_id dentro del índice GiST). La columna es generada: Hibernate no la mapea.
+ * Si hay turnos ocupantes solapados previos, la restricción no puede crearse y la aplicación
+ * no inicia: hay que resolverlos a mano antes de desplegar.
+ *
+ * Un turno cuya hora_fin no es posterior a hora_inicio (duración + buffer que pasa la medianoche;
+ * antes no se rechazaba) terminaría antes de empezar y tsrange fallaría al arrancar. Para esos
+ * turnos el rango termina al día siguiente; al iniciar se informan cuántos hay.
  */
 @Slf4j
 @Component
@@ -43,11 +64,85 @@ public class IndicesConcurrenciaConfig implements ApplicationRunner {
     private final JdbcTemplate jdbcTemplate;
 
     private static final String INDEX_NAME = "idx_turno_no_overlap";
+    private static final String CONSTRAINT_NAME = "turno_sin_solapamiento";
+    private static final String COLUMNA_RANGO = "rango_horario";
     private static final List<String> ESTADOS_OCUPANTES = List.of("CONFIRMADO", "PENDIENTE_PAGO");
+    private static final String EXPRESION_RANGO =
+        "tsrange(fecha + hora_inicio, " +
+        "CASE WHEN hora_fin > hora_inicio THEN fecha + hora_fin ELSE fecha + 1 + hora_fin END, '[)')";
 
     @Override
     public void run(ApplicationArguments args) {
         crearIndiceNoSolapamiento();
+        crearRestriccionExclusionRangos();
+    }
+
+    private void crearRestriccionExclusionRangos() {
+        log.info("Creando/Verificando restricción de exclusión por rango horario en BD...");
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS btree_gist");
+
+            informarTurnosQueCruzanMedianoche();
+
+            String expresionActual = jdbcTemplate.query(
+                "SELECT pg_get_expr(d.adbin, d.adrelid) AS expr FROM pg_attrdef d " +
+                "JOIN pg_attribute a ON a.attrelid = d.adrelid AND a.attnum = d.adnum " +
+                "WHERE d.adrelid = 'turnos'::regclass AND a.attname = ?",
+                rs -> rs.next() ? rs.getString("expr") : null,
+                COLUMNA_RANGO
+            );
+            if (expresionActual != null && !expresionActual.toUpperCase().contains("CASE")) {
+                // Columna de una versión anterior (sin el caso de medianoche): se recrea junto con la restricción
+                log.warn("Columna '{}' desactualizada. Se recreará contemplando turnos que cruzan la medianoche.", COLUMNA_RANGO);
+                jdbcTemplate.execute("ALTER TABLE turnos DROP CONSTRAINT IF EXISTS " + CONSTRAINT_NAME);
+                jdbcTemplate.execute("ALTER TABLE turnos DROP COLUMN " + COLUMNA_RANGO);
+            }
+
+            jdbcTemplate.execute(
+                "ALTER TABLE turnos ADD COLUMN IF NOT EXISTS " + COLUMNA_RANGO + " tsrange " +
+                "GENERATED ALWAYS AS (" + EXPRESION_RANGO + ") STORED"
+            );
+
+            String constraintDef = jdbcTemplate.query(
+                "SELECT pg_get_constraintdef(c.oid) AS def FROM pg_constraint c " +
+                "JOIN pg_namespace n ON n.oid = c.connamespace " +
+                "WHERE n.nspname = current_schema() AND c.conname = ?",
+                rs -> rs.next() ? rs.getString("def") : null,
+                CONSTRAINT_NAME
+            );
+
+            if (constraintDef != null && requiereRecreacion(constraintDef)) {
+                log.warn("Restricción '{}' desactualizada. Se recreará con predicado de estados ocupantes explícitos.", CONSTRAINT_NAME);
+                jdbcTemplate.execute("ALTER TABLE turnos DROP CONSTRAINT IF EXISTS " + CONSTRAINT_NAME);
+                constraintDef = null;
+            }
+
+            if (constraintDef == null) {
+                jdbcTemplate.execute(
+                    "ALTER TABLE turnos ADD CONSTRAINT " + CONSTRAINT_NAME + " " +
+                    "EXCLUDE USING gist (profesional_id WITH =, " + COLUMNA_RANGO + " WITH &&) " +
+                    "WHERE (estado IN ('CONFIRMADO', 'PENDIENTE_PAGO'))"
+                );
+            }
+            log.info("✅ Restricción de exclusión '{}' verificada/creada en la BD", CONSTRAINT_NAME);
+        } catch (Exception e) {
+            log.error("❌ No se pudo crear/verificar la restricción '{}'. La aplicación no puede iniciar sin esta protección " +
+                    "(¿extensión btree_gist disponible? ¿turnos ocupantes ya solapados?).", CONSTRAINT_NAME, e);
+            throw new IllegalStateException("No se pudo crear/verificar la restricción de exclusión '" + CONSTRAINT_NAME + "'", e);
+        }
+    }
+
+    /**
+     * Turnos con hora_fin no posterior a hora_inicio (de antes de que se rechazaran): su rango se toma
+     * hasta el día siguiente. Solo se informan para que se revisen; no impiden el arranque.
+     */
+    private void informarTurnosQueCruzanMedianoche() {
+        Integer cruzados = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM turnos WHERE hora_fin <= hora_inicio", Integer.class);
+        if (cruzados != null && cruzados > 0) {
+            log.warn("⚠️ {} turno(s) con hora_fin <= hora_inicio: su rango horario se toma hasta el día siguiente. " +
+                    "Revisarlos con SELECT id, fecha, hora_inicio, hora_fin FROM turnos WHERE hora_fin <= hora_inicio", cruzados);
+        }
     }
 
     private void crearIndiceNoSolapamiento() {
@@ -77,8 +172,8 @@ public class IndicesConcurrenciaConfig implements ApplicationRunner {
         }
     }
 
-    private boolean requiereRecreacion(String indexDef) {
-        String indexDefUpper = indexDef.toUpperCase();
+    private boolean requiereRecreacion(String definicion) {
+        String indexDefUpper = definicion.toUpperCase();
         boolean contieneEstadosOcupantes = ESTADOS_OCUPANTES.stream().allMatch(indexDefUpper::contains);
         boolean usaPredicadoNotIn = indexDefUpper.contains("NOT IN");
         return !contieneEstadosOcupantes || usaPredicadoNotIn;
@@ -2,6 +2,7 @@ package com.example.sitema_de_turnos.configuracion;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -17,10 +18,16 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final AutorizacionSuscripcionesInterceptor autorizacionSuscripciones;
+
     // ✅ A3: CORS configurable desde properties
     @Value("${app.cors.allowed-origins}")
     private String allowedOriginsConfig;
 
+    public WebSocketConfig(AutorizacionSuscripcionesInterceptor autorizacionSuscripciones) {
+        this.autorizacionSuscripciones = autorizacionSuscripciones;
+    }
+
     /**
      * Configurar el message broker
      * - /topic: canales de suscripción (broadcast a múltiples clientes)
@@ -29,7 +36,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Habilitar un simple message broker en memoria
-        // Los clientes se suscriben a /topic/notifications/{profesionalId}
+        // Los clientes se suscriben a /topic/notifications/{usuarioId}
         config.enableSimpleBroker("/topic");
         
         // Prefijo para mensajes de aplicación
@@ -50,5 +57,20 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns(allowedOrigins)
                 // Habilitar SockJS como fallback para navegadores que no soporten WebSocket
                 .withSockJS();
+
+        // Endpoint sin sesión para las páginas públicas de reserva (deltas de disponibilidad)
+        registry.addEndpoint("/ws-publico")
+                .setAllowedOriginPatterns(allowedOrigins)
+                .withSockJS();
+    }
+
+    /**
+     * Autorizar cada suscripción según el destino (ver {@link AutorizacionSuscripcionesInterceptor}):
+     * los tópicos de disponibilidad son públicos y /topic/notifications/{usuarioId} solo lo puede
+     * suscribir el usuario autenticado con ese id.
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(autorizacionSuscripciones);
     }
 }
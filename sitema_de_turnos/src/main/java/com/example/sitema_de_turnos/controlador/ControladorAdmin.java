@@ -4,6 +4,8 @@ import com.example.sitema_de_turnos.dto.EmpresaResponse;
 import com.example.sitema_de_turnos.dto.RegistroEmpresaConDuenoRequest;
 import com.example.sitema_de_turnos.dto.RespuestaApi;
 import com.example.sitema_de_turnos.servicio.ServicioEmpresa;
+import com.example.sitema_de_turnos.servicio.agenda.CacheSlotsDisponibilidad;
+import com.example.sitema_de_turnos.servicio.scheduler.ReminderSchedulerService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -20,6 +22,8 @@ import java.util.List;
 public class ControladorAdmin {
 
     private final ServicioEmpresa servicioEmpresa;
+    private final CacheSlotsDisponibilidad cacheSlotsDisponibilidad;
+    private final ReminderSchedulerService reminderSchedulerService;
 
     /**
      * Crear empresa con dueño en una sola transacción
@@ -88,4 +92,26 @@ public class ControladorAdmin {
                 RespuestaApi.exitosa("Empresa desactivada exitosamente", null)
         );
     }
+
+    /**
+     * Métricas de la caché de slots de disponibilidad (aciertos, fallos, tasa de aciertos, desalojos)
+     */
+    @GetMapping("/metricas/cache-disponibilidad")
+    public ResponseEntity<RespuestaApi<CacheSlotsDisponibilidad.Estadisticas>> obtenerMetricasCacheDisponibilidad() {
+        
+        return ResponseEntity.ok(
+                RespuestaApi.exitosa("Métricas obtenidas exitosamente", cacheSlotsDisponibilidad.estadisticas())
+        );
+    }
+
+    /**
+     * Métricas de recordatorios (backlog de reintentos y última ejecución del scheduler)
+     */
+    @GetMapping("/metricas/recordatorios")
+    public ResponseEntity<RespuestaApi<ReminderSchedulerService.Estadisticas>> obtenerMetricasRecordatorios() {
+        
+        return ResponseEntity.ok(
+                RespuestaApi.exitosa("Métricas obtenidas exitosamente", reminderSchedulerService.estadisticas())
+        );
+    }
 }
@@ -13,6 +13,7 @@ import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
 import com.example.sitema_de_turnos.repositorio.RepositorioUsuario;
 import com.example.sitema_de_turnos.servicio.ServicioBloqueoFecha;
 import com.example.sitema_de_turnos.servicio.ServicioDisponibilidad;
+import com.example.sitema_de_turnos.servicio.ServicioProfesional;
 import com.example.sitema_de_turnos.servicio.ServicioAutenticacionCliente;
 import jakarta.validation.Valid;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -25,7 +26,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
 
 import static org.springframework.data.domain.Sort.Direction.ASC;
 
@@ -50,6 +50,7 @@ public class ControladorProfesional {
     private final com.example.sitema_de_turnos.servicio.ServicioHorarioEmpresa servicioHorarioEmpresa;
     private final com.example.sitema_de_turnos.servicio.ServicioTurno servicioTurno;
     private final ServicioAutenticacionCliente servicioAutenticacionCliente;
+    private final ServicioProfesional servicioProfesional;
 
     /**
      * Obtener el perfil del profesional autenticado
@@ -85,44 +86,7 @@ public class ControladorProfesional {
     public ResponseEntity<RespuestaApi<PerfilUsuarioResponse>> actualizarPerfil(
             @Valid @RequestBody ActualizarPerfilRequest request,
             Authentication authentication) {
-        
-        String email = authentication.getName();
-        Usuario usuario = repositorioUsuario.findByEmail(email)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Usuario no encontrado"));
-
-        // VALIDACIÓN: Verificar empresa activa
-        PerfilProfesional perfilProfesional = repositorioPerfilProfesional.findByUsuarioEmail(email).orElse(null);
-        if (perfilProfesional != null && perfilProfesional.getEmpresa() != null && !perfilProfesional.getEmpresa().getActiva()) {
-            throw new CuentaDesactivadaException("Su empresa ha sido desactivada. Contacte al administrador.");
-        }
-
-        if (request.getContrasena() != null && !request.getContrasena().isEmpty()) {
-            throw new ResponseStatusException(
-                    HttpStatus.BAD_REQUEST,
-                    "Para cambiar la contraseña use el endpoint seguro /api/usuarios/cambiar-contrasena"
-            );
-        }
-
-        // Actualizar solo los campos proporcionados
-        if (request.getNombre() != null) {
-            usuario.setNombre(request.getNombre());
-        }
-        if (request.getApellido() != null) {
-            usuario.setApellido(request.getApellido());
-        }
-        if (request.getEmail() != null && !request.getEmail().equals(usuario.getEmail())) {
-            // Validar que el nuevo email no exista
-            if (repositorioUsuario.existsByEmail(request.getEmail())) {
-                throw new ResponseStatusException(HttpStatus.CONFLICT, "El email ya está en uso");
-            }
-            usuario.setEmail(request.getEmail());
-        }
-        if (request.getTelefono() != null) {
-            usuario.setTelefono(request.getTelefono());
-        }
-
-        Usuario actualizado = repositorioUsuario.save(usuario);
-
+        Usuario actualizado = servicioProfesional.actualizarPerfilPropio(authentication.getName(), request);
         PerfilUsuarioResponse perfil = mapearAPerfilResponse(actualizado);
 
         return ResponseEntity.ok(
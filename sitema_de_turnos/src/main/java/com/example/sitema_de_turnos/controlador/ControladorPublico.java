@@ -6,6 +6,7 @@
     import jakarta.servlet.http.HttpSession;
     import jakarta.validation.Valid;
     import org.springframework.format.annotation.DateTimeFormat;
+    import org.springframework.http.CacheControl;
     import org.springframework.http.HttpStatus;
     import org.springframework.http.ResponseEntity;
     import org.springframework.security.authentication.AuthenticationManager;
@@ -15,21 +16,32 @@
     import org.springframework.security.core.context.SecurityContextHolder;
     import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
     import org.springframework.web.bind.annotation.*;
+    import org.springframework.web.context.request.WebRequest;
 
     import java.time.LocalDate;
+    import java.time.ZoneOffset;
     import java.util.List;
+    import java.util.function.Supplier;
 
     import com.example.sitema_de_turnos.servicio.ServicioPublico;
+    import com.example.sitema_de_turnos.servicio.ServicioRetencionSlot;
+    import com.example.sitema_de_turnos.servicio.ServicioSerieTurnos;
     import com.example.sitema_de_turnos.servicio.ServicioTurno;
     import com.example.sitema_de_turnos.servicio.ServicioAutenticacionCliente;
     import com.example.sitema_de_turnos.servicio.ClienteUserDetails;
+    import com.example.sitema_de_turnos.servicio.agenda.VersionesAgenda;
     import com.example.sitema_de_turnos.dto.ApiResponse;
     import com.example.sitema_de_turnos.dto.publico.EmpresaPublicaResponse;
     import com.example.sitema_de_turnos.dto.publico.ServicioPublicoResponse;
     import com.example.sitema_de_turnos.dto.publico.ProfesionalPublicoResponse;
     import com.example.sitema_de_turnos.dto.publico.SlotDisponibleResponse;
+    import com.example.sitema_de_turnos.dto.publico.DisponibilidadDiaResponse;
     import com.example.sitema_de_turnos.dto.publico.TurnoResponsePublico;
     import com.example.sitema_de_turnos.dto.publico.CrearTurnoRequest;
+    import com.example.sitema_de_turnos.dto.publico.CrearSerieTurnosRequest;
+    import com.example.sitema_de_turnos.dto.publico.SerieTurnosResponse;
+    import com.example.sitema_de_turnos.dto.publico.CrearRetencionRequest;
+    import com.example.sitema_de_turnos.dto.publico.RetencionResponse;
     import com.example.sitema_de_turnos.dto.ClienteAutenticadoResponse;
     import com.example.sitema_de_turnos.dto.publico.RegistroClienteRequest;
     import com.example.sitema_de_turnos.dto.publico.LoginClienteRequest;
@@ -56,11 +68,23 @@ public class ControladorPublico {
     private final ServicioTurno servicioTurno;
     private final ServicioAutenticacionCliente servicioAutenticacionCliente;
     private final AuthenticationManager authenticationManager;
+    private final VersionesAgenda versionesAgenda;
+    private final ServicioRetencionSlot servicioRetencionSlot;
+    private final ServicioSerieTurnos servicioSerieTurnos;
+
+    /**
+     * Fechas (desde hoy, UTC) cuyo resultado cambia con el reloj por el corte de anticipación mínima:
+     * su ETag incluye el minuto actual.
+     */
+    private static final int DIAS_SENSIBLES_AL_RELOJ = 2;
 
     @GetMapping("/empresa/{slug}")
-    public ResponseEntity<ApiResponse<EmpresaPublicaResponse>> obtenerEmpresa(@PathVariable String slug) {
-        EmpresaPublicaResponse empresa = servicioPublico.obtenerEmpresaPorSlug(slug);
-        return ResponseEntity.ok(ApiResponse.exito(empresa, "Empresa obtenida exitosamente"));
+    public ResponseEntity<ApiResponse<EmpresaPublicaResponse>> obtenerEmpresa(
+            @PathVariable String slug,
+            WebRequest webRequest
+    ) {
+        return responderConETag(webRequest, etagCatalogo(slug), () ->
+                ApiResponse.exito(servicioPublico.obtenerEmpresaPorSlug(slug), "Empresa obtenida exitosamente"));
     }
 
     /**
@@ -68,9 +92,12 @@ public class ControladorPublico {
      * GET /api/publico/empresa/{slug}/servicios
      */
     @GetMapping("/empresa/{slug}/servicios")
-    public ResponseEntity<ApiResponse<List<ServicioPublicoResponse>>> obtenerServicios(@PathVariable String slug) {
-        List<ServicioPublicoResponse> servicios = servicioPublico.obtenerServiciosPorEmpresa(slug);
-        return ResponseEntity.ok(ApiResponse.exito(servicios, "Servicios obtenidos exitosamente"));
+    public ResponseEntity<ApiResponse<List<ServicioPublicoResponse>>> obtenerServicios(
+            @PathVariable String slug,
+            WebRequest webRequest
+    ) {
+        return responderConETag(webRequest, etagCatalogo(slug), () ->
+                ApiResponse.exito(servicioPublico.obtenerServiciosPorEmpresa(slug), "Servicios obtenidos exitosamente"));
     }
 
     /**
@@ -80,29 +107,72 @@ public class ControladorPublico {
     @GetMapping("/empresa/{slug}/profesionales")
     public ResponseEntity<ApiResponse<List<ProfesionalPublicoResponse>>> obtenerProfesionales(
             @PathVariable String slug,
-            @RequestParam Long servicioId
+            @RequestParam Long servicioId,
+            WebRequest webRequest
     ) {
-        List<ProfesionalPublicoResponse> profesionales = 
-                servicioPublico.obtenerProfesionalesPorServicio(slug, servicioId);
-        return ResponseEntity.ok(ApiResponse.exito(profesionales, "Profesionales obtenidos exitosamente"));
+        return responderConETag(webRequest, etagCatalogo(slug), () ->
+                ApiResponse.exito(servicioPublico.obtenerProfesionalesPorServicio(slug, servicioId),
+                        "Profesionales obtenidos exitosamente"));
     }
 
     /**
      * Obtener slots disponibles para reservar
      * GET /api/publico/disponibilidad?empresaSlug=X&servicioId=Y&profesionalId=Z&fecha=YYYY-MM-DD
+     * Sin profesionalId devuelve la unión de horarios de cualquier profesional habilitado.
+     * ETag fuerte por versión de agenda + catálogo: con If-None-Match vigente responde 304 sin calcular slots.
      */
     @GetMapping("/disponibilidad")
     public ResponseEntity<ApiResponse<List<SlotDisponibleResponse>>> obtenerDisponibilidad(
             @RequestParam String empresaSlug,
             @RequestParam Long servicioId,
-            @RequestParam Long profesionalId,
+            @RequestParam(required = false) Long profesionalId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
-            @RequestParam(required = false) Integer bloqueTotalMinutos
+            @RequestParam(required = false) Integer bloqueTotalMinutos,
+            WebRequest webRequest
     ) {
-        List<SlotDisponibleResponse> slots = servicioPublico.obtenerSlotsDisponibles(
-                empresaSlug, servicioId, profesionalId, fecha, bloqueTotalMinutos
+        return responderConETag(webRequest, etagDisponibilidad(empresaSlug, profesionalId, fecha), () ->
+                ApiResponse.exito(servicioPublico.obtenerSlotsDisponibles(
+                        empresaSlug, servicioId, profesionalId, fecha, bloqueTotalMinutos
+                ), "Slots disponibles obtenidos exitosamente"));
+    }
+
+    /**
+     * Obtener disponibilidad de un rango de días (calendario) en un solo request
+     * GET /api/publico/disponibilidad/calendario?empresaSlug=X&servicioId=Y&profesionalId=Z&desde=YYYY-MM-DD&hasta=YYYY-MM-DD
+     * Con soloIndicadores=true devuelve únicamente si cada día tiene disponibilidad (sin slots).
+     */
+    @GetMapping("/disponibilidad/calendario")
+    public ResponseEntity<ApiResponse<List<DisponibilidadDiaResponse>>> obtenerCalendarioDisponibilidad(
+            @RequestParam String empresaSlug,
+            @RequestParam Long servicioId,
+            @RequestParam Long profesionalId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) Integer bloqueTotalMinutos,
+            @RequestParam(defaultValue = "false") boolean soloIndicadores
+    ) {
+        List<DisponibilidadDiaResponse> calendario = servicioPublico.obtenerCalendarioDisponibilidad(
+                empresaSlug, servicioId, profesionalId, desde, hasta, bloqueTotalMinutos, soloIndicadores
         );
-        return ResponseEntity.ok(ApiResponse.exito(slots, "Slots disponibles obtenidos exitosamente"));
+        return ResponseEntity.ok(ApiResponse.exito(calendario, "Calendario de disponibilidad obtenido exitosamente"));
+    }
+
+    /**
+     * Obtener los próximos horarios libres desde hoy ("¿cuándo es el primer turno?")
+     * GET /api/publico/disponibilidad/proximos?empresaSlug=X&servicioId=Y[&profesionalId=Z][&cantidad=N]
+     * Sin profesionalId busca en cualquier profesional habilitado para el servicio.
+     */
+    @GetMapping("/disponibilidad/proximos")
+    public ResponseEntity<ApiResponse<List<SlotDisponibleResponse>>> obtenerProximosSlots(
+            @RequestParam String empresaSlug,
+            @RequestParam Long servicioId,
+            @RequestParam(required = false) Long profesionalId,
+            @RequestParam(defaultValue = "5") int cantidad
+    ) {
+        List<SlotDisponibleResponse> slots = servicioPublico.buscarProximosSlots(
+                empresaSlug, servicioId, profesionalId, cantidad
+        );
+        return ResponseEntity.ok(ApiResponse.exito(slots, "Próximos horarios disponibles obtenidos exitosamente"));
     }
 
     /**
@@ -121,6 +191,61 @@ public class ControladorPublico {
                 .body(ApiResponse.exito(turno, "Turno creado exitosamente"));
     }
 
+    /**
+     * Reservar una serie de turnos recurrentes (mismo horario cada semana, quincena, etc.)
+     * POST /api/publico/empresa/{empresaSlug}/turnos/serie
+     * 201 si se reservó al menos un turno; 409 con el detalle por ocurrencia si no se reservó ninguno.
+     */
+    @PostMapping("/empresa/{empresaSlug}/turnos/serie")
+    public ResponseEntity<ApiResponse<SerieTurnosResponse>> crearSerieTurnos(
+            @PathVariable String empresaSlug,
+            @AuthenticationPrincipal ClienteUserDetails clienteUserDetails,
+            @Valid @RequestBody CrearSerieTurnosRequest request
+    ) {
+        Cliente clienteAutenticado = clienteUserDetails != null ? clienteUserDetails.getCliente() : null;
+        SerieTurnosResponse serie = servicioSerieTurnos.crearSeriePublica(empresaSlug, clienteAutenticado, request);
+        if (serie.getReservados() == 0) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponse<>(false, "No se reservó ningún turno de la serie", serie));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.exito(serie, "Serie reservada: " + serie.getReservados() + " de " + serie.getSolicitados() + " turnos"));
+    }
+
+    /**
+     * Retener un horario mientras el cliente completa el formulario (TTL corto)
+     * POST /api/publico/empresa/{empresaSlug}/retenciones
+     * El token devuelto se envía como tokenRetencion al crear el turno.
+     * Una retención vigente por cliente (email, sesión o IP) y ritmo acotado por IP (429 al excederlo).
+     */
+    @PostMapping("/empresa/{empresaSlug}/retenciones")
+    public ResponseEntity<ApiResponse<RetencionResponse>> crearRetencion(
+            @PathVariable String empresaSlug,
+            @AuthenticationPrincipal ClienteUserDetails clienteUserDetails,
+            @Valid @RequestBody CrearRetencionRequest request,
+            HttpServletRequest httpRequest
+    ) {
+        Cliente clienteAutenticado = clienteUserDetails != null ? clienteUserDetails.getCliente() : null;
+        HttpSession sesion = httpRequest.getSession(false);
+        RetencionResponse retencion = servicioRetencionSlot.crearRetencion(empresaSlug, clienteAutenticado,
+                sesion != null ? sesion.getId() : null, httpRequest.getRemoteAddr(), request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.exito(retencion, "Horario retenido exitosamente"));
+    }
+
+    /**
+     * Liberar una retención antes de su vencimiento
+     * DELETE /api/publico/empresa/{empresaSlug}/retenciones/{token}
+     */
+    @DeleteMapping("/empresa/{empresaSlug}/retenciones/{token}")
+    public ResponseEntity<ApiResponse<Void>> liberarRetencion(
+            @PathVariable String empresaSlug,
+            @PathVariable String token
+    ) {
+        servicioRetencionSlot.liberarRetencion(empresaSlug, token);
+        return ResponseEntity.ok(ApiResponse.exito(null, "Retención liberada"));
+    }
+
     /**
      * Registrar cliente (convertir invitado en usuario con cuenta)
      * POST /api/publico/empresa/{empresaSlug}/registro-cliente
@@ -266,4 +391,37 @@ public class ControladorPublico {
         var dto = new TelefonoInfoResponse(existe, tieneUsuario, nombreEnmascarado);
         return ResponseEntity.ok(ApiResponse.exito(dto, "Información de teléfono obtenida"));
     }
+
+    /**
+     * Respuesta condicional: si If-None-Match coincide con el ETag se responde 304 sin ejecutar la consulta.
+     * no-cache obliga al navegador a revalidar siempre (el ETag es barato; el contenido no).
+     */
+    private <T> ResponseEntity<ApiResponse<T>> responderConETag(WebRequest webRequest, String etag,
+                                                                Supplier<ApiResponse<T>> cuerpo) {
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(cuerpo.get());
+    }
+
+    private String etagCatalogo(String empresaSlug) {
+        return "c" + versionesAgenda.epoca() + "-" + versionesAgenda.versionCatalogo(empresaSlug);
+    }
+
+    /**
+     * Versión de agenda del profesional (o de la empresa en modo "cualquier profesional") + catálogo
+     * (duraciones, configuración de anticipación/horizonte, habilitaciones).
+     * La hora UTC cubre el avance del horizonte de reserva; el minuto, el corte de anticipación de los días cercanos.
+     */
+    private String etagDisponibilidad(String empresaSlug, Long profesionalId, LocalDate fecha) {
+        long versionAgenda = profesionalId != null
+                ? versionesAgenda.versionAgenda(profesionalId, fecha)
+                : versionesAgenda.versionAgendaEmpresa(empresaSlug, fecha);
+        long ahora = System.currentTimeMillis();
+        boolean sensibleAlReloj = !fecha.isAfter(LocalDate.now(ZoneOffset.UTC).plusDays(DIAS_SENSIBLES_AL_RELOJ));
+        return "d" + versionesAgenda.epoca()
+                + "-" + versionAgenda
+                + "-" + versionesAgenda.versionCatalogo(empresaSlug)
+                + "-" + (sensibleAlReloj ? "m" + ahora / 60_000 : "h" + ahora / 3_600_000);
+    }
 }
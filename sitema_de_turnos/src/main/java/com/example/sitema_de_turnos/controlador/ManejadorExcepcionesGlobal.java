@@ -5,11 +5,13 @@ import com.example.sitema_de_turnos.dto.RespuestaApi;
 import com.example.sitema_de_turnos.excepcion.AccesoDenegadoException;
 import com.example.sitema_de_turnos.excepcion.CuentaDesactivadaException;
 import com.example.sitema_de_turnos.excepcion.HorarioEnUsoException;
+import com.example.sitema_de_turnos.excepcion.LimiteSolicitudesException;
 import com.example.sitema_de_turnos.excepcion.OperacionBloqueadaPorTurnosException;
 import com.example.sitema_de_turnos.excepcion.RecursoNoEncontradoException;
 import com.example.sitema_de_turnos.excepcion.SolapamientoException;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -90,8 +92,8 @@ public class ManejadorExcepcionesGlobal {
 
     /**
      * Maneja solapamiento de turnos (409) — más específico que ConflictoException.
-     * Cubre tanto el check en memoria como las race conditions resueltas por el
-     * índice único parcial {@code idx_turno_no_overlap} de PostgreSQL.
+     * Cubre los solapamientos que rechaza PostgreSQL: restricción de exclusión
+     * {@code turno_sin_solapamiento} e índice único parcial {@code idx_turno_no_overlap}.
      * Al ser subclase de ConflictoException, Spring prioriza este handler.
      */
     @ExceptionHandler(SolapamientoException.class)
@@ -167,6 +169,17 @@ public class ManejadorExcepcionesGlobal {
                 .body(RespuestaApi.error("No tienes permisos para acceder a este recurso"));
     }
 
+    /**
+     * Maneja el exceso de solicitudes desde un mismo origen (429) con Retry-After.
+     */
+    @ExceptionHandler(LimiteSolicitudesException.class)
+    public ResponseEntity<RespuestaApi<Void>> manejarLimiteSolicitudes(LimiteSolicitudesException ex) {
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getReintentarEnSegundos()))
+                .body(RespuestaApi.error(ex.getMessage()));
+    }
+
     /**
      * Maneja excepciones de negocio genéricas (400)
      */
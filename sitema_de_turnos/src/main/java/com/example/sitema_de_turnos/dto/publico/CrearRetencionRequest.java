@@ -0,0 +1,37 @@
+package com.example.sitema_de_turnos.dto.publico;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * Retener un horario mientras el cliente completa el formulario de reserva.
+ */
+@Data
+public class CrearRetencionRequest {
+
+    @NotNull(message = "El ID del servicio es obligatorio")
+    private Long servicioId;
+
+    @NotNull(message = "El ID del profesional es obligatorio")
+    private Long profesionalId;
+
+    @NotBlank(message = "La fecha es obligatoria")
+    @Pattern(regexp = "^\\d{4}-\\d{2}-\\d{2}$", message = "Formato de fecha inválido (yyyy-MM-dd)")
+    private String fecha;
+
+    @NotBlank(message = "La hora de inicio es obligatoria")
+    @Pattern(regexp = "^\\d{2}:\\d{2}$", message = "Formato de hora inválido (HH:mm)")
+    private String horaInicio;
+
+    /**
+     * Opcional: email del invitado si ya lo cargó. Con él la retención queda a su nombre (una vigente por
+     * email); sin él, a nombre de la sesión o de la IP de la solicitud.
+     */
+    @Email(message = "Formato de email inválido")
+    @Size(max = 150, message = "El email no puede exceder 150 caracteres")
+    private String emailCliente;
+}
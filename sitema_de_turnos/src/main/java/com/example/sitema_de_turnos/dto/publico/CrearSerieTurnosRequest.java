@@ -0,0 +1,65 @@
+package com.example.sitema_de_turnos.dto.publico;
+
+import jakarta.validation.constraints.*;
+import lombok.Data;
+
+/**
+ * Reserva de una serie de turnos recurrentes (mismo servicio, profesional y horario).
+ * Regla de recurrencia: a partir de {@code fechaInicio}, {@code repeticiones} ocurrencias separadas
+ * {@code intervalo} unidades de {@code frecuencia} (p.ej. SEMANAL + intervalo 2 = cada 15 días).
+ */
+@Data
+public class CrearSerieTurnosRequest {
+
+    public enum Frecuencia { DIARIA, SEMANAL, MENSUAL }
+
+    /**
+     * TODO_O_NADA: si alguna ocurrencia no está disponible no se reserva ninguna.
+     * MEJOR_ESFUERZO: se reservan las disponibles y se informa el motivo de las demás.
+     */
+    public enum Modo { TODO_O_NADA, MEJOR_ESFUERZO }
+
+    @NotNull(message = "El ID del servicio es obligatorio")
+    private Long servicioId;
+
+    // Obligatorio: la serie se reserva siempre con el mismo profesional
+    @NotNull(message = "El ID del profesional es obligatorio")
+    private Long profesionalId;
+
+    @NotBlank(message = "La fecha de inicio es obligatoria")
+    @Pattern(regexp = "^\\d{4}-\\d{2}-\\d{2}$", message = "Formato de fecha inválido (yyyy-MM-dd)")
+    private String fechaInicio;
+
+    @NotBlank(message = "La hora de inicio es obligatoria")
+    @Pattern(regexp = "^\\d{2}:\\d{2}$", message = "Formato de hora inválido (HH:mm)")
+    private String horaInicio;
+
+    @NotNull(message = "La frecuencia es obligatoria")
+    private Frecuencia frecuencia = Frecuencia.SEMANAL;
+
+    @Min(value = 1, message = "El intervalo debe ser al menos 1")
+    @Max(value = 4, message = "El intervalo no puede superar 4")
+    private int intervalo = 1;
+
+    @Min(value = 2, message = "Una serie tiene al menos 2 turnos")
+    @Max(value = 26, message = "Una serie no puede superar 26 turnos")
+    private int repeticiones;
+
+    @NotNull(message = "El modo es obligatorio")
+    private Modo modo = Modo.TODO_O_NADA;
+
+    // Datos del cliente
+    @NotBlank(message = "El nombre es obligatorio")
+    @Size(max = 100, message = "El nombre no puede exceder 100 caracteres")
+    private String nombreCliente;
+
+    @NotBlank(message = "El email es obligatorio")
+    @Email(message = "Formato de email inválido")
+    @Size(max = 150, message = "El email no puede exceder 150 caracteres")
+    private String emailCliente;
+
+    @Size(max = 20, message = "El teléfono no puede exceder 20 caracteres")
+    private String telefonoCliente; // Opcional - validación de formato en servicio
+
+    private String observaciones;
+}
@@ -9,7 +9,7 @@ public class CrearTurnoRequest {
     @NotNull(message = "El ID del servicio es obligatorio")
     private Long servicioId;
 
-    @NotNull(message = "El ID del profesional es obligatorio")
+    // Opcional: sin profesional se asigna al menos cargado entre los habilitados ("cualquier profesional")
     private Long profesionalId;
 
     @NotBlank(message = "La fecha es obligatoria")
@@ -34,4 +34,8 @@ public class CrearTurnoRequest {
     private String telefonoCliente; // Opcional - validación de formato en servicio
 
     private String observaciones;
+
+    // Opcional: token de una retención previa del mismo horario (POST /retenciones); se consume al reservar
+    @Size(max = 36, message = "Token de retención inválido")
+    private String tokenRetencion;
 }
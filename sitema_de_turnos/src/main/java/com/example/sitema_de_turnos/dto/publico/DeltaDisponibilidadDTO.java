@@ -0,0 +1,25 @@
+package com.example.sitema_de_turnos.dto.publico;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Delta de disponibilidad enviado por WebSocket a la página pública de reserva.
+ * Versión compacta: solo el intervalo afectado, el frontend recalcula sus slots.
+ *
+ * - OCUPADO: descartar los slots que se solapen con [horaInicio, horaFin).
+ * - LIBERADO: el intervalo quedó libre; volver a pedir /disponibilidad de esa fecha
+ *   (la grilla de inicios depende del servicio elegido y los huecos vecinos).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeltaDisponibilidadDTO {
+
+    private String tipo;
+    private Long profesionalId;
+    private String fecha;
+    private String horaInicio;
+    private String horaFin;
+}
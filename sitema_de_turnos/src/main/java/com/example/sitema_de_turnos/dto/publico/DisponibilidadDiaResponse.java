@@ -0,0 +1,21 @@
+package com.example.sitema_de_turnos.dto.publico;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Disponibilidad de un día dentro del calendario público (vista mensual/semanal).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DisponibilidadDiaResponse {
+    private LocalDate fecha;
+    private boolean tieneDisponibilidad;
+    private int cantidadSlots;
+    private List<SlotDisponibleResponse> slots; // null cuando se piden solo indicadores
+}
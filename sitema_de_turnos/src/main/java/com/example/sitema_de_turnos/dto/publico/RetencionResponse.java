@@ -0,0 +1,22 @@
+package com.example.sitema_de_turnos.dto.publico;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Retención creada. El token se envía como {@code tokenRetencion} al confirmar la reserva.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetencionResponse {
+
+    private String token;
+    private Long profesionalId;
+    private String fecha;
+    private String horaInicio;
+    private String horaFin;
+    /** Vencimiento en ISO-8601 UTC. */
+    private String expiraEn;
+}
@@ -0,0 +1,34 @@
+package com.example.sitema_de_turnos.dto.publico;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado de una reserva de serie: una entrada por ocurrencia, en orden cronológico.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SerieTurnosResponse {
+
+    private String modo;
+    private int solicitados;
+    private int reservados;
+    private List<Ocurrencia> ocurrencias;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Ocurrencia {
+        private String fecha;
+        private String horaInicio;
+        private boolean reservado;
+        /** Motivo del rechazo (null si se reservó). */
+        private String motivo;
+        /** Turno creado (null si no se reservó). */
+        private TurnoResponsePublico turno;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.sitema_de_turnos.evento;
+
+import com.example.sitema_de_turnos.modelo.DiaSemana;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Evento publicado cuando cambia la agenda de un profesional: un turno entra o sale de un
+ * estado ocupante (CONFIRMADO, PENDIENTE_PAGO), o cambian sus bloqueos o su disponibilidad.
+ *
+ * Se publica DENTRO de la transacción que hizo el cambio:
+ * - La caché de slots lo escucha de forma síncrona (invalida en el momento y al commit).
+ * - {@link AgendaModificadaEventListener} recalcula {@code franjas_libres} en AFTER_COMMIT,
+ *   así el recálculo lee el estado ya confirmado.
+ *
+ * {@code desde}/{@code hasta} nulos significan "todo el horizonte de reserva"; con {@code diasSemana}
+ * (cambio de disponibilidad semanal) solo las fechas del horizonte que caen en esos días.
+ * {@code empresaSlug} alimenta la versión de agenda por empresa (ETag del modo "cualquier profesional").
+ */
+public class AgendaModificadaEvent {
+
+    private final Long profesionalId;
+    private final String empresaSlug;
+    private final LocalDate desde;
+    private final LocalDate hasta;
+    private final Set<DayOfWeek> diasSemana;
+
+    private AgendaModificadaEvent(PerfilProfesional profesional, LocalDate desde, LocalDate hasta,
+                                  Set<DayOfWeek> diasSemana) {
+        this.profesionalId = profesional.getId();
+        this.empresaSlug = profesional.getEmpresa() != null ? profesional.getEmpresa().getSlug() : null;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.diasSemana = diasSemana;
+    }
+
+    public static AgendaModificadaEvent dia(PerfilProfesional profesional, LocalDate fecha) {
+        return new AgendaModificadaEvent(profesional, fecha, fecha, null);
+    }
+
+    public static AgendaModificadaEvent rango(PerfilProfesional profesional, LocalDate desde, LocalDate hasta) {
+        return new AgendaModificadaEvent(profesional, desde, hasta != null ? hasta : desde, null);
+    }
+
+    public static AgendaModificadaEvent todo(PerfilProfesional profesional) {
+        return new AgendaModificadaEvent(profesional, null, null, null);
+    }
+
+    /**
+     * Cambio de la disponibilidad semanal: afecta las fechas del horizonte que caen en esos días de la semana.
+     */
+    public static AgendaModificadaEvent diasSemana(PerfilProfesional profesional, DiaSemana... dias) {
+        Set<DayOfWeek> diasJava = EnumSet.noneOf(DayOfWeek.class);
+        Arrays.stream(dias).map(DiaSemana::toDayOfWeek).forEach(diasJava::add);
+        return new AgendaModificadaEvent(profesional, null, null, diasJava);
+    }
+
+    public Long getProfesionalId() {
+        return profesionalId;
+    }
+
+    public String getEmpresaSlug() {
+        return empresaSlug;
+    }
+
+    public LocalDate getDesde() {
+        return desde;
+    }
+
+    public LocalDate getHasta() {
+        return hasta;
+    }
+
+    /**
+     * Días de la semana afectados dentro del horizonte, o null si son todos.
+     */
+    public Set<DayOfWeek> getDiasSemana() {
+        return diasSemana;
+    }
+
+    public boolean esTodoElHorizonte() {
+        return desde == null;
+    }
+}
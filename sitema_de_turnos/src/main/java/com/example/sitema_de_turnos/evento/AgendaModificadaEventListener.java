@@ -0,0 +1,49 @@
+package com.example.sitema_de_turnos.evento;
+
+import com.example.sitema_de_turnos.servicio.agenda.ServicioFranjasLibres;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Recalcula las franjas libres afectadas por un {@link AgendaModificadaEvent}.
+ *
+ * La fase AFTER_COMMIT garantiza que el recálculo (en su propia transacción) ve el cambio
+ * confirmado y que un rollback no deja franjas calculadas sobre datos que nunca existieron.
+ * Si el recálculo falla, los días afectados se descartan del modelo de lectura: las consultas de
+ * slots vuelven a calcularlos en vivo hasta el próximo recálculo o la reconstrucción programada
+ * (FranjasLibresSchedulerService). Las reservas no dependen de él para validar.
+ */
+@Component
+@RequiredArgsConstructor
+public class AgendaModificadaEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AgendaModificadaEventListener.class);
+
+    private final ServicioFranjasLibres servicioFranjasLibres;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAgendaModificada(AgendaModificadaEvent event) {
+        try {
+            servicioFranjasLibres.recalcular(event.getProfesionalId(), event.getDesde(), event.getHasta(),
+                    event.getDiasSemana());
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudieron recalcular franjas libres para profesional {} ({} - {}): {}. Se descartan esos días",
+                    event.getProfesionalId(), event.getDesde(), event.getHasta(), e.getMessage());
+            descartar(event);
+        }
+    }
+
+    private void descartar(AgendaModificadaEvent event) {
+        try {
+            servicioFranjasLibres.descartar(event.getProfesionalId(), event.getDesde(), event.getHasta(),
+                    event.getDiasSemana());
+        } catch (Exception e) {
+            log.error("❌ No se pudieron descartar franjas libres para profesional {} ({} - {}): quedan desfasadas " +
+                    "hasta la reconstrucción programada", event.getProfesionalId(), event.getDesde(), event.getHasta(), e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.sitema_de_turnos.evento;
+
+/**
+ * Evento publicado cuando cambia el catálogo público de una empresa: datos o configuración de la empresa,
+ * servicios, profesionales o la habilitación profesional-servicio.
+ *
+ * Avanza la versión de catálogo ({@link com.example.sitema_de_turnos.servicio.agenda.VersionesAgenda})
+ * al confirmar la transacción y descarta el snapshot de
+ * {@link com.example.sitema_de_turnos.servicio.catalogo.CacheCatalogoEmpresa}; no invalida cachés de slots.
+ */
+public class CatalogoModificadoEvent {
+
+    private final Long empresaId;
+    private final String empresaSlug;
+
+    public CatalogoModificadoEvent(Long empresaId, String empresaSlug) {
+        this.empresaId = empresaId;
+        this.empresaSlug = empresaSlug;
+    }
+
+    public Long getEmpresaId() {
+        return empresaId;
+    }
+
+    public String getEmpresaSlug() {
+        return empresaSlug;
+    }
+}
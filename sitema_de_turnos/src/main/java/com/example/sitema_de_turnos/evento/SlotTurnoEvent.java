@@ -0,0 +1,91 @@
+package com.example.sitema_de_turnos.evento;
+
+import com.example.sitema_de_turnos.modelo.Turno;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Evento publicado cuando un turno ocupa o libera su intervalo en la agenda
+ * (creación, cancelación, reprogramación, cambio de estado o expiración por falta de pago),
+ * o cuando una retención temporal de checkout lo toma o lo suelta ({@link #esRetencion()}).
+ *
+ * Los de turno se publican junto con {@link AgendaModificadaEvent} dentro de la transacción; los datos
+ * se copian del turno en ese momento para que el listener AFTER_COMMIT no toque entidades fuera de sesión.
+ * Los de retención no cambian la agenda persistida, así que van sin {@link AgendaModificadaEvent}.
+ * {@link SlotTurnoEventListener} lo reenvía como delta a los tópicos públicos de disponibilidad.
+ */
+public class SlotTurnoEvent {
+
+    public enum Tipo { OCUPADO, LIBERADO }
+
+    private final Tipo tipo;
+    private final String empresaSlug;
+    private final Long profesionalId;
+    private final LocalDate fecha;
+    private final LocalTime horaInicio;
+    private final LocalTime horaFin;
+    private final boolean retencion;
+
+    private SlotTurnoEvent(Tipo tipo, String empresaSlug, Long profesionalId, LocalDate fecha,
+                           LocalTime horaInicio, LocalTime horaFin, boolean retencion) {
+        this.tipo = tipo;
+        this.empresaSlug = empresaSlug;
+        this.profesionalId = profesionalId;
+        this.fecha = fecha;
+        this.horaInicio = horaInicio;
+        this.horaFin = horaFin;
+        this.retencion = retencion;
+    }
+
+    private SlotTurnoEvent(Tipo tipo, Turno turno) {
+        this(tipo, turno.getEmpresa().getSlug(), turno.getProfesional().getId(), turno.getFecha(),
+                turno.getHoraInicio(), turno.getHoraFin(), false);
+    }
+
+    public static SlotTurnoEvent ocupado(Turno turno) {
+        return new SlotTurnoEvent(Tipo.OCUPADO, turno);
+    }
+
+    public static SlotTurnoEvent liberado(Turno turno) {
+        return new SlotTurnoEvent(Tipo.LIBERADO, turno);
+    }
+
+    public static SlotTurnoEvent retenido(String empresaSlug, Long profesionalId, LocalDate fecha,
+                                          LocalTime horaInicio, LocalTime horaFin) {
+        return new SlotTurnoEvent(Tipo.OCUPADO, empresaSlug, profesionalId, fecha, horaInicio, horaFin, true);
+    }
+
+    public static SlotTurnoEvent retencionLiberada(String empresaSlug, Long profesionalId, LocalDate fecha,
+                                                   LocalTime horaInicio, LocalTime horaFin) {
+        return new SlotTurnoEvent(Tipo.LIBERADO, empresaSlug, profesionalId, fecha, horaInicio, horaFin, true);
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public String getEmpresaSlug() {
+        return empresaSlug;
+    }
+
+    public Long getProfesionalId() {
+        return profesionalId;
+    }
+
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    public LocalTime getHoraInicio() {
+        return horaInicio;
+    }
+
+    public LocalTime getHoraFin() {
+        return horaFin;
+    }
+
+    public boolean esRetencion() {
+        return retencion;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.sitema_de_turnos.evento;
+
+import com.example.sitema_de_turnos.servicio.agenda.PublicadorDisponibilidadEnVivo;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Empuja el delta de un {@link SlotTurnoEvent} a las páginas públicas de reserva.
+ *
+ * AFTER_COMMIT: un cliente nunca ve "10:30 ocupado" por una reserva que terminó en rollback
+ * (p. ej. perdió la carrera contra turno_sin_solapamiento). Si el envío falla solo se pierde
+ * el aviso; la reserva sigue validándose contra la base al confirmar.
+ */
+@Component
+@RequiredArgsConstructor
+public class SlotTurnoEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotTurnoEventListener.class);
+
+    private final PublicadorDisponibilidadEnVivo publicadorDisponibilidadEnVivo;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSlotTurno(SlotTurnoEvent event) {
+        try {
+            publicadorDisponibilidadEnVivo.publicar(event);
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo publicar delta de disponibilidad para profesional {} ({} {}): {}",
+                    event.getProfesionalId(), event.getFecha(), event.getHoraInicio(), e.getMessage());
+        }
+    }
+}
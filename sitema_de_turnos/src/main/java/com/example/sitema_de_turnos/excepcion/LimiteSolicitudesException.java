@@ -0,0 +1,22 @@
+package com.example.sitema_de_turnos.excepcion;
+
+/**
+ * Excepción lanzada cuando un origen supera el ritmo permitido en un endpoint público
+ * (por ejemplo, creación de retenciones de horarios).
+ *
+ * Mapeada a HTTP 429 Too Many Requests por el {@code ManejadorExcepcionesGlobal},
+ * con el header {@code Retry-After} en segundos.
+ */
+public class LimiteSolicitudesException extends RuntimeException {
+
+    private final long reintentarEnSegundos;
+
+    public LimiteSolicitudesException(String mensaje, long reintentarEnSegundos) {
+        super(mensaje);
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+    public long getReintentarEnSegundos() {
+        return reintentarEnSegundos;
+    }
+}
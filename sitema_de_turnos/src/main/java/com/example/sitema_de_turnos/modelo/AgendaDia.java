@@ -0,0 +1,55 @@
+package com.example.sitema_de_turnos.modelo;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Día materializado de la agenda de un profesional (modelo de lectura).
+ *
+ * Su existencia indica que las {@link FranjaLibre} del día están calculadas: un día sin franjas
+ * (bloqueado, sin disponibilidad o completo) igual tiene su fila, para distinguirlo de un día
+ * todavía no materializado. Lo mantiene {@code ServicioFranjasLibres}.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "agenda_dias",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_agenda_dia_profesional_fecha", columnNames = {"profesional_id", "fecha"})
+    }
+)
+public class AgendaDia {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "profesional_id", nullable = false)
+    private PerfilProfesional profesional;
+
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @OneToMany(mappedBy = "agendaDia", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("horaInicio ASC")
+    private List<FranjaLibre> franjas = new ArrayList<>();
+
+    /**
+     * Momento (UTC) del último recálculo de las franjas.
+     */
+    @Column(name = "fecha_calculo", nullable = false)
+    private LocalDateTime fechaCalculo;
+}
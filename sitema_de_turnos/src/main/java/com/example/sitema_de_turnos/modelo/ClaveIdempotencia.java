@@ -0,0 +1,44 @@
+package com.example.sitema_de_turnos.modelo;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Respuesta registrada para un header {@code Idempotency-Key} (reintentos del bot / del frontend).
+ *
+ * {@code clave} es el SHA-256 de (usuario, método, ruta, Idempotency-Key) y {@code huella} el SHA-256 del
+ * cuerpo: la misma clave con otro cuerpo se rechaza. Mientras la solicitud original se procesa,
+ * {@code estadoHttp} es null; una fila vencida no tiene efecto aunque todavía no se haya borrado.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "claves_idempotencia",
+    indexes = {
+        @Index(name = "idx_idempotencia_expira", columnList = "expira_en")
+    }
+)
+public class ClaveIdempotencia {
+
+    @Id
+    @Column(length = 64)
+    private String clave;
+
+    @Column(nullable = false, length = 64)
+    private String huella;
+
+    @Column(name = "estado_http")
+    private Integer estadoHttp;
+
+    @Column(name = "tipo_contenido", length = 100)
+    private String tipoContenido;
+
+    @Column(name = "cuerpo_respuesta", columnDefinition = "TEXT")
+    private String cuerpoRespuesta;
+
+    @Column(name = "expira_en", nullable = false)
+    private Instant expiraEn;
+}
@@ -23,4 +23,17 @@ public enum DiaSemana {
             case DOMINGO   -> DayOfWeek.SUNDAY;
         };
     }
+
+    /** Convierte un {@link DayOfWeek} de Java al valor equivalente. */
+    public static DiaSemana fromDayOfWeek(DayOfWeek dayOfWeek) {
+        return switch (dayOfWeek) {
+            case MONDAY    -> LUNES;
+            case TUESDAY   -> MARTES;
+            case WEDNESDAY -> MIERCOLES;
+            case THURSDAY  -> JUEVES;
+            case FRIDAY    -> VIERNES;
+            case SATURDAY  -> SABADO;
+            case SUNDAY    -> DOMINGO;
+        };
+    }
 }
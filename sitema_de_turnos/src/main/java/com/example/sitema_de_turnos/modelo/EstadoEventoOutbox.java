@@ -0,0 +1,8 @@
+package com.example.sitema_de_turnos.modelo;
+
+public enum EstadoEventoOutbox {
+    PENDIENTE,
+    EN_PROCESO,
+    PROCESADO,
+    FALLIDO
+}
@@ -0,0 +1,67 @@
+package com.example.sitema_de_turnos.modelo;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Evento del outbox transaccional: se inserta en la MISMA transacción que el cambio que lo origina
+ * (reserva, reprogramación, pago, expiración), así un rollback nunca deja un correo o notificación
+ * enviados por un turno que no existe. Lo consume {@code DespachadorOutbox}.
+ *
+ * {@code proximoIntento} es a la vez el momento del próximo reintento (PENDIENTE) y el vencimiento
+ * del reclamo (EN_PROCESO): si el nodo que lo reclamó muere, otro lo vuelve a tomar al vencer.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "outbox_eventos",
+    indexes = {
+        // Reclamo de lotes: WHERE estado IN (...) AND proximo_intento <= ? ORDER BY id
+        @Index(name = "idx_outbox_estado_proximo", columnList = "estado, proximo_intento, id")
+    }
+)
+public class EventoOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private TipoEventoOutbox tipo;
+
+    @Column(name = "agregado_id")
+    private Long agregadoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoEventoOutbox estado = EstadoEventoOutbox.PENDIENTE;
+
+    @Column(nullable = false)
+    private Integer intentos = 0;
+
+    /** UTC. */
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion", nullable = false, updatable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_procesado")
+    private LocalDateTime fechaProcesado;
+
+    @PrePersist
+    protected void onCreate() {
+        fechaCreacion = LocalDateTime.now(ZoneOffset.UTC);
+        if (proximoIntento == null) {
+            proximoIntento = fechaCreacion;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.sitema_de_turnos.modelo;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalTime;
+
+/**
+ * Intervalo libre [horaInicio, horaFin) dentro de un rango de disponibilidad de un {@link AgendaDia}:
+ * disponibilidad del profesional menos turnos ocupantes (CONFIRMADO, PENDIENTE_PAGO).
+ * Los slots de un servicio se generan a partir del inicio de cada franja.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "franjas_libres",
+    indexes = {
+        @Index(name = "idx_franja_agenda_dia", columnList = "agenda_dia_id, hora_inicio")
+    },
+    check = {
+        @CheckConstraint(name = "chk_franja_rango_valido", constraint = "hora_fin > hora_inicio")
+    }
+)
+public class FranjaLibre {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "agenda_dia_id", nullable = false)
+    private AgendaDia agendaDia;
+
+    @Column(name = "hora_inicio", nullable = false)
+    private LocalTime horaInicio;
+
+    @Column(name = "hora_fin", nullable = false)
+    private LocalTime horaFin;
+}
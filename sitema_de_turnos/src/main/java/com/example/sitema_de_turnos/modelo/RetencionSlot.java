@@ -0,0 +1,72 @@
+package com.example.sitema_de_turnos.modelo;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Retención temporal de un intervalo de agenda mientras el cliente completa el formulario de reserva.
+ *
+ * La copia en memoria ({@code RegistroRetenciones}) es la que filtra los slots publicados; esta tabla es
+ * el respaldo para varios nodos: la reserva la consulta bajo el advisory lock de agenda, así una retención
+ * creada en otro nodo también se respeta. Una fila vencida no tiene efecto aunque todavía no se haya borrado.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "retenciones_slot",
+    indexes = {
+        @Index(name = "idx_retencion_profesional_fecha", columnList = "profesional_id, fecha, expira_en"),
+        @Index(name = "idx_retencion_titular", columnList = "titular, expira_en"),
+        @Index(name = "idx_retencion_origen", columnList = "origen, expira_en")
+    },
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_retencion_token", columnNames = {"token"})
+    },
+    check = {
+        @CheckConstraint(name = "chk_retencion_rango_valido", constraint = "hora_fin > hora_inicio")
+    }
+)
+public class RetencionSlot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String token;
+
+    @Column(name = "empresa_slug", nullable = false, length = 100)
+    private String empresaSlug;
+
+    @Column(name = "profesional_id", nullable = false)
+    private Long profesionalId;
+
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @Column(name = "hora_inicio", nullable = false)
+    private LocalTime horaInicio;
+
+    /** Incluye el buffer del servicio, igual que {@link Turno#getHoraFin()}. */
+    @Column(name = "hora_fin", nullable = false)
+    private LocalTime horaFin;
+
+    @Column(name = "expira_en", nullable = false)
+    private Instant expiraEn;
+
+    /**
+     * Quién retiene: email normalizado del cliente, {@code sesion:<id>} o {@code ip:<origen>} si es anónimo.
+     * Cada titular tiene a lo sumo una retención vigente (la nueva reemplaza a la anterior).
+     */
+    @Column(length = 160)
+    private String titular;
+
+    /** IP de la solicitud; acota las retenciones vigentes por origen aunque cambie el email. */
+    @Column(length = 45)
+    private String origen;
+}
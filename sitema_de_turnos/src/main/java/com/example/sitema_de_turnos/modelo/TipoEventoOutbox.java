@@ -0,0 +1,14 @@
+package com.example.sitema_de_turnos.modelo;
+
+/**
+ * Efectos secundarios diferidos al outbox. {@code agregadoId} es el id de turno para los correos
+ * y el id de notificación para WebSocket / push.
+ */
+public enum TipoEventoOutbox {
+    CORREO_CONFIRMACION_TURNO,
+    CORREO_REPROGRAMACION_CLIENTE,
+    CORREO_REPROGRAMACION_PROFESIONAL,
+    CORREO_TURNO_EXPIRADO,
+    WEBSOCKET_NOTIFICACION,
+    PUSH_NOTIFICACION
+}
@@ -26,6 +26,10 @@ import java.time.ZoneOffset;
         // Índice para reportes por empresa y fecha de creación
         @Index(name = "idx_turno_empresa_fecha_creacion", 
                columnList = "empresa_id, fecha_creacion"),
+
+        // Superposición global del cliente: clientes por lower(email) → turnos del cliente en la fecha
+        @Index(name = "idx_turno_cliente_fecha",
+               columnList = "cliente_id, fecha"),
         
         // Índice optimizado para job batch de recordatorios
         // Query típica: WHERE empresa_id = ? AND fecha = ? AND estado = 'CONFIRMADO' ORDER BY hora_inicio
@@ -176,6 +180,13 @@ public class Turno {
     @Column(name = "recordatorio_primer_intento")
     private LocalDateTime recordatorioPrimerIntento;
 
+    /**
+     * Cuándo reintentar un recordatorio que falló (backoff exponencial).
+     * Mientras no llegue, el scheduler no lo reclama; NULL = sin reintento pendiente.
+     */
+    @Column(name = "recordatorio_proximo_intento")
+    private LocalDateTime recordatorioProximoIntento;
+
     /**
      * Número de intentos de envío de recordatorio
      */
@@ -0,0 +1,73 @@
+package com.example.sitema_de_turnos.repositorio;
+
+import com.example.sitema_de_turnos.modelo.AgendaDia;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RepositorioAgendaDia extends JpaRepository<AgendaDia, Long> {
+
+    /**
+     * Día materializado con sus franjas libres en una sola consulta
+     * (unique (profesional_id, fecha) + idx_franja_agenda_dia).
+     */
+    @Query("SELECT DISTINCT a FROM AgendaDia a LEFT JOIN FETCH a.franjas " +
+           "WHERE a.profesional.id = :profesionalId AND a.fecha = :fecha")
+    Optional<AgendaDia> findConFranjas(
+        @Param("profesionalId") Long profesionalId,
+        @Param("fecha") LocalDate fecha
+    );
+
+    /**
+     * Días materializados de un rango con sus franjas (vista calendario).
+     */
+    @Query("SELECT DISTINCT a FROM AgendaDia a LEFT JOIN FETCH a.franjas " +
+           "WHERE a.profesional.id = :profesionalId AND a.fecha BETWEEN :desde AND :hasta")
+    List<AgendaDia> findConFranjasEnRango(
+        @Param("profesionalId") Long profesionalId,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+
+    /**
+     * Días materializados de varios profesionales en un rango, con sus franjas
+     * (disponibilidad combinada, búsqueda del próximo turno libre).
+     */
+    @Query("SELECT DISTINCT a FROM AgendaDia a LEFT JOIN FETCH a.franjas " +
+           "WHERE a.profesional.id IN :profesionalIds AND a.fecha BETWEEN :desde AND :hasta")
+    List<AgendaDia> findConFranjasDeProfesionalesEnRango(
+        @Param("profesionalIds") Collection<Long> profesionalIds,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+
+    /**
+     * Bloquea (SELECT ... FOR UPDATE) los días ya materializados del rango, para que dos
+     * recálculos concurrentes del mismo profesional se serialicen.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM AgendaDia a WHERE a.profesional = :profesional AND a.fecha BETWEEN :desde AND :hasta")
+    List<AgendaDia> findEnRangoForUpdate(
+        @Param("profesional") PerfilProfesional profesional,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+
+    /**
+     * Purga de días que ya pasaron (sus franjas se borran antes con RepositorioFranjaLibre).
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM AgendaDia a WHERE a.fecha < :fecha")
+    int eliminarAnterioresA(@Param("fecha") LocalDate fecha);
+}
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -57,4 +58,27 @@ public interface RepositorioBloqueoFecha extends JpaRepository<BloqueoFecha, Lon
             @Param("fechaInicio") LocalDate fechaInicio,
             @Param("fechaFin") LocalDate fechaFin
     );
+
+    /**
+     * Versión de {@link #findBloqueosEnRango} para varios profesionales en una sola consulta.
+     */
+    @Query("""
+        SELECT b FROM BloqueoFecha b 
+        WHERE b.profesional IN :profesionales 
+        AND b.activo = true 
+        AND (
+            (b.fechaFin IS NULL AND b.fechaInicio BETWEEN :fechaInicio AND :fechaFin)
+            OR
+            (b.fechaFin IS NOT NULL AND (
+                (b.fechaInicio BETWEEN :fechaInicio AND :fechaFin)
+                OR (b.fechaFin BETWEEN :fechaInicio AND :fechaFin)
+                OR (b.fechaInicio <= :fechaInicio AND b.fechaFin >= :fechaFin)
+            ))
+        )
+        """)
+    List<BloqueoFecha> findBloqueosEnRangoByProfesionales(
+            @Param("profesionales") Collection<PerfilProfesional> profesionales,
+            @Param("fechaInicio") LocalDate fechaInicio,
+            @Param("fechaFin") LocalDate fechaFin
+    );
 }
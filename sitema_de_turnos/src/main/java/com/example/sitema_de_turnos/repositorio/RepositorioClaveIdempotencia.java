@@ -0,0 +1,47 @@
+package com.example.sitema_de_turnos.repositorio;
+
+import com.example.sitema_de_turnos.modelo.ClaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface RepositorioClaveIdempotencia extends JpaRepository<ClaveIdempotencia, String> {
+
+    /**
+     * Tomar la clave para procesar la solicitud. Inserta la fila "en proceso" o reutiliza una vencida;
+     * devuelve 0 si la clave ya está en uso (en proceso o con respuesta vigente). Atómico entre nodos.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO claves_idempotencia (clave, huella, expira_en) VALUES (:clave, :huella, :expiraEn) " +
+                   "ON CONFLICT (clave) DO UPDATE SET huella = EXCLUDED.huella, expira_en = EXCLUDED.expira_en, " +
+                   "estado_http = NULL, tipo_contenido = NULL, cuerpo_respuesta = NULL " +
+                   "WHERE claves_idempotencia.expira_en <= :ahora",
+           nativeQuery = true)
+    int reservar(@Param("clave") String clave, @Param("huella") String huella,
+                 @Param("expiraEn") Instant expiraEn, @Param("ahora") Instant ahora);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ClaveIdempotencia c SET c.estadoHttp = :estadoHttp, c.tipoContenido = :tipoContenido, " +
+           "c.cuerpoRespuesta = :cuerpo, c.expiraEn = :expiraEn WHERE c.clave = :clave")
+    int completar(@Param("clave") String clave, @Param("estadoHttp") int estadoHttp,
+                  @Param("tipoContenido") String tipoContenido, @Param("cuerpo") String cuerpo,
+                  @Param("expiraEn") Instant expiraEn);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.clave = :clave AND c.estadoHttp IS NULL")
+    int liberar(@Param("clave") String clave);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.expiraEn <= :ahora")
+    int eliminarVencidas(@Param("ahora") Instant ahora);
+}
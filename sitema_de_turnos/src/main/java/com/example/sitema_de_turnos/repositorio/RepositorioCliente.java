@@ -6,7 +6,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -82,4 +84,68 @@ public interface RepositorioCliente extends JpaRepository<Cliente, Long> {
      * Verificar si existe un nombre de usuario en una empresa
      */
     boolean existsByEmpresaAndNombreUsuarioAndActivoTrue(Empresa empresa, String nombreUsuario);
+
+    /**
+     * Obtener o crear (como invitado) el cliente de la empresa con ese email, en UNA sentencia.
+     *
+     * OPTIMIZADO: reemplaza SELECT → INSERT → (violación de unicidad) → SELECT. Si el cliente existe se
+     * devuelve sin escribir; si no, se inserta. Si otra transacción lo inserta en paralelo, ON CONFLICT
+     * sobre uk_cliente_empresa_email espera su commit y devuelve esa fila, sin excepción: en PostgreSQL
+     * la violación abortaba la transacción de la reserva y el SELECT de recuperación ya no podía correr.
+     *
+     * Puede devolver un cliente con cuenta o inactivo: lo decide el llamador. Un teléfono ya usado por
+     * OTRO cliente sigue violando uk_cliente_empresa_telefono (DataIntegrityViolationException).
+     * {@code @Transactional} de escritura: los métodos de consulta heredan readOnly del repositorio.
+     */
+    @Transactional
+    @Query(value = """
+        WITH existente AS (
+            SELECT * FROM clientes WHERE empresa_id = :empresaId AND email = :email
+        ), creado AS (
+            INSERT INTO clientes (empresa_id, nombre, email, telefono, tiene_usuario, telefono_validado, activo,
+                                  fecha_creacion, fecha_actualizacion)
+            SELECT :empresaId, :nombre, :email, :telefono, false, :telefonoValidado, true, :ahora, :ahora
+            WHERE NOT EXISTS (SELECT 1 FROM existente)
+            ON CONFLICT (empresa_id, email) DO UPDATE SET email = EXCLUDED.email
+            RETURNING *
+        )
+        SELECT * FROM existente
+        UNION ALL
+        SELECT * FROM creado
+        """, nativeQuery = true)
+    Cliente obtenerOCrearPorEmail(
+            @Param("empresaId") Long empresaId,
+            @Param("email") String email,
+            @Param("nombre") String nombre,
+            @Param("telefono") String telefono,
+            @Param("telefonoValidado") boolean telefonoValidado,
+            @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Igual que {@link #obtenerOCrearPorEmail}, con el teléfono como identidad (integraciones por WhatsApp).
+     * Un email ya usado por OTRO cliente sigue violando uk_cliente_empresa_email.
+     */
+    @Transactional
+    @Query(value = """
+        WITH existente AS (
+            SELECT * FROM clientes WHERE empresa_id = :empresaId AND telefono = :telefono
+        ), creado AS (
+            INSERT INTO clientes (empresa_id, nombre, email, telefono, tiene_usuario, telefono_validado, activo,
+                                  fecha_creacion, fecha_actualizacion)
+            SELECT :empresaId, :nombre, :email, :telefono, false, :telefonoValidado, true, :ahora, :ahora
+            WHERE NOT EXISTS (SELECT 1 FROM existente)
+            ON CONFLICT (empresa_id, telefono) DO UPDATE SET telefono = EXCLUDED.telefono
+            RETURNING *
+        )
+        SELECT * FROM existente
+        UNION ALL
+        SELECT * FROM creado
+        """, nativeQuery = true)
+    Cliente obtenerOCrearPorTelefono(
+            @Param("empresaId") Long empresaId,
+            @Param("telefono") String telefono,
+            @Param("nombre") String nombre,
+            @Param("email") String email,
+            @Param("telefonoValidado") boolean telefonoValidado,
+            @Param("ahora") LocalDateTime ahora);
 }
@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -22,6 +23,12 @@ public interface RepositorioDisponibilidadProfesional extends JpaRepository<Disp
        @EntityGraph(attributePaths = {"profesional"})
        List<DisponibilidadProfesional> findByProfesionalAndActivoTrue(PerfilProfesional profesional);
     
+       /**
+        * Disponibilidad semanal activa de varios profesionales en una sola consulta.
+        * Sin EntityGraph: el cálculo de slots solo usa el id del profesional.
+        */
+       List<DisponibilidadProfesional> findByProfesionalInAndActivoTrue(Collection<PerfilProfesional> profesionales);
+    
        @EntityGraph(attributePaths = {"profesional"})
        List<DisponibilidadProfesional> findByProfesionalAndDiaSemana(PerfilProfesional profesional, DiaSemana diaSemana);
     
@@ -0,0 +1,51 @@
+package com.example.sitema_de_turnos.repositorio;
+
+import com.example.sitema_de_turnos.modelo.EstadoEventoOutbox;
+import com.example.sitema_de_turnos.modelo.EventoOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RepositorioEventoOutbox extends JpaRepository<EventoOutbox, Long> {
+
+    /**
+     * Lote de eventos listos (pendientes o con reclamo vencido), bloqueados para esta transacción.
+     * SKIP LOCKED: varios despachadores (hilos o nodos) reclaman lotes disjuntos sin esperarse.
+     * Debe llamarse dentro de una transacción que marque los eventos como EN_PROCESO antes de confirmar.
+     */
+    @Query(value = "SELECT * FROM outbox_eventos " +
+                   "WHERE estado IN ('PENDIENTE', 'EN_PROCESO') AND proximo_intento <= :ahora " +
+                   "ORDER BY id LIMIT :lote FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<EventoOutbox> reclamarLote(@Param("ahora") LocalDateTime ahora, @Param("lote") int lote);
+
+    /**
+     * Cerrar un evento solo si sigue siendo el reclamo de este despachador (mismo número de intento):
+     * si el reclamo venció y otro lo tomó, devuelve 0 y quien llama debe descartar su trabajo.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE EventoOutbox e SET e.estado = :estado, e.fechaProcesado = :ahora, e.ultimoError = :error " +
+           "WHERE e.id = :id AND e.intentos = :intentos AND e.estado = 'EN_PROCESO'")
+    int cerrar(@Param("id") Long id, @Param("intentos") Integer intentos, @Param("estado") EstadoEventoOutbox estado,
+               @Param("ahora") LocalDateTime ahora, @Param("error") String error);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EventoOutbox e SET e.estado = 'PENDIENTE', e.proximoIntento = :proximoIntento, e.ultimoError = :error " +
+           "WHERE e.id = :id AND e.intentos = :intentos AND e.estado = 'EN_PROCESO'")
+    int reprogramar(@Param("id") Long id, @Param("intentos") Integer intentos,
+                    @Param("proximoIntento") LocalDateTime proximoIntento, @Param("error") String error);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EventoOutbox e WHERE e.estado = 'PROCESADO' AND e.fechaProcesado < :limite")
+    int eliminarProcesadosAnterioresA(@Param("limite") LocalDateTime limite);
+}
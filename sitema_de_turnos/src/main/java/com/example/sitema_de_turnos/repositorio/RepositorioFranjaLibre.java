@@ -0,0 +1,31 @@
+package com.example.sitema_de_turnos.repositorio;
+
+import com.example.sitema_de_turnos.modelo.FranjaLibre;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RepositorioFranjaLibre extends JpaRepository<FranjaLibre, Long> {
+
+    /**
+     * Borra las franjas de los días indicados (1 sola query) antes de reinsertarlas al recalcular.
+     * Sin clearAutomatically: los AgendaDia bloqueados FOR UPDATE siguen gestionados.
+     */
+    @Modifying
+    @Query("DELETE FROM FranjaLibre f WHERE f.agendaDia.id IN :agendaDiaIds")
+    int eliminarPorAgendaDias(@Param("agendaDiaIds") List<Long> agendaDiaIds);
+
+    /**
+     * Purga de franjas de días que ya pasaron (el bulk delete de JPQL no aplica el cascade).
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM FranjaLibre f WHERE f.agendaDia.id IN " +
+           "(SELECT a.id FROM AgendaDia a WHERE a.fecha < :fecha)")
+    int eliminarAnterioresA(@Param("fecha") LocalDate fecha);
+}
@@ -27,4 +27,22 @@ public interface RepositorioProfesionalServicio extends JpaRepository<Profesiona
         @Param("servicio") Servicio servicio,
         @Param("tenantId") Long tenantId
     );
+
+    /**
+     * Habilitaciones activas (profesional activo, servicio) de una empresa, en una sola consulta
+     * (snapshot de catálogo por tenant).
+     */
+    @Query("SELECT ps.profesional.id AS profesionalId, ps.servicio.id AS servicioId FROM ProfesionalServicio ps " +
+           "WHERE ps.activo = true " +
+           "AND ps.profesional.activo = true " +
+           "AND ps.profesional.empresa.id = :tenantId")
+    List<HabilitacionServicio> findHabilitacionesActivasByTenantId(@Param("tenantId") Long tenantId);
+
+    /**
+     * Proyección de {@link #findHabilitacionesActivasByTenantId}.
+     */
+    interface HabilitacionServicio {
+        Long getProfesionalId();
+        Long getServicioId();
+    }
 }
@@ -0,0 +1,65 @@
+package com.example.sitema_de_turnos.repositorio;
+
+import com.example.sitema_de_turnos.modelo.RetencionSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RepositorioRetencionSlot extends JpaRepository<RetencionSlot, Long> {
+
+    Optional<RetencionSlot> findByToken(String token);
+
+    /**
+     * Retenciones vigentes del profesional que se superponen con [horaInicio, horaFin) (intervalos semiabiertos).
+     */
+    @Query("SELECT r FROM RetencionSlot r WHERE r.profesionalId = :profesionalId AND r.fecha = :fecha " +
+           "AND r.expiraEn > :ahora AND r.horaInicio < :horaFin AND r.horaFin > :horaInicio")
+    List<RetencionSlot> findVigentesSolapadas(@Param("profesionalId") Long profesionalId,
+                                              @Param("fecha") LocalDate fecha,
+                                              @Param("horaInicio") LocalTime horaInicio,
+                                              @Param("horaFin") LocalTime horaFin,
+                                              @Param("ahora") Instant ahora);
+
+    /**
+     * Retenciones vigentes de un profesional en [desde, hasta] (reserva de series: una consulta por serie).
+     */
+    @Query("SELECT r FROM RetencionSlot r WHERE r.profesionalId = :profesionalId " +
+           "AND r.fecha BETWEEN :desde AND :hasta AND r.expiraEn > :ahora")
+    List<RetencionSlot> findVigentesEnRango(@Param("profesionalId") Long profesionalId,
+                                            @Param("desde") LocalDate desde,
+                                            @Param("hasta") LocalDate hasta,
+                                            @Param("ahora") Instant ahora);
+
+    List<RetencionSlot> findByExpiraEnAfter(Instant ahora);
+
+    /**
+     * Retenciones vigentes de un titular (a lo sumo una fuera de carreras: ver {@code ServicioRetencionSlot}).
+     */
+    List<RetencionSlot> findByTitularAndExpiraEnAfter(String titular, Instant ahora);
+
+    /**
+     * Retenciones vigentes creadas desde un origen, la más próxima a vencer primero.
+     */
+    List<RetencionSlot> findByOrigenAndExpiraEnAfterOrderByExpiraEnAsc(String origen, Instant ahora);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RetencionSlot r WHERE r.token IN :tokens")
+    int eliminarPorTokens(@Param("tokens") Collection<String> tokens);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RetencionSlot r WHERE r.expiraEn <= :ahora")
+    int eliminarVencidas(@Param("ahora") Instant ahora);
+}
@@ -13,11 +13,14 @@ import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface RepositorioTurno extends JpaRepository<Turno, Long>, JpaSpecificationExecutor<Turno> {
@@ -31,55 +34,46 @@ public interface RepositorioTurno extends JpaRepository<Turno, Long>, JpaSpecifi
     java.util.Optional<Turno> findByIdForUpdate(@Param("turnoId") Long turnoId);
 
     /**
-     * Verificar si existe un turno en un horario específico para un profesional.
-     * CORREGIDO: usa parámetro enum tipado en lugar de literal de cadena para
-     * garantizar compatibilidad con Hibernate 6 (Spring Boot 4).
+     * Superposición global del cliente por identidad física (email), en cualquier empresa o sucursal:
+     * ¿existe un turno en {@code estados} cuyo intervalo SIN buffer [hora_inicio, hora_inicio + duración)
+     * se cruce con [horaInicio, horaFin)? Intervalos semiabiertos: dos turnos consecutivos no se solapan.
+     *
+     * OPTIMIZADO: la comparación de intervalos se evalúa en la base y EXISTS corta en la primera fila,
+     * en lugar de traer los turnos del día como entidades y comparar en Java. El email se compara con
+     * lower(), que usa el índice funcional idx_cliente_email_lower (ver IndicesBusquedaConfig); con
+     * upper() de IgnoreCase no había índice aplicable.
      */
-    @Query("SELECT COUNT(t) > 0 FROM Turno t WHERE t.profesional = :profesional " +
-           "AND t.fecha = :fecha " +
-           "AND t.estado IN :estadosOcupantes " +
-           "AND ((t.horaInicio < :horaFin AND t.horaFin > :horaInicio))")
-    boolean existeSolapamiento(
-        @Param("profesional") PerfilProfesional profesional,
-        @Param("fecha") LocalDate fecha,
-        @Param("horaInicio") LocalTime horaInicio,
-        @Param("horaFin") LocalTime horaFin,
-        @Param("estadosOcupantes") List<EstadoTurno> estadosOcupantes
-    );
-
-    @Query("SELECT COUNT(t) > 0 FROM Turno t WHERE t.profesional = :profesional " +
-           "AND t.fecha = :fecha " +
-           "AND t.id <> :turnoId " +
-           "AND t.estado IN :estadosOcupantes " +
-           "AND ((t.horaInicio < :horaFin AND t.horaFin > :horaInicio))")
-    boolean existeSolapamientoExcluyendo(
-        @Param("profesional") PerfilProfesional profesional,
+    @Query(value = """
+        SELECT EXISTS (
+            SELECT 1 FROM turnos t
+            JOIN clientes c ON c.id = t.cliente_id
+            WHERE lower(c.email) = lower(:email)
+              AND t.fecha = :fecha
+              AND t.estado IN (:estados)
+              AND t.hora_inicio < :horaFin
+              AND t.hora_inicio + t.duracion_minutos * INTERVAL '1' MINUTE > :horaInicio
+        )
+        """, nativeQuery = true)
+    boolean existeSuperposicionCliente(
+        @Param("email") String email,
         @Param("fecha") LocalDate fecha,
+        @Param("estados") Collection<String> estados,
         @Param("horaInicio") LocalTime horaInicio,
-        @Param("horaFin") LocalTime horaFin,
-        @Param("turnoId") Long turnoId,
-        @Param("estadosOcupantes") List<EstadoTurno> estadosOcupantes
-    );
-
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT t.id FROM Turno t WHERE t.profesional = :profesional " +
-           "AND t.fecha = :fecha " +
-           "AND t.id <> :turnoId " +
-           "AND t.estado IN :estadosOcupantes " +
-           "AND ((t.horaInicio < :horaFin AND t.horaFin > :horaInicio))")
-    List<Long> findIdsTurnosOcupantesSolapadosForUpdate(
-        @Param("profesional") PerfilProfesional profesional,
-        @Param("fecha") LocalDate fecha,
-        @Param("horaInicio") LocalTime horaInicio,
-        @Param("horaFin") LocalTime horaFin,
-        @Param("turnoId") Long turnoId,
-        @Param("estadosOcupantes") List<EstadoTurno> estadosOcupantes
+        @Param("horaFin") LocalTime horaFin
     );
 
-    List<Turno> findByClienteEmailIgnoreCaseAndFechaAndEstadoIn(
-        String email,
-        LocalDate fecha,
-        List<EstadoTurno> estados
+    /**
+     * Turnos del cliente (por email, en cualquier empresa) en un rango de fechas
+     * (superposición del cliente para todas las ocurrencias de una serie en una consulta).
+     * lower(): usa el índice funcional idx_cliente_email_lower.
+     */
+    @Query("SELECT t FROM Turno t WHERE lower(t.cliente.email) = lower(:email) " +
+           "AND t.fecha BETWEEN :desde AND :hasta AND t.estado IN :estados")
+    List<Turno> findByClienteEmailIgnoreCaseAndFechaBetweenAndEstadoIn(
+        @Param("email") String email,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta,
+        @Param("estados") List<EstadoTurno> estados
     );
 
     @Query("SELECT COUNT(t) > 0 FROM Turno t WHERE t.cliente = :cliente " +
@@ -110,6 +104,62 @@ public interface RepositorioTurno extends JpaRepository<Turno, Long>, JpaSpecifi
         @Param("estadosOcupantes") List<EstadoTurno> estadosOcupantes
     );
 
+    /**
+     * Buscar turnos que bloquean agenda para un profesional en un rango de fechas (inclusive).
+     * Versión por rango de {@link #findTurnosActivosByProfesionalAndFecha}: permite armar el
+     * calendario de disponibilidad de varios días con una sola consulta.
+     *
+     * Sin EntityGraph: el cálculo de slots solo lee fecha/horaInicio/horaFin.
+     */
+    @Query("SELECT t FROM Turno t WHERE t.profesional = :profesional " +
+           "AND t.fecha BETWEEN :desde AND :hasta " +
+           "AND t.estado IN :estadosOcupantes " +
+           "ORDER BY t.fecha, t.horaInicio")
+    List<Turno> findTurnosActivosByProfesionalAndRangoFechas(
+        @Param("profesional") PerfilProfesional profesional,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta,
+        @Param("estadosOcupantes") List<EstadoTurno> estadosOcupantes
+    );
+
+    /**
+     * Versión de {@link #findTurnosActivosByProfesionalAndRangoFechas} para varios profesionales
+     * en una sola consulta (disponibilidad combinada del bot, "cualquier profesional").
+     */
+    @Query("SELECT t FROM Turno t WHERE t.profesional IN :profesionales " +
+           "AND t.fecha BETWEEN :desde AND :hasta " +
+           "AND t.estado IN :estadosOcupantes " +
+           "ORDER BY t.fecha, t.horaInicio")
+    List<Turno> findTurnosActivosByProfesionalesAndRangoFechas(
+        @Param("profesionales") Collection<PerfilProfesional> profesionales,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta,
+        @Param("estadosOcupantes") List<EstadoTurno> estadosOcupantes
+    );
+
+    /**
+     * Cantidad de turnos ocupantes de cada profesional en una fecha, en una sola consulta agrupada
+     * (asignación "cualquier profesional" al menos cargado). Los profesionales sin turnos no aparecen.
+     */
+    @Query("SELECT t.profesional.id AS profesionalId, COUNT(t) AS cantidad FROM Turno t " +
+           "WHERE t.profesional IN :profesionales " +
+           "AND t.fecha = :fecha " +
+           "AND t.estado IN :estadosOcupantes " +
+           "GROUP BY t.profesional.id")
+    List<CantidadTurnosProfesional> contarTurnosPorProfesionalEnFecha(
+        @Param("profesionales") Collection<PerfilProfesional> profesionales,
+        @Param("fecha") LocalDate fecha,
+        @Param("estadosOcupantes") List<EstadoTurno> estadosOcupantes
+    );
+
+    /**
+     * Proyección de {@link #contarTurnosPorProfesionalEnFecha}.
+     */
+    interface CantidadTurnosProfesional {
+        Long getProfesionalId();
+        Long getCantidad();
+    }
+
     /**
      * Buscar turnos conflictivos con un bloqueo de fechas.
      *
@@ -190,6 +240,18 @@ public interface RepositorioTurno extends JpaRepository<Turno, Long>, JpaSpecifi
            "WHERE t.id IN :ids")
     List<Turno> findByIdsParaNotificacion(@Param("ids") List<Long> ids);
 
+    /**
+     * Turno con todo lo que usan las plantillas de correo (el envío corre fuera de la transacción).
+     */
+    @Query("SELECT t FROM Turno t " +
+           "JOIN FETCH t.empresa " +
+           "JOIN FETCH t.cliente " +
+           "JOIN FETCH t.servicio " +
+           "JOIN FETCH t.profesional p " +
+           "JOIN FETCH p.usuario " +
+           "WHERE t.id = :id")
+    Optional<Turno> findParaCorreoById(@Param("id") Long id);
+
     /**
      * Buscar turnos de un profesional en un rango de fechas con todas las relaciones.
      * 
@@ -299,69 +361,135 @@ public interface RepositorioTurno extends JpaRepository<Turno, Long>, JpaSpecifi
     );
 
     /**
-     * Buscar turnos pendientes de recordatorio (JPQL portable)
-     * 
-     * REFACTORIZADO (A2 - Portabilidad):
-     * Convertido a JPQL para soportar múltiples bases de datos (PostgreSQL, H2, MySQL).
-     * La comparación de fecha/hora se hace por partes en lugar de usar operador específico de PostgreSQL.
-     * 
-     * REFACTORIZADO (A4 - Prevención de duplicados):
-     * Busca turnos que cumplan:
-     * - Fecha/hora del turno está dentro de las próximas X horas (desde ahora hasta fechaHoraMax)
-     * - Estado CONFIRMADO
-     * - NO hayan recibido recordatorio (recordatorioEnviado = false)
-     * - NO estén siendo procesados actualmente (recordatorioPrimerIntento IS NULL) ✅ A4
-     * 
-     * Esta última condición previene que el mismo turno sea seleccionado múltiples veces
-     * cuando el cron se ejecuta frecuentemente (ej: cada minuto en dev).
-     * 
-     * Lógica de comparación: turno califica si su (fecha + horaInicio) cae en el rango [min, max]
-     * - Si turno.fecha > fechaMax → excluir
-     * - Si turno.fecha < fechaMin → excluir  
-     * - Si turno.fecha = fechaMin → incluir solo si horaInicio >= horaMin
-     * - Si turno.fecha = fechaMax → incluir solo si horaInicio <= horaMax
-     * - Si fechaMin < turno.fecha < fechaMax → incluir
-     * 
-     * @param empresaId ID de la empresa a filtrar (multi-tenant)
-     * @param fechaMin Fecha mínima (extraída de fechaHoraMin)
-     * @param horaMin Hora mínima (extraída de fechaHoraMin)
-     * @param fechaMax Fecha máxima (extraída de fechaHoraMax)
-     * @param horaMax Hora máxima (extraída de fechaHoraMax)
-     * @param estado Estado válido (CONFIRMADO)
-     * @return Lista de turnos ordenados por fecha y hora
+     * Reclamar atómicamente un lote de turnos con recordatorio vencido en TODAS las empresas,
+     * en orden de vencimiento. Devuelve los IDs reclamados.
+     *
+     * OPTIMIZADO: una consulta por lote sin importar la cantidad de empresas. La ventana de cada empresa
+     * se evalúa en SQL con su zona horaria y su configuración:
+     * - empresa activa con enviar_recordatorios = true
+     * - ahora_local + minMinutosAntes <= fecha + hora_inicio <= ahora_local + horas
+     *   (horas = horas_antes_recordatorio si es > 0, si no horasAntesDefecto)
+     * - CONFIRMADO y sin recordatorio enviado
+     * Vencimiento = inicio del turno (instante real según su zona) - horas de anticipación.
+     *
+     * CORREGIDO (multi-nodo): antes se leía y después se marcaba recordatorio_primer_intento con save():
+     * dos réplicas podían leer el mismo turno y enviar dos emails. Ahora seleccionar y marcar es una sola
+     * sentencia; FOR UPDATE SKIP LOCKED hace que nodos concurrentes reclamen lotes disjuntos sin esperarse.
+     * La marca es el reclamo: un turno reclamado antes de {@code reclamoVencido} (nodo caído) se retoma.
+     * Un envío fallido vuelve a ser elegible recién en su recordatorio_proximo_intento (backoff).
+     *
+     * Los predicados de estado/recordatorio son textualmente los del índice parcial
+     * idx_turno_recordatorio_no_enviado (ver IndicesBusquedaConfig) y el rango de fechas en UTC ±2 días
+     * lo acota a los próximos días. Sin {@code @Modifying}: UPDATE … RETURNING devuelve filas.
+     */
+    @Transactional
+    @Query(value = """
+        UPDATE turnos SET recordatorio_primer_intento = :ahora
+        WHERE id IN (
+            SELECT t.id FROM turnos t
+            JOIN empresas e ON e.id = t.empresa_id
+            CROSS JOIN LATERAL (SELECT
+                COALESCE(e.timezone, 'America/Argentina/Buenos_Aires') AS zona,
+                CASE WHEN e.horas_antes_recordatorio > 0 THEN e.horas_antes_recordatorio ELSE :horasAntesDefecto END AS horas
+            ) cfg
+            WHERE t.estado = 'CONFIRMADO'
+              AND t.recordatorio_enviado IS NOT TRUE
+              AND (t.recordatorio_primer_intento IS NULL OR t.recordatorio_primer_intento < :reclamoVencido)
+              AND (t.recordatorio_proximo_intento IS NULL OR t.recordatorio_proximo_intento <= :ahora)
+              AND t.fecha >= CURRENT_DATE - 2
+              AND t.fecha <= CURRENT_DATE + 2
+                    + (SELECT COALESCE(MAX(GREATEST(e2.horas_antes_recordatorio, :horasAntesDefecto)), :horasAntesDefecto)
+                       FROM empresas e2) / 24
+              AND e.activa = true
+              AND e.enviar_recordatorios = true
+              AND t.fecha + t.hora_inicio >= (now() AT TIME ZONE cfg.zona) + make_interval(mins => :minMinutosAntes)
+              AND t.fecha + t.hora_inicio <= (now() AT TIME ZONE cfg.zona) + make_interval(hours => cfg.horas)
+            ORDER BY ((t.fecha + t.hora_inicio) AT TIME ZONE cfg.zona) - make_interval(hours => cfg.horas), t.id
+            LIMIT :lote
+            FOR UPDATE OF t SKIP LOCKED
+        )
+        RETURNING id
+        """, nativeQuery = true)
+    List<Long> reclamarRecordatoriosVencidos(
+        @Param("ahora") LocalDateTime ahora,
+        @Param("reclamoVencido") LocalDateTime reclamoVencido,
+        @Param("minMinutosAntes") int minMinutosAntes,
+        @Param("horasAntesDefecto") int horasAntesDefecto,
+        @Param("lote") int lote
+    );
+
+    /*
+     * Cierres del reclamo de recordatorio: solo aplican si el turno sigue reclamado por quien llama
+     * (misma marca {@code reclamo}). Si devuelven 0, el reclamo venció y otro nodo lo retomó:
+     * quien llama debe abandonar el turno. Tampoco pisan cambios concurrentes del turno (estado,
+     * reprogramación) como lo hacía save() sobre la entidad desconectada.
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Turno t SET t.recordatorioEnviado = true, t.fechaRecordatorioEnviado = :fechaEnvio, " +
+           "t.recordatorioIntentos = :intentos, t.recordatorioError = null, t.recordatorioProximoIntento = null " +
+           "WHERE t.id = :id AND t.recordatorioPrimerIntento = :reclamo")
+    int confirmarRecordatorioEnviado(@Param("id") Long id, @Param("reclamo") LocalDateTime reclamo,
+                                     @Param("fechaEnvio") LocalDateTime fechaEnvio, @Param("intentos") int intentos);
+
+    /**
+     * Envío fallido con reintentos disponibles: registra el intento, agenda el próximo y libera el reclamo.
+     * Lo retoma la primera ejecución (de cualquier nodo) posterior a {@code proximoIntento}.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Turno t SET t.recordatorioIntentos = :intentos, t.recordatorioError = :error, " +
+           "t.recordatorioProximoIntento = :proximoIntento, t.recordatorioPrimerIntento = null " +
+           "WHERE t.id = :id AND t.recordatorioPrimerIntento = :reclamo")
+    int reprogramarRecordatorio(@Param("id") Long id, @Param("reclamo") LocalDateTime reclamo,
+                                @Param("intentos") int intentos, @Param("error") String error,
+                                @Param("proximoIntento") LocalDateTime proximoIntento);
+
+    /**
+     * Máximo de reintentos alcanzado: se da por cerrado sin enviar (no vuelve a reclamarse).
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Turno t SET t.recordatorioEnviado = true, t.recordatorioIntentos = :intentos, " +
+           "t.recordatorioError = :error, t.recordatorioProximoIntento = null " +
+           "WHERE t.id = :id AND t.recordatorioPrimerIntento = :reclamo")
+    int descartarRecordatorio(@Param("id") Long id, @Param("reclamo") LocalDateTime reclamo,
+                              @Param("intentos") int intentos, @Param("error") String error);
+
+    /**
+     * Liberar el reclamo para que una próxima ejecución (de cualquier nodo) lo vuelva a intentar.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Turno t SET t.recordatorioPrimerIntento = null " +
+           "WHERE t.id = :id AND t.recordatorioPrimerIntento = :reclamo")
+    int liberarReclamoRecordatorio(@Param("id") Long id, @Param("reclamo") LocalDateTime reclamo);
+
+    /**
+     * Backlog de reintentos: recordatorios sin enviar que fallaron y esperan su próximo intento
+     * (todas las empresas). Recorre el índice parcial idx_turno_recordatorio_no_enviado.
+     */
+    @Query(value = """
+        SELECT COUNT(*) FROM turnos t
+        WHERE t.estado = 'CONFIRMADO'
+          AND t.recordatorio_enviado IS NOT TRUE
+          AND t.recordatorio_proximo_intento IS NOT NULL
+        """, nativeQuery = true)
+    long contarRecordatoriosEnReintento();
+
+    /**
+     * Turnos con todo lo que usa el recordatorio (empresa, profesional + usuario, cliente, servicio),
+     * para usarlos fuera de transacción.
      */
     @Query("SELECT DISTINCT t FROM Turno t " +
-           "LEFT JOIN FETCH t.empresa e " +
+           "LEFT JOIN FETCH t.empresa " +
            "LEFT JOIN FETCH t.profesional p " +
            "LEFT JOIN FETCH p.usuario " +
            "LEFT JOIN FETCH t.cliente " +
            "LEFT JOIN FETCH t.servicio " +
-            "WHERE t.empresa.id = :empresaId " +
-           "AND t.estado = :estado " +
-           "AND (t.recordatorioEnviado = false OR t.recordatorioEnviado IS NULL) " +
-           "AND t.recordatorioPrimerIntento IS NULL " +  // ✅ A4: Previene duplicados
-           // Lógica de rango fecha/hora por partes (portable)
-           "AND (" +
-               // Caso 1: Fecha mayor que mínima
-               "t.fecha > :fechaMin " +
-               // Caso 2: Fecha igual a mínima pero hora >= hora mínima
-               "OR (t.fecha = :fechaMin AND t.horaInicio >= :horaMin)" +
-           ") " +
-           "AND (" +
-               // Caso 3: Fecha menor que máxima
-               "t.fecha < :fechaMax " +
-               // Caso 4: Fecha igual a máxima pero hora <= hora máxima
-               "OR (t.fecha = :fechaMax AND t.horaInicio <= :horaMax)" +
-           ") " +
-           "ORDER BY t.fecha ASC, t.horaInicio ASC")
-    List<Turno> findTurnosPendientesRecordatorio(
-        @Param("empresaId") Long empresaId,
-        @Param("fechaMin") LocalDate fechaMin,
-        @Param("horaMin") LocalTime horaMin,
-        @Param("fechaMax") LocalDate fechaMax,
-        @Param("horaMax") LocalTime horaMax,
-        @Param("estado") EstadoTurno estado  // ✅ Enum, no String (JPQL requiere tipo exacto)
-    );
+           "WHERE t.id IN :ids")
+    List<Turno> findParaRecordatorioByIdIn(@Param("ids") Collection<Long> ids);
 
     /**
      * Contar turnos activos de un profesional en estados específicos.
@@ -10,6 +10,7 @@ import com.example.sitema_de_turnos.evento.CancelacionBloqueoEvent;
 import com.example.sitema_de_turnos.repositorio.RepositorioBloqueoFecha;
 import com.example.sitema_de_turnos.repositorio.RepositorioTurno;
 import com.example.sitema_de_turnos.repositorio.RepositorioPoliticaCancelacion;
+import com.example.sitema_de_turnos.evento.AgendaModificadaEvent;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -89,6 +90,7 @@ public class ServicioBloqueoFecha {
         bloqueo.setActivo(true);
 
         bloqueo = repositorioBloqueoFecha.save(bloqueo);
+        publicarCambioAgenda(bloqueo);
 
         return convertirAResponse(bloqueo);
     }
@@ -223,6 +225,7 @@ public class ServicioBloqueoFecha {
         bloqueo.setMotivo(request.getMotivo());
         bloqueo.setActivo(true);
         bloqueo = repositorioBloqueoFecha.save(bloqueo);
+        publicarCambioAgenda(bloqueo);
         return convertirAResponse(bloqueo);
     }
 
@@ -317,12 +320,16 @@ public class ServicioBloqueoFecha {
                     "Ya existe un bloqueo que se solapa con las fechas indicadas");
         }
 
+        // Las fechas anteriores se liberan: recalcular también ese rango
+        publicarCambioAgenda(bloqueo);
+
         // Actualizar bloqueo
         bloqueo.setFechaInicio(request.getFechaInicio());
         bloqueo.setFechaFin(request.getFechaFin());
         bloqueo.setMotivo(request.getMotivo());
 
         bloqueo = repositorioBloqueoFecha.save(bloqueo);
+        publicarCambioAgenda(bloqueo);
 
         return convertirAResponse(bloqueo);
     }
@@ -355,6 +362,15 @@ public class ServicioBloqueoFecha {
         // Soft delete
         bloqueo.setActivo(false);
         repositorioBloqueoFecha.save(bloqueo);
+        publicarCambioAgenda(bloqueo);
+    }
+
+    /**
+     * Avisar que cambió la agenda en las fechas del bloqueo (caché de slots y franjas libres).
+     */
+    private void publicarCambioAgenda(BloqueoFecha bloqueo) {
+        eventPublisher.publishEvent(AgendaModificadaEvent.rango(
+                bloqueo.getProfesional(), bloqueo.getFechaInicio(), bloqueo.getFechaFin()));
     }
 
     /**
@@ -9,8 +9,10 @@ import com.example.sitema_de_turnos.modelo.*;
 import com.example.sitema_de_turnos.repositorio.RepositorioDisponibilidadProfesional;
 import com.example.sitema_de_turnos.repositorio.RepositorioHorarioEmpresa;
 import com.example.sitema_de_turnos.repositorio.RepositorioTurno;
+import com.example.sitema_de_turnos.evento.AgendaModificadaEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -35,6 +37,7 @@ public class ServicioDisponibilidad {
     private final RepositorioHorarioEmpresa repositorioHorarioEmpresa;
     private final RepositorioTurno repositorioTurno;
     private final ServicioValidacionProfesional servicioValidacionProfesional;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public DisponibilidadResponse crearDisponibilidad(String emailProfesional, RegistroDisponibilidadRequest request) {
@@ -54,29 +57,8 @@ public class ServicioDisponibilidad {
         // Verificar que el profesional no tenga overlap en el mismo día
         List<DisponibilidadProfesional> disponibilidadesExistentes = 
                 repositorioDisponibilidad.findByProfesionalAndDiaSemana(profesional, request.getDiaSemana());
-
-        for (DisponibilidadProfesional existente : disponibilidadesExistentes) {
-            if (existente.getActivo()) {
-                // Verificar overlap: nuevo inicio está entre existente O nuevo fin está entre existente O nuevo cubre existente
-                boolean overlap = 
-                    (request.getHoraInicio().isBefore(existente.getHoraFin()) && 
-                     request.getHoraInicio().isAfter(existente.getHoraInicio())) ||
-                    (request.getHoraFin().isAfter(existente.getHoraInicio()) && 
-                     request.getHoraFin().isBefore(existente.getHoraFin())) ||
-                    (request.getHoraInicio().isBefore(existente.getHoraInicio()) && 
-                     request.getHoraFin().isAfter(existente.getHoraFin())) ||
-                    (request.getHoraInicio().equals(existente.getHoraInicio()) || 
-                     request.getHoraFin().equals(existente.getHoraFin()));
-
-                if (overlap) {
-                    throw new IllegalArgumentException(
-                        String.format("Ya existe disponibilidad para %s entre %s y %s",
-                            request.getDiaSemana(),
-                            existente.getHoraInicio(),
-                            existente.getHoraFin()));
-                }
-            }
-        }
+        validarSinSolapamiento(disponibilidadesExistentes, request.getDiaSemana(),
+                request.getHoraInicio(), request.getHoraFin());
 
         // Crear disponibilidad
         DisponibilidadProfesional disponibilidad = new DisponibilidadProfesional();
@@ -87,6 +69,7 @@ public class ServicioDisponibilidad {
         disponibilidad.setActivo(true);
 
         disponibilidad = repositorioDisponibilidad.save(disponibilidad);
+        eventPublisher.publishEvent(AgendaModificadaEvent.diasSemana(profesional, disponibilidad.getDiaSemana()));
 
         return convertirAResponse(disponibilidad);
     }
@@ -174,12 +157,14 @@ public class ServicioDisponibilidad {
                     descripciones);
         }
 
-        // Actualizar disponibilidad
+        // Actualizar disponibilidad (el día anterior también cambia si se movió de día)
+        DiaSemana diaAnterior = disponibilidad.getDiaSemana();
         disponibilidad.setDiaSemana(request.getDiaSemana());
         disponibilidad.setHoraInicio(request.getHoraInicio());
         disponibilidad.setHoraFin(request.getHoraFin());
 
         disponibilidad = repositorioDisponibilidad.save(disponibilidad);
+        eventPublisher.publishEvent(AgendaModificadaEvent.diasSemana(profesional, diaAnterior, request.getDiaSemana()));
 
         return convertirAResponse(disponibilidad);
     }
@@ -240,6 +225,37 @@ public class ServicioDisponibilidad {
         }
 
         repositorioDisponibilidad.delete(disponibilidad);
+        eventPublisher.publishEvent(AgendaModificadaEvent.diasSemana(profesional, disponibilidad.getDiaSemana()));
+    }
+
+    /**
+     * Verificar que [horaInicio, horaFin) no se superponga con una disponibilidad activa del mismo día.
+     * Package-private y estático para poder medirlo aislado (benchmarks JMH, perfil {@code jmh}).
+     */
+    static void validarSinSolapamiento(List<DisponibilidadProfesional> disponibilidadesExistentes,
+                                       DiaSemana diaSemana, LocalTime horaInicio, LocalTime horaFin) {
+        for (DisponibilidadProfesional existente : disponibilidadesExistentes) {
+            if (existente.getActivo()) {
+                // Verificar overlap: nuevo inicio está entre existente O nuevo fin está entre existente O nuevo cubre existente
+                boolean overlap = 
+                    (horaInicio.isBefore(existente.getHoraFin()) && 
+                     horaInicio.isAfter(existente.getHoraInicio())) ||
+                    (horaFin.isAfter(existente.getHoraInicio()) && 
+                     horaFin.isBefore(existente.getHoraFin())) ||
+                    (horaInicio.isBefore(existente.getHoraInicio()) && 
+                     horaFin.isAfter(existente.getHoraFin())) ||
+                    (horaInicio.equals(existente.getHoraInicio()) || 
+                     horaFin.equals(existente.getHoraFin()));
+
+                if (overlap) {
+                    throw new IllegalArgumentException(
+                        String.format("Ya existe disponibilidad para %s entre %s y %s",
+                            diaSemana,
+                            existente.getHoraInicio(),
+                            existente.getHoraFin()));
+                }
+            }
+        }
     }
 
     /**
@@ -338,6 +354,7 @@ public class ServicioDisponibilidad {
             repositorioDisponibilidad.save(disponibilidad);
             disponibilidadesCreadas++;
         }
+        eventPublisher.publishEvent(AgendaModificadaEvent.todo(profesional));
 
         return disponibilidadesCreadas;
     }
@@ -1,6 +1,7 @@
 package com.example.sitema_de_turnos.servicio;
 
 import com.example.sitema_de_turnos.dto.*;
+import com.example.sitema_de_turnos.evento.CatalogoModificadoEvent;
 import com.example.sitema_de_turnos.excepcion.AccesoDenegadoException;
 import com.example.sitema_de_turnos.excepcion.RecursoNoEncontradoException;
 import com.example.sitema_de_turnos.modelo.Empresa;
@@ -13,6 +14,7 @@ import com.example.sitema_de_turnos.repositorio.RepositorioPerfilDueno;
 import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
 import com.example.sitema_de_turnos.repositorio.RepositorioUsuario;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +31,7 @@ public class ServicioEmpresa {
     private final RepositorioUsuario repositorioUsuario;
     private final PasswordEncoder passwordEncoder;
     private final ServicioDueno servicioDueno;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Obtener empresa por slug (retorna entidad Empresa, no DTO)
@@ -151,6 +154,7 @@ public class ServicioEmpresa {
         
         empresa.setActiva(activa);
         repositorioEmpresa.save(empresa);
+        eventPublisher.publishEvent(new CatalogoModificadoEvent(empresa.getId(), empresa.getSlug()));
     }
 
     // ===================== VALIDACIONES =====================
@@ -199,6 +203,7 @@ public class ServicioEmpresa {
         empresa.setEmail(com.example.sitema_de_turnos.util.NormalizadorDatos.normalizarEmail(request.getEmail()));
 
         Empresa empresaActualizada = repositorioEmpresa.save(empresa);
+        eventPublisher.publishEvent(new CatalogoModificadoEvent(empresaActualizada.getId(), empresaActualizada.getSlug()));
         return mapearAEmpresaDto(empresaActualizada);
     }
 
@@ -303,6 +308,7 @@ public class ServicioEmpresa {
         empresa.setEnviarRecordatorios(request.getEnviarRecordatorios());
         
         empresa = repositorioEmpresa.save(empresa);
+        eventPublisher.publishEvent(new CatalogoModificadoEvent(empresa.getId(), empresa.getSlug()));
         
         return mapearAConfiguracionResponse(empresa);
     }
@@ -0,0 +1,144 @@
+package com.example.sitema_de_turnos.servicio;
+
+import com.example.sitema_de_turnos.modelo.ClaveIdempotencia;
+import com.example.sitema_de_turnos.repositorio.RepositorioClaveIdempotencia;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Registro de respuestas por {@code Idempotency-Key} (ver {@code IdempotenciaFilter}).
+ *
+ * Las respuestas recientes se guardan en un LRU acotado en memoria (repetición sin tocar la base) y en
+ * {@code claves_idempotencia}, que es la que coordina entre nodos: el INSERT ... ON CONFLICT de
+ * {@link RepositorioClaveIdempotencia#reservar} decide quién procesa una clave y, mientras tanto, los
+ * reintentos reciben "en proceso" en lugar de volver a reservar. Las filas vencen por TTL.
+ */
+@Slf4j
+@Service
+public class ServicioIdempotencia {
+
+    public enum Decision { PROCESAR, REPETIR, EN_PROCESO, HUELLA_DISTINTA }
+
+    public record RespuestaGuardada(String huella, int estadoHttp, String tipoContenido, String cuerpo, Instant expiraEn) {}
+
+    public record Resultado(Decision decision, RespuestaGuardada respuesta) {
+        static Resultado de(Decision decision) {
+            return new Resultado(decision, null);
+        }
+    }
+
+    private final RepositorioClaveIdempotencia repositorioClaveIdempotencia;
+    private final long ttlHoras;
+    private final long enProcesoSegundos;
+    private final int maxEntradas;
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, RespuestaGuardada> recientes;
+
+    public ServicioIdempotencia(
+            RepositorioClaveIdempotencia repositorioClaveIdempotencia,
+            @Value("${app.idempotencia.ttl-horas:24}") long ttlHoras,
+            @Value("${app.idempotencia.en-proceso-segundos:120}") long enProcesoSegundos,
+            @Value("${app.idempotencia.cache.max-entradas:2000}") int maxEntradas) {
+        this.repositorioClaveIdempotencia = repositorioClaveIdempotencia;
+        this.ttlHoras = ttlHoras;
+        this.enProcesoSegundos = enProcesoSegundos;
+        this.maxEntradas = maxEntradas;
+        this.recientes = new LinkedHashMap<>(Math.min(maxEntradas, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RespuestaGuardada> eldest) {
+                return size() > ServicioIdempotencia.this.maxEntradas;
+            }
+        };
+    }
+
+    /**
+     * Decidir qué hacer con una solicitud que trae Idempotency-Key. Con PROCESAR la clave queda tomada
+     * hasta {@link #completar} o {@link #liberar} (o hasta que venza el plazo "en proceso").
+     */
+    public Resultado iniciar(String clave, String huella) {
+        Instant ahora = Instant.now();
+        RespuestaGuardada enMemoria = obtenerReciente(clave, ahora);
+        if (enMemoria != null) {
+            return repetir(enMemoria, huella);
+        }
+
+        if (repositorioClaveIdempotencia.reservar(clave, huella, ahora.plusSeconds(enProcesoSegundos), ahora) > 0) {
+            return Resultado.de(Decision.PROCESAR);
+        }
+
+        ClaveIdempotencia fila = repositorioClaveIdempotencia.findById(clave).orElse(null);
+        if (fila == null || fila.getEstadoHttp() == null) {
+            // Otra solicitud con la misma clave se está procesando (o acaba de liberarla)
+            return Resultado.de(fila != null && !fila.getHuella().equals(huella)
+                ? Decision.HUELLA_DISTINTA : Decision.EN_PROCESO);
+        }
+        RespuestaGuardada guardada = new RespuestaGuardada(fila.getHuella(), fila.getEstadoHttp(),
+            fila.getTipoContenido(), fila.getCuerpoRespuesta(), fila.getExpiraEn());
+        recordar(clave, guardada);
+        return repetir(guardada, huella);
+    }
+
+    /**
+     * Registrar la respuesta exitosa de una solicitud tomada con PROCESAR.
+     * Primero en memoria: si la base falla, los reintentos que lleguen a este nodo igual se repiten.
+     */
+    public void completar(String clave, String huella, int estadoHttp, String tipoContenido, String cuerpo) {
+        Instant expiraEn = Instant.now().plus(ttlHoras, ChronoUnit.HOURS);
+        recordar(clave, new RespuestaGuardada(huella, estadoHttp, tipoContenido, cuerpo, expiraEn));
+        repositorioClaveIdempotencia.completar(clave, estadoHttp, tipoContenido, cuerpo, expiraEn);
+    }
+
+    /**
+     * Soltar la clave sin guardar respuesta (error): el cliente puede reintentar con la misma clave.
+     */
+    public void liberar(String clave) {
+        repositorioClaveIdempotencia.liberar(clave);
+    }
+
+    @Scheduled(cron = "${app.idempotencia.limpieza-cron:0 15 * * * *}", zone = "${app.scheduler.zone:UTC}")
+    public void eliminarVencidas() {
+        Instant ahora = Instant.now();
+        try {
+            int eliminadas = repositorioClaveIdempotencia.eliminarVencidas(ahora);
+            synchronized (lock) {
+                recientes.values().removeIf(r -> !r.expiraEn().isAfter(ahora));
+            }
+            if (eliminadas > 0) {
+                log.info("🧹 Idempotencia: {} claves vencidas eliminadas", eliminadas);
+            }
+        } catch (Exception e) {
+            log.error("❌ Error al limpiar claves de idempotencia", e);
+        }
+    }
+
+    private static Resultado repetir(RespuestaGuardada guardada, String huella) {
+        return guardada.huella().equals(huella)
+            ? new Resultado(Decision.REPETIR, guardada)
+            : Resultado.de(Decision.HUELLA_DISTINTA);
+    }
+
+    private RespuestaGuardada obtenerReciente(String clave, Instant ahora) {
+        synchronized (lock) {
+            RespuestaGuardada guardada = recientes.get(clave);
+            if (guardada != null && !guardada.expiraEn().isAfter(ahora)) {
+                recientes.remove(clave);
+                return null;
+            }
+            return guardada;
+        }
+    }
+
+    private void recordar(String clave, RespuestaGuardada guardada) {
+        synchronized (lock) {
+            recientes.put(clave, guardada);
+        }
+    }
+}
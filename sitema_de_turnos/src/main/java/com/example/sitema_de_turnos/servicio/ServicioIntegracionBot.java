@@ -6,28 +6,21 @@ import com.example.sitema_de_turnos.dto.bot.BotCrearTurnoResponseDto;
 import com.example.sitema_de_turnos.dto.bot.BotDisponibilidadResponseDto;
 import com.example.sitema_de_turnos.dto.bot.BotServicioResponseDto;
 import com.example.sitema_de_turnos.dto.publico.CrearTurnoRequest;
-import com.example.sitema_de_turnos.dto.publico.SlotDisponibleResponse;
 import com.example.sitema_de_turnos.dto.publico.TurnoResponsePublico;
 import com.example.sitema_de_turnos.excepcion.RecursoNoEncontradoException;
 import com.example.sitema_de_turnos.excepcion.ValidacionException;
 import com.example.sitema_de_turnos.modelo.BotConfiguracion;
 import com.example.sitema_de_turnos.modelo.Cliente;
-import com.example.sitema_de_turnos.modelo.DiaSemana;
-import com.example.sitema_de_turnos.modelo.DisponibilidadProfesional;
 import com.example.sitema_de_turnos.modelo.Empresa;
-import com.example.sitema_de_turnos.modelo.EstadoTurno;
-import com.example.sitema_de_turnos.modelo.PerfilProfesional;
-import com.example.sitema_de_turnos.modelo.ProfesionalServicio;
-import com.example.sitema_de_turnos.modelo.Servicio;
 import com.example.sitema_de_turnos.repositorio.RepositorioBotConfiguracion;
 import com.example.sitema_de_turnos.repositorio.RepositorioCliente;
-import com.example.sitema_de_turnos.repositorio.RepositorioDisponibilidadProfesional;
 import com.example.sitema_de_turnos.repositorio.RepositorioEmpresa;
-import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
-import com.example.sitema_de_turnos.repositorio.RepositorioProfesionalServicio;
 import com.example.sitema_de_turnos.repositorio.RepositorioServicio;
-import com.example.sitema_de_turnos.repositorio.RepositorioTurno;
+import com.example.sitema_de_turnos.servicio.catalogo.CacheCatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa.ServicioCatalogo;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -37,7 +30,6 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.stream.Collectors;
@@ -48,19 +40,13 @@ import com.example.sitema_de_turnos.util.NormalizadorDatos;
 @Transactional
 public class ServicioIntegracionBot {
 
-    private static final List<EstadoTurno> ESTADOS_OCUPANTES_AGENDA =
-        List.of(EstadoTurno.CONFIRMADO, EstadoTurno.PENDIENTE_PAGO);
-
     private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
 
     private final RepositorioBotConfiguracion repositorioBotConfiguracion;
     private final RepositorioCliente repositorioCliente;
     private final RepositorioEmpresa repositorioEmpresa;
     private final RepositorioServicio repositorioServicio;
-    private final RepositorioPerfilProfesional repositorioPerfilProfesional;
-    private final RepositorioProfesionalServicio repositorioProfesionalServicio;
-    private final RepositorioDisponibilidadProfesional repositorioDisponibilidadProfesional;
-    private final RepositorioTurno repositorioTurno;
+    private final CacheCatalogoEmpresa cacheCatalogo;
     private final ServicioTurno servicioTurno;
     private final ServicioPublico servicioPublico;
 
@@ -78,63 +64,29 @@ public class ServicioIntegracionBot {
 
     @Transactional(readOnly = true)
     public List<BotServicioResponseDto> obtenerServiciosPorTenant(Long tenantId) {
-        Empresa empresa = repositorioEmpresa.findById(tenantId)
-            .orElseThrow(() -> new RecursoNoEncontradoException("Tenant no encontrado"));
-
-        if (!Boolean.TRUE.equals(empresa.getActiva())) {
-            throw new ValidacionException("El tenant está inactivo");
-        }
-
-        List<Servicio> servicios = repositorioServicio.findByEmpresaAndActivoTrue(empresa);
+        CatalogoEmpresa empresa = obtenerCatalogoActivo(tenantId);
 
-        return servicios.stream()
+        return empresa.serviciosActivos().stream()
             .map(servicio -> new BotServicioResponseDto(
-                servicio.getId(),
-                servicio.getNombre(),
-                servicio.getPrecio(),
-                servicio.getDuracionMinutos()
+                servicio.id(),
+                servicio.nombre(),
+                servicio.precio(),
+                servicio.duracionMinutos()
             ))
             .toList();
     }
 
     @Transactional(readOnly = true)
     public BotDisponibilidadResponseDto obtenerDisponibilidad(Long tenantId, Long servicioId, LocalDate fecha) {
-        Empresa empresa = repositorioEmpresa.findById(tenantId)
-            .orElseThrow(() -> new RecursoNoEncontradoException("Tenant no encontrado"));
-
-        if (!Boolean.TRUE.equals(empresa.getActiva())) {
-            throw new ValidacionException("El tenant está inactivo");
-        }
-
-        Servicio servicio = repositorioServicio.findById(servicioId)
-            .orElseThrow(() -> new RecursoNoEncontradoException("Servicio no encontrado"));
-
-        if (!servicio.getEmpresa().getId().equals(tenantId)) {
-            throw new ValidacionException("El servicioId no pertenece al tenantId indicado");
-        }
-
-        if (!Boolean.TRUE.equals(servicio.getActivo())) {
-            throw new ValidacionException("El servicio está inactivo");
-        }
-
-        DiaSemana diaSemana = convertirDayOfWeekADiaSemana(fecha.getDayOfWeek());
-        List<PerfilProfesional> profesionalesConServicio = repositorioProfesionalServicio
-            .findProfesionalesActivosByServicioAndTenantId(servicio, tenantId)
+        CatalogoEmpresa empresa = obtenerCatalogoActivo(tenantId);
+        ServicioCatalogo servicio = validarServicioActivo(empresa, servicioId);
+
+        // OPTIMIZADO: mismo algoritmo de slots, pero con las agendas de todos los profesionales
+        // cargadas juntas (consultas IN) en lugar de ~8 consultas por profesional.
+        // Empresa, servicio y profesionales habilitados salen del snapshot de catálogo.
+        List<String> horariosDisponibles = servicioPublico
+            .obtenerHorariosCombinados(empresa, servicio, empresa.profesionalesHabilitados(servicio.id()), fecha)
             .stream()
-            .filter(profesional -> !repositorioDisponibilidadProfesional
-                .findByProfesionalAndDiaSemanaAndActivoTrue(profesional, diaSemana)
-                .isEmpty())
-            .toList();
-
-        List<String> horariosDisponibles = profesionalesConServicio.stream()
-            // Reutiliza exactamente el algoritmo existente de cálculo de slots
-            .flatMap(profesional -> servicioPublico
-                .obtenerSlotsDisponibles(empresa.getSlug(), servicioId, profesional.getId(), fecha)
-                .stream())
-            .map(SlotDisponibleResponse::getHoraInicio)
-            .map(LocalDateTime::toLocalTime)
-            .sorted(Comparator.naturalOrder())
-            .distinct()
             .map(hora -> hora.format(FORMATO_HORA))
             .collect(Collectors.toList());
 
@@ -146,39 +98,21 @@ public class ServicioIntegracionBot {
     }
 
     public BotCrearTurnoResponseDto crearTurno(Long tenantId, BotCrearTurnoRequestDto request) {
-        Empresa empresa = repositorioEmpresa.findById(tenantId)
-            .orElseThrow(() -> new RecursoNoEncontradoException("Tenant no encontrado"));
-
-        if (!Boolean.TRUE.equals(empresa.getActiva())) {
-            throw new ValidacionException("El tenant está inactivo");
-        }
-
-        Servicio servicio = repositorioServicio.findById(request.getServicioId())
-            .orElseThrow(() -> new RecursoNoEncontradoException("Servicio no encontrado"));
-
-        if (!servicio.getEmpresa().getId().equals(tenantId)) {
-            throw new ValidacionException("El servicioId no pertenece al tenantId indicado");
-        }
-
-        if (!Boolean.TRUE.equals(servicio.getActivo())) {
-            throw new ValidacionException("El servicio está inactivo");
-        }
+        CatalogoEmpresa catalogo = obtenerCatalogoActivo(tenantId);
+        ServicioCatalogo servicio = validarServicioActivo(catalogo, request.getServicioId());
+        // Cliente.empresa: referencia, sin volver a leer la empresa
+        Empresa empresa = repositorioEmpresa.getReferenceById(catalogo.id());
 
         LocalDateTime fechaHora = request.getFechaHora().withSecond(0).withNano(0);
         LocalDate fecha = fechaHora.toLocalDate();
         LocalTime horaInicio = fechaHora.toLocalTime();
-        int buffer = servicio.getBufferMinutos() != null
-            ? servicio.getBufferMinutos()
-            : (empresa.getBufferPorDefecto() != null ? empresa.getBufferPorDefecto() : 10);
-        LocalTime horaFin = horaInicio.plusMinutes(servicio.getDuracionMinutos()).plusMinutes(buffer);
 
-        Cliente cliente = resolverOCrearClienteParaBot(empresa, request.getClienteNombre(), request.getTelefono());
-
-        PerfilProfesional profesional = seleccionarProfesionalDisponible(empresa, servicio, fecha, horaInicio, horaFin);
+        Cliente cliente = resolverOCrearClienteParaBot(empresa, catalogo.slug(), request.getClienteNombre(), request.getTelefono());
 
+        // Modo "cualquier profesional": crearTurnoPublico asigna el habilitado menos cargado del día
         CrearTurnoRequest crearTurnoRequest = new CrearTurnoRequest();
-        crearTurnoRequest.setServicioId(servicio.getId());
-        crearTurnoRequest.setProfesionalId(profesional.getId());
+        crearTurnoRequest.setServicioId(servicio.id());
+        crearTurnoRequest.setProfesionalId(null);
         crearTurnoRequest.setFecha(fecha.toString());
         crearTurnoRequest.setHoraInicio(horaInicio.format(FORMATO_HORA));
         crearTurnoRequest.setNombreCliente(cliente.getNombre());
@@ -186,7 +120,7 @@ public class ServicioIntegracionBot {
         crearTurnoRequest.setTelefonoCliente(cliente.getTelefono());
         crearTurnoRequest.setObservaciones("Reserva creada por integración conversacional");
 
-        TurnoResponsePublico turnoCreado = servicioTurno.crearTurnoPublico(empresa.getSlug(), cliente, crearTurnoRequest);
+        TurnoResponsePublico turnoCreado = servicioTurno.crearTurnoPublico(catalogo.slug(), cliente, crearTurnoRequest);
 
         return new BotCrearTurnoResponseDto(
             turnoCreado.getId(),
@@ -200,57 +134,32 @@ public class ServicioIntegracionBot {
         );
     }
 
-    private PerfilProfesional seleccionarProfesionalDisponible(
-        Empresa empresa,
-        Servicio servicio,
-        LocalDate fecha,
-        LocalTime horaInicio,
-        LocalTime horaFin
-    ) {
-        List<PerfilProfesional> profesionalesActivos = repositorioPerfilProfesional.findByEmpresaAndActivoTrue(empresa);
+    private CatalogoEmpresa obtenerCatalogoActivo(Long tenantId) {
+        CatalogoEmpresa empresa = cacheCatalogo.obtenerPorId(tenantId)
+            .orElseThrow(() -> new RecursoNoEncontradoException("Tenant no encontrado"));
 
-        if (profesionalesActivos.isEmpty()) {
-            throw new RecursoNoEncontradoException("No hay profesionales activos para el tenant indicado");
+        if (!empresa.activa()) {
+            throw new ValidacionException("El tenant está inactivo");
         }
-
-        DiaSemana diaSemana = convertirDayOfWeekADiaSemana(fecha.getDayOfWeek());
-
-        return profesionalesActivos.stream()
-            .filter(profesional -> tieneServicioHabilitado(profesional, servicio))
-            .filter(profesional -> tieneDisponibilidadEnHorario(profesional, diaSemana, horaInicio, horaFin))
-            .filter(profesional -> !repositorioTurno.existeSolapamiento(
-                profesional,
-                fecha,
-                horaInicio,
-                horaFin,
-                ESTADOS_OCUPANTES_AGENDA
-            ))
-            .findFirst()
-            .orElseThrow(() -> new ValidacionException("El horario solicitado está fuera del horario de atención o no hay profesionales disponibles"));
+        return empresa;
     }
 
-    private boolean tieneDisponibilidadEnHorario(
-        PerfilProfesional profesional,
-        DiaSemana diaSemana,
-        LocalTime horaInicio,
-        LocalTime horaFin
-    ) {
-        List<DisponibilidadProfesional> disponibilidades = repositorioDisponibilidadProfesional
-            .findByProfesionalAndDiaSemanaAndActivoTrue(profesional, diaSemana);
+    /**
+     * Un servicio de otro tenant no está en el catálogo de este: solo en ese caso (error) se consulta la base
+     * para distinguir "no existe" de "no pertenece".
+     */
+    private ServicioCatalogo validarServicioActivo(CatalogoEmpresa empresa, Long servicioId) {
+        ServicioCatalogo servicio = empresa.servicio(servicioId).orElseThrow(() -> repositorioServicio.existsById(servicioId)
+            ? new ValidacionException("El servicioId no pertenece al tenantId indicado")
+            : new RecursoNoEncontradoException("Servicio no encontrado"));
 
-        return disponibilidades.stream().anyMatch(disponibilidad ->
-            !horaInicio.isBefore(disponibilidad.getHoraInicio())
-                && !horaFin.isAfter(disponibilidad.getHoraFin())
-        );
-    }
-
-    private boolean tieneServicioHabilitado(PerfilProfesional profesional, Servicio servicio) {
-        ProfesionalServicio profesionalServicio = repositorioProfesionalServicio.findByProfesionalAndServicio(profesional, servicio)
-            .orElse(null);
-        return profesionalServicio != null && Boolean.TRUE.equals(profesionalServicio.getActivo());
+        if (!servicio.activo()) {
+            throw new ValidacionException("El servicio está inactivo");
+        }
+        return servicio;
     }
 
-    private Cliente resolverOCrearClienteParaBot(Empresa empresa, String clienteNombre, String telefonoRaw) {
+    private Cliente resolverOCrearClienteParaBot(Empresa empresa, String slugEmpresa, String clienteNombre, String telefonoRaw) {
         String nombreNormalizado = normalizarNombreSeguro(clienteNombre);
         String telefonoNormalizado = NormalizadorDatos.normalizarTelefono(telefonoRaw);
 
@@ -258,26 +167,34 @@ public class ServicioIntegracionBot {
             throw new ValidacionException("telefono es obligatorio para crear turnos por bot");
         }
 
-        Cliente cliente = repositorioCliente.findByEmpresaAndTelefonoAndActivoTrue(empresa, telefonoNormalizado)
-            .orElse(null);
-
-        if (cliente != null) {
-            if (!Objects.equals(cliente.getNombre(), nombreNormalizado)) {
-                cliente.setNombre(nombreNormalizado);
-                cliente = repositorioCliente.save(cliente);
+        // OPTIMIZADO: obtener o crear en una sola sentencia (INSERT … ON CONFLICT (empresa, teléfono)):
+        // dos mensajes simultáneos del mismo número ya no chocan contra uk_cliente_empresa_telefono
+        Cliente cliente;
+        try {
+            cliente = repositorioCliente.obtenerOCrearPorTelefono(
+                empresa.getId(),
+                telefonoNormalizado,
+                nombreNormalizado,
+                generarEmailSinteticoCliente(telefonoNormalizado, slugEmpresa),
+                true,
+                LocalDateTime.now()
+            );
+        } catch (DataIntegrityViolationException e) {
+            // El email sintético de este número ya lo tiene otro cliente (por ejemplo, con otro teléfono cargado)
+            if (ServicioTurno.violaRestriccion(e, "uk_cliente_empresa_email")) {
+                throw new ValidacionException("Ya existe otro cliente registrado con los datos de este teléfono");
             }
-            return cliente;
+            throw e;
         }
 
-        Cliente nuevoCliente = new Cliente();
-        nuevoCliente.setEmpresa(empresa);
-        nuevoCliente.setNombre(nombreNormalizado);
-        nuevoCliente.setTelefono(telefonoNormalizado);
-        nuevoCliente.setEmail(generarEmailSinteticoCliente(telefonoNormalizado, empresa.getSlug()));
-        nuevoCliente.setActivo(true);
-        nuevoCliente.setTieneUsuario(false);
-        nuevoCliente.setTelefonoValidado(true);
-        return repositorioCliente.save(nuevoCliente);
+        if (!Boolean.TRUE.equals(cliente.getActivo())) {
+            throw new ValidacionException("El cliente asociado a este teléfono está inactivo");
+        }
+        if (!Objects.equals(cliente.getNombre(), nombreNormalizado)) {
+            cliente.setNombre(nombreNormalizado);
+            cliente = repositorioCliente.save(cliente);
+        }
+        return cliente;
     }
 
     private String normalizarNombreSeguro(String nombre) {
@@ -301,16 +218,4 @@ public class ServicioIntegracionBot {
 
         return "wa_" + telefonoNormalizado + "@" + slugNormalizado + ".bot";
     }
-
-    private DiaSemana convertirDayOfWeekADiaSemana(java.time.DayOfWeek dayOfWeek) {
-        return switch (dayOfWeek) {
-            case MONDAY -> DiaSemana.LUNES;
-            case TUESDAY -> DiaSemana.MARTES;
-            case WEDNESDAY -> DiaSemana.MIERCOLES;
-            case THURSDAY -> DiaSemana.JUEVES;
-            case FRIDAY -> DiaSemana.VIERNES;
-            case SATURDAY -> DiaSemana.SABADO;
-            case SUNDAY -> DiaSemana.DOMINGO;
-        };
-    }
 }
@@ -6,12 +6,14 @@ import com.example.sitema_de_turnos.excepcion.RecursoNoEncontradoException;
 import com.example.sitema_de_turnos.modelo.Notificacion;
 import com.example.sitema_de_turnos.modelo.PerfilProfesional;
 import com.example.sitema_de_turnos.modelo.TipoNotificacion;
+import com.example.sitema_de_turnos.modelo.Usuario;
 import com.example.sitema_de_turnos.repositorio.RepositorioNotificacion;
 import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -33,6 +35,9 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ServicioNotificacion {
 
+    /** Tópico por profesional: {@code /topic/notifications/{usuarioId}} (solo lo puede suscribir ese usuario). */
+    public static final String PREFIJO_TOPICO = "/topic/notifications/";
+
     private final RepositorioNotificacion repositorioNotificacion;
     private final RepositorioPerfilProfesional repositorioPerfilProfesional;
     private final SimpMessagingTemplate messagingTemplate;
@@ -55,7 +60,36 @@ public class ServicioNotificacion {
             String mensaje,
             Object datosAdicionales,
             Long turnoId) {
-        
+
+        Notificacion notificacion = registrarNotificacion(profesionalId, tipo, titulo, mensaje, datosAdicionales, turnoId);
+
+        // Enviar por WebSocket
+        enviarPorWebSocket(notificacion);
+
+        // Enviar push por FCM (aislado para no afectar flujo principal)
+        try {
+            firebaseMessagingService.enviarPush(notificacion.getProfesional().getUsuario(), titulo, mensaje);
+        } catch (Exception e) {
+            log.error("Error al enviar notificación push por Firebase", e);
+        }
+
+        return notificacion;
+    }
+
+    /**
+     * Persistir la notificación sin enviarla. La usa el outbox: la fila se guarda en la transacción
+     * del turno y el WebSocket / push se despachan después del commit ({@link #despacharPorWebSocket},
+     * {@link #despacharPush}).
+     */
+    @Transactional
+    public Notificacion registrarNotificacion(
+            Long profesionalId,
+            TipoNotificacion tipo,
+            String titulo,
+            String mensaje,
+            Object datosAdicionales,
+            Long turnoId) {
+
         // Obtener profesional
         PerfilProfesional profesional = repositorioPerfilProfesional.findById(profesionalId)
             .orElseThrow(() -> new RecursoNoEncontradoException("Profesional no encontrado"));
@@ -83,17 +117,36 @@ public class ServicioNotificacion {
         notificacion = repositorioNotificacion.save(notificacion);
         log.info("Notificación creada: {} - {} (ID: {})", tipo, titulo, notificacion.getId());
 
-        // Enviar por WebSocket
-        enviarPorWebSocket(notificacion);
+        return notificacion;
+    }
 
-        // Enviar push por FCM (aislado para no afectar flujo principal)
-        try {
-            firebaseMessagingService.enviarPush(profesional.getUsuario(), titulo, mensaje);
-        } catch (Exception e) {
-            log.error("Error al enviar notificación push por Firebase", e);
+    /**
+     * Despachar por WebSocket una notificación ya persistida (outbox).
+     * A diferencia de {@link #enviarNotificacion}, un error se propaga para que el outbox reintente.
+     */
+    @Transactional(readOnly = true)
+    public void despacharPorWebSocket(Long notificacionId) {
+        Notificacion notificacion = repositorioNotificacion.findById(notificacionId).orElse(null);
+        if (notificacion == null) {
+            log.debug("Notificación {} eliminada antes del envío por WebSocket", notificacionId);
+            return;
         }
+        messagingTemplate.convertAndSend(destinoWebSocket(notificacion), convertirAWebSocketDTO(notificacion));
+    }
 
-        return notificacion;
+    /**
+     * Despachar por push (FCM) una notificación ya persistida (outbox).
+     * El envío sigue siendo asíncrono en notificacionesExecutor.
+     */
+    @Transactional(readOnly = true)
+    public void despacharPush(Long notificacionId) {
+        Notificacion notificacion = repositorioNotificacion.findById(notificacionId).orElse(null);
+        if (notificacion == null) {
+            return;
+        }
+        // El envío corre en otro hilo, fuera de esta sesión: desproxificar el usuario acá
+        Usuario usuario = Hibernate.unproxy(notificacion.getProfesional().getUsuario(), Usuario.class);
+        firebaseMessagingService.enviarPush(usuario, notificacion.getTitulo(), notificacion.getMensaje());
     }
 
     /**
@@ -107,7 +160,7 @@ public class ServicioNotificacion {
 
             // ✅ Usar usuario.getId() — el frontend se suscribe por Usuario.id,
             //    no por PerfilProfesional.id (que son valores distintos)
-            String destination = "/topic/notifications/" + notificacion.getProfesional().getUsuario().getId();
+            String destination = destinoWebSocket(notificacion);
             messagingTemplate.convertAndSend(destination, dto);
             
             log.debug("Notificación enviada por WebSocket a: {}", destination);
@@ -117,6 +170,10 @@ public class ServicioNotificacion {
         }
     }
 
+    private String destinoWebSocket(Notificacion notificacion) {
+        return PREFIJO_TOPICO + notificacion.getProfesional().getUsuario().getId();
+    }
+
     /**
      * Marcar notificación como leída
      */
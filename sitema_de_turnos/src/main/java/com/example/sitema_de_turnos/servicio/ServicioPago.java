@@ -7,12 +7,13 @@ import com.example.sitema_de_turnos.modelo.EstadoPago;
 import com.example.sitema_de_turnos.modelo.EstadoTurno;
 import com.example.sitema_de_turnos.modelo.MetodoPago;
 import com.example.sitema_de_turnos.modelo.Pago;
+import com.example.sitema_de_turnos.modelo.TipoEventoOutbox;
 import com.example.sitema_de_turnos.modelo.Turno;
 import com.example.sitema_de_turnos.repositorio.RepositorioPago;
 import com.example.sitema_de_turnos.repositorio.RepositorioPerfilDueno;
 import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
 import com.example.sitema_de_turnos.repositorio.RepositorioTurno;
-import com.example.sitema_de_turnos.servicio.notificacion.EmailNotificationService;
+import com.example.sitema_de_turnos.servicio.outbox.ServicioOutbox;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,7 +26,7 @@ public class ServicioPago {
     private final RepositorioPago repositorioPago;
     private final RepositorioPerfilDueno repositorioPerfilDueno;
     private final RepositorioPerfilProfesional repositorioPerfilProfesional;
-    private final EmailNotificationService emailNotificationService;
+    private final ServicioOutbox servicioOutbox;
 
     @Transactional
     public void confirmarPagoManual(String emailStaff, Long turnoId, MetodoPago metodoPago) {
@@ -56,7 +57,7 @@ public class ServicioPago {
         repositorioPago.save(pago);
         turno = repositorioTurno.save(turno);
 
-        emailNotificationService.enviarCorreoConfirmacionTurno(turno);
+        servicioOutbox.registrarCorreo(TipoEventoOutbox.CORREO_CONFIRMACION_TURNO, turno.getId());
     }
 
     private void validarPermisosStaff(String emailStaff, Turno turno) {
@@ -5,6 +5,7 @@ import com.example.sitema_de_turnos.modelo.PoliticaCancelacion;
 import com.example.sitema_de_turnos.modelo.TipoPoliticaCancelacion;
 import com.example.sitema_de_turnos.repositorio.RepositorioPoliticaCancelacion;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,12 +13,14 @@ import java.util.List;
 import java.util.Optional;
 import com.example.sitema_de_turnos.modelo.PenalizacionPolitica;
 import com.example.sitema_de_turnos.excepcion.ConflictoException;
+import com.example.sitema_de_turnos.evento.CatalogoModificadoEvent;
 
 @Service
 @RequiredArgsConstructor
 public class ServicioPoliticaCancelacion {
     private final RepositorioPoliticaCancelacion repo;
     private final com.example.sitema_de_turnos.servicio.ServicioEmpresa servicioEmpresa;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<PoliticaCancelacion> obtenerPorEmpresa(Empresa empresa) {
@@ -96,7 +99,9 @@ public class ServicioPoliticaCancelacion {
             throw new IllegalArgumentException("Debe especificar la descripción de la multa.");
         }
         try {
-            return repo.save(politica);
+            PoliticaCancelacion guardada = repo.save(politica);
+            publicarCambioCatalogo(politica.getEmpresa());
+            return guardada;
         } catch (DataIntegrityViolationException ex) {
             if (ex.getMessage() != null && ex.getMessage().contains("uk_politica_empresa_tipo_activa")) {
                 throw new ConflictoException("Ya existe una política activa de este tipo para la empresa. Solo puede haber una activa por tipo.");
@@ -113,6 +118,7 @@ public class ServicioPoliticaCancelacion {
         PoliticaCancelacion politica = repo.findById(id).orElseThrow(() -> new IllegalArgumentException("Política no encontrada"));
         politica.setActiva(false);
         repo.save(politica);
+        publicarCambioCatalogo(politica.getEmpresa());
     }
 
     /**
@@ -149,6 +155,7 @@ public class ServicioPoliticaCancelacion {
             });
         politica.setActiva(true);
         repo.save(politica);
+        publicarCambioCatalogo(politica.getEmpresa());
     }
 
     /**
@@ -156,7 +163,19 @@ public class ServicioPoliticaCancelacion {
      */
     @Transactional
     public void eliminar(Long id) {
-        repo.deleteById(id);
+        repo.findById(id).ifPresent(politica -> {
+            repo.delete(politica);
+            publicarCambioCatalogo(politica.getEmpresa());
+        });
+    }
+
+    /**
+     * Las políticas activas forman parte del snapshot de catálogo de la empresa.
+     */
+    private void publicarCambioCatalogo(Empresa empresa) {
+        if (empresa != null) {
+            eventPublisher.publishEvent(new CatalogoModificadoEvent(empresa.getId(), empresa.getSlug()));
+        }
     }
 
     // Métodos adaptados para DTO y Mapper
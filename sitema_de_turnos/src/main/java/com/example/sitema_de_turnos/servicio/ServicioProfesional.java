@@ -1,10 +1,13 @@
 package com.example.sitema_de_turnos.servicio;
 
+import com.example.sitema_de_turnos.dto.ActualizarPerfilRequest;
 import com.example.sitema_de_turnos.dto.ProfesionalResponse;
 import com.example.sitema_de_turnos.dto.ProfesionalServicioResponse;
 import com.example.sitema_de_turnos.dto.RegistroProfesionalRequest;
+import com.example.sitema_de_turnos.evento.CatalogoModificadoEvent;
 import com.example.sitema_de_turnos.excepcion.AccesoDenegadoException;
 import com.example.sitema_de_turnos.excepcion.ConflictoException;
+import com.example.sitema_de_turnos.excepcion.CuentaDesactivadaException;
 import com.example.sitema_de_turnos.excepcion.RecursoNoEncontradoException;
 import com.example.sitema_de_turnos.mapper.ProfesionalMapper;
 import com.example.sitema_de_turnos.modelo.EstadoTurno;
@@ -20,9 +23,12 @@ import com.example.sitema_de_turnos.repositorio.RepositorioServicio;
 import com.example.sitema_de_turnos.repositorio.RepositorioTurno;
 import com.example.sitema_de_turnos.repositorio.RepositorioUsuario;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -43,6 +49,7 @@ public class ServicioProfesional {
     private final RepositorioTurno repositorioTurno;
     private final PasswordEncoder passwordEncoder;
     private final ServicioValidacionDueno servicioValidacionDueno;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<ProfesionalResponse> obtenerProfesionalesPorEmpresa(String emailDueno) {
@@ -92,6 +99,7 @@ public class ServicioProfesional {
         perfil.setActivo(true);
 
         PerfilProfesional guardado = repositorioPerfilProfesional.save(perfil);
+        eventPublisher.publishEvent(new CatalogoModificadoEvent(dueno.getEmpresa().getId(), dueno.getEmpresa().getSlug()));
         return ProfesionalMapper.toResponse(guardado);
     }
 
@@ -133,10 +141,60 @@ public class ServicioProfesional {
 
         perfil.setDescripcion(dto.getDescripcion());
         PerfilProfesional actualizado = repositorioPerfilProfesional.save(perfil);
+        eventPublisher.publishEvent(new CatalogoModificadoEvent(perfil.getEmpresa().getId(), perfil.getEmpresa().getSlug()));
 
         return ProfesionalMapper.toResponse(actualizado);
     }
 
+    /**
+     * Actualizar el perfil del profesional autenticado (nombre, apellido, email, teléfono).
+     * El cambio de contraseña no se permite acá: va por /api/usuarios/cambiar-contrasena.
+     * Nombre y apellido forman parte del catálogo público: el evento sale junto con el cambio.
+     */
+    @Transactional
+    public Usuario actualizarPerfilPropio(String email, ActualizarPerfilRequest request) {
+        Usuario usuario = repositorioUsuario.findByEmail(email)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Usuario no encontrado"));
+
+        // VALIDACIÓN: Verificar empresa activa
+        PerfilProfesional perfilProfesional = repositorioPerfilProfesional.findByUsuarioEmail(email).orElse(null);
+        if (perfilProfesional != null && perfilProfesional.getEmpresa() != null && !perfilProfesional.getEmpresa().getActiva()) {
+            throw new CuentaDesactivadaException("Su empresa ha sido desactivada. Contacte al administrador.");
+        }
+
+        if (request.getContrasena() != null && !request.getContrasena().isEmpty()) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "Para cambiar la contraseña use el endpoint seguro /api/usuarios/cambiar-contrasena"
+            );
+        }
+
+        // Actualizar solo los campos proporcionados
+        if (request.getNombre() != null) {
+            usuario.setNombre(request.getNombre());
+        }
+        if (request.getApellido() != null) {
+            usuario.setApellido(request.getApellido());
+        }
+        if (request.getEmail() != null && !request.getEmail().equals(usuario.getEmail())) {
+            // Validar que el nuevo email no exista
+            if (repositorioUsuario.existsByEmail(request.getEmail())) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "El email ya está en uso");
+            }
+            usuario.setEmail(request.getEmail());
+        }
+        if (request.getTelefono() != null) {
+            usuario.setTelefono(request.getTelefono());
+        }
+
+        Usuario actualizado = repositorioUsuario.save(usuario);
+        if (perfilProfesional != null && perfilProfesional.getEmpresa() != null) {
+            eventPublisher.publishEvent(new CatalogoModificadoEvent(
+                    perfilProfesional.getEmpresa().getId(), perfilProfesional.getEmpresa().getSlug()));
+        }
+        return actualizado;
+    }
+
     @Transactional
     public void eliminarProfesional(String emailDueno, Long idProfesional) {
         desactivarProfesional(emailDueno, idProfesional);
@@ -168,6 +226,7 @@ public class ServicioProfesional {
 
         perfil.setActivo(activo);
         repositorioPerfilProfesional.save(perfil);
+        eventPublisher.publishEvent(new CatalogoModificadoEvent(perfil.getEmpresa().getId(), perfil.getEmpresa().getSlug()));
     }
 
     private void validarSinTurnosActivos(PerfilProfesional perfil) {
@@ -266,5 +325,6 @@ public class ServicioProfesional {
         } else {
             existente.ifPresent(repositorioProfesionalServicio::delete);
         }
+        eventPublisher.publishEvent(new CatalogoModificadoEvent(perfil.getEmpresa().getId(), perfil.getEmpresa().getSlug()));
     }
 }
\ No newline at end of file
@@ -5,6 +5,15 @@ import com.example.sitema_de_turnos.excepcion.RecursoNoEncontradoException;
 import com.example.sitema_de_turnos.excepcion.ValidacionException;
 import com.example.sitema_de_turnos.modelo.*;
 import com.example.sitema_de_turnos.repositorio.*;
+import com.example.sitema_de_turnos.servicio.agenda.CacheSlotsDisponibilidad;
+import com.example.sitema_de_turnos.servicio.agenda.CargadorAgenda;
+import com.example.sitema_de_turnos.servicio.agenda.MapaOcupacionDia;
+import com.example.sitema_de_turnos.servicio.agenda.RegistroRetenciones;
+import com.example.sitema_de_turnos.servicio.agenda.ServicioFranjasLibres;
+import com.example.sitema_de_turnos.servicio.catalogo.CacheCatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa.ProfesionalCatalogo;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa.ServicioCatalogo;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,10 +21,11 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,60 +40,54 @@ public class ServicioPublico {
         return servicioPoliticaCancelacion.obtenerActivasPorEmpresaSlugDTO(slug);
     }
 
-    private final RepositorioEmpresa repositorioEmpresa;
     private final RepositorioServicio repositorioServicio;
     private final RepositorioPerfilProfesional repositorioPerfilProfesional;
-    private final RepositorioProfesionalServicio repositorioProfesionalServicio;
-    private final RepositorioDisponibilidadProfesional repositorioDisponibilidad;
-    private final RepositorioBloqueoFecha repositorioBloqueoFecha;
-    private final RepositorioTurno repositorioTurno;
+    private final CacheSlotsDisponibilidad cacheSlots;
+    private final ServicioFranjasLibres servicioFranjasLibres;
+    private final CargadorAgenda cargadorAgenda;
+    private final RegistroRetenciones registroRetenciones;
+    private final CacheCatalogoEmpresa cacheCatalogo;
 
-        /** Estados que bloquean slots en el calendario. */
-        private static final List<EstadoTurno> ESTADOS_OCUPANTES_AGENDA =
-            List.of(EstadoTurno.CONFIRMADO, EstadoTurno.PENDIENTE_PAGO);
+    /** Días que se cargan juntos al buscar el próximo horario libre. */
+    private static final int DIAS_POR_BLOQUE_BUSQUEDA = 7;
+    private static final int MAX_PROXIMOS_SLOTS = 50;
 
     /**
      * Obtener información pública de una empresa por slug
      */
-    @Transactional(readOnly = true)
     public EmpresaPublicaResponse obtenerEmpresaPorSlug(String slug) {
-        Empresa empresa = repositorioEmpresa.findBySlugAndActivaTrue(slug)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Empresa no encontrada"));
+        CatalogoEmpresa empresa = obtenerCatalogo(slug);
 
         return new EmpresaPublicaResponse(
-                empresa.getId(),
-                empresa.getNombre(),
-                empresa.getSlug(),
-                empresa.getDescripcion(),
-                empresa.getDireccion(),
-                empresa.getCiudad(),
-                empresa.getProvincia(),
-                empresa.getTelefono(),
-                empresa.getEmail(),
-                empresa.getDatosBancarios(),
-                empresa.getDiasMaximosReserva()
+                empresa.id(),
+                empresa.nombre(),
+                empresa.slug(),
+                empresa.descripcion(),
+                empresa.direccion(),
+                empresa.ciudad(),
+                empresa.provincia(),
+                empresa.telefono(),
+                empresa.email(),
+                empresa.datosBancarios(),
+                empresa.diasMaximosReserva()
         );
     }
 
     /**
      * Obtener servicios activos de una empresa
      */
-    @Transactional(readOnly = true)
     public List<ServicioPublicoResponse> obtenerServiciosPorEmpresa(String slug) {
-        Empresa empresa = repositorioEmpresa.findBySlugAndActivaTrue(slug)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Empresa no encontrada"));
-
-        List<Servicio> servicios = repositorioServicio.findByEmpresaAndActivoTrue(empresa);
+        CatalogoEmpresa empresa = obtenerCatalogo(slug);
 
-        return servicios.stream()
+        return empresa.serviciosActivos().stream()
                 .map(s -> new ServicioPublicoResponse(
-                        s.getId(),
-                        s.getNombre(),
-                        s.getDescripcion(),
-                        s.getDuracionMinutos(),
-                    s.getPrecio(),
-                    s.getRequiereSena(),
-                    s.getMontoSena()
+                        s.id(),
+                        s.nombre(),
+                        s.descripcion(),
+                        s.duracionMinutos(),
+                    s.precio(),
+                    s.requiereSena(),
+                    s.montoSena()
                 ))
                 .collect(Collectors.toList());
     }
@@ -91,44 +95,23 @@ public class ServicioPublico {
     /**
      * Obtener profesionales que pueden dar un servicio específico.
      * Usa la tabla profesional_servicio con activo=true para determinar disponibilidad.
+     * OPTIMIZADO: profesionales activos y habilitaciones salen del snapshot del catálogo
+     * (antes, una consulta de habilitaciones por profesional).
      */
-    @Transactional(readOnly = true)
     public List<ProfesionalPublicoResponse> obtenerProfesionalesPorServicio(String slug, Long servicioId) {
-        Empresa empresa = repositorioEmpresa.findBySlugAndActivaTrue(slug)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Empresa no encontrada"));
-
-        Servicio servicio = repositorioServicio.findById(servicioId)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Servicio no encontrado"));
-
-        if (!servicio.getEmpresa().getId().equals(empresa.getId())) {
-            throw new ValidacionException("El servicio no pertenece a esta empresa");
-        }
+        CatalogoEmpresa empresa = obtenerCatalogo(slug);
+        ServicioCatalogo servicio = validarServicioDeEmpresa(servicioId, empresa);
 
-        // Obtener todos los profesionales activos de la empresa
-        List<PerfilProfesional> profesionales = repositorioPerfilProfesional.findByEmpresaAndActivoTrue(empresa);
-
-        // Filtrar: deben tener habilitación explícita en profesional_servicio
-        return profesionales.stream()
-                .filter(p -> tieneServicioHabilitado(p, servicio))
+        return empresa.profesionalesHabilitados(servicio.id()).stream()
                 .map(p -> new ProfesionalPublicoResponse(
-                        p.getId(),
-                        p.getUsuario().getNombre(),
-                        p.getUsuario().getApellido(),
-                        p.getDescripcion()
+                        p.id(),
+                        p.nombre(),
+                        p.apellido(),
+                        p.descripcion()
                 ))
                 .collect(Collectors.toList());
     }
 
-    /**
-     * Verificar si el profesional tiene el servicio habilitado en profesional_servicio
-     */
-    private boolean tieneServicioHabilitado(PerfilProfesional profesional, Servicio servicio) {
-        // Buscar en RepositorioProfesionalServicio si existe una entrada con activo=true
-        return repositorioProfesionalServicio.findByProfesionalAndActivoTrue(profesional)
-                .stream()
-                .anyMatch(ps -> ps.getServicio().getId().equals(servicio.getId()));
-    }
-
     /**
      * Obtener slots disponibles para un servicio, profesional y fecha específica.
      * Considera: disponibilidad/horarios empresa + bloqueos + duración servicio + buffer
@@ -145,7 +128,7 @@ public class ServicioPublico {
 
     /**
      * Obtener slots disponibles para un servicio, profesional y fecha específica.
-     * Considera: disponibilidad/horarios empresa + bloqueos + duración servicio + buffer
+     * Considera: disponibilidad/horarios empresa + bloqueos + duración servicio + buffer + retenciones temporales
      *
      * @param bloqueTotalMinutos si no es null, representa el espacio total en agenda que ocupa el turno
      *                           (duracionMinutos + bufferMinutos congelados del turno). Se usa al
@@ -161,248 +144,483 @@ public class ServicioPublico {
             Integer bloqueTotalMinutos
     ) {
         // Validar empresa
-        Empresa empresa = repositorioEmpresa.findBySlugAndActivaTrue(empresaSlug)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Empresa no encontrada"));
+        CatalogoEmpresa empresa = obtenerCatalogo(empresaSlug);
 
-        // Validar que la fecha esté dentro del rango permitido
-        // CORREGIDO: usar TZ de la empresa para evitar desfase UTC vs hora local
-        ZoneId zonaEmpresa = ZoneId.of(empresa.getTimezone());
-        LocalDate hoy = LocalDate.now(zonaEmpresa);
-        LocalDate fechaMaxima = hoy.plusDays(empresa.getDiasMaximosReserva());
-        if (fecha.isBefore(hoy)) {
-            throw new ValidacionException("No se pueden reservar turnos en fechas pasadas");
+        validarFechaReservable(fecha, empresa);
+
+        ServicioCatalogo servicio = validarServicioDeEmpresa(servicioId, empresa);
+        if (profesionalId == null) {
+            if (bloqueTotalMinutos != null) {
+                throw new ValidacionException("La reprogramación requiere indicar el profesional");
+            }
+            return obtenerSlotsCualquierProfesional(empresa, servicio, fecha);
         }
-        if (fecha.isAfter(fechaMaxima)) {
-            throw new ValidacionException("La fecha excede el límite de reserva permitido");
+        ProfesionalCatalogo profesional = validarProfesionalParaServicio(profesionalId, servicio, empresa);
+
+        // Reprogramación: el bloque total en agenda ya está congelado (duracion + buffer del turno).
+        // Se usa como duración con buffer=0 para buscar exactamente ese tamaño de hueco. El frontend
+        // muestra el fin real del servicio usando turno.duracionMinutos, sin depender de horaFin del slot.
+        // Nueva reserva: usar duración y buffer actuales del servicio.
+        int duracionServicio = bloqueTotalMinutos != null ? bloqueTotalMinutos : servicio.duracionMinutos();
+        int buffer = bloqueTotalMinutos != null ? 0 : empresa.bufferEfectivo(servicio);
+        int duracionTotal = duracionServicio + buffer;
+
+        // OPTIMIZADO: bloqueo, disponibilidad y turnos solo se consultan si el día no está en caché
+        int[] inicios = cacheSlots.obtenerOCalcular(profesional.id(), fecha, duracionTotal,
+                () -> calcularInicios(profesional.id(), fecha, duracionTotal));
+        // Las retenciones temporales se filtran después de la caché: vencen solas sin invalidarla
+        inicios = registroRetenciones.filtrarInicios(profesional.id(), fecha, inicios, duracionTotal);
+
+        return construirSlots(inicios, fecha, duracionServicio, profesional, calcularMinutoMinimo(fecha, empresa));
+    }
+
+    /**
+     * Obtener la disponibilidad de varios días (vista de calendario) en una sola pasada.
+     *
+     * OPTIMIZADO: en lugar de invocar {@link #obtenerSlotsDisponibles} día por día (que revalida
+     * empresa/servicio/profesional y ejecuta 3 consultas por fecha), valida una sola vez y carga
+     * bloqueos, disponibilidad semanal y turnos ocupantes de TODO el rango con una consulta cada uno.
+     * Un mes de calendario pasa de ~30 round trips HTTP (y ~150 consultas) a 1 request con
+     * una cantidad fija de consultas.
+     *
+     * El rango se recorta a [hoy, hoy + diasMaximosReserva] en la zona de la empresa, para que
+     * el frontend pueda pedir el mes completo aunque empiece en días pasados.
+     *
+     * @param bloqueTotalMinutos mismo significado que en {@link #obtenerSlotsDisponibles}
+     * @param soloIndicadores    si es true, no se devuelven los slots, solo el flag y la cantidad por día
+     */
+    @Transactional(readOnly = true)
+    public List<DisponibilidadDiaResponse> obtenerCalendarioDisponibilidad(
+            String empresaSlug,
+            Long servicioId,
+            Long profesionalId,
+            LocalDate desde,
+            LocalDate hasta,
+            Integer bloqueTotalMinutos,
+            boolean soloIndicadores
+    ) {
+        if (hasta.isBefore(desde)) {
+            throw new ValidacionException("La fecha 'hasta' no puede ser anterior a 'desde'");
+        }
+
+        CatalogoEmpresa empresa = obtenerCatalogo(empresaSlug);
+
+        LocalDate hoy = empresa.hoy();
+        LocalDate fechaMaxima = hoy.plusDays(empresa.diasMaximosReserva());
+        LocalDate inicio = desde.isBefore(hoy) ? hoy : desde;
+        LocalDate fin = hasta.isAfter(fechaMaxima) ? fechaMaxima : hasta;
+
+        if (inicio.isAfter(fin)) {
+            return new ArrayList<>(); // Rango completamente fuera de la ventana de reserva
+        }
+
+        ServicioCatalogo servicio = validarServicioDeEmpresa(servicioId, empresa);
+        ProfesionalCatalogo profesional = validarProfesionalParaServicio(profesionalId, servicio, empresa);
+
+        int duracionServicio = bloqueTotalMinutos != null ? bloqueTotalMinutos : servicio.duracionMinutos();
+        int buffer = bloqueTotalMinutos != null ? 0 : empresa.bufferEfectivo(servicio);
+        int duracionTotal = duracionServicio + buffer;
+
+        // Primero la caché; los días faltantes se calculan con una carga por rango
+        Map<LocalDate, int[]> iniciosPorDia = new HashMap<>();
+        LocalDate primerFaltante = null;
+        LocalDate ultimoFaltante = null;
+        for (LocalDate dia = inicio; !dia.isAfter(fin); dia = dia.plusDays(1)) {
+            int[] cacheado = cacheSlots.obtener(profesional.id(), dia, duracionTotal);
+            if (cacheado != null) {
+                iniciosPorDia.put(dia, cacheado);
+            } else {
+                primerFaltante = primerFaltante == null ? dia : primerFaltante;
+                ultimoFaltante = dia;
+            }
+        }
+        if (primerFaltante != null) {
+            calcularIniciosRango(profesional.id(), primerFaltante, ultimoFaltante, duracionTotal, iniciosPorDia);
         }
 
-        // Validar servicio
-        Servicio servicio = repositorioServicio.findById(servicioId)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Servicio no encontrado"));
+        // Solo el primer día del rango puede ser hoy (el rango arranca como mínimo en hoy)
+        int minutoMinimoInicio = calcularMinutoMinimo(inicio, empresa);
+
+        List<DisponibilidadDiaResponse> calendario = new ArrayList<>();
+        for (LocalDate dia = inicio; !dia.isAfter(fin); dia = dia.plusDays(1)) {
+            int minutoMinimo = dia.equals(inicio) ? minutoMinimoInicio : 0;
+            int[] iniciosDia = registroRetenciones.filtrarInicios(profesional.id(), dia, iniciosPorDia.get(dia), duracionTotal);
 
-        if (!servicio.getEmpresa().getId().equals(empresa.getId())) {
-            throw new ValidacionException("El servicio no pertenece a esta empresa");
+            if (soloIndicadores) {
+                int cantidad = contarInicios(iniciosDia, minutoMinimo);
+                calendario.add(new DisponibilidadDiaResponse(dia, cantidad > 0, cantidad, null));
+            } else {
+                List<SlotDisponibleResponse> slots = construirSlots(iniciosDia, dia, duracionServicio, profesional, minutoMinimo);
+                calendario.add(new DisponibilidadDiaResponse(dia, !slots.isEmpty(), slots.size(), slots));
+            }
         }
 
-        // Validar profesional
-        PerfilProfesional profesional = repositorioPerfilProfesional.findById(profesionalId)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Profesional no encontrado"));
+        return calendario;
+    }
 
-        if (!profesional.getEmpresa().getId().equals(empresa.getId())) {
-            throw new ValidacionException("El profesional no pertenece a esta empresa");
+    /**
+     * Horarios de inicio disponibles en una fecha combinando la agenda de varios profesionales
+     * (unión ordenada y sin repetidos), para integraciones que no eligen profesional.
+     *
+     * OPTIMIZADO: a diferencia de llamar {@link #obtenerSlotsDisponibles} por profesional (que
+     * revalida empresa/servicio/profesional y consulta bloqueos y turnos de cada uno), los
+     * profesionales que no están en caché se resuelven juntos: primero los días materializados
+     * en {@code franjas_libres} (1 consulta) y después el resto con consultas {@code IN}
+     * (bloqueos, disponibilidad y turnos, 1 cada una). Las agendas se combinan en memoria
+     * marcando cada minuto de inicio en un arreglo del día.
+     *
+     * El llamador debe haber validado que los profesionales pertenecen a la empresa y
+     * tienen el servicio habilitado (p. ej. con {@link CatalogoEmpresa#profesionalesHabilitados}).
+     */
+    @Transactional(readOnly = true)
+    public List<LocalTime> obtenerHorariosCombinados(CatalogoEmpresa empresa, ServicioCatalogo servicio,
+                                                     List<ProfesionalCatalogo> profesionales, LocalDate fecha) {
+        validarFechaReservable(fecha, empresa);
+        if (profesionales.isEmpty()) {
+            return new ArrayList<>();
         }
 
-        if (!profesional.getActivo()) {
-            throw new ValidacionException("El profesional no está activo");
+        int duracionTotal = servicio.duracionMinutos() + empresa.bufferEfectivo(servicio);
+        Map<Long, Map<LocalDate, int[]>> iniciosPorProfesional =
+                calcularIniciosVarios(profesionales, fecha, fecha, duracionTotal);
+
+        int minutoMinimo = calcularMinutoMinimo(fecha, empresa);
+        boolean[] hayInicio = new boolean[MapaOcupacionDia.MINUTOS_DIA];
+        for (Map.Entry<Long, Map<LocalDate, int[]>> porProfesional : iniciosPorProfesional.entrySet()) {
+            int[] inicios = registroRetenciones.filtrarInicios(
+                    porProfesional.getKey(), fecha, porProfesional.getValue().get(fecha), duracionTotal);
+            for (int minuto : inicios) {
+                if (minuto >= minutoMinimo) {
+                    hayInicio[minuto] = true;
+                }
+            }
         }
 
-        // Validar que el profesional tenga el servicio habilitado
-        if (!tieneServicioHabilitado(profesional, servicio)) {
-            throw new ValidacionException("El profesional no tiene habilitado este servicio");
+        List<LocalTime> horarios = new ArrayList<>();
+        for (int minuto = 0; minuto < hayInicio.length; minuto++) {
+            if (hayInicio[minuto]) {
+                horarios.add(MapaOcupacionDia.aHora(minuto));
+            }
         }
+        return horarios;
+    }
 
-        // Verificar si el profesional tiene bloqueo en esta fecha
-        if (!repositorioBloqueoFecha.findBloqueoEnFecha(profesional, fecha).isEmpty()) {
-            return new ArrayList<>(); // No hay slots disponibles
+    /**
+     * Buscar los próximos {@code cantidad} horarios libres desde hoy hasta el fin de la ventana de
+     * reserva, para un profesional o (con {@code profesionalId} nulo) para cualquier profesional
+     * habilitado para el servicio.
+     *
+     * OPTIMIZADO: recorre la ventana en bloques de {@value #DIAS_POR_BLOQUE_BUSQUEDA} días, cargando
+     * cada bloque para todos los profesionales juntos (ver {@link #calcularIniciosVarios}), y corta
+     * apenas junta {@code cantidad} horarios: el caso común se resuelve con el primer bloque, sin
+     * consultar día por día.
+     *
+     * En modo "cualquier profesional" cada horario se devuelve una sola vez, asignado al primer
+     * profesional libre en ese horario.
+     */
+    @Transactional(readOnly = true)
+    public List<SlotDisponibleResponse> buscarProximosSlots(String empresaSlug, Long servicioId,
+                                                            Long profesionalId, int cantidad) {
+        if (cantidad < 1 || cantidad > MAX_PROXIMOS_SLOTS) {
+            throw new ValidacionException("La cantidad debe estar entre 1 y " + MAX_PROXIMOS_SLOTS);
         }
 
-        // Obtener día de la semana
-        DiaSemana diaSemana = convertirDayOfWeekADiaSemana(fecha.getDayOfWeek());
+        CatalogoEmpresa empresa = obtenerCatalogo(empresaSlug);
+        ServicioCatalogo servicio = validarServicioDeEmpresa(servicioId, empresa);
 
-        // Obtener horarios del profesional (fuente de verdad absoluta)
-        List<RangoHorario> rangosHorarios = obtenerRangosHorarios(profesional, diaSemana);
+        List<ProfesionalCatalogo> profesionales = profesionalId != null
+                ? List.of(validarProfesionalParaServicio(profesionalId, servicio, empresa))
+                : empresa.profesionalesHabilitados(servicio.id());
 
-        if (rangosHorarios.isEmpty()) {
-            return new ArrayList<>(); // No hay horarios configurados
+        List<SlotDisponibleResponse> encontrados = new ArrayList<>();
+        if (profesionales.isEmpty()) {
+            return encontrados;
+        }
+
+        int duracionServicio = servicio.duracionMinutos();
+        int duracionTotal = duracionServicio + empresa.bufferEfectivo(servicio);
+        LocalDate hoy = empresa.hoy();
+        LocalDate fechaMaxima = hoy.plusDays(empresa.diasMaximosReserva());
+        int minutoMinimoHoy = calcularMinutoMinimo(hoy, empresa);
+
+        for (LocalDate desde = hoy; !desde.isAfter(fechaMaxima); desde = desde.plusDays(DIAS_POR_BLOQUE_BUSQUEDA)) {
+            LocalDate hasta = desde.plusDays(DIAS_POR_BLOQUE_BUSQUEDA - 1);
+            if (hasta.isAfter(fechaMaxima)) {
+                hasta = fechaMaxima;
+            }
+            Map<Long, Map<LocalDate, int[]>> bloque = calcularIniciosVarios(profesionales, desde, hasta, duracionTotal);
+
+            for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+                // Primer profesional libre en cada minuto del día
+                ProfesionalCatalogo[] libres = new ProfesionalCatalogo[MapaOcupacionDia.MINUTOS_DIA];
+                int minutoMinimo = dia.equals(hoy) ? minutoMinimoHoy : 0;
+                for (ProfesionalCatalogo profesional : profesionales) {
+                    int[] inicios = registroRetenciones.filtrarInicios(
+                            profesional.id(), dia, bloque.get(profesional.id()).get(dia), duracionTotal);
+                    for (int minuto : inicios) {
+                        if (minuto >= minutoMinimo && libres[minuto] == null) {
+                            libres[minuto] = profesional;
+                        }
+                    }
+                }
+                for (int minuto = 0; minuto < libres.length; minuto++) {
+                    ProfesionalCatalogo profesional = libres[minuto];
+                    if (profesional == null) {
+                        continue;
+                    }
+                    encontrados.add(crearSlot(dia, minuto, duracionServicio, profesional.id(), profesional.nombreCompleto()));
+                    if (encontrados.size() == cantidad) {
+                        return encontrados;
+                    }
+                }
+            }
         }
+        return encontrados;
+    }
 
-        // Calcular buffer efectivo (solo se usa cuando NO hay override)
-        Integer bufferMinutos = calcularBufferEfectivo(servicio, profesional, empresa);
+    /**
+     * Modo "cualquier profesional": unión de los horarios libres de todos los profesionales
+     * habilitados para el servicio. Los slots van sin profesional; al reservar sin profesionalId
+     * se asigna el menos cargado del día (ver ServicioTurno.crearTurnoPublico).
+     */
+    private List<SlotDisponibleResponse> obtenerSlotsCualquierProfesional(CatalogoEmpresa empresa,
+                                                                          ServicioCatalogo servicio, LocalDate fecha) {
+        List<ProfesionalCatalogo> profesionales = empresa.profesionalesHabilitados(servicio.id());
 
-        if (bloqueTotalMinutos != null) {
-            // Reprogramación: el bloque total en agenda ya está congelado (duracion + buffer del turno).
-            // Se pasa como duracionServicio y buffer=0 para que generarSlots use exactamente
-            // ese tamaño de hueco. El frontend muestra el fin real del servicio usando
-            // turno.duracionMinutos, sin depender de horaFin del slot.
-            return generarSlots(rangosHorarios, fecha, bloqueTotalMinutos, 0, profesional, empresa);
+        List<SlotDisponibleResponse> slots = new ArrayList<>();
+        for (LocalTime hora : obtenerHorariosCombinados(empresa, servicio, profesionales, fecha)) {
+            slots.add(crearSlot(fecha, MapaOcupacionDia.aMinuto(hora), servicio.duracionMinutos(), null, null));
         }
+        return slots;
+    }
 
-        // Nueva reserva: usar duración y buffer actuales del servicio
-        return generarSlots(rangosHorarios, fecha, servicio.getDuracionMinutos(), bufferMinutos, profesional, empresa);
+    /**
+     * Validar que la fecha esté dentro de la ventana de reserva [hoy, hoy + diasMaximosReserva].
+     * CORREGIDO: usar TZ de la empresa para evitar desfase UTC vs hora local
+     */
+    private void validarFechaReservable(LocalDate fecha, CatalogoEmpresa empresa) {
+        LocalDate hoy = empresa.hoy();
+        LocalDate fechaMaxima = hoy.plusDays(empresa.diasMaximosReserva());
+        if (fecha.isBefore(hoy)) {
+            throw new ValidacionException("No se pueden reservar turnos en fechas pasadas");
+        }
+        if (fecha.isAfter(fechaMaxima)) {
+            throw new ValidacionException("La fecha excede el límite de reserva permitido");
+        }
     }
 
-        /**
-         * Obtener rangos horarios del profesional.
-         * Regla estricta: si no tiene disponibilidad configurada para el día, retorna lista vacía.
-         */
-    private List<RangoHorario> obtenerRangosHorarios(PerfilProfesional profesional, DiaSemana diaSemana) {
-        List<DisponibilidadProfesional> disponibilidades = 
-                repositorioDisponibilidad.findByProfesionalAndDiaSemanaAndActivoTrue(profesional, diaSemana);
+    /**
+     * Catálogo de una empresa activa por slug.
+     * OPTIMIZADO: empresa, servicios, profesionales y habilitaciones salen del snapshot en memoria.
+     */
+    private CatalogoEmpresa obtenerCatalogo(String slug) {
+        return cacheCatalogo.obtenerPorSlug(slug)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Empresa no encontrada"));
+    }
 
-        return disponibilidades.stream()
-            .map(d -> new RangoHorario(d.getHoraInicio(), d.getHoraFin()))
-                .collect(Collectors.toList());
+    /**
+     * Validar que el servicio exista y pertenezca a la empresa. Un servicio de otra empresa no está
+     * en su catálogo: solo en ese caso se consulta la base para devolver el error correcto.
+     */
+    private ServicioCatalogo validarServicioDeEmpresa(Long servicioId, CatalogoEmpresa empresa) {
+        return empresa.servicio(servicioId).orElseThrow(() -> repositorioServicio.existsById(servicioId)
+                ? new ValidacionException("El servicio no pertenece a esta empresa")
+                : new RecursoNoEncontradoException("Servicio no encontrado"));
     }
 
     /**
-     * Calcular buffer efectivo: Servicio > Empresa
+     * Validar que el profesional exista, pertenezca a la empresa, esté activo
+     * y tenga habilitado el servicio.
      */
-    private Integer calcularBufferEfectivo(Servicio servicio, PerfilProfesional profesional, Empresa empresa) {
-        if (servicio.getBufferMinutos() != null) {
-            return servicio.getBufferMinutos();
+    private ProfesionalCatalogo validarProfesionalParaServicio(Long profesionalId, ServicioCatalogo servicio,
+                                                               CatalogoEmpresa empresa) {
+        ProfesionalCatalogo profesional = empresa.profesional(profesionalId).orElseThrow(() ->
+                repositorioPerfilProfesional.existsById(profesionalId)
+                        ? new ValidacionException("El profesional no pertenece a esta empresa")
+                        : new RecursoNoEncontradoException("Profesional no encontrado"));
+
+        if (!profesional.activo()) {
+            throw new ValidacionException("El profesional no está activo");
         }
-        return empresa.getBufferPorDefecto() != null ? empresa.getBufferPorDefecto() : 10;
+
+        // Validar que el profesional tenga el servicio habilitado
+        if (!empresa.estaHabilitado(profesional.id(), servicio.id())) {
+            throw new ValidacionException("El profesional no tiene habilitado este servicio");
+        }
+        return profesional;
     }
 
     /**
-     * Generar slots disponibles en puntos significativos del calendario.
-     * Estrategia: generar slots SOLO en:
-     * 1. Inicio de cada hueco libre
-     * 2. Fin exacto de cada turno existente (si el servicio cabe después)
-     * 
-     * Esto maximiza ocupación sin granularidad artificial.
-     * 
-     * Si la fecha es el día actual, filtra slots que ya pasaron considerando
-     * el tiempo mínimo de anticipación de la empresa.
+     * Calcular los inicios de slot de un día SIN el corte de anticipación de hoy
+     * (ese corte se aplica al construir la respuesta, así el resultado es cacheable).
+     *
+     * OPTIMIZADO: si el día está materializado en {@code franjas_libres}, los huecos libres salen
+     * de una sola lectura indexada; si no, se arma desde bloqueos, disponibilidad y turnos ocupantes.
      */
-    private List<SlotDisponibleResponse> generarSlots(
-            List<RangoHorario> rangos,
-            LocalDate fecha,
-            Integer duracionServicio,
-            Integer buffer,
-            PerfilProfesional profesional,
-            Empresa empresa
-    ) {
-        List<SlotDisponibleResponse> slots = new ArrayList<>();
-        Integer duracionTotal = duracionServicio + buffer;
-
-        // Obtener turnos que bloquean agenda (solo estados ocupantes)
-        List<Turno> turnosExistentes = repositorioTurno.findTurnosActivosByProfesionalAndFecha(
-            profesional, fecha, ESTADOS_OCUPANTES_AGENDA);
-        
-        turnosExistentes.sort(Comparator.comparing(Turno::getHoraInicio));
-
-        for (RangoHorario rango : rangos) {
-            // Filtrar turnos que están dentro de este rango horario
-            List<Turno> turnosEnRango = turnosExistentes.stream()
-                    .filter(t -> !t.getHoraInicio().isBefore(rango.horaInicio) && 
-                                 t.getHoraInicio().isBefore(rango.horaFin))
-                    .collect(Collectors.toList());
-
-            if (turnosEnRango.isEmpty()) {
-                // Sin turnos: todo el rango es un hueco libre
-                // Generar múltiples slots dentro del hueco
-                generarSlotsEnHueco(slots, fecha, rango.horaInicio, rango.horaFin, 
-                                   duracionServicio, duracionTotal, profesional, empresa);
-            } else {
-                // Con turnos: identificar huecos libres
-                LocalTime inicioBusqueda = rango.horaInicio;
-
-                for (Turno turno : turnosEnRango) {
-                    // Hueco ANTES del turno actual
-                    if (inicioBusqueda.isBefore(turno.getHoraInicio())) {
-                        // Generar múltiples slots en este hueco
-                        generarSlotsEnHueco(slots, fecha, inicioBusqueda, turno.getHoraInicio(), 
-                                           duracionServicio, duracionTotal, profesional, empresa);
-                    }
+    private int[] calcularInicios(Long profesionalId, LocalDate fecha, int duracionTotal) {
+        MapaOcupacionDia mapa = servicioFranjasLibres.leer(profesionalId, fecha)
+                .orElseGet(() -> cargadorAgenda.cargar(referencia(profesionalId), fecha, fecha).get(fecha));
+        return mapa.inicios(duracionTotal, 0);
+    }
 
-                    // Preparar para buscar después de este turno
-                    // El siguiente hueco comienza exactamente cuando termina este turno
-                    inicioBusqueda = turno.getHoraFin();
-                }
+    /**
+     * Calcular los inicios de los días [desde, hasta] que falten en {@code iniciosPorDia}.
+     * Primero se leen los días materializados en {@code franjas_libres}; los que sigan faltando
+     * se arman con una carga por rango (una consulta de bloqueos, disponibilidad y turnos cada una).
+     * Los resultados se guardan en la caché.
+     */
+    private void calcularIniciosRango(Long profesionalId, LocalDate desde, LocalDate hasta,
+                                      int duracionTotal, Map<LocalDate, int[]> iniciosPorDia) {
+        long generacion = cacheSlots.generacion(profesionalId);
+
+        Map<LocalDate, MapaOcupacionDia> mapas = servicioFranjasLibres.leerRango(profesionalId, desde, hasta);
+
+        LocalDate primerFaltante = null;
+        LocalDate ultimoFaltante = null;
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            if (!iniciosPorDia.containsKey(dia) && !mapas.containsKey(dia)) {
+                primerFaltante = primerFaltante == null ? dia : primerFaltante;
+                ultimoFaltante = dia;
+            }
+        }
+        if (primerFaltante != null) {
+            cargadorAgenda.cargar(referencia(profesionalId), primerFaltante, ultimoFaltante).forEach(mapas::putIfAbsent);
+        }
+
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            if (iniciosPorDia.containsKey(dia)) {
+                continue;
+            }
+            int[] inicios = mapas.get(dia).inicios(duracionTotal, 0);
+            cacheSlots.guardar(profesionalId, dia, duracionTotal, inicios, generacion);
+            iniciosPorDia.put(dia, inicios);
+        }
+    }
 
-                // Hueco DESPUÉS del último turno hasta el fin del rango
-                if (inicioBusqueda.isBefore(rango.horaFin)) {
-                    // Generar múltiples slots en este último hueco
-                    generarSlotsEnHueco(slots, fecha, inicioBusqueda, rango.horaFin, 
-                                       duracionServicio, duracionTotal, profesional, empresa);
+    /**
+     * Inicios de slot de [desde, hasta] para varios profesionales, por id de profesional y fecha.
+     * Orden de resolución: caché, días materializados en {@code franjas_libres} (1 consulta para
+     * todos) y carga en vivo de los profesionales a los que les falte algún día (consultas
+     * {@code IN}). Lo calculado se cachea.
+     */
+    private Map<Long, Map<LocalDate, int[]>> calcularIniciosVarios(List<ProfesionalCatalogo> profesionales,
+                                                                   LocalDate desde, LocalDate hasta,
+                                                                   int duracionTotal) {
+        Map<Long, Map<LocalDate, int[]>> resultado = new HashMap<>();
+        Map<Long, Long> generaciones = new HashMap<>();
+        List<Long> faltantes = new ArrayList<>();
+        for (ProfesionalCatalogo profesional : profesionales) {
+            long generacion = cacheSlots.generacion(profesional.id());
+            Map<LocalDate, int[]> porFecha = resultado.computeIfAbsent(profesional.id(), k -> new HashMap<>());
+            boolean completo = true;
+            for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+                int[] cacheado = cacheSlots.obtener(profesional.id(), dia, duracionTotal);
+                if (cacheado != null) {
+                    porFecha.put(dia, cacheado);
+                } else {
+                    completo = false;
                 }
             }
+            if (!completo && generaciones.put(profesional.id(), generacion) == null) {
+                faltantes.add(profesional.id());
+            }
+        }
+        if (faltantes.isEmpty()) {
+            return resultado;
         }
 
-        return slots;
+        Map<Long, Map<LocalDate, MapaOcupacionDia>> mapas =
+                servicioFranjasLibres.leerVarios(generaciones.keySet(), desde, hasta);
+        List<PerfilProfesional> sinMaterializar = new ArrayList<>();
+        for (Long id : faltantes) {
+            Map<LocalDate, int[]> porFecha = resultado.get(id);
+            Map<LocalDate, MapaOcupacionDia> materializados = mapas.getOrDefault(id, Map.of());
+            for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+                if (!porFecha.containsKey(dia) && !materializados.containsKey(dia)) {
+                    sinMaterializar.add(referencia(id));
+                    break;
+                }
+            }
+        }
+        cargadorAgenda.cargar(sinMaterializar, desde, hasta).forEach((profesionalId, porFecha) ->
+                porFecha.forEach((dia, mapa) ->
+                        mapas.computeIfAbsent(profesionalId, k -> new HashMap<>()).putIfAbsent(dia, mapa)));
+
+        for (Long id : faltantes) {
+            Map<LocalDate, int[]> porFecha = resultado.get(id);
+            for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+                if (!porFecha.containsKey(dia)) {
+                    int[] inicios = mapas.get(id).get(dia).inicios(duracionTotal, 0);
+                    cacheSlots.guardar(id, dia, duracionTotal, inicios, generaciones.get(id));
+                    porFecha.put(dia, inicios);
+                }
+            }
+        }
+        return resultado;
     }
 
     /**
-     * Generar múltiples slots dentro de un hueco libre.
-     * Avanza por (duración + buffer) para evitar solapamientos.
-     * 
-     * Si la fecha es el día actual, solo genera slots que estén después de
-     * la hora actual + tiempo mínimo de anticipación de la empresa.
+     * Construir la respuesta a partir de los inicios calculados.
+     * Si la fecha es el día actual, filtra slots que ya pasaron considerando
+     * el tiempo mínimo de anticipación de la empresa ({@code minutoMinimo}).
      */
-    private void generarSlotsEnHueco(List<SlotDisponibleResponse> slots, LocalDate fecha,
-                                     LocalTime inicioHueco, LocalTime finHueco,
-                                     Integer duracionServicio, Integer duracionTotal,
-                                     PerfilProfesional profesional, Empresa empresa) {
-        LocalTime horaActual = inicioHueco;
-        
-        // CORREGIDO: comparar contra la zona horaria de la empresa, no contra UTC del JVM (Docker)
-        ZoneId zonaEmpresa = ZoneId.of(empresa.getTimezone());
-        boolean esHoy = fecha.isEqual(LocalDate.now(zonaEmpresa));
-        LocalTime horaLimite = null;
-        
-        if (esHoy) {
-            // Obtener tiempo mínimo de anticipación de la empresa
-            int tiempoMinimoAnticipacion = empresa.getTiempoMinimoAnticipacionMinutos() != null ?
-                empresa.getTiempoMinimoAnticipacionMinutos() : 30;
-            // CORREGIDO: LocalTime.now(zonaEmpresa) en lugar de LocalTime.now() (UTC)
-            horaLimite = LocalTime.now(zonaEmpresa).plusMinutes(tiempoMinimoAnticipacion);
+    private List<SlotDisponibleResponse> construirSlots(int[] inicios, LocalDate fecha, int duracionServicio,
+                                                        ProfesionalCatalogo profesional, int minutoMinimo) {
+        List<SlotDisponibleResponse> slots = new ArrayList<>(inicios.length);
+        if (inicios.length == 0) {
+            return slots;
         }
-        
-        while (horaActual.plusMinutes(duracionTotal).compareTo(finHueco) <= 0) {
-            // Si es hoy, verificar que el slot esté después del tiempo mínimo de anticipación
-            if (esHoy && horaActual.isBefore(horaLimite)) {
-                horaActual = horaActual.plusMinutes(duracionTotal);
-                continue;
+        String nombreProfesional = profesional.nombreCompleto();
+        for (int minuto : inicios) {
+            if (minuto >= minutoMinimo) {
+                slots.add(crearSlot(fecha, minuto, duracionServicio, profesional.id(), nombreProfesional));
+            }
+        }
+        return slots;
+    }
+
+    private int contarInicios(int[] inicios, int minutoMinimo) {
+        int cantidad = 0;
+        for (int minuto : inicios) {
+            if (minuto >= minutoMinimo) {
+                cantidad++;
             }
-            
-            slots.add(crearSlot(fecha, horaActual, duracionServicio, profesional));
-            horaActual = horaActual.plusMinutes(duracionTotal);
         }
+        return cantidad;
     }
 
     /**
-     * Crear un slot disponible
+     * Primer minuto del día admitido como inicio de slot.
+     * Si la fecha es hoy (en la zona de la empresa), es la hora actual + tiempo mínimo de
+     * anticipación redondeado hacia arriba al minuto; puede superar 1440 (ya no quedan slots hoy).
+     * Para cualquier otra fecha es 0.
      */
-    private SlotDisponibleResponse crearSlot(LocalDate fecha, LocalTime horaInicio, 
-                                             Integer duracionServicio, PerfilProfesional profesional) {
-        LocalDateTime inicio = LocalDateTime.of(fecha, horaInicio);
-        LocalDateTime fin = inicio.plusMinutes(duracionServicio);
-        
-        return new SlotDisponibleResponse(
-                inicio,
-                fin,
-                profesional.getId(),
-                profesional.getUsuario().getNombre() + " " + profesional.getUsuario().getApellido()
-        );
+    private int calcularMinutoMinimo(LocalDate fecha, CatalogoEmpresa empresa) {
+        // CORREGIDO: comparar contra la zona horaria de la empresa, no contra UTC del JVM (Docker)
+        if (!fecha.isEqual(empresa.hoy())) {
+            return 0;
+        }
+        long nanosLimite = LocalTime.now(empresa.zona()).toNanoOfDay()
+                + TimeUnit.MINUTES.toNanos(empresa.tiempoMinimoAnticipacionMinutos());
+        return (int) Math.ceilDiv(nanosLimite, TimeUnit.MINUTES.toNanos(1));
     }
 
     /**
-     * Convertir java.time.DayOfWeek a DiaSemana
+     * Referencia (proxy sin inicializar) a un profesional del catálogo, para las consultas de agenda
+     * que filtran por entidad: solo se usa su id.
      */
-    private DiaSemana convertirDayOfWeekADiaSemana(java.time.DayOfWeek dayOfWeek) {
-        switch (dayOfWeek) {
-            case MONDAY: return DiaSemana.LUNES;
-            case TUESDAY: return DiaSemana.MARTES;
-            case WEDNESDAY: return DiaSemana.MIERCOLES;
-            case THURSDAY: return DiaSemana.JUEVES;
-            case FRIDAY: return DiaSemana.VIERNES;
-            case SATURDAY: return DiaSemana.SABADO;
-            case SUNDAY: return DiaSemana.DOMINGO;
-            default: throw new IllegalArgumentException("Día de la semana no válido: " + dayOfWeek);
-        }
+    private PerfilProfesional referencia(Long profesionalId) {
+        return repositorioPerfilProfesional.getReferenceById(profesionalId);
     }
 
     /**
-     * Clase auxiliar para rangos horarios
+     * Crear un slot disponible
      */
-    private static class RangoHorario {
-        LocalTime horaInicio;
-        LocalTime horaFin;
+    private SlotDisponibleResponse crearSlot(LocalDate fecha, int minutoInicio,
+                                             Integer duracionServicio, Long profesionalId, String profesionalNombre) {
+        LocalDateTime inicio = LocalDateTime.of(fecha, MapaOcupacionDia.aHora(minutoInicio));
+        LocalDateTime fin = inicio.plusMinutes(duracionServicio);
 
-        RangoHorario(LocalTime horaInicio, LocalTime horaFin) {
-            this.horaInicio = horaInicio;
-            this.horaFin = horaFin;
-        }
+        return new SlotDisponibleResponse(inicio, fin, profesionalId, profesionalNombre);
     }
 }
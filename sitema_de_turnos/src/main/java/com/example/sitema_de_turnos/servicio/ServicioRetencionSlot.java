@@ -0,0 +1,247 @@
+package com.example.sitema_de_turnos.servicio;
+
+import com.example.sitema_de_turnos.dto.publico.CrearRetencionRequest;
+import com.example.sitema_de_turnos.dto.publico.RetencionResponse;
+import com.example.sitema_de_turnos.evento.SlotTurnoEvent;
+import com.example.sitema_de_turnos.excepcion.LimiteSolicitudesException;
+import com.example.sitema_de_turnos.excepcion.RecursoNoEncontradoException;
+import com.example.sitema_de_turnos.excepcion.SolapamientoException;
+import com.example.sitema_de_turnos.excepcion.ValidacionException;
+import com.example.sitema_de_turnos.modelo.Cliente;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import com.example.sitema_de_turnos.modelo.RetencionSlot;
+import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioRetencionSlot;
+import com.example.sitema_de_turnos.repositorio.RepositorioServicio;
+import com.example.sitema_de_turnos.servicio.agenda.CargadorAgenda;
+import com.example.sitema_de_turnos.servicio.agenda.LimitadorRetenciones;
+import com.example.sitema_de_turnos.servicio.agenda.MapaOcupacionDia;
+import com.example.sitema_de_turnos.servicio.agenda.RegistroRetenciones;
+import com.example.sitema_de_turnos.servicio.agenda.SerializadorReservas;
+import com.example.sitema_de_turnos.servicio.catalogo.CacheCatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa.ProfesionalCatalogo;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa.ServicioCatalogo;
+import com.example.sitema_de_turnos.util.NormalizadorDatos;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Retenciones temporales de horarios (checkout leases).
+ *
+ * Entre elegir un horario y enviar el formulario otro cliente puede tomarlo; con una retención el horario
+ * deja de publicarse por {@code app.reservas.retenciones.ttl-minutos} y {@code crearTurnoPublico} solo lo
+ * acepta con el token de la retención. Vencen solas (ver {@link RegistroRetenciones}).
+ *
+ * El endpoint es anónimo, así que se acota por titular y por origen:
+ * - Una retención vigente por titular (email del cliente, si no la sesión y si no la IP): la nueva reemplaza a la anterior.
+ * - A lo sumo {@code app.reservas.retenciones.max-por-origen} vigentes por IP, aunque cambie el email.
+ * - Ritmo de creación por IP acotado por {@link LimitadorRetenciones} (HTTP 429 al excederlo).
+ */
+@Slf4j
+@Service
+public class ServicioRetencionSlot {
+
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final RepositorioServicio repositorioServicio;
+    private final RepositorioPerfilProfesional repositorioPerfilProfesional;
+    private final RepositorioRetencionSlot repositorioRetencionSlot;
+    private final CacheCatalogoEmpresa cacheCatalogo;
+    private final CargadorAgenda cargadorAgenda;
+    private final SerializadorReservas serializadorReservas;
+    private final RegistroRetenciones registroRetenciones;
+    private final LimitadorRetenciones limitadorRetenciones;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long ttlMinutos;
+    private final int maxPorOrigen;
+
+    public ServicioRetencionSlot(
+            RepositorioServicio repositorioServicio,
+            RepositorioPerfilProfesional repositorioPerfilProfesional,
+            RepositorioRetencionSlot repositorioRetencionSlot,
+            CacheCatalogoEmpresa cacheCatalogo,
+            CargadorAgenda cargadorAgenda,
+            SerializadorReservas serializadorReservas,
+            RegistroRetenciones registroRetenciones,
+            LimitadorRetenciones limitadorRetenciones,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.reservas.retenciones.ttl-minutos:5}") long ttlMinutos,
+            @Value("${app.reservas.retenciones.max-por-origen:3}") int maxPorOrigen) {
+        this.repositorioServicio = repositorioServicio;
+        this.repositorioPerfilProfesional = repositorioPerfilProfesional;
+        this.repositorioRetencionSlot = repositorioRetencionSlot;
+        this.cacheCatalogo = cacheCatalogo;
+        this.cargadorAgenda = cargadorAgenda;
+        this.serializadorReservas = serializadorReservas;
+        this.registroRetenciones = registroRetenciones;
+        this.limitadorRetenciones = limitadorRetenciones;
+        this.eventPublisher = eventPublisher;
+        this.ttlMinutos = ttlMinutos;
+        this.maxPorOrigen = maxPorOrigen;
+    }
+
+    /**
+     * Retener el intervalo [horaInicio, horaInicio + duración + buffer) del profesional.
+     * Misma estrategia que la reserva: advisory lock de agenda y verificación contra turnos ocupantes,
+     * bloqueos, disponibilidad y otras retenciones vigentes.
+     * Empresa, servicio, profesional y ventana de reserva salen del snapshot de catálogo.
+     *
+     * @param clienteAutenticado cliente con sesión (puede ser null)
+     * @param sesionId           id de la sesión HTTP del invitado (puede ser null)
+     * @param origen             IP de la solicitud
+     */
+    public RetencionResponse crearRetencion(String empresaSlug, Cliente clienteAutenticado, String sesionId,
+                                            String origen, CrearRetencionRequest request) {
+        limitadorRetenciones.verificar(origen);
+
+        CatalogoEmpresa catalogo = cacheCatalogo.obtenerPorSlug(empresaSlug)
+            .orElseThrow(() -> new RecursoNoEncontradoException("Empresa no encontrada"));
+
+        // Uno de otra empresa no está en el catálogo: solo entonces se consulta la base
+        Long servicioId = request.getServicioId();
+        ServicioCatalogo servicio = catalogo.servicio(servicioId)
+            .orElseThrow(() -> repositorioServicio.existsById(servicioId)
+                ? new ValidacionException("Servicio no disponible")
+                : new RecursoNoEncontradoException("Servicio no encontrado"));
+        if (!servicio.activo()) {
+            throw new ValidacionException("Servicio no disponible");
+        }
+
+        Long profesionalId = request.getProfesionalId();
+        ProfesionalCatalogo profesionalCatalogo = catalogo.profesional(profesionalId)
+            .orElseThrow(() -> repositorioPerfilProfesional.existsById(profesionalId)
+                ? new ValidacionException("Profesional no disponible")
+                : new RecursoNoEncontradoException("Profesional no encontrado"));
+        if (!profesionalCatalogo.activo()) {
+            throw new ValidacionException("Profesional no disponible");
+        }
+        PerfilProfesional profesional = repositorioPerfilProfesional.getReferenceById(profesionalId);
+
+        LocalDate fecha = LocalDate.parse(request.getFecha(), DateTimeFormatter.ISO_LOCAL_DATE);
+        LocalTime horaInicio = LocalTime.parse(request.getHoraInicio(), FORMATO_HORA);
+        LocalTime horaFin = horaInicio.plusMinutes(servicio.duracionMinutos()).plusMinutes(catalogo.bufferEfectivo(servicio));
+        if (!horaFin.isAfter(horaInicio)) {
+            throw new ValidacionException("El horario solicitado está fuera del horario de atención");
+        }
+        validarVentanaReserva(catalogo, fecha, horaInicio);
+        String titular = resolverTitular(clienteAutenticado, request, sesionId, origen);
+
+        RetencionSlot creada = serializadorReservas.ejecutar("crearRetencion", () -> {
+            // Lock del titular antes que el de agenda (mismo orden que la reserva): dos retenciones
+            // simultáneas del mismo titular no pueden quedar ambas vigentes
+            serializadorReservas.bloquearCliente(titular);
+            serializadorReservas.bloquearAgenda(profesional.getId(), fecha);
+
+            Instant ahora = Instant.now();
+            List<RetencionSlot> anteriores = repositorioRetencionSlot.findByTitularAndExpiraEnAfter(titular, ahora);
+            verificarCupoOrigen(origen, titular, ahora);
+            // Antes de verificar: la anterior del mismo titular puede pisar el horario nuevo
+            registroRetenciones.reemplazar(anteriores);
+
+            MapaOcupacionDia agenda = cargadorAgenda.cargar(profesional, fecha, fecha).get(fecha);
+            if (!agenda.estaLibre(MapaOcupacionDia.aMinuto(horaInicio), MapaOcupacionDia.aMinuto(horaFin))) {
+                throw new SolapamientoException("El horario ya no está disponible. Por favor, selecciona otro horario.");
+            }
+            // Sin token propio: cualquier retención vigente que se superponga bloquea
+            registroRetenciones.verificarYConsumir(profesional.getId(), fecha, horaInicio, horaFin, null);
+
+            RetencionSlot retencion = new RetencionSlot();
+            retencion.setToken(UUID.randomUUID().toString());
+            retencion.setEmpresaSlug(catalogo.slug());
+            retencion.setProfesionalId(profesional.getId());
+            retencion.setFecha(fecha);
+            retencion.setHoraInicio(horaInicio);
+            retencion.setHoraFin(horaFin);
+            retencion.setExpiraEn(ahora.plus(ttlMinutos, ChronoUnit.MINUTES).truncatedTo(ChronoUnit.SECONDS));
+            retencion.setTitular(titular);
+            retencion.setOrigen(origen);
+            return repositorioRetencionSlot.save(retencion);
+        });
+
+        registroRetenciones.registrar(creada);
+        eventPublisher.publishEvent(SlotTurnoEvent.retenido(catalogo.slug(), profesional.getId(), fecha, horaInicio, horaFin));
+        log.debug("⏳ Retención {} creada: profesional {} {} {}-{}", creada.getToken(), profesional.getId(), fecha, horaInicio, horaFin);
+
+        return new RetencionResponse(
+            creada.getToken(),
+            profesional.getId(),
+            fecha.toString(),
+            horaInicio.format(FORMATO_HORA),
+            horaFin.format(FORMATO_HORA),
+            creada.getExpiraEn().toString()
+        );
+    }
+
+    /**
+     * Liberar una retención antes de que venza (el cliente abandonó o eligió otro horario).
+     */
+    public void liberarRetencion(String empresaSlug, String token) {
+        RetencionSlot retencion = repositorioRetencionSlot.findByToken(token)
+            .filter(r -> r.getEmpresaSlug().equals(empresaSlug))
+            .orElseThrow(() -> new RecursoNoEncontradoException("Retención no encontrada o vencida"));
+        registroRetenciones.liberar(retencion.getToken());
+    }
+
+    /**
+     * Email normalizado del cliente (con sesión o informado en el formulario); sin email, la sesión HTTP;
+     * sin sesión, la IP. Los prefijos evitan que un id de sesión coincida con un email.
+     */
+    private static String resolverTitular(Cliente clienteAutenticado, CrearRetencionRequest request,
+                                          String sesionId, String origen) {
+        String email = clienteAutenticado != null
+            ? NormalizadorDatos.normalizarEmail(clienteAutenticado.getEmail())
+            : NormalizadorDatos.normalizarEmail(request.getEmailCliente());
+        if (email != null && !email.isBlank()) {
+            return email;
+        }
+        return sesionId != null ? "sesion:" + sesionId : "ip:" + origen;
+    }
+
+    /**
+     * Rechazar si la IP ya tiene el máximo de retenciones vigentes de otros titulares
+     * (la del mismo titular no cuenta: se reemplaza).
+     */
+    private void verificarCupoOrigen(String origen, String titular, Instant ahora) {
+        List<RetencionSlot> delOrigen = repositorioRetencionSlot.findByOrigenAndExpiraEnAfterOrderByExpiraEnAsc(origen, ahora);
+        List<RetencionSlot> ajenas = delOrigen.stream().filter(r -> !titular.equals(r.getTitular())).toList();
+        if (ajenas.size() >= maxPorOrigen) {
+            long segundos = Math.max(1L, ChronoUnit.SECONDS.between(ahora, ajenas.get(0).getExpiraEn()));
+            throw new LimiteSolicitudesException(
+                "Hay demasiados horarios retenidos desde esta conexión. Completá una reserva o intentá en "
+                    + segundos + " segundos.", segundos);
+        }
+    }
+
+    /**
+     * Mismas reglas de fecha que la reserva (zona horaria y ventana del snapshot de catálogo).
+     */
+    private void validarVentanaReserva(CatalogoEmpresa catalogo, LocalDate fecha, LocalTime horaInicio) {
+        ZonedDateTime ahora = catalogo.ahora();
+        LocalDate hoy = ahora.toLocalDate();
+        if (fecha.isBefore(hoy)) {
+            throw new ValidacionException("No se puede reservar en una fecha pasada");
+        }
+        if (fecha.isEqual(hoy)) {
+            int tiempoMinimo = catalogo.tiempoMinimoAnticipacionMinutos();
+            if (horaInicio.isBefore(ahora.toLocalTime().plusMinutes(tiempoMinimo))) {
+                throw new ValidacionException("Debe reservar con al menos " + tiempoMinimo + " minutos de anticipación");
+            }
+        }
+        int diasMaximos = catalogo.diasMaximosReserva();
+        if (fecha.isAfter(hoy.plusDays(diasMaximos))) {
+            throw new ValidacionException("No se puede reservar con más de " + diasMaximos + " días de anticipación");
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.example.sitema_de_turnos.servicio;
+
+import com.example.sitema_de_turnos.dto.publico.CrearSerieTurnosRequest;
+import com.example.sitema_de_turnos.dto.publico.CrearTurnoRequest;
+import com.example.sitema_de_turnos.dto.publico.SerieTurnosResponse;
+import com.example.sitema_de_turnos.evento.AgendaModificadaEvent;
+import com.example.sitema_de_turnos.evento.SlotTurnoEvent;
+import com.example.sitema_de_turnos.excepcion.AccesoDenegadoException;
+import com.example.sitema_de_turnos.excepcion.RecursoNoEncontradoException;
+import com.example.sitema_de_turnos.excepcion.SolapamientoException;
+import com.example.sitema_de_turnos.excepcion.ValidacionException;
+import com.example.sitema_de_turnos.modelo.*;
+import com.example.sitema_de_turnos.repositorio.*;
+import com.example.sitema_de_turnos.servicio.agenda.CargadorAgenda;
+import com.example.sitema_de_turnos.servicio.agenda.MapaOcupacionDia;
+import com.example.sitema_de_turnos.servicio.agenda.SerializadorReservas;
+import com.example.sitema_de_turnos.servicio.catalogo.CacheCatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa.ProfesionalCatalogo;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa.ServicioCatalogo;
+import com.example.sitema_de_turnos.servicio.outbox.ServicioOutbox;
+import com.example.sitema_de_turnos.util.NormalizadorDatos;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Reserva de series de turnos recurrentes (kinesiología, terapias: mismo horario semanal 8-12 veces).
+ *
+ * OPTIMIZADO: en lugar de N llamadas a {@code crearTurnoPublico} (N transacciones con todas las
+ * validaciones), la serie se valida completa con consultas por rango — agenda (bloqueos, disponibilidad
+ * y turnos del profesional) vía {@link CargadorAgenda}, retenciones vigentes y turnos del cliente — y
+ * los turnos se insertan en un solo batch JDBC, dentro de una única transacción con los mismos advisory
+ * locks que la reserva individual. La restricción turno_sin_solapamiento sigue siendo el árbitro final.
+ * Empresa, servicio, profesional, ventana de reserva y política de cancelación salen del snapshot de
+ * catálogo ({@link CacheCatalogoEmpresa}), igual que en la reserva individual.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ServicioSerieTurnos {
+
+    private static final DateTimeFormatter FORMATTER_HORA = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter FORMATTER_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    /** Estados que bloquean reserva global por superposición para la identidad física del cliente. */
+    private static final List<EstadoTurno> ESTADOS_BLOQUEANTES_SUPERPOSICION_CLIENTE =
+        List.of(EstadoTurno.CONFIRMADO, EstadoTurno.PENDIENTE_PAGO);
+
+    private static final String SQL_INSERTAR_TURNO = """
+        INSERT INTO turnos (empresa_id, servicio_id, profesional_id, cliente_id, fecha, hora_inicio, hora_fin,
+                            duracion_minutos, buffer_minutos, precio, estado, horas_limite_cancelacion_aplicada,
+                            observaciones, cantidad_reprogramaciones_cliente, recordatorio_enviado,
+                            recordatorio_intentos, fecha_creacion, fecha_actualizacion)
+        VALUES (:empresaId, :servicioId, :profesionalId, :clienteId, :fecha, :horaInicio, :horaFin,
+                :duracionMinutos, :bufferMinutos, :precio, :estado, :horasLimiteCancelacion,
+                :observaciones, 0, false, 0, :ahora, :ahora)
+        """;
+
+    private final RepositorioEmpresa repositorioEmpresa;
+    private final RepositorioServicio repositorioServicio;
+    private final RepositorioPerfilProfesional repositorioPerfilProfesional;
+    private final RepositorioTurno repositorioTurno;
+    private final RepositorioPago repositorioPago;
+    private final RepositorioRetencionSlot repositorioRetencionSlot;
+    private final CacheCatalogoEmpresa cacheCatalogo;
+    private final CargadorAgenda cargadorAgenda;
+    private final SerializadorReservas serializadorReservas;
+    private final ServicioTurno servicioTurno;
+    private final ServicioOutbox servicioOutbox;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Reservar una serie desde la vista pública. Devuelve el resultado de cada ocurrencia; en modo
+     * TODO_O_NADA basta una ocurrencia no disponible para que no se reserve ninguna.
+     */
+    public SerieTurnosResponse crearSeriePublica(String empresaSlug, Cliente clienteAutenticado,
+                                                 CrearSerieTurnosRequest request) {
+        return serializadorReservas.ejecutar("crearSeriePublica",
+            () -> crearSerieEnTransaccion(empresaSlug, clienteAutenticado, request));
+    }
+
+    private SerieTurnosResponse crearSerieEnTransaccion(String empresaSlug, Cliente clienteAutenticado,
+                                                        CrearSerieTurnosRequest request) {
+        // 1. Empresa, servicio y profesional (mismas reglas que la reserva individual, desde el snapshot de catálogo)
+        CatalogoEmpresa catalogo = cacheCatalogo.obtenerPorSlug(empresaSlug)
+            .orElseThrow(() -> new RecursoNoEncontradoException("Empresa no encontrada"));
+
+        Long servicioId = request.getServicioId();
+        ServicioCatalogo servicio = catalogo.servicio(servicioId)
+            .orElseThrow(() -> repositorioServicio.existsById(servicioId)
+                ? new ValidacionException("Servicio no disponible")
+                : new RecursoNoEncontradoException("Servicio no encontrado"));
+        if (!servicio.activo()) {
+            throw new ValidacionException("Servicio no disponible");
+        }
+
+        Long profesionalId = request.getProfesionalId();
+        ProfesionalCatalogo profesionalCatalogo = catalogo.profesional(profesionalId)
+            .orElseThrow(() -> repositorioPerfilProfesional.existsById(profesionalId)
+                ? new ValidacionException("Profesional no disponible")
+                : new RecursoNoEncontradoException("Profesional no encontrado"));
+        if (!profesionalCatalogo.activo()) {
+            throw new ValidacionException("Profesional no disponible");
+        }
+        PerfilProfesional profesional = repositorioPerfilProfesional.getReferenceById(profesionalId);
+
+        if (clienteAutenticado != null && !clienteAutenticado.getEmpresa().getId().equals(catalogo.id())) {
+            throw new AccesoDenegadoException("No tienes permisos para reservar en esta empresa");
+        }
+
+        boolean requiereSena = servicio.requiereSena();
+        if (requiereSena && (servicio.montoSena() == null || servicio.montoSena().compareTo(BigDecimal.ZERO) <= 0)) {
+            throw new ValidacionException("El servicio requiere seña, pero no tiene un monto de seña válido configurado");
+        }
+
+        // 2. Ocurrencias de la regla de recurrencia
+        LocalDate fechaInicio = LocalDate.parse(request.getFechaInicio(), DateTimeFormatter.ISO_LOCAL_DATE);
+        LocalTime horaInicio = LocalTime.parse(request.getHoraInicio(), FORMATTER_HORA);
+        int buffer = catalogo.bufferEfectivo(servicio);
+        LocalTime horaFin = horaInicio.plusMinutes(servicio.duracionMinutos()).plusMinutes(buffer);
+        LocalTime horaFinCliente = horaInicio.plusMinutes(servicio.duracionMinutos());
+        if (!horaFin.isAfter(horaInicio)) {
+            throw new ValidacionException("El horario solicitado está fuera del horario de atención");
+        }
+
+        List<LocalDate> fechas = generarFechas(fechaInicio, request);
+        Map<LocalDate, String> motivos = new HashMap<>();
+
+        // 3. Ventana de reserva (zona horaria de la empresa): no consulta la base
+        ZonedDateTime ahoraEmpresa = catalogo.ahora();
+        LocalDate hoy = ahoraEmpresa.toLocalDate();
+        int tiempoMinimo = catalogo.tiempoMinimoAnticipacionMinutos();
+        int diasMaximos = catalogo.diasMaximosReserva();
+        for (LocalDate fecha : fechas) {
+            if (fecha.isBefore(hoy)) {
+                motivos.put(fecha, "Fecha pasada");
+            } else if (fecha.isEqual(hoy) && horaInicio.isBefore(ahoraEmpresa.toLocalTime().plusMinutes(tiempoMinimo))) {
+                motivos.put(fecha, "Debe reservar con al menos " + tiempoMinimo + " minutos de anticipación");
+            } else if (fecha.isAfter(hoy.plusDays(diasMaximos))) {
+                motivos.put(fecha, "No se puede reservar con más de " + diasMaximos + " días de anticipación");
+            }
+        }
+        List<LocalDate> candidatas = fechas.stream().filter(f -> !motivos.containsKey(f)).toList();
+
+        String emailCliente = clienteAutenticado != null
+            ? NormalizadorDatos.normalizarEmail(clienteAutenticado.getEmail())
+            : NormalizadorDatos.normalizarEmail(request.getEmailCliente());
+
+        if (!candidatas.isEmpty()) {
+            LocalDate desde = candidatas.get(0);
+            LocalDate hasta = candidatas.get(candidatas.size() - 1);
+
+            // 4. Mismo orden de locks que la reserva individual: cliente → agenda (fechas ascendentes)
+            serializadorReservas.bloquearCliente(emailCliente);
+            candidatas.forEach(fecha -> serializadorReservas.bloquearAgenda(profesional.getId(), fecha));
+
+            verificarOcurrencias(profesional, candidatas, desde, hasta, horaInicio, horaFin, horaFinCliente,
+                emailCliente, motivos);
+        }
+
+        List<LocalDate> disponibles = fechas.stream().filter(f -> !motivos.containsKey(f)).toList();
+        boolean reservar = !disponibles.isEmpty()
+            && (request.getModo() == CrearSerieTurnosRequest.Modo.MEJOR_ESFUERZO || disponibles.size() == fechas.size());
+        if (!reservar) {
+            log.info("📅 Serie no reservada: profesional {} {} x{} ({} no disponibles)",
+                profesional.getId(), horaInicio, fechas.size(), motivos.size());
+            return construirRespuesta(request, fechas, horaInicio, motivos, Map.of(),
+                request.getModo() == CrearSerieTurnosRequest.Modo.TODO_O_NADA && !motivos.isEmpty());
+        }
+
+        // 5. Cliente (recién acá: una serie rechazada no crea clientes invitados); asociaciones por referencia
+        Empresa empresa = repositorioEmpresa.getReferenceById(catalogo.id());
+        Cliente cliente = clienteAutenticado != null
+            ? clienteAutenticado
+            : servicioTurno.obtenerOCrearCliente(empresa, datosCliente(request));
+
+        // 6. Insertar todos los turnos en un batch
+        EstadoTurno estado = requiereSena ? EstadoTurno.PENDIENTE_PAGO : EstadoTurno.CONFIRMADO;
+        Integer horasLimiteCancelacion = catalogo.horasLimiteCancelacion().orElse(null);
+        Servicio servicioReferencia = repositorioServicio.getReferenceById(servicioId);
+        List<Turno> turnos = new ArrayList<>(disponibles.size());
+        for (LocalDate fecha : disponibles) {
+            Turno turno = new Turno();
+            turno.setEmpresa(empresa);
+            turno.setServicio(servicioReferencia);
+            turno.setProfesional(profesional);
+            turno.setCliente(cliente);
+            turno.setFecha(fecha);
+            turno.setHoraInicio(horaInicio);
+            turno.setHoraFin(horaFin);
+            turno.setDuracionMinutos(servicio.duracionMinutos());
+            turno.setBufferMinutos(buffer);
+            turno.setPrecio(servicio.precio());
+            turno.setEstado(estado);
+            turno.setObservaciones(request.getObservaciones());
+            turno.setHorasLimiteCancelacionAplicada(horasLimiteCancelacion);
+            turnos.add(turno);
+        }
+        insertarEnLote(turnos);
+
+        if (requiereSena) {
+            List<Pago> pagos = turnos.stream().map(turno -> {
+                Pago pago = new Pago();
+                pago.setTurno(repositorioTurno.getReferenceById(turno.getId()));
+                pago.setMonto(servicio.montoSena());
+                pago.setMetodoPago(MetodoPago.MERCADO_PAGO);
+                pago.setEstado(EstadoPago.PENDIENTE);
+                return pago;
+            }).toList();
+            repositorioPago.saveAll(pagos);
+        }
+
+        // 7. Un evento de agenda para todo el rango; los deltas en vivo siguen siendo por turno
+        eventPublisher.publishEvent(AgendaModificadaEvent.rango(profesional, disponibles.get(0), disponibles.get(disponibles.size() - 1)));
+        turnos.forEach(turno -> eventPublisher.publishEvent(SlotTurnoEvent.ocupado(turno)));
+
+        // 8. Efectos secundarios por outbox: confirmación por turno y una sola notificación al profesional
+        if (estado == EstadoTurno.CONFIRMADO) {
+            turnos.forEach(turno -> servicioOutbox.registrarCorreo(TipoEventoOutbox.CORREO_CONFIRMACION_TURNO, turno.getId()));
+        }
+        notificarProfesional(cliente, servicio, profesional, turnos);
+
+        log.info("📅 Serie reservada: profesional {} {} → {}/{} turnos", profesional.getId(), horaInicio,
+            turnos.size(), fechas.size());
+        Map<LocalDate, Turno> porFecha = turnos.stream().collect(Collectors.toMap(Turno::getFecha, t -> t));
+        return construirRespuesta(request, fechas, horaInicio, motivos, porFecha, false);
+    }
+
+    /**
+     * Marcar en {@code motivos} las ocurrencias no disponibles, con una consulta por rango para cada
+     * regla: agenda del profesional, retenciones vigentes y turnos del cliente.
+     */
+    private void verificarOcurrencias(PerfilProfesional profesional, List<LocalDate> candidatas,
+                                      LocalDate desde, LocalDate hasta,
+                                      LocalTime horaInicio, LocalTime horaFin, LocalTime horaFinCliente,
+                                      String emailCliente, Map<LocalDate, String> motivos) {
+        int minutoInicio = MapaOcupacionDia.aMinuto(horaInicio);
+        int minutoFin = MapaOcupacionDia.aMinuto(horaFin);
+
+        // Bloqueos, disponibilidad y turnos del profesional
+        Map<LocalDate, MapaOcupacionDia> agenda = cargadorAgenda.cargar(profesional, desde, hasta);
+        for (LocalDate fecha : candidatas) {
+            MapaOcupacionDia mapa = agenda.get(fecha);
+            if (!mapa.estaLibre(minutoInicio, minutoFin)) {
+                motivos.put(fecha, tieneMinutoOcupado(mapa, minutoInicio, minutoFin)
+                    ? "El profesional ya tiene un turno en ese horario"
+                    : "El profesional no atiende en ese horario o la fecha está bloqueada");
+            }
+        }
+
+        // Retenciones temporales de otros clientes
+        repositorioRetencionSlot.findVigentesEnRango(profesional.getId(), desde, hasta, Instant.now()).stream()
+            .filter(r -> r.getHoraInicio().isBefore(horaFin) && r.getHoraFin().isAfter(horaInicio))
+            .forEach(r -> motivos.putIfAbsent(r.getFecha(), "El horario está reservado temporalmente por otro cliente"));
+
+        // Superposición global del cliente (intervalos semiabiertos sin buffer, como la reserva individual)
+        repositorioTurno.findByClienteEmailIgnoreCaseAndFechaBetweenAndEstadoIn(
+                emailCliente, desde, hasta, ESTADOS_BLOQUEANTES_SUPERPOSICION_CLIENTE).stream()
+            .filter(t -> t.getHoraInicio().isBefore(horaFinCliente)
+                && t.getHoraInicio().plusMinutes(t.getDuracionMinutos()).isAfter(horaInicio))
+            .forEach(t -> motivos.putIfAbsent(t.getFecha(), "Ya tienes otra reserva en este mismo horario"));
+    }
+
+    /**
+     * INSERT de todos los turnos en un solo batch JDBC (Turno usa IDENTITY, con lo que Hibernate
+     * insertaría fila por fila). Asigna a cada turno el id generado.
+     */
+    private void insertarEnLote(List<Turno> turnos) {
+        LocalDateTime ahora = LocalDateTime.now(ZoneOffset.UTC);
+        SqlParameterSource[] filas = turnos.stream()
+            .map(turno -> new MapSqlParameterSource()
+                .addValue("empresaId", turno.getEmpresa().getId())
+                .addValue("servicioId", turno.getServicio().getId())
+                .addValue("profesionalId", turno.getProfesional().getId())
+                .addValue("clienteId", turno.getCliente().getId())
+                .addValue("fecha", turno.getFecha())
+                .addValue("horaInicio", turno.getHoraInicio())
+                .addValue("horaFin", turno.getHoraFin())
+                .addValue("duracionMinutos", turno.getDuracionMinutos())
+                .addValue("bufferMinutos", turno.getBufferMinutos())
+                .addValue("precio", turno.getPrecio())
+                .addValue("estado", turno.getEstado().name())
+                .addValue("horasLimiteCancelacion", turno.getHorasLimiteCancelacionAplicada())
+                .addValue("observaciones", turno.getObservaciones())
+                .addValue("ahora", ahora))
+            .toArray(SqlParameterSource[]::new);
+
+        GeneratedKeyHolder claves = new GeneratedKeyHolder();
+        try {
+            namedParameterJdbcTemplate.batchUpdate(SQL_INSERTAR_TURNO, filas, claves, new String[]{"id"});
+        } catch (DataIntegrityViolationException e) {
+            throw new SolapamientoException("Uno de los horarios de la serie fue tomado por otra reserva. Por favor, intentá nuevamente.", e);
+        }
+
+        List<Map<String, Object>> ids = claves.getKeyList();
+        for (int i = 0; i < turnos.size(); i++) {
+            Turno turno = turnos.get(i);
+            turno.setId(((Number) ids.get(i).get("id")).longValue());
+            turno.setFechaCreacion(ahora);
+            turno.setFechaActualizacion(ahora);
+        }
+    }
+
+    private void notificarProfesional(Cliente cliente, ServicioCatalogo servicio, PerfilProfesional profesional, List<Turno> turnos) {
+        try {
+            Turno primero = turnos.get(0);
+            Turno ultimo = turnos.get(turnos.size() - 1);
+            String mensaje = String.format(
+                "%s reservó %d turnos de %s a las %s, del %s al %s.",
+                cliente.getNombre(),
+                turnos.size(),
+                servicio.nombre(),
+                primero.getHoraInicio().format(FORMATTER_HORA),
+                primero.getFecha().format(FORMATTER_FECHA),
+                ultimo.getFecha().format(FORMATTER_FECHA)
+            );
+
+            Map<String, Object> datos = new HashMap<>();
+            datos.put("turnoId", primero.getId());
+            datos.put("turnoIds", turnos.stream().map(Turno::getId).toList());
+            datos.put("clienteNombre", cliente.getNombre());
+            datos.put("clienteEmail", cliente.getEmail());
+            datos.put("servicioNombre", servicio.nombre());
+            datos.put("fechas", turnos.stream().map(t -> t.getFecha().toString()).toList());
+            datos.put("horaInicio", primero.getHoraInicio().format(FORMATTER_HORA));
+            datos.put("estado", primero.getEstado().name());
+
+            servicioOutbox.registrarNotificacionProfesional(
+                profesional.getId(),
+                TipoNotificacion.NUEVO_TURNO,
+                "Nueva Serie de Turnos",
+                mensaje,
+                datos,
+                primero.getId()
+            );
+        } catch (Exception e) {
+            log.error("Error al registrar notificación de serie de turnos", e);
+        }
+    }
+
+    private static List<LocalDate> generarFechas(LocalDate fechaInicio, CrearSerieTurnosRequest request) {
+        List<LocalDate> fechas = new ArrayList<>(request.getRepeticiones());
+        for (int i = 0; i < request.getRepeticiones(); i++) {
+            long paso = (long) i * request.getIntervalo();
+            fechas.add(switch (request.getFrecuencia()) {
+                case DIARIA -> fechaInicio.plusDays(paso);
+                case SEMANAL -> fechaInicio.plusWeeks(paso);
+                case MENSUAL -> fechaInicio.plusMonths(paso);
+            });
+        }
+        return fechas;
+    }
+
+    private static boolean tieneMinutoOcupado(MapaOcupacionDia mapa, int inicio, int fin) {
+        for (int minuto = inicio; minuto < fin; minuto++) {
+            if (mapa.estaOcupado(minuto)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static CrearTurnoRequest datosCliente(CrearSerieTurnosRequest request) {
+        CrearTurnoRequest datos = new CrearTurnoRequest();
+        datos.setNombreCliente(request.getNombreCliente());
+        datos.setEmailCliente(request.getEmailCliente());
+        datos.setTelefonoCliente(request.getTelefonoCliente());
+        return datos;
+    }
+
+    private SerieTurnosResponse construirRespuesta(CrearSerieTurnosRequest request, List<LocalDate> fechas,
+                                                   LocalTime horaInicio, Map<LocalDate, String> motivos,
+                                                   Map<LocalDate, Turno> reservados, boolean descartadaPorModo) {
+        List<SerieTurnosResponse.Ocurrencia> ocurrencias = fechas.stream().map(fecha -> {
+            Turno turno = reservados.get(fecha);
+            String motivo = motivos.get(fecha);
+            if (turno == null && motivo == null && descartadaPorModo) {
+                motivo = "No se reservó: otra ocurrencia de la serie no está disponible";
+            }
+            return new SerieTurnosResponse.Ocurrencia(
+                fecha.toString(),
+                horaInicio.format(FORMATTER_HORA),
+                turno != null,
+                motivo,
+                turno != null ? servicioTurno.mapearATurnoResponsePublico(turno) : null
+            );
+        }).toList();
+        return new SerieTurnosResponse(request.getModo().name(), fechas.size(), reservados.size(), ocurrencias);
+    }
+}
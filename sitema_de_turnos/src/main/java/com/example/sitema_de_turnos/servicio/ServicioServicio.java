@@ -2,6 +2,7 @@ package com.example.sitema_de_turnos.servicio;
 
 import com.example.sitema_de_turnos.dto.RegistroServicioRequest;
 import com.example.sitema_de_turnos.dto.ServicioResponse;
+import com.example.sitema_de_turnos.evento.CatalogoModificadoEvent;
 import com.example.sitema_de_turnos.excepcion.AccesoDenegadoException;
 import com.example.sitema_de_turnos.excepcion.ConflictoException;
 import com.example.sitema_de_turnos.excepcion.EntidadInactivaExistenteException;
@@ -10,6 +11,7 @@ import com.example.sitema_de_turnos.mapper.ServicioMapper;
 import com.example.sitema_de_turnos.modelo.*;
 import com.example.sitema_de_turnos.repositorio.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,6 +28,7 @@ public class ServicioServicio {
     private final RepositorioProfesionalServicio repositorioProfesionalServicio;
     private final RepositorioPerfilProfesional repositorioPerfilProfesional;
     private final ServicioValidacionDueno servicioValidacionDueno;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public ServicioResponse crearServicio(String emailDueno, RegistroServicioRequest request) {
@@ -74,6 +77,7 @@ public class ServicioServicio {
             ps.setActivo(true);
             repositorioProfesionalServicio.save(ps);
         }
+        eventPublisher.publishEvent(new CatalogoModificadoEvent(dueno.getEmpresa().getId(), dueno.getEmpresa().getSlug()));
 
         return ServicioMapper.toResponse(servicio);
     }
@@ -119,6 +123,7 @@ public class ServicioServicio {
         servicio.setMontoSena(Boolean.TRUE.equals(request.getRequiereSena()) ? request.getMontoSena() : null);
 
         servicio = repositorioServicio.save(servicio);
+        eventPublisher.publishEvent(new CatalogoModificadoEvent(dueno.getEmpresa().getId(), dueno.getEmpresa().getSlug()));
 
         return ServicioMapper.toResponse(servicio);
     }
@@ -162,6 +167,7 @@ public class ServicioServicio {
         // reservas, pero todos los turnos existentes conservan su snapshot de datos.
         servicio.setActivo(activo);
         repositorioServicio.save(servicio);
+        eventPublisher.publishEvent(new CatalogoModificadoEvent(dueno.getEmpresa().getId(), dueno.getEmpresa().getSlug()));
     }
 
     private void validarConfiguracionSena(RegistroServicioRequest request) {
@@ -10,9 +10,20 @@ import com.example.sitema_de_turnos.excepcion.SolapamientoException;
 import com.example.sitema_de_turnos.excepcion.ValidacionException;
 import com.example.sitema_de_turnos.modelo.*;
 import com.example.sitema_de_turnos.repositorio.*;
-import com.example.sitema_de_turnos.servicio.notificacion.EmailNotificationService;
+import com.example.sitema_de_turnos.evento.AgendaModificadaEvent;
+import com.example.sitema_de_turnos.evento.SlotTurnoEvent;
+import com.example.sitema_de_turnos.servicio.agenda.CargadorAgenda;
+import com.example.sitema_de_turnos.servicio.agenda.MapaOcupacionDia;
+import com.example.sitema_de_turnos.servicio.agenda.RegistroRetenciones;
+import com.example.sitema_de_turnos.servicio.agenda.SerializadorReservas;
+import com.example.sitema_de_turnos.servicio.outbox.ServicioOutbox;
+import com.example.sitema_de_turnos.servicio.catalogo.CacheCatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa.ProfesionalCatalogo;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa.ServicioCatalogo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -20,7 +31,6 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -34,8 +44,11 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
 
 import com.example.sitema_de_turnos.excepcion.AccesoDenegadoException;
 
@@ -53,18 +66,21 @@ public class ServicioTurno {
     private final RepositorioBloqueoFecha repositorioBloqueoFecha;
     private final RepositorioDisponibilidadProfesional repositorioDisponibilidadProfesional;
     private final RepositorioPago repositorioPago;
-    private final ServicioNotificacion servicioNotificacion;
-    private final ServicioPoliticaCancelacion servicioPoliticaCancelacion;
+    private final ServicioOutbox servicioOutbox;
     private final ServicioPublico servicioPublico;
-    private final EmailNotificationService emailNotificationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CargadorAgenda cargadorAgenda;
+    private final SerializadorReservas serializadorReservas;
+    private final RegistroRetenciones registroRetenciones;
+    private final CacheCatalogoEmpresa cacheCatalogo;
 
         /** Estados que ocupan agenda para validaciones de disponibilidad/superposición. */
         private static final List<EstadoTurno> ESTADOS_OCUPANTES_AGENDA =
             List.of(EstadoTurno.CONFIRMADO, EstadoTurno.PENDIENTE_PAGO);
 
-        /** Estados que bloquean reserva global por superposición para la identidad física del cliente. */
-        private static final List<EstadoTurno> ESTADOS_BLOQUEANTES_SUPERPOSICION_CLIENTE =
-            List.of(EstadoTurno.CONFIRMADO, EstadoTurno.PENDIENTE_PAGO);
+        /** Estados que bloquean reserva global por superposición para la identidad física del cliente (nombres: SQL nativo). */
+        private static final List<String> ESTADOS_BLOQUEANTES_SUPERPOSICION_CLIENTE =
+            List.of(EstadoTurno.CONFIRMADO.name(), EstadoTurno.PENDIENTE_PAGO.name());
 
     // ✅ M2: Constantes estáticas para formateo de fechas
     private static final DateTimeFormatter FORMATTER_HORA = DateTimeFormatter.ofPattern("HH:mm");
@@ -91,12 +107,6 @@ public class ServicioTurno {
         }
     }
 
-    private Optional<PoliticaCancelacion> obtenerPoliticaCancelacionAplicable(Empresa empresa) {
-        return servicioPoliticaCancelacion
-            .obtenerActivaPorEmpresaYTipo(empresa, TipoPoliticaCancelacion.CANCELACION)
-            .or(() -> servicioPoliticaCancelacion.obtenerActivaPorEmpresaYTipo(empresa, TipoPoliticaCancelacion.AMBOS));
-    }
-
     private void validarPoliticaCancelacionCliente(Turno turno, LocalDateTime ahoraLocal) {
         if (tieneBypassPoliticaPorRol()) {
             return;
@@ -153,44 +163,70 @@ public class ServicioTurno {
 
     /**
      * Crear un turno desde la vista pública.
-     * ISOLATION.REPEATABLE_READ: previene dirty reads y non-repeatable reads.
-     * La barrera atómica real contra race conditions es el índice único parcial
-     * idx_turno_no_overlap (PostgreSQL). Si dos threads pasan el check en memoria
-     * simultáneamente, el segundo INSERT viola el índice → DataIntegrityViolationException
+     * OPTIMIZADO: READ_COMMITTED + advisory locks por cliente y por (profesional, fecha) con reintento
+     * acotado ante 40001/40P01 ({@link SerializadorReservas}), en lugar de REPEATABLE_READ.
+     * Sin SELECT previo de solapamiento: la barrera es la restricción de exclusión
+     * turno_sin_solapamiento (rango_horario && rango_horario, PostgreSQL): cualquier INSERT que se
+     * superponga con un turno ocupante falla → DataIntegrityViolationException
      * → capturada y relanzada como SolapamientoException → HTTP 409.
-     * SERIALIZABLE no es necesario y genera falsos positivos de "serialization failure".
+     *
+     * OPTIMIZADO: empresa, servicio, profesional, configuración (zona, buffer, anticipación, ventana)
+     * y política de cancelación salen del snapshot de catálogo ({@link CacheCatalogoEmpresa}); las
+     * asociaciones del turno son referencias por id.
      */
-    @Transactional(isolation = Isolation.REPEATABLE_READ)
     public TurnoResponsePublico crearTurnoPublico(String empresaSlug, Cliente clienteAutenticado, CrearTurnoRequest request) {
+        return serializadorReservas.ejecutar("crearTurnoPublico",
+            () -> crearTurnoPublicoEnTransaccion(empresaSlug, clienteAutenticado, request));
+    }
+
+    private TurnoResponsePublico crearTurnoPublicoEnTransaccion(String empresaSlug, Cliente clienteAutenticado, CrearTurnoRequest request) {
         // 1. Obtener empresa
-        Empresa empresa = repositorioEmpresa.findBySlugAndActivaTrue(empresaSlug)
+        CatalogoEmpresa catalogo = cacheCatalogo.obtenerPorSlug(empresaSlug)
             .orElseThrow(() -> new RecursoNoEncontradoException("Empresa no encontrada"));
 
-        // 2. Obtener servicio
-        Servicio servicio = repositorioServicio.findById(request.getServicioId())
-            .orElseThrow(() -> new RecursoNoEncontradoException("Servicio no encontrado"));
+        // 2. Obtener servicio (uno de otra empresa no está en el catálogo: solo entonces se consulta la base)
+        Long servicioId = request.getServicioId();
+        ServicioCatalogo servicioCatalogo = catalogo.servicio(servicioId)
+            .orElseThrow(() -> repositorioServicio.existsById(servicioId)
+                ? new ValidacionException("Servicio no disponible")
+                : new RecursoNoEncontradoException("Servicio no encontrado"));
 
-        if (!servicio.getActivo() || !servicio.getEmpresa().getId().equals(empresa.getId())) {
+        if (!servicioCatalogo.activo()) {
             throw new ValidacionException("Servicio no disponible");
         }
 
-        // 3. Obtener profesional
-        PerfilProfesional profesional = repositorioPerfilProfesional.findById(request.getProfesionalId())
-            .orElseThrow(() -> new RecursoNoEncontradoException("Profesional no encontrado"));
-
-        if (!profesional.getActivo() || !profesional.getEmpresa().getId().equals(empresa.getId())) {
-            throw new ValidacionException("Profesional no disponible");
-        }
-
-        // 4. Parsear fecha y hora
+        // 3. Parsear fecha y hora
         LocalDate fecha = LocalDate.parse(request.getFecha(), DateTimeFormatter.ISO_LOCAL_DATE);
         LocalTime horaInicio = LocalTime.parse(request.getHoraInicio(), DateTimeFormatter.ofPattern("HH:mm"));
         
         // Calcular horaFin incluyendo buffer (duración + buffer del servicio o buffer por defecto de la empresa)
-        int buffer = servicio.getBufferMinutos() != null ? servicio.getBufferMinutos() : empresa.getBufferPorDefecto();
-        LocalTime horaFin = horaInicio.plusMinutes(servicio.getDuracionMinutos()).plusMinutes(buffer);
+        int buffer = catalogo.bufferEfectivo(servicioCatalogo);
+        LocalTime horaFin = horaInicio.plusMinutes(servicioCatalogo.duracionMinutos()).plusMinutes(buffer);
         // Hora fin física del cliente (sin buffer): se usa sólo para validación global por email
-        LocalTime horaFinCliente = horaInicio.plusMinutes(servicio.getDuracionMinutos());
+        LocalTime horaFinCliente = horaInicio.plusMinutes(servicioCatalogo.duracionMinutos());
+        // Un turno que pasa la medianoche daría la vuelta (horaFin <= horaInicio)
+        if (!horaFin.isAfter(horaInicio)) {
+            throw new ValidacionException("El horario solicitado está fuera del horario de atención");
+        }
+
+        // 4. Obtener profesional (o asignarlo en modo "cualquier profesional")
+        PerfilProfesional profesional;
+        if (request.getProfesionalId() == null) {
+            profesional = asignarProfesionalMenosCargado(catalogo, servicioCatalogo, fecha, horaInicio, horaFin);
+        } else {
+            Long profesionalId = request.getProfesionalId();
+            ProfesionalCatalogo profesionalCatalogo = catalogo.profesional(profesionalId)
+                .orElseThrow(() -> repositorioPerfilProfesional.existsById(profesionalId)
+                    ? new ValidacionException("Profesional no disponible")
+                    : new RecursoNoEncontradoException("Profesional no encontrado"));
+
+            if (!profesionalCatalogo.activo()) {
+                throw new ValidacionException("Profesional no disponible");
+            }
+            profesional = repositorioPerfilProfesional.getReferenceById(profesionalId);
+        }
+        Empresa empresa = repositorioEmpresa.getReferenceById(catalogo.id());
+        Servicio servicio = repositorioServicio.getReferenceById(servicioId);
 
         // 4.1. Validar que el profesional NO tenga bloqueo en esta fecha
         if (!repositorioBloqueoFecha.findBloqueoEnFecha(profesional, fecha).isEmpty()) {
@@ -198,7 +234,7 @@ public class ServicioTurno {
         }
 
         // 5. Validar que la fecha no sea pasada (usando timezone de empresa)
-        ZonedDateTime ahoraEmpresa = obtenerAhoraEmpresa(empresa);
+        ZonedDateTime ahoraEmpresa = catalogo.ahora();
         LocalDate fechaHoyEmpresa = ahoraEmpresa.toLocalDate();
         LocalTime horaActualEmpresa = ahoraEmpresa.toLocalTime();
         
@@ -208,8 +244,7 @@ public class ServicioTurno {
         
         // 5.1. Validar tiempo mínimo de anticipación para el día actual
         if (fecha.isEqual(fechaHoyEmpresa)) {
-            int tiempoMinimo = empresa.getTiempoMinimoAnticipacionMinutos() != null ? 
-                empresa.getTiempoMinimoAnticipacionMinutos() : 30;
+            int tiempoMinimo = catalogo.tiempoMinimoAnticipacionMinutos();
             LocalTime horaLimite = horaActualEmpresa.plusMinutes(tiempoMinimo);
             if (horaInicio.isBefore(horaLimite)) {
                 throw new ValidacionException("Debe reservar con al menos " + tiempoMinimo + 
@@ -218,7 +253,7 @@ public class ServicioTurno {
         }
 
         // 6. Validar límite de días de reserva
-        int diasMaximos = empresa.getDiasMaximosReserva() != null ? empresa.getDiasMaximosReserva() : 30;
+        int diasMaximos = catalogo.diasMaximosReserva();
         if (fecha.isAfter(fechaHoyEmpresa.plusDays(diasMaximos))) {
             throw new ValidacionException("No se puede reservar con más de " + diasMaximos + " días de anticipación");
         }
@@ -228,19 +263,20 @@ public class ServicioTurno {
             ? NormalizadorDatos.normalizarEmail(clienteAutenticado.getEmail())
             : NormalizadorDatos.normalizarEmail(request.getEmailCliente());
 
-        List<Turno> turnosDelClienteMismoDia = repositorioTurno.findByClienteEmailIgnoreCaseAndFechaAndEstadoIn(
-            emailClienteReserva,
-            fecha,
-            ESTADOS_BLOQUEANTES_SUPERPOSICION_CLIENTE
-        );
+        // Serializar con otras reservas del mismo cliente y de la misma agenda (orden fijo: cliente → agenda)
+        serializadorReservas.bloquearCliente(emailClienteReserva);
+        serializadorReservas.bloquearAgenda(profesional.getId(), fecha);
 
         // Validación exacta sin falso positivo por buffer persistido en BD.
         // Intervalos semiabiertos [inicio, finPuro): dos turnos consecutivos en el mismo minuto no se solapan.
-        boolean clienteTieneSuperposicionGlobal = turnosDelClienteMismoDia.stream().anyMatch(turnoExistente -> {
-            LocalTime finPuroTurnoExistente = turnoExistente.getHoraInicio().plusMinutes(turnoExistente.getDuracionMinutos());
-            return turnoExistente.getHoraInicio().isBefore(horaFinCliente)
-                && finPuroTurnoExistente.isAfter(horaInicio);
-        });
+        // OPTIMIZADO: EXISTS en la base (ver RepositorioTurno.existeSuperposicionCliente)
+        boolean clienteTieneSuperposicionGlobal = repositorioTurno.existeSuperposicionCliente(
+            emailClienteReserva,
+            fecha,
+            ESTADOS_BLOQUEANTES_SUPERPOSICION_CLIENTE,
+            horaInicio,
+            horaFinCliente
+        );
 
         if (clienteTieneSuperposicionGlobal) {
             throw new ValidacionException(
@@ -248,16 +284,15 @@ public class ServicioTurno {
             );
         }
 
-        // 7. Verificar disponibilidad (sin solapamiento)
-        if (repositorioTurno.existeSolapamiento(profesional, fecha, horaInicio, horaFin, ESTADOS_OCUPANTES_AGENDA)) {
-            throw new SolapamientoException("El horario seleccionado ya no está disponible");
-        }
+        // 7. Disponibilidad: la valida la restricción de exclusión al insertar (ver paso 9).
+        // Las retenciones temporales de otros clientes no están en turnos: se verifican acá, bajo el lock de agenda
+        registroRetenciones.verificarYConsumir(profesional.getId(), fecha, horaInicio, horaFin, request.getTokenRetencion());
 
         // 8. Obtener o crear cliente
         Cliente cliente;
         if (clienteAutenticado != null) {
             // Verificar que el cliente autenticado pertenezca a la empresa
-            if (!clienteAutenticado.getEmpresa().getId().equals(empresa.getId())) {
+            if (!clienteAutenticado.getEmpresa().getId().equals(catalogo.id())) {
                 throw new AccesoDenegadoException("No tienes permisos para reservar en esta empresa");
             }
             cliente = clienteAutenticado;
@@ -274,30 +309,30 @@ public class ServicioTurno {
         turno.setFecha(fecha);
         turno.setHoraInicio(horaInicio);
         turno.setHoraFin(horaFin);
-        turno.setDuracionMinutos(servicio.getDuracionMinutos()); // Solo duración del servicio
+        turno.setDuracionMinutos(servicioCatalogo.duracionMinutos()); // Solo duración del servicio
         turno.setBufferMinutos(buffer); // Buffer aplicado en este turno
-        turno.setPrecio(servicio.getPrecio());
-        boolean requiereSena = Boolean.TRUE.equals(servicio.getRequiereSena());
+        turno.setPrecio(servicioCatalogo.precio());
+        boolean requiereSena = servicioCatalogo.requiereSena();
         turno.setEstado(requiereSena ? EstadoTurno.PENDIENTE_PAGO : EstadoTurno.CONFIRMADO);
         turno.setObservaciones(request.getObservaciones());
-        obtenerPoliticaCancelacionAplicable(empresa)
-            .map(PoliticaCancelacion::getHorasLimiteCancelacion)
-            .ifPresent(turno::setHorasLimiteCancelacionAplicada);
+        catalogo.horasLimiteCancelacion().ifPresent(turno::setHorasLimiteCancelacionAplicada);
 
         try {
             turno = repositorioTurno.save(turno);
         } catch (DataIntegrityViolationException e) {
             throw new SolapamientoException("El turno ya fue tomado por otro cliente. Por favor, selecciona otro horario.", e);
         }
+        eventPublisher.publishEvent(AgendaModificadaEvent.dia(profesional, fecha));
+        eventPublisher.publishEvent(SlotTurnoEvent.ocupado(turno));
 
         if (requiereSena) {
-            if (servicio.getMontoSena() == null || servicio.getMontoSena().compareTo(java.math.BigDecimal.ZERO) <= 0) {
+            if (servicioCatalogo.montoSena() == null || servicioCatalogo.montoSena().compareTo(java.math.BigDecimal.ZERO) <= 0) {
                 throw new ValidacionException("El servicio requiere seña, pero no tiene un monto de seña válido configurado");
             }
 
             Pago pago = new Pago();
             pago.setTurno(turno);
-            pago.setMonto(servicio.getMontoSena());
+            pago.setMonto(servicioCatalogo.montoSena());
             pago.setMetodoPago(MetodoPago.MERCADO_PAGO);
             pago.setEstado(EstadoPago.PENDIENTE);
             pago.setReferenciaExterna(null);
@@ -305,7 +340,7 @@ public class ServicioTurno {
         }
 
         if (turno.getEstado() == EstadoTurno.CONFIRMADO) {
-            emailNotificationService.enviarCorreoConfirmacionTurno(turno);
+            servicioOutbox.registrarCorreo(TipoEventoOutbox.CORREO_CONFIRMACION_TURNO, turno.getId());
         }
 
         // 10. Enviar notificación al profesional
@@ -315,6 +350,56 @@ public class ServicioTurno {
         return mapearATurnoResponsePublico(turno);
     }
 
+    /**
+     * Modo "cualquier profesional": asignar el turno al profesional habilitado para el servicio
+     * con menos turnos ese día, entre los que tienen [horaInicio, horaFin) libre dentro de su
+     * disponibilidad (sin bloqueo, turnos ocupantes ni retenciones temporales vigentes en este nodo).
+     *
+     * OPTIMIZADO: la agenda de todos los candidatos se arma con consultas IN ({@link CargadorAgenda})
+     * y la carga del día sale de una sola consulta agrupada, en lugar de probar profesional por
+     * profesional (lo que además favorecía siempre al primero). Ante empate gana el id menor.
+     * Si otra reserva toma el mismo hueco en paralelo, el INSERT viola turno_sin_solapamiento
+     * igual que con profesional elegido.
+     */
+    private PerfilProfesional asignarProfesionalMenosCargado(
+        CatalogoEmpresa catalogo,
+        ServicioCatalogo servicio,
+        LocalDate fecha,
+        LocalTime horaInicio,
+        LocalTime horaFin
+    ) {
+        // Habilitados según el snapshot de catálogo; las consultas de agenda solo usan el id de la referencia
+        List<PerfilProfesional> candidatos = catalogo.profesionalesHabilitados(servicio.id()).stream()
+            .map(p -> repositorioPerfilProfesional.getReferenceById(p.id()))
+            .toList();
+
+        if (candidatos.isEmpty()) {
+            throw new RecursoNoEncontradoException("No hay profesionales activos para el servicio indicado");
+        }
+
+        int minutoInicio = MapaOcupacionDia.aMinuto(horaInicio);
+        // horaFin anterior a horaInicio = el turno cruza medianoche: ningún profesional lo tiene libre
+        int minutoFin = horaFin.isAfter(horaInicio) ? MapaOcupacionDia.aMinuto(horaFin) : -1;
+        Map<Long, Map<LocalDate, MapaOcupacionDia>> agendas = cargadorAgenda.cargar(candidatos, fecha, fecha);
+        List<PerfilProfesional> libres = candidatos.stream()
+            .filter(p -> agendas.get(p.getId()).get(fecha).estaLibre(minutoInicio, minutoFin))
+            .filter(p -> !registroRetenciones.estaRetenido(p.getId(), fecha, minutoInicio, minutoFin))
+            .toList();
+
+        if (libres.isEmpty()) {
+            throw new ValidacionException("El horario solicitado está fuera del horario de atención o no hay profesionales disponibles");
+        }
+
+        Map<Long, Long> turnosDelDia = new HashMap<>();
+        repositorioTurno.contarTurnosPorProfesionalEnFecha(libres, fecha, ESTADOS_OCUPANTES_AGENDA)
+            .forEach(c -> turnosDelDia.put(c.getProfesionalId(), c.getCantidad()));
+
+        return libres.stream()
+            .min(Comparator.comparing((PerfilProfesional p) -> turnosDelDia.getOrDefault(p.getId(), 0L))
+                .thenComparing(PerfilProfesional::getId))
+            .orElseThrow();
+    }
+
     /**
      * Modificar datos permitidos de una reserva por el cliente propietario.
      */
@@ -368,11 +453,15 @@ public class ServicioTurno {
 
     /**
      * Reprogramar (cambiar fecha/hora y opcionalmente profesional) una reserva por el cliente propietario.
-     * ISOLATION.REPEATABLE_READ: misma estrategia que crearTurnoPublico.
-     * La barrera atómica es el índice único parcial idx_turno_no_overlap en PostgreSQL.
+     * Misma estrategia que crearTurnoPublico: READ_COMMITTED + advisory lock de agenda + reintento.
+     * La barrera atómica es la restricción de exclusión turno_sin_solapamiento en PostgreSQL.
      */
-    @Transactional(isolation = Isolation.REPEATABLE_READ)
     public TurnoResponsePublico reprogramarReservaPorCliente(Long turnoId, Cliente cliente, com.example.sitema_de_turnos.dto.publico.ReservaReprogramarRequest request) {
+        return serializadorReservas.ejecutar("reprogramarReservaPorCliente",
+            () -> reprogramarReservaPorClienteEnTransaccion(turnoId, cliente, request));
+    }
+
+    private TurnoResponsePublico reprogramarReservaPorClienteEnTransaccion(Long turnoId, Cliente cliente, com.example.sitema_de_turnos.dto.publico.ReservaReprogramarRequest request) {
         Turno turno = repositorioTurno.findByIdForUpdate(turnoId)
             .orElseThrow(() -> new RecursoNoEncontradoException("Turno no encontrado"));
 
@@ -441,7 +530,7 @@ public class ServicioTurno {
             OrigenReprogramacion.CLIENTE
         );
 
-        emailNotificationService.enviarCorreoReprogramacionPorCliente(turnoReprogramado);
+        servicioOutbox.registrarCorreo(TipoEventoOutbox.CORREO_REPROGRAMACION_CLIENTE, turnoReprogramado.getId());
 
         log.info("Turno reprogramado: turnoId={}, profesional={}, nuevaFecha={}, nuevaHoraInicio={}, nuevaHoraFin={}",
             turnoReprogramado.getId(), turnoReprogramado.getProfesional().getId(), turnoReprogramado.getFecha(), turnoReprogramado.getHoraInicio(), turnoReprogramado.getHoraFin());
@@ -472,11 +561,18 @@ public class ServicioTurno {
         );
     }
 
-    @Transactional(isolation = Isolation.REPEATABLE_READ)
     public TurnoResponseProfesional reprogramarTurnoProfesional(
             String emailProfesional,
             Long turnoId,
             com.example.sitema_de_turnos.dto.publico.ReservaReprogramarRequest request) {
+        return serializadorReservas.ejecutar("reprogramarTurnoProfesional",
+            () -> reprogramarTurnoProfesionalEnTransaccion(emailProfesional, turnoId, request));
+    }
+
+    private TurnoResponseProfesional reprogramarTurnoProfesionalEnTransaccion(
+            String emailProfesional,
+            Long turnoId,
+            com.example.sitema_de_turnos.dto.publico.ReservaReprogramarRequest request) {
         Turno turno = repositorioTurno.findByIdForUpdate(turnoId)
             .orElseThrow(() -> new RecursoNoEncontradoException("Turno no encontrado"));
 
@@ -499,7 +595,7 @@ public class ServicioTurno {
             OrigenReprogramacion.PROFESIONAL
         );
 
-        emailNotificationService.enviarCorreoReprogramacionPorProfesional(turnoReprogramado);
+        servicioOutbox.registrarCorreo(TipoEventoOutbox.CORREO_REPROGRAMACION_PROFESIONAL, turnoReprogramado.getId());
 
         return mapearATurnoResponseProfesional(turnoReprogramado);
     }
@@ -522,55 +618,63 @@ public class ServicioTurno {
 
     /**
      * Obtener cliente existente o crear uno nuevo
+     * (también lo usa {@link ServicioSerieTurnos}, por eso es de paquete)
+     *
+     * OPTIMIZADO: una sola sentencia INSERT … ON CONFLICT (empresa, email) que devuelve la fila,
+     * en lugar de SELECT → INSERT → SELECT de recuperación ante la carrera de dos reservas simultáneas.
+     * El único otro choque posible es el teléfono de otro cliente: reintentar no lo resuelve, se informa tal cual.
      */
-    private Cliente obtenerOCrearCliente(Empresa empresa, CrearTurnoRequest request) {
+    Cliente obtenerOCrearCliente(Empresa empresa, CrearTurnoRequest request) {
         // Normalizar email
         String emailNormalizado = NormalizadorDatos.normalizarEmail(request.getEmailCliente());
-        
-        // Buscar por email
-        Optional<Cliente> clienteExistente = repositorioCliente.findByEmpresaAndEmailAndActivoTrue(
-            empresa, 
-            emailNormalizado
-        );
 
-        if (clienteExistente.isPresent()) {
-            Cliente c = clienteExistente.get();
-            // Si el cliente ya tiene cuenta registrada, NO se puede asociar automáticamente
-            if (Boolean.TRUE.equals(c.getTieneUsuario())) {
-                throw new com.example.sitema_de_turnos.excepcion.ConflictoException(
-                    "El email pertenece a una cuenta registrada. Por favor, iniciá sesión o usá otro email."
-                );
-            }
-            return c; // cliente invitado -> asociar
-        }
-
-        // Crear nuevo cliente invitado
-        Cliente nuevoCliente = new Cliente();
-        nuevoCliente.setEmpresa(empresa);
-        nuevoCliente.setNombre(NormalizadorDatos.normalizarNombre(request.getNombreCliente()));
-        nuevoCliente.setEmail(emailNormalizado);
-        
         // Solo setear teléfono si no está vacío
         String telefono = request.getTelefonoCliente();
-        if (telefono != null && !telefono.trim().isEmpty()) {
-            // Validar formato del teléfono
-            if (!telefono.matches("^[+]?[0-9\\s\\-()]{8,20}$")) {
-                throw new ValidacionException("Formato de teléfono inválido");
-            }
-            nuevoCliente.setTelefono(telefono);
+        if (telefono != null && telefono.trim().isEmpty()) {
+            telefono = null;
+        }
+        // Validar formato del teléfono
+        if (telefono != null && !telefono.matches("^[+]?[0-9\\s\\-()]{8,20}$")) {
+            throw new ValidacionException("Formato de teléfono inválido");
         }
-        
-        nuevoCliente.setTieneUsuario(false);
-        nuevoCliente.setTelefonoValidado(false);
-        nuevoCliente.setActivo(true);
 
+        Cliente cliente;
         try {
-            return repositorioCliente.save(nuevoCliente);
+            cliente = repositorioCliente.obtenerOCrearPorEmail(
+                empresa.getId(),
+                emailNormalizado,
+                NormalizadorDatos.normalizarNombre(request.getNombreCliente()),
+                telefono,
+                false,
+                LocalDateTime.now()
+            );
         } catch (DataIntegrityViolationException e) {
-            // Otro thread creó el cliente simultáneamente, reintentamos la búsqueda
-            return repositorioCliente.findByEmpresaAndEmailAndActivoTrue(empresa, emailNormalizado)
-                    .orElseThrow(() -> new ValidacionException("Error al crear el cliente. Intente nuevamente."));
+            if (violaRestriccion(e, "uk_cliente_empresa_telefono")) {
+                throw new ValidacionException(
+                    "El teléfono ya está registrado para otro cliente. Usá el email con el que reservaste antes o ingresá otro teléfono.");
+            }
+            throw e;
+        }
+
+        if (!Boolean.TRUE.equals(cliente.getActivo())) {
+            throw new ValidacionException("Error al crear el cliente. Intente nuevamente.");
+        }
+        // Si el cliente ya tiene cuenta registrada, NO se puede asociar automáticamente
+        if (Boolean.TRUE.equals(cliente.getTieneUsuario())) {
+            throw new com.example.sitema_de_turnos.excepcion.ConflictoException(
+                "El email pertenece a una cuenta registrada. Por favor, iniciá sesión o usá otro email."
+            );
         }
+        return cliente; // cliente invitado (existente o recién creado) -> asociar
+    }
+
+    /**
+     * Indica si la violación de integridad corresponde a la restricción indicada (por nombre, como la reporta la base).
+     * Paquete: también la usa {@link ServicioIntegracionBot}.
+     */
+    static boolean violaRestriccion(DataIntegrityViolationException e, String restriccion) {
+        String mensaje = e.getMostSpecificCause().getMessage();
+        return mensaje != null && mensaje.toLowerCase(Locale.ROOT).contains(restriccion);
     }
 
     /**
@@ -609,6 +713,8 @@ public class ServicioTurno {
         turno.setFechaCancelacion(ahoraLocal);
 
         repositorioTurno.save(turno);
+        eventPublisher.publishEvent(AgendaModificadaEvent.dia(turno.getProfesional(), turno.getFecha()));
+        eventPublisher.publishEvent(SlotTurnoEvent.liberado(turno));
 
         // Enviar notificación de cancelación al profesional
         enviarNotificacionCancelacion(turno, canceladoPor);
@@ -617,7 +723,7 @@ public class ServicioTurno {
     /**
      * Mapear Turno a TurnoResponsePublico (contexto público, sin datos sensibles)
      */
-    private TurnoResponsePublico mapearATurnoResponsePublico(Turno turno) {
+    TurnoResponsePublico mapearATurnoResponsePublico(Turno turno) {
         TurnoResponsePublico response = new TurnoResponsePublico();
         response.setId(turno.getId());
         response.setServicioId(turno.getServicio().getId());
@@ -724,6 +830,8 @@ public class ServicioTurno {
             throw new ValidacionException("Has alcanzado el límite máximo de reprogramaciones para este turno. Comunícate con el local.");
         }
 
+        serializadorReservas.bloquearAgenda(profesionalDestino.getId(), nuevaFecha);
+
         if (!repositorioBloqueoFecha.findBloqueoEnFecha(profesionalDestino, nuevaFecha).isEmpty()) {
             throw new ValidacionException("El profesional no está disponible en la fecha seleccionada");
         }
@@ -731,31 +839,16 @@ public class ServicioTurno {
         LocalTime nuevaHoraFin = nuevaHoraInicio
             .plusMinutes(turnoOriginal.getDuracionMinutos())
             .plusMinutes(turnoOriginal.getBufferMinutos());
-
-        validarHorarioEnDisponibilidad(profesionalDestino, nuevaFecha, nuevaHoraInicio, nuevaHoraFin);
-
-        List<Long> conflictosOcupantes = repositorioTurno.findIdsTurnosOcupantesSolapadosForUpdate(
-            profesionalDestino,
-            nuevaFecha,
-            nuevaHoraInicio,
-            nuevaHoraFin,
-            turnoOriginal.getId(),
-            ESTADOS_OCUPANTES_AGENDA
-        );
-        if (!conflictosOcupantes.isEmpty()) {
-            throw new SolapamientoException("El horario seleccionado se superpone con un turno ocupado del profesional");
+        if (!nuevaHoraFin.isAfter(nuevaHoraInicio)) {
+            throw new ValidacionException("El horario solicitado está fuera del horario de atención");
         }
 
-        if (repositorioTurno.existeSolapamientoExcluyendo(
-                profesionalDestino,
-                nuevaFecha,
-                nuevaHoraInicio,
-                nuevaHoraFin,
-                turnoOriginal.getId(),
-                ESTADOS_OCUPANTES_AGENDA)) {
-            throw new SolapamientoException("El horario seleccionado ya no está disponible");
-        }
+        validarHorarioEnDisponibilidad(profesionalDestino, nuevaFecha, nuevaHoraInicio, nuevaHoraFin);
+        registroRetenciones.verificarYConsumir(profesionalDestino.getId(), nuevaFecha, nuevaHoraInicio, nuevaHoraFin, null);
 
+        // OPTIMIZADO: sin SELECT ... FOR UPDATE de turnos solapados. El original pasa a REPROGRAMADO
+        // y se escribe ANTES de insertar el nuevo, así deja de ocupar su rango y la restricción de
+        // exclusión turno_sin_solapamiento solo choca con OTROS turnos ocupantes.
         turnoOriginal.setEstado(EstadoTurno.REPROGRAMADO);
 
         Turno nuevoTurno = new Turno();
@@ -781,8 +874,15 @@ public class ServicioTurno {
 
         try {
             repositorioTurno.save(turnoOriginal);
+            repositorioTurno.flush();
             Turno nuevoTurnoPersistido = repositorioTurno.save(nuevoTurno);
             trasladarPagoAlTurnoReprogramado(turnoOriginal, nuevoTurnoPersistido);
+            eventPublisher.publishEvent(AgendaModificadaEvent.dia(
+                turnoOriginal.getProfesional(), turnoOriginal.getFecha()));
+            eventPublisher.publishEvent(AgendaModificadaEvent.dia(
+                nuevoTurnoPersistido.getProfesional(), nuevoTurnoPersistido.getFecha()));
+            eventPublisher.publishEvent(SlotTurnoEvent.liberado(turnoOriginal));
+            eventPublisher.publishEvent(SlotTurnoEvent.ocupado(nuevoTurnoPersistido));
             return nuevoTurnoPersistido;
         } catch (DataIntegrityViolationException e) {
             throw new SolapamientoException("El turno ya fue tomado por otro cliente. Por favor, elija otro horario.", e);
@@ -970,8 +1070,16 @@ public class ServicioTurno {
 
         turno = repositorioTurno.save(turno);
 
+        // Solo cambia la agenda si el turno entra o sale de un estado ocupante
+        if (ESTADOS_OCUPANTES_AGENDA.contains(estadoAnterior) != ESTADOS_OCUPANTES_AGENDA.contains(turno.getEstado())) {
+            eventPublisher.publishEvent(AgendaModificadaEvent.dia(turno.getProfesional(), turno.getFecha()));
+            eventPublisher.publishEvent(ESTADOS_OCUPANTES_AGENDA.contains(turno.getEstado())
+                ? SlotTurnoEvent.ocupado(turno)
+                : SlotTurnoEvent.liberado(turno));
+        }
+
         if (estadoAnterior != EstadoTurno.CONFIRMADO && turno.getEstado() == EstadoTurno.CONFIRMADO) {
-            emailNotificationService.enviarCorreoConfirmacionTurno(turno);
+            servicioOutbox.registrarCorreo(TipoEventoOutbox.CORREO_CONFIRMACION_TURNO, turno.getId());
         }
 
         return mapearATurnoResponseProfesional(turno);
@@ -1234,7 +1342,7 @@ public class ServicioTurno {
             datos.put("observaciones", turno.getObservaciones());
             datos.put("estado", turno.getEstado().name());
 
-            servicioNotificacion.enviarNotificacion(
+            servicioOutbox.registrarNotificacionProfesional(
                 turno.getProfesional().getId(),
                 TipoNotificacion.NUEVO_TURNO,
                 titulo,
@@ -1276,7 +1384,7 @@ public class ServicioTurno {
             datos.put("canceladoPor", canceladoPor);
             datos.put("fechaCancelacion", turno.getFechaCancelacion().format(FORMATTER_DATETIME));
 
-            servicioNotificacion.enviarNotificacion(
+            servicioOutbox.registrarNotificacionProfesional(
                 turno.getProfesional().getId(),
                 tipo,
                 titulo,
@@ -1314,7 +1422,7 @@ public class ServicioTurno {
             datos.put("fechaNueva", turno.getFecha().toString());
             datos.put("horaNueva", turno.getHoraInicio().format(FORMATTER_HORA));
 
-            servicioNotificacion.enviarNotificacion(
+            servicioOutbox.registrarNotificacionProfesional(
                 turno.getProfesional().getId(),
                 TipoNotificacion.REPROGRAMACION_CLIENTE,
                 titulo,
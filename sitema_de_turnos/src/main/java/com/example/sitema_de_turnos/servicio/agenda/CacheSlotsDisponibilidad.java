@@ -0,0 +1,198 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import com.example.sitema_de_turnos.evento.AgendaModificadaEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caché acotada de inicios de slot calculados, por (profesionalId, fecha, duración + buffer).
+ *
+ * Las lecturas de disponibilidad superan ~50:1 a las reservas, así que se guarda el resultado de
+ * {@link MapaOcupacionDia#inicios} SIN el corte de anticipación del día de hoy: como ese corte
+ * solo omite inicios (no corre la grilla), se aplica al leer y las entradas de hoy siguen
+ * avanzando con la hora sin necesidad de invalidarlas.
+ *
+ * Invalidación explícita desde los caminos que cambian la agenda, vía {@link AgendaModificadaEvent}
+ * y desde el recálculo de franjas libres: se invalida en el momento y otra vez al confirmar la
+ * transacción, para que una lectura concurrente no vuelva a cachear el estado anterior al commit.
+ * Además, cada profesional tiene una generación: un cálculo que empezó antes de una invalidación
+ * no se guarda. El TTL es solo una red de seguridad ante cambios no cubiertos.
+ *
+ * LRU con {@link LinkedHashMap} en orden de acceso bajo un único lock: las operaciones son O(1)
+ * y la invalidación por profesional recorre como máximo {@code maxEntradas}.
+ */
+@Component
+@Slf4j
+public class CacheSlotsDisponibilidad {
+
+    private final int maxEntradas;
+    private final long ttlNanos;
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<Clave, Entrada> entradas;
+    private final Map<Long, Long> generaciones = new HashMap<>();
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    public CacheSlotsDisponibilidad(
+            @Value("${app.disponibilidad.cache.max-entradas:5000}") int maxEntradas,
+            @Value("${app.disponibilidad.cache.ttl-segundos:300}") long ttlSegundos) {
+        this.maxEntradas = maxEntradas;
+        this.ttlNanos = ttlSegundos * 1_000_000_000L;
+        this.entradas = new LinkedHashMap<>(Math.min(maxEntradas, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> eldest) {
+                if (size() > CacheSlotsDisponibilidad.this.maxEntradas) {
+                    desalojos.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve los inicios cacheados o los calcula (fuera del lock) y los guarda si
+     * nadie invalidó al profesional mientras tanto.
+     */
+    public int[] obtenerOCalcular(Long profesionalId, LocalDate fecha, int duracionTotal, Supplier<int[]> calculo) {
+        int[] cacheado = obtener(profesionalId, fecha, duracionTotal);
+        if (cacheado != null) {
+            return cacheado;
+        }
+        long generacion = generacion(profesionalId);
+        int[] calculado = calculo.get();
+        guardar(profesionalId, fecha, duracionTotal, calculado, generacion);
+        return calculado;
+    }
+
+    /**
+     * Buscar inicios cacheados (null si no hay o si venció el TTL). Cuenta aciertos/fallos.
+     */
+    public int[] obtener(Long profesionalId, LocalDate fecha, int duracionTotal) {
+        Clave clave = new Clave(profesionalId, fecha, duracionTotal);
+        synchronized (lock) {
+            Entrada entrada = entradas.get(clave);
+            if (entrada != null && System.nanoTime() - entrada.creadaNanos() <= ttlNanos) {
+                aciertos.incrementAndGet();
+                return entrada.inicios();
+            }
+            if (entrada != null) {
+                entradas.remove(clave);
+            }
+        }
+        fallos.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Generación actual del profesional. Leerla ANTES de consultar la BD y pasarla a {@link #guardar}.
+     */
+    public long generacion(Long profesionalId) {
+        synchronized (lock) {
+            return generaciones.getOrDefault(profesionalId, 0L);
+        }
+    }
+
+    /**
+     * Guardar inicios calculados. Se descarta si hubo una invalidación desde que se leyó la generación.
+     */
+    public void guardar(Long profesionalId, LocalDate fecha, int duracionTotal, int[] inicios, long generacionLeida) {
+        synchronized (lock) {
+            if (generaciones.getOrDefault(profesionalId, 0L) != generacionLeida) {
+                return;
+            }
+            entradas.put(new Clave(profesionalId, fecha, duracionTotal), new Entrada(inicios, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Invalidación a partir de los cambios de agenda publicados por los servicios
+     * (turnos, bloqueos, disponibilidad). Síncrono: corre dentro de la transacción que publica.
+     */
+    @EventListener
+    public void onAgendaModificada(AgendaModificadaEvent event) {
+        if (event.esTodoElHorizonte() || !event.getDesde().equals(event.getHasta())) {
+            invalidarProfesional(event.getProfesionalId());
+        } else {
+            invalidar(event.getProfesionalId(), event.getDesde());
+        }
+    }
+
+    /**
+     * Invalidar todas las duraciones cacheadas de un profesional en una fecha
+     * (turno creado, cancelado, reprogramado o expirado).
+     */
+    public void invalidar(Long profesionalId, LocalDate fecha) {
+        ejecutarAhoraYAlConfirmar(() -> {
+            synchronized (lock) {
+                avanzarGeneracion(profesionalId);
+                entradas.keySet().removeIf(c -> c.profesionalId().equals(profesionalId) && c.fecha().equals(fecha));
+            }
+        });
+    }
+
+    /**
+     * Invalidar todas las fechas de un profesional (cambios de bloqueos o de disponibilidad semanal).
+     */
+    public void invalidarProfesional(Long profesionalId) {
+        ejecutarAhoraYAlConfirmar(() -> {
+            synchronized (lock) {
+                avanzarGeneracion(profesionalId);
+                entradas.keySet().removeIf(c -> c.profesionalId().equals(profesionalId));
+            }
+        });
+    }
+
+    public Estadisticas estadisticas() {
+        long a = aciertos.get();
+        long f = fallos.get();
+        int tamanio;
+        synchronized (lock) {
+            tamanio = entradas.size();
+        }
+        return new Estadisticas(a, f, a + f == 0 ? 0.0 : (double) a / (a + f),
+                desalojos.get(), invalidaciones.get(), tamanio, maxEntradas);
+    }
+
+    private void avanzarGeneracion(Long profesionalId) {
+        generaciones.merge(profesionalId, 1L, Long::sum);
+    }
+
+    private void ejecutarAhoraYAlConfirmar(Runnable invalidacion) {
+        invalidaciones.incrementAndGet();
+        invalidacion.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidacion.run();
+                }
+            });
+        }
+    }
+
+    private record Clave(Long profesionalId, LocalDate fecha, int duracionTotal) {}
+
+    private record Entrada(int[] inicios, long creadaNanos) {}
+
+    /**
+     * Métricas de la caché expuestas en /api/admin/metricas/cache-disponibilidad.
+     */
+    public record Estadisticas(long aciertos, long fallos, double tasaAciertos,
+                               long desalojos, long invalidaciones, int tamanio, int maxEntradas) {}
+}
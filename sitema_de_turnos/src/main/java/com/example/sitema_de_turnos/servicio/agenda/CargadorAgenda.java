@@ -0,0 +1,119 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import com.example.sitema_de_turnos.modelo.BloqueoFecha;
+import com.example.sitema_de_turnos.modelo.DiaSemana;
+import com.example.sitema_de_turnos.modelo.DisponibilidadProfesional;
+import com.example.sitema_de_turnos.modelo.EstadoTurno;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import com.example.sitema_de_turnos.modelo.Turno;
+import com.example.sitema_de_turnos.repositorio.RepositorioBloqueoFecha;
+import com.example.sitema_de_turnos.repositorio.RepositorioDisponibilidadProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioTurno;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Arma los {@link MapaOcupacionDia} de uno o varios profesionales para un rango de fechas con una
+ * cantidad fija de consultas (bloqueos del rango, disponibilidad semanal y turnos ocupantes del
+ * rango), sin importar cuántos días ni cuántos profesionales abarque.
+ *
+ * Es la fuente de verdad de la agenda: la usan el cálculo de slots cuando un día no está
+ * materializado y el recálculo de {@code franjas_libres}.
+ */
+@Component
+@RequiredArgsConstructor
+public class CargadorAgenda {
+
+    /** Estados que bloquean slots en el calendario. */
+    public static final List<EstadoTurno> ESTADOS_OCUPANTES_AGENDA =
+        List.of(EstadoTurno.CONFIRMADO, EstadoTurno.PENDIENTE_PAGO);
+
+    private final RepositorioBloqueoFecha repositorioBloqueoFecha;
+    private final RepositorioDisponibilidadProfesional repositorioDisponibilidad;
+    private final RepositorioTurno repositorioTurno;
+
+    /**
+     * Mapas de ocupación de cada día de [desde, hasta], en orden. Un día bloqueado o sin
+     * disponibilidad configurada queda con un mapa vacío (sin rangos).
+     */
+    public Map<LocalDate, MapaOcupacionDia> cargar(PerfilProfesional profesional, LocalDate desde, LocalDate hasta) {
+        return cargar(List.of(profesional), desde, hasta).get(profesional.getId());
+    }
+
+    /**
+     * Mapas de ocupación de varios profesionales, indexados por id de profesional y luego por fecha.
+     *
+     * OPTIMIZADO: bloqueos, disponibilidad y turnos de TODOS los profesionales se cargan con una
+     * consulta {@code IN} cada uno y se reparten en memoria; la cantidad de consultas no depende
+     * de cuántos profesionales ni cuántos días se pidan.
+     */
+    public Map<Long, Map<LocalDate, MapaOcupacionDia>> cargar(List<PerfilProfesional> profesionales,
+                                                              LocalDate desde, LocalDate hasta) {
+        Map<Long, Map<LocalDate, MapaOcupacionDia>> resultado = new HashMap<>();
+        if (profesionales.isEmpty()) {
+            return resultado;
+        }
+
+        // 1 consulta: bloqueos que tocan el rango → fechas bloqueadas por profesional
+        Map<Long, Set<LocalDate>> fechasBloqueadas = new HashMap<>();
+        for (BloqueoFecha bloqueo : repositorioBloqueoFecha.findBloqueosEnRangoByProfesionales(profesionales, desde, hasta)) {
+            Set<LocalDate> fechas = fechasBloqueadas.computeIfAbsent(bloqueo.getProfesional().getId(), k -> new HashSet<>());
+            LocalDate finBloqueo = bloqueo.getFechaFin() != null ? bloqueo.getFechaFin() : bloqueo.getFechaInicio();
+            LocalDate dia = bloqueo.getFechaInicio().isBefore(desde) ? desde : bloqueo.getFechaInicio();
+            LocalDate ultimo = finBloqueo.isAfter(hasta) ? hasta : finBloqueo;
+            for (; !dia.isAfter(ultimo); dia = dia.plusDays(1)) {
+                fechas.add(dia);
+            }
+        }
+
+        // 1 consulta: disponibilidad semanal completa → por profesional y día de la semana
+        Map<Long, Map<DiaSemana, List<DisponibilidadProfesional>>> rangos = new HashMap<>();
+        for (DisponibilidadProfesional d : repositorioDisponibilidad.findByProfesionalInAndActivoTrue(profesionales)) {
+            rangos.computeIfAbsent(d.getProfesional().getId(), k -> new EnumMap<>(DiaSemana.class))
+                    .computeIfAbsent(d.getDiaSemana(), k -> new ArrayList<>())
+                    .add(d);
+        }
+
+        // 1 consulta: turnos ocupantes del rango → por profesional y fecha
+        Map<Long, Map<LocalDate, List<Turno>>> turnos = new HashMap<>();
+        for (Turno turno : repositorioTurno.findTurnosActivosByProfesionalesAndRangoFechas(
+                profesionales, desde, hasta, ESTADOS_OCUPANTES_AGENDA)) {
+            turnos.computeIfAbsent(turno.getProfesional().getId(), k -> new HashMap<>())
+                    .computeIfAbsent(turno.getFecha(), k -> new ArrayList<>())
+                    .add(turno);
+        }
+
+        for (PerfilProfesional profesional : profesionales) {
+            Long id = profesional.getId();
+            Set<LocalDate> bloqueadas = fechasBloqueadas.getOrDefault(id, Set.of());
+            Map<DiaSemana, List<DisponibilidadProfesional>> rangosPorDia = rangos.getOrDefault(id, Map.of());
+            Map<LocalDate, List<Turno>> turnosPorFecha = turnos.getOrDefault(id, Map.of());
+
+            Map<LocalDate, MapaOcupacionDia> mapas = new LinkedHashMap<>();
+            for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+                MapaOcupacionDia mapa = new MapaOcupacionDia();
+                if (!bloqueadas.contains(dia)) {
+                    for (DisponibilidadProfesional d : rangosPorDia.getOrDefault(DiaSemana.fromDayOfWeek(dia.getDayOfWeek()), List.of())) {
+                        mapa.agregarRango(d.getHoraInicio(), d.getHoraFin());
+                    }
+                    for (Turno turno : turnosPorFecha.getOrDefault(dia, List.of())) {
+                        mapa.ocupar(turno.getHoraInicio(), turno.getHoraFin());
+                    }
+                }
+                mapas.put(dia, mapa);
+            }
+            resultado.put(id, mapas);
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import com.example.sitema_de_turnos.excepcion.LimiteSolicitudesException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Límite de ritmo del endpoint público de retenciones, por origen (IP del cliente).
+ *
+ * Crear una retención es anónimo y saca el horario de la grilla por unos minutos: sin límite, un solo
+ * origen podría vaciar la agenda de una empresa. Misma cubeta GCRA que {@code LimitadorEnvioEmail}
+ * (ráfaga + ritmo sostenido, un AtomicLong por origen), pero sin esperar: la solicitud que excede el
+ * ritmo se rechaza con {@link LimiteSolicitudesException} (HTTP 429).
+ *
+ * Una cubeta que volvió a estar llena equivale a no tenerla: al superar {@code max-origenes} se descartan
+ * esas entradas para que el mapa no crezca sin límite.
+ */
+@Component
+public class LimitadorRetenciones {
+
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    private final int maxOrigenes;
+    private final ConcurrentHashMap<String, AtomicLong> porOrigen = new ConcurrentHashMap<>();
+
+    public LimitadorRetenciones(
+            @Value("${app.reservas.retenciones.limite.por-minuto:10}") double porMinuto,
+            @Value("${app.reservas.retenciones.limite.rafaga:5}") int rafaga,
+            @Value("${app.reservas.retenciones.limite.max-origenes:10000}") int maxOrigenes) {
+        if (porMinuto <= 0 || rafaga < 1 || maxOrigenes < 1) {
+            throw new IllegalArgumentException("El límite de retenciones requiere ritmo > 0, ráfaga >= 1 y max-origenes >= 1");
+        }
+        this.intervaloNanos = Math.max(1L, (long) (TimeUnit.MINUTES.toNanos(1) / porMinuto));
+        this.toleranciaNanos = intervaloNanos * rafaga;
+        this.maxOrigenes = maxOrigenes;
+    }
+
+    /**
+     * Consumir un token del origen o rechazar la solicitud si la ráfaga está agotada.
+     */
+    public void verificar(String origen) {
+        long esperaNanos = reservar(origen, System.nanoTime());
+        if (esperaNanos > 0) {
+            long segundos = Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(esperaNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            throw new LimiteSolicitudesException(
+                    "Demasiadas retenciones de horarios en poco tiempo. Intentá nuevamente en " + segundos + " segundos.",
+                    segundos);
+        }
+    }
+
+    /**
+     * Reservar un token; devuelve 0 si se concedió o cuánto falta (nanos) para el próximo, sin consumirlo.
+     */
+    long reservar(String origen, long ahoraNanos) {
+        if (porOrigen.size() >= maxOrigenes) {
+            porOrigen.values().removeIf(proximo -> proximo.get() - ahoraNanos <= 0);
+        }
+        AtomicLong proximoToken = porOrigen.computeIfAbsent(origen, k -> new AtomicLong(ahoraNanos));
+        while (true) {
+            long actual = proximoToken.get();
+            long base = actual - ahoraNanos > 0 ? actual : ahoraNanos;
+            long siguiente = base + intervaloNanos;
+            long exceso = siguiente - ahoraNanos - toleranciaNanos;
+            if (exceso > 0) {
+                return exceso;
+            }
+            if (proximoToken.compareAndSet(actual, siguiente)) {
+                return 0L;
+            }
+        }
+    }
+
+    /**
+     * Orígenes con cubeta en memoria (diagnóstico y tests).
+     */
+    int cantidadOrigenes() {
+        return porOrigen.size();
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Mapa de ocupación de la agenda de UN profesional en UN día, con granularidad de minuto.
+ *
+ * Representa el día como un bitset de 1440 bits (23 palabras {@code long}): bit en 1 = minuto
+ * ocupado por un turno. Los rangos de disponibilidad se guardan aparte, en el orden en que se
+ * cargan, porque la grilla de slots se ancla al inicio de cada hueco libre DENTRO de cada rango.
+ *
+ * Reemplaza el recorrido de listas de {@link LocalTime} de {@code ServicioPublico.generarSlots}:
+ * los huecos se obtienen con búsquedas por palabra ({@link Long#numberOfTrailingZeros}) y los
+ * inicios de slot se emiten como minutos del día ({@code int}), sin crear objetos por slot.
+ *
+ * Semántica (idéntica al algoritmo anterior en agendas bien formadas):
+ * <ul>
+ *   <li>Cada hueco libre [s, e) de un rango genera inicios en s, s+T, s+2T... mientras inicio + T &lt;= e,
+ *       con T = duración + buffer (o el bloque total congelado al reprogramar).</li>
+ *   <li>Los inicios anteriores a {@code minutoMinimo} (anticipación mínima del día de hoy) se omiten
+ *       sin correr la grilla.</li>
+ * </ul>
+ * A diferencia del algoritmo anterior, un turno que cruza el inicio de un rango o que se superpone
+ * con otro turno ocupa TODOS sus minutos, y la grilla nunca da la vuelta por medianoche.
+ *
+ * No es thread-safe: se crea por cálculo (es barato, ~200 bytes).
+ */
+public final class MapaOcupacionDia {
+
+    public static final int MINUTOS_DIA = 24 * 60;
+    private static final int PALABRAS = (MINUTOS_DIA + 63) >>> 6;
+
+    private final long[] ocupados = new long[PALABRAS];
+    private int[] rangos = new int[8];
+    private int cantidadRangos;
+
+    /**
+     * Agregar un rango de disponibilidad [inicio, fin). Los rangos se recorren en orden de carga.
+     */
+    public void agregarRango(LocalTime inicio, LocalTime fin) {
+        agregarRango(aMinuto(inicio), aMinuto(fin));
+    }
+
+    public void agregarRango(int inicio, int fin) {
+        inicio = Math.max(inicio, 0);
+        fin = Math.min(fin, MINUTOS_DIA);
+        if (fin <= inicio) {
+            return;
+        }
+        if (cantidadRangos * 2 == rangos.length) {
+            rangos = Arrays.copyOf(rangos, rangos.length * 2);
+        }
+        rangos[cantidadRangos * 2] = inicio;
+        rangos[cantidadRangos * 2 + 1] = fin;
+        cantidadRangos++;
+    }
+
+    /**
+     * Marcar como ocupado el intervalo [inicio, fin) (turno ocupante, incluyendo su buffer).
+     */
+    public void ocupar(LocalTime inicio, LocalTime fin) {
+        ocupar(aMinuto(inicio), aMinuto(fin));
+    }
+
+    public void ocupar(int inicio, int fin) {
+        inicio = Math.max(inicio, 0);
+        fin = Math.min(fin, MINUTOS_DIA);
+        if (fin <= inicio) {
+            return;
+        }
+        int primera = inicio >>> 6;
+        int ultima = (fin - 1) >>> 6;
+        long mascaraInicio = -1L << inicio;
+        long mascaraFin = -1L >>> -fin;
+        if (primera == ultima) {
+            ocupados[primera] |= mascaraInicio & mascaraFin;
+            return;
+        }
+        ocupados[primera] |= mascaraInicio;
+        for (int i = primera + 1; i < ultima; i++) {
+            ocupados[i] = -1L;
+        }
+        ocupados[ultima] |= mascaraFin;
+    }
+
+    public boolean estaOcupado(int minuto) {
+        return (ocupados[minuto >>> 6] & (1L << minuto)) != 0;
+    }
+
+    /**
+     * Indica si [inicio, fin) cae completo dentro de un rango de disponibilidad y sin minutos ocupados.
+     */
+    public boolean estaLibre(int inicio, int fin) {
+        if (inicio < 0 || fin > MINUTOS_DIA || fin <= inicio) {
+            return false;
+        }
+        for (int r = 0; r < cantidadRangos; r++) {
+            if (rangos[r * 2] <= inicio && fin <= rangos[r * 2 + 1]) {
+                return siguienteOcupado(inicio, fin) == fin;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Recorrer los minutos de inicio de slot válidos, en orden de rango y luego cronológico.
+     *
+     * @param duracionTotal minutos que ocupa cada slot en agenda (duración + buffer)
+     * @param minutoMinimo  primer minuto admitido (0 si no es hoy; puede superar 1440)
+     * @param consumidor    recibe cada minuto de inicio; puede ser null si solo interesa la cantidad
+     * @return cantidad de slots emitidos
+     */
+    public int recorrerInicios(int duracionTotal, int minutoMinimo, IntConsumer consumidor) {
+        if (duracionTotal <= 0) {
+            throw new IllegalArgumentException("La duración total del slot debe ser mayor a 0");
+        }
+        int cantidad = 0;
+        for (int r = 0; r < cantidadRangos; r++) {
+            int finRango = rangos[r * 2 + 1];
+            int posicion = rangos[r * 2];
+            while (posicion < finRango) {
+                int inicioHueco = siguienteLibre(posicion, finRango);
+                if (inicioHueco < 0) {
+                    break;
+                }
+                int finHueco = siguienteOcupado(inicioHueco, finRango);
+
+                int minuto = primerInicio(inicioHueco, minutoMinimo, duracionTotal);
+                for (; minuto + duracionTotal <= finHueco; minuto += duracionTotal) {
+                    if (consumidor != null) {
+                        consumidor.accept(minuto);
+                    }
+                    cantidad++;
+                }
+                posicion = finHueco;
+            }
+        }
+        return cantidad;
+    }
+
+    /**
+     * Recorrer los huecos libres [inicio, fin) de cada rango, en orden de rango y luego cronológico.
+     * Son exactamente los huecos sobre los que {@link #recorrerInicios} ancla su grilla.
+     */
+    public void recorrerHuecos(ConsumidorHueco consumidor) {
+        for (int r = 0; r < cantidadRangos; r++) {
+            int finRango = rangos[r * 2 + 1];
+            int posicion = rangos[r * 2];
+            while (posicion < finRango) {
+                int inicioHueco = siguienteLibre(posicion, finRango);
+                if (inicioHueco < 0) {
+                    break;
+                }
+                int finHueco = siguienteOcupado(inicioHueco, finRango);
+                consumidor.aceptar(inicioHueco, finHueco);
+                posicion = finHueco;
+            }
+        }
+    }
+
+    /**
+     * Minutos de inicio de slot válidos como arreglo (dos pasadas: contar y llenar, sin boxing).
+     */
+    public int[] inicios(int duracionTotal, int minutoMinimo) {
+        int[] resultado = new int[recorrerInicios(duracionTotal, minutoMinimo, null)];
+        int[] posicion = {0};
+        recorrerInicios(duracionTotal, minutoMinimo, minuto -> resultado[posicion[0]++] = minuto);
+        return resultado;
+    }
+
+    /**
+     * Indica si existe al menos un slot válido (corta en el primer hueco que alcanza).
+     */
+    public boolean tieneInicio(int duracionTotal, int minutoMinimo) {
+        if (duracionTotal <= 0) {
+            throw new IllegalArgumentException("La duración total del slot debe ser mayor a 0");
+        }
+        for (int r = 0; r < cantidadRangos; r++) {
+            int finRango = rangos[r * 2 + 1];
+            int posicion = rangos[r * 2];
+            while (posicion < finRango) {
+                int inicioHueco = siguienteLibre(posicion, finRango);
+                if (inicioHueco < 0) {
+                    break;
+                }
+                int finHueco = siguienteOcupado(inicioHueco, finRango);
+                if (primerInicio(inicioHueco, minutoMinimo, duracionTotal) + duracionTotal <= finHueco) {
+                    return true;
+                }
+                posicion = finHueco;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Primer inicio de la grilla del hueco que no es anterior a {@code minutoMinimo}.
+     * Los inicios ya pasados se saltan manteniendo la grilla anclada al inicio del hueco.
+     */
+    private static int primerInicio(int inicioHueco, int minutoMinimo, int duracionTotal) {
+        if (inicioHueco >= minutoMinimo) {
+            return inicioHueco;
+        }
+        return inicioHueco + ((minutoMinimo - inicioHueco + duracionTotal - 1) / duracionTotal) * duracionTotal;
+    }
+
+    /**
+     * Primer minuto libre en [desde, limite), o -1 si no hay.
+     */
+    private int siguienteLibre(int desde, int limite) {
+        int indice = desde >>> 6;
+        long palabra = ~ocupados[indice] & (-1L << desde);
+        while (true) {
+            if (palabra != 0) {
+                int minuto = (indice << 6) + Long.numberOfTrailingZeros(palabra);
+                return minuto < limite ? minuto : -1;
+            }
+            if (++indice >= PALABRAS || (indice << 6) >= limite) {
+                return -1;
+            }
+            palabra = ~ocupados[indice];
+        }
+    }
+
+    /**
+     * Primer minuto ocupado en [desde, limite), o {@code limite} si no hay.
+     */
+    private int siguienteOcupado(int desde, int limite) {
+        int indice = desde >>> 6;
+        long palabra = ocupados[indice] & (-1L << desde);
+        while (true) {
+            if (palabra != 0) {
+                return Math.min((indice << 6) + Long.numberOfTrailingZeros(palabra), limite);
+            }
+            if (++indice >= PALABRAS || (indice << 6) >= limite) {
+                return limite;
+            }
+            palabra = ocupados[indice];
+        }
+    }
+
+    @FunctionalInterface
+    public interface ConsumidorHueco {
+        void aceptar(int inicio, int fin);
+    }
+
+    public static int aMinuto(LocalTime hora) {
+        return hora.getHour() * 60 + hora.getMinute();
+    }
+
+    public static LocalTime aHora(int minuto) {
+        return LocalTime.of(minuto / 60, minuto % 60);
+    }
+}
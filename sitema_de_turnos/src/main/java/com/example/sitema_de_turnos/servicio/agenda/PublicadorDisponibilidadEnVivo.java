@@ -0,0 +1,59 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import com.example.sitema_de_turnos.dto.publico.DeltaDisponibilidadDTO;
+import com.example.sitema_de_turnos.evento.SlotTurnoEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Publica deltas de disponibilidad en el broker STOMP para las páginas públicas de reserva.
+ *
+ * Tópicos (prefijo {@value #PREFIJO_TOPICO}):
+ * - {@code /topic/disponibilidad/{empresaSlug}/{profesionalId}/{fecha}}: reserva con profesional elegido.
+ * - {@code /topic/disponibilidad/{empresaSlug}/{fecha}}: modo "cualquier profesional".
+ *
+ * Con esto el frontend puede dejar de hacer polling a /disponibilidad mientras el cliente elige horario.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PublicadorDisponibilidadEnVivo {
+
+    public static final String PREFIJO_TOPICO = "/topic/disponibilidad/";
+
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public void publicar(SlotTurnoEvent event) {
+        if (event.getEmpresaSlug() == null) {
+            return;
+        }
+        DeltaDisponibilidadDTO delta = new DeltaDisponibilidadDTO(
+                event.getTipo().name(),
+                event.getProfesionalId(),
+                event.getFecha().toString(),
+                event.getHoraInicio().format(FORMATO_HORA),
+                event.getHoraFin().format(FORMATO_HORA));
+
+        messagingTemplate.convertAndSend(
+                destinoProfesional(event.getEmpresaSlug(), event.getProfesionalId(), event.getFecha()), delta);
+        messagingTemplate.convertAndSend(destinoEmpresa(event.getEmpresaSlug(), event.getFecha()), delta);
+
+        log.debug("📡 Delta {} {} {}-{} publicado (empresa {}, profesional {})", delta.getTipo(), delta.getFecha(),
+                delta.getHoraInicio(), delta.getHoraFin(), event.getEmpresaSlug(), event.getProfesionalId());
+    }
+
+    public static String destinoProfesional(String empresaSlug, Long profesionalId, LocalDate fecha) {
+        return PREFIJO_TOPICO + empresaSlug + "/" + profesionalId + "/" + fecha;
+    }
+
+    public static String destinoEmpresa(String empresaSlug, LocalDate fecha) {
+        return PREFIJO_TOPICO + empresaSlug + "/" + fecha;
+    }
+}
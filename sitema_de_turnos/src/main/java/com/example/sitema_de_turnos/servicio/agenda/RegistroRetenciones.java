@@ -0,0 +1,303 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import com.example.sitema_de_turnos.evento.SlotTurnoEvent;
+import com.example.sitema_de_turnos.excepcion.SolapamientoException;
+import com.example.sitema_de_turnos.modelo.RetencionSlot;
+import com.example.sitema_de_turnos.repositorio.RepositorioRetencionSlot;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retenciones temporales de slots (checkout leases) vigentes en este nodo.
+ *
+ * - En memoria, por (profesional, fecha): un arreglo ordenado de intervalos empaquetados
+ *   ({@code inicio << 11 | fin}, minutos del día) que se reemplaza entero al cambiar (copy-on-write),
+ *   así filtrar los slots publicados no toma locks.
+ * - Persistidas en {@code retenciones_slot}: {@link #verificarYConsumir} consulta la tabla bajo el advisory
+ *   lock de agenda, de modo que la reserva respeta también las retenciones creadas en otro nodo.
+ * - Vencimiento por {@link RuedaTemporizadora}: un hilo avanza la rueda cada tick y solo toca las
+ *   retenciones que vencen, en lugar de un cron por minuto que barra todas (o la tabla).
+ *
+ * Al vencer o liberarse se publica {@link SlotTurnoEvent#retencionLiberada} (delta en vivo y versión de ETag).
+ */
+@Slf4j
+@Component
+public class RegistroRetenciones {
+
+    private static final int BITS_FIN = 11; // 1440 < 2^11
+
+    private final RepositorioRetencionSlot repositorioRetencionSlot;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ConcurrentHashMap<ClaveDia, int[]> intervalosPorDia = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Activa> porToken = new ConcurrentHashMap<>();
+    private final RuedaTemporizadora<String> rueda;
+    private final ScheduledExecutorService reloj;
+
+    public RegistroRetenciones(
+            RepositorioRetencionSlot repositorioRetencionSlot,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.reservas.retenciones.tick-ms:1000}") long tickMs,
+            @Value("${app.reservas.retenciones.ranuras:512}") int ranuras) {
+        this.repositorioRetencionSlot = repositorioRetencionSlot;
+        this.eventPublisher = eventPublisher;
+        this.rueda = new RuedaTemporizadora<>(tickMs, ranuras, System.currentTimeMillis());
+        this.reloj = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "retenciones-rueda");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.reloj.scheduleWithFixedDelay(this::avanzarRueda, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        reloj.shutdownNow();
+    }
+
+    /**
+     * Al arrancar: descartar las filas vencidas y recuperar en memoria las vigentes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarVigentes() {
+        Instant ahora = Instant.now();
+        try {
+            int vencidas = repositorioRetencionSlot.eliminarVencidas(ahora);
+            List<RetencionSlot> vigentes = repositorioRetencionSlot.findByExpiraEnAfter(ahora);
+            vigentes.forEach(this::registrar);
+            log.info("⏳ Retenciones de slots: {} vigentes recuperadas, {} vencidas eliminadas", vigentes.size(), vencidas);
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudieron recuperar retenciones de slots: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Registrar en memoria una retención ya persistida (llamar después del commit).
+     */
+    public void registrar(RetencionSlot retencion) {
+        int inicio = MapaOcupacionDia.aMinuto(retencion.getHoraInicio());
+        int fin = MapaOcupacionDia.aMinuto(retencion.getHoraFin());
+        ClaveDia clave = new ClaveDia(retencion.getProfesionalId(), retencion.getFecha());
+        Activa activa = new Activa(retencion.getToken(), retencion.getEmpresaSlug(), clave, inicio, fin,
+                rueda.programar(retencion.getToken(), retencion.getExpiraEn().toEpochMilli()));
+        if (porToken.putIfAbsent(retencion.getToken(), activa) != null) {
+            activa.vencimiento().cancelar();
+            return;
+        }
+        intervalosPorDia.compute(clave, (k, actuales) -> agregar(actuales, empaquetar(inicio, fin)));
+    }
+
+    /**
+     * Indica si [inicio, fin) (minutos del día) se superpone con alguna retención vigente en este nodo.
+     */
+    public boolean estaRetenido(Long profesionalId, LocalDate fecha, int inicio, int fin) {
+        int[] intervalos = intervalosPorDia.get(new ClaveDia(profesionalId, fecha));
+        return intervalos != null && solapa(intervalos, inicio, fin);
+    }
+
+    /**
+     * Quitar de {@code inicios} los slots de {@code duracionTotal} minutos que pisan una retención.
+     * Sin retenciones en el día devuelve el mismo arreglo (caso común, sin copia).
+     */
+    public int[] filtrarInicios(Long profesionalId, LocalDate fecha, int[] inicios, int duracionTotal) {
+        int[] intervalos = intervalosPorDia.get(new ClaveDia(profesionalId, fecha));
+        if (intervalos == null || inicios == null || inicios.length == 0) {
+            return inicios;
+        }
+        int[] libres = new int[inicios.length];
+        int cantidad = 0;
+        for (int inicio : inicios) {
+            if (!solapa(intervalos, inicio, inicio + duracionTotal)) {
+                libres[cantidad++] = inicio;
+            }
+        }
+        return cantidad == inicios.length ? inicios : Arrays.copyOf(libres, cantidad);
+    }
+
+    /**
+     * Respetar las retenciones al reservar o reprogramar. Debe llamarse dentro de la transacción y con el
+     * advisory lock de agenda tomado (ver {@link SerializadorReservas#bloquearAgenda}).
+     *
+     * Consulta la tabla (fuente común a todos los nodos): si [horaInicio, horaFin) pisa una retención vigente
+     * de otro cliente lanza {@link SolapamientoException}. La retención de {@code tokenPropio} (si viene) se
+     * consume aunque sea de otro horario: el cliente cambió de idea y ya no la necesita.
+     */
+    public void verificarYConsumir(Long profesionalId, LocalDate fecha, LocalTime horaInicio, LocalTime horaFin,
+                                   String tokenPropio) {
+        List<RetencionSlot> solapadas = repositorioRetencionSlot.findVigentesSolapadas(
+                profesionalId, fecha, horaInicio, horaFin, Instant.now());
+        for (RetencionSlot retencion : solapadas) {
+            if (!retencion.getToken().equals(tokenPropio)) {
+                throw new SolapamientoException(
+                        "El horario está reservado temporalmente por otro cliente. Elegí otro horario o intentá en unos minutos.");
+            }
+        }
+        if (tokenPropio == null || tokenPropio.isBlank()) {
+            return;
+        }
+        repositorioRetencionSlot.findByToken(tokenPropio).ifPresent(repositorioRetencionSlot::delete);
+        // La reserva ya publica su propio delta: la retención se quita en silencio al confirmar
+        alConfirmar(() -> quitar(tokenPropio));
+    }
+
+    /**
+     * Liberar una retención antes de su vencimiento (el cliente abandonó el checkout).
+     *
+     * @return false si el token no existe o ya venció
+     */
+    public boolean liberar(String token) {
+        int eliminadas = repositorioRetencionSlot.eliminarPorTokens(List.of(token));
+        Activa activa = quitar(token);
+        if (activa != null) {
+            publicarLiberada(activa);
+        }
+        return eliminadas > 0 || activa != null;
+    }
+
+    /**
+     * Quitar las retenciones de {@code anteriores} (del mismo titular) porque se reemplazan por una nueva.
+     * Debe llamarse dentro de la transacción que crea la nueva: las filas se borran en ella y la copia en
+     * memoria se actualiza al confirmar; si la nueva retención falla, las anteriores siguen vigentes.
+     *
+     * @return cantidad de retenciones reemplazadas
+     */
+    public int reemplazar(List<RetencionSlot> anteriores) {
+        if (anteriores.isEmpty()) {
+            return 0;
+        }
+        List<String> tokens = anteriores.stream().map(RetencionSlot::getToken).toList();
+        int eliminadas = repositorioRetencionSlot.eliminarPorTokens(tokens);
+        alConfirmar(() -> tokens.forEach(token -> {
+            Activa activa = quitar(token);
+            if (activa != null) {
+                publicarLiberada(activa);
+            }
+        }));
+        return eliminadas;
+    }
+
+    /**
+     * Cantidad de retenciones vigentes en memoria (diagnóstico).
+     */
+    public int cantidadVigentes() {
+        return porToken.size();
+    }
+
+    private void avanzarRueda() {
+        try {
+            List<Activa> vencidas = new ArrayList<>();
+            rueda.avanzar(System.currentTimeMillis(), token -> {
+                Activa activa = quitar(token);
+                if (activa != null) {
+                    vencidas.add(activa);
+                }
+            });
+            if (vencidas.isEmpty()) {
+                return;
+            }
+            repositorioRetencionSlot.eliminarPorTokens(vencidas.stream().map(Activa::token).toList());
+            vencidas.forEach(this::publicarLiberada);
+            log.debug("⏳ {} retenciones de slots vencidas", vencidas.size());
+        } catch (Exception e) {
+            // Una fila que no se pudo borrar no tiene efecto (expira_en ya pasó); se purga al reiniciar
+            log.warn("⚠️ Error al vencer retenciones de slots: {}", e.getMessage());
+        }
+    }
+
+    private Activa quitar(String token) {
+        Activa activa = porToken.remove(token);
+        if (activa == null) {
+            return null;
+        }
+        activa.vencimiento().cancelar();
+        int empaquetado = empaquetar(activa.inicio(), activa.fin());
+        intervalosPorDia.computeIfPresent(activa.clave(), (k, actuales) -> sacar(actuales, empaquetado));
+        return activa;
+    }
+
+    private void publicarLiberada(Activa activa) {
+        eventPublisher.publishEvent(SlotTurnoEvent.retencionLiberada(activa.empresaSlug(), activa.clave().profesionalId(),
+                activa.clave().fecha(), MapaOcupacionDia.aHora(activa.inicio()), MapaOcupacionDia.aHora(activa.fin())));
+    }
+
+    private static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    private static int empaquetar(int inicio, int fin) {
+        return inicio << BITS_FIN | fin;
+    }
+
+    private static boolean solapa(int[] intervalos, int inicio, int fin) {
+        int mascaraFin = (1 << BITS_FIN) - 1;
+        for (int intervalo : intervalos) {
+            int inicioRetenido = intervalo >>> BITS_FIN;
+            if (inicioRetenido >= fin) {
+                return false; // ordenados por inicio: ninguno de los siguientes puede solapar
+            }
+            if ((intervalo & mascaraFin) > inicio) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] agregar(int[] actuales, int empaquetado) {
+        if (actuales == null) {
+            return new int[]{empaquetado};
+        }
+        int posicion = Arrays.binarySearch(actuales, empaquetado);
+        int insercion = posicion >= 0 ? posicion : -posicion - 1;
+        int[] nuevos = new int[actuales.length + 1];
+        System.arraycopy(actuales, 0, nuevos, 0, insercion);
+        nuevos[insercion] = empaquetado;
+        System.arraycopy(actuales, insercion, nuevos, insercion + 1, actuales.length - insercion);
+        return nuevos;
+    }
+
+    private static int[] sacar(int[] actuales, int empaquetado) {
+        int posicion = Arrays.binarySearch(actuales, empaquetado);
+        if (posicion < 0) {
+            return actuales;
+        }
+        if (actuales.length == 1) {
+            return null; // computeIfPresent elimina el día
+        }
+        int[] nuevos = new int[actuales.length - 1];
+        System.arraycopy(actuales, 0, nuevos, 0, posicion);
+        System.arraycopy(actuales, posicion + 1, nuevos, posicion, actuales.length - posicion - 1);
+        return nuevos;
+    }
+
+    private record ClaveDia(Long profesionalId, LocalDate fecha) {}
+
+    private record Activa(String token, String empresaSlug, ClaveDia clave, int inicio, int fin,
+                          RuedaTemporizadora.Entrada<String> vencimiento) {}
+}
@@ -0,0 +1,113 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Rueda de temporización (hashed timing wheel) para vencimientos de corta duración.
+ *
+ * El tiempo se divide en ticks de {@code tickMs}; cada entrada se guarda en la ranura
+ * {@code tick % cantidadRanuras} de su vencimiento. Programar y cancelar son O(1) y cada avance solo
+ * recorre las ranuras de los ticks transcurridos, en lugar de un cron que consulta todo lo vigente
+ * (o la base) cada minuto. Las entradas que vencen más de una vuelta después quedan en su ranura
+ * y se saltean hasta que llega su tick.
+ *
+ * Precisión: una entrada vence en el primer avance posterior a su tick (como mucho {@code tickMs} tarde,
+ * nunca antes). Thread-safe; el callback de vencimiento corre fuera del lock.
+ */
+public final class RuedaTemporizadora<T> {
+
+    private final long tickMs;
+    private final List<LinkedList<Entrada<T>>> ranuras;
+    private long ultimoTick;
+    private int tamanio;
+
+    public RuedaTemporizadora(long tickMs, int cantidadRanuras, long ahoraMs) {
+        if (tickMs <= 0 || cantidadRanuras <= 0) {
+            throw new IllegalArgumentException("tickMs y cantidadRanuras deben ser mayores a 0");
+        }
+        this.tickMs = tickMs;
+        this.ranuras = new ArrayList<>(cantidadRanuras);
+        for (int i = 0; i < cantidadRanuras; i++) {
+            ranuras.add(new LinkedList<>());
+        }
+        this.ultimoTick = ahoraMs / tickMs;
+    }
+
+    /**
+     * Programar el vencimiento de {@code valor} en {@code vencimientoMs} (epoch millis).
+     * Un vencimiento ya pasado se entrega en el próximo avance.
+     */
+    public synchronized Entrada<T> programar(T valor, long vencimientoMs) {
+        long tick = Math.max(Math.ceilDiv(vencimientoMs, tickMs), ultimoTick + 1);
+        Entrada<T> entrada = new Entrada<>(valor, tick);
+        ranuras.get(ranura(tick)).add(entrada);
+        tamanio++;
+        return entrada;
+    }
+
+    /**
+     * Avanzar la rueda hasta {@code ahoraMs} entregando a {@code alVencer} las entradas vencidas
+     * (las canceladas se descartan sin entregarse).
+     *
+     * @return cantidad de entradas entregadas
+     */
+    public int avanzar(long ahoraMs, Consumer<T> alVencer) {
+        List<T> vencidos = new ArrayList<>();
+        synchronized (this) {
+            long hastaTick = ahoraMs / tickMs;
+            // Con un atraso mayor a una vuelta alcanza con recorrer cada ranura una vez
+            long ultimoARecorrer = Math.min(hastaTick, ultimoTick + ranuras.size());
+            for (long tick = ultimoTick + 1; tick <= ultimoARecorrer; tick++) {
+                Iterator<Entrada<T>> it = ranuras.get(ranura(tick)).iterator();
+                while (it.hasNext()) {
+                    Entrada<T> entrada = it.next();
+                    if (entrada.cancelada) {
+                        it.remove();
+                        tamanio--;
+                    } else if (entrada.tick <= hastaTick) {
+                        it.remove();
+                        tamanio--;
+                        vencidos.add(entrada.valor);
+                    }
+                }
+            }
+            ultimoTick = Math.max(ultimoTick, hastaTick);
+        }
+        vencidos.forEach(alVencer);
+        return vencidos.size();
+    }
+
+    /**
+     * Entradas programadas (incluye canceladas que todavía no se recorrieron).
+     */
+    public synchronized int tamanio() {
+        return tamanio;
+    }
+
+    private int ranura(long tick) {
+        return (int) Math.floorMod(tick, (long) ranuras.size());
+    }
+
+    /**
+     * Entrada programada; cancelarla evita que se entregue (se descarta al pasar por su ranura).
+     */
+    public static final class Entrada<T> {
+
+        private final T valor;
+        private final long tick;
+        private volatile boolean cancelada;
+
+        private Entrada(T valor, long tick) {
+            this.valor = valor;
+            this.tick = tick;
+        }
+
+        public void cancelar() {
+            cancelada = true;
+        }
+    }
+}
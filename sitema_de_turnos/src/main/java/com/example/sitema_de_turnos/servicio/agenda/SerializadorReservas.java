@@ -0,0 +1,128 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Serialización de reservas con advisory locks de PostgreSQL en lugar de aislamiento alto.
+ *
+ * Cada reserva corre en READ_COMMITTED y toma {@code pg_advisory_xact_lock} (se liberan solos al
+ * terminar la transacción):
+ * - por (profesional, fecha): dos reservas del mismo día de un profesional se ejecutan en fila y la
+ *   segunda ya ve lo que confirmó la primera; sin los "could not serialize access" de REPEATABLE_READ.
+ * - por email normalizado: el chequeo de superposición del cliente entre sucursales no tiene índice que
+ *   lo respalde, el lock evita que dos reservas simultáneas del mismo cliente lo pasen a la vez.
+ * Orden fijo para evitar deadlocks entre ellos: primero cliente, después agenda.
+ *
+ * Los locks solo serializan; la restricción de exclusión turno_sin_solapamiento sigue siendo la garantía.
+ * Las claves son hashes de 32 bits: una colisión solo serializa dos reservas no relacionadas.
+ *
+ * {@link #ejecutar} reintenta la transacción completa ante errores transitorios (SQLSTATE 40001/40P01)
+ * con backoff exponencial y jitter completo, acotado a {@code app.reservas.reintentos.max-intentos}.
+ */
+@Slf4j
+@Component
+public class SerializadorReservas {
+
+    private static final int NAMESPACE_AGENDA = 0x54524E4F;  // "TRNO"
+    private static final int NAMESPACE_CLIENTE = 0x434C4945; // "CLIE"
+    private static final Set<String> SQLSTATES_TRANSITORIOS = Set.of("40001", "40P01");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxIntentos;
+    private final long esperaBaseMs;
+
+    public SerializadorReservas(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.reservas.reintentos.max-intentos:3}") int maxIntentos,
+            @Value("${app.reservas.reintentos.espera-base-ms:25}") long esperaBaseMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.maxIntentos = Math.max(1, maxIntentos);
+        this.esperaBaseMs = Math.max(1, esperaBaseMs);
+    }
+
+    /**
+     * Ejecutar una reserva en su propia transacción READ_COMMITTED, reintentando ante errores transitorios.
+     * Si ya hay una transacción activa (llamador transaccional) se une a ella sin reintentos:
+     * no se puede repetir solo una parte de una transacción ajena.
+     */
+    public <T> T ejecutar(String operacion, Supplier<T> reserva) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return reserva.get();
+        }
+        for (int intento = 1; ; intento++) {
+            try {
+                return transactionTemplate.execute(status -> reserva.get());
+            } catch (RuntimeException e) {
+                if (intento >= maxIntentos || !esTransitorio(e)) {
+                    throw e;
+                }
+                long espera = 1 + ThreadLocalRandom.current().nextLong(esperaBaseMs << (intento - 1));
+                log.warn("🔁 {}: error transitorio ({}), reintento {}/{} en {} ms",
+                        operacion, e.getClass().getSimpleName(), intento + 1, maxIntentos, espera);
+                dormir(espera);
+            }
+        }
+    }
+
+    /**
+     * Lock de transacción sobre la agenda de un profesional en una fecha. Requiere transacción activa.
+     */
+    public void bloquearAgenda(Long profesionalId, LocalDate fecha) {
+        bloquear(NAMESPACE_AGENDA, Objects.hash(profesionalId, fecha));
+    }
+
+    /**
+     * Lock de transacción sobre un cliente (email ya normalizado). Tomarlo ANTES que el de agenda.
+     */
+    public void bloquearCliente(String emailNormalizado) {
+        if (emailNormalizado == null || emailNormalizado.isBlank()) {
+            return;
+        }
+        bloquear(NAMESPACE_CLIENTE, emailNormalizado.hashCode());
+    }
+
+    private void bloquear(int namespace, int clave) {
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?, ?)", (ResultSetExtractor<Void>) rs -> null, namespace, clave);
+    }
+
+    static boolean esTransitorio(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && sql.getSQLState() != null
+                    && SQLSTATES_TRANSITORIOS.contains(sql.getSQLState())) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private static void dormir(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reintento de reserva interrumpido", e);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import com.example.sitema_de_turnos.modelo.AgendaDia;
+import com.example.sitema_de_turnos.modelo.Empresa;
+import com.example.sitema_de_turnos.modelo.FranjaLibre;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioAgendaDia;
+import com.example.sitema_de_turnos.repositorio.RepositorioFranjaLibre;
+import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Mantiene el modelo de lectura {@code franjas_libres}: por profesional y fecha, los intervalos
+ * libres de su disponibilidad descontando bloqueos y turnos ocupantes.
+ *
+ * Con el día materializado, listar slots es una sola lectura indexada
+ * (agenda_dias por (profesional_id, fecha) + franjas por agenda_dia_id) en lugar de consultar
+ * bloqueos, disponibilidad y turnos ({@code idx_turno_profesional_fecha_estado}) en cada request.
+ *
+ * Solo se materializa el horizonte de reserva de la empresa [hoy, hoy + diasMaximosReserva].
+ * Un día no materializado se calcula en vivo con {@link CargadorAgenda}, así que el modelo nunca
+ * es obligatorio: solo evita trabajo. Por eso un día que no se pudo recalcular se descarta
+ * ({@link #descartar}) en lugar de seguir sirviendo franjas viejas.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ServicioFranjasLibres {
+
+    private final RepositorioAgendaDia repositorioAgendaDia;
+    private final RepositorioFranjaLibre repositorioFranjaLibre;
+    private final RepositorioPerfilProfesional repositorioPerfilProfesional;
+    private final CargadorAgenda cargadorAgenda;
+    private final CacheSlotsDisponibilidad cacheSlots;
+    private final SerializadorReservas serializadorReservas;
+
+    /**
+     * Recalcular las franjas de [desde, hasta] (recortado al horizonte de reserva) en una
+     * transacción propia. {@code desde}/{@code hasta} nulos = todo el horizonte.
+     *
+     * @return cantidad de días recalculados
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int recalcular(Long profesionalId, LocalDate desde, LocalDate hasta) {
+        return recalcular(profesionalId, desde, hasta, null);
+    }
+
+    /**
+     * Igual que {@link #recalcular(Long, LocalDate, LocalDate)}, limitado a las fechas que caen en
+     * {@code diasSemana} (null = todas): un cambio de disponibilidad semanal solo toca esos días.
+     *
+     * Antes de leer se toma el advisory lock de agenda de cada día (el mismo de las reservas, en orden
+     * de fecha): dos recálculos concurrentes del mismo día se serializan aunque el día todavía no tenga
+     * fila en agenda_dias (FOR UPDATE solo bloquea filas existentes; sin el lock ambos la insertaban y
+     * el segundo, el que había visto el último cambio, fallaba por uk_agenda_dia_profesional_fecha).
+     *
+     * @return cantidad de días recalculados
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int recalcular(Long profesionalId, LocalDate desde, LocalDate hasta, Set<DayOfWeek> diasSemana) {
+        PerfilProfesional profesional = repositorioPerfilProfesional.findById(profesionalId).orElse(null);
+        if (profesional == null) {
+            return 0;
+        }
+
+        List<LocalDate> fechas = fechasDelHorizonte(profesional.getEmpresa(), desde, hasta, diasSemana);
+        if (fechas.isEmpty()) {
+            return 0;
+        }
+        LocalDate inicio = fechas.get(0);
+        LocalDate fin = fechas.get(fechas.size() - 1);
+        fechas.forEach(fecha -> serializadorReservas.bloquearAgenda(profesionalId, fecha));
+
+        Map<LocalDate, AgendaDia> existentes = new HashMap<>();
+        for (AgendaDia dia : repositorioAgendaDia.findEnRangoForUpdate(profesional, inicio, fin)) {
+            if (diasSemana == null || diasSemana.contains(dia.getFecha().getDayOfWeek())) {
+                existentes.put(dia.getFecha(), dia);
+            }
+        }
+        if (!existentes.isEmpty()) {
+            repositorioFranjaLibre.eliminarPorAgendaDias(
+                    existentes.values().stream().map(AgendaDia::getId).toList());
+        }
+
+        Map<LocalDate, MapaOcupacionDia> mapas = cargadorAgenda.cargar(profesional, inicio, fin);
+        LocalDateTime ahoraUtc = LocalDateTime.now(ZoneOffset.UTC);
+        List<FranjaLibre> franjas = new ArrayList<>();
+
+        for (LocalDate fecha : fechas) {
+            MapaOcupacionDia mapa = mapas.get(fecha);
+            AgendaDia dia = existentes.get(fecha);
+            if (dia == null) {
+                dia = new AgendaDia();
+                dia.setProfesional(profesional);
+                dia.setFecha(fecha);
+            }
+            dia.setFechaCalculo(ahoraUtc);
+            AgendaDia agendaDia = repositorioAgendaDia.save(dia);
+
+            mapa.recorrerHuecos((minutoInicio, minutoFin) -> {
+                FranjaLibre franja = new FranjaLibre();
+                franja.setAgendaDia(agendaDia);
+                franja.setHoraInicio(MapaOcupacionDia.aHora(minutoInicio));
+                franja.setHoraFin(MapaOcupacionDia.aHora(minutoFin));
+                franjas.add(franja);
+            });
+        }
+        repositorioFranjaLibre.saveAll(franjas);
+
+        // La caché pudo haberse llenado desde franjas viejas entre el commit del cambio y este recálculo
+        if (inicio.equals(fin)) {
+            cacheSlots.invalidar(profesionalId, inicio);
+        } else {
+            cacheSlots.invalidarProfesional(profesionalId);
+        }
+
+        log.debug("Franjas libres recalculadas: profesional={}, {} - {}, dias={}, franjas={}",
+                profesionalId, inicio, fin, fechas.size(), franjas.size());
+        return fechas.size();
+    }
+
+    /**
+     * Descartar los días materializados que {@link #recalcular(Long, LocalDate, LocalDate, Set)} no pudo
+     * actualizar (mismos parámetros). Sin fila en agenda_dias el día vuelve a calcularse en vivo con
+     * {@link CargadorAgenda} hasta que otro recálculo o la reconstrucción programada lo materialice.
+     *
+     * @return cantidad de días descartados
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int descartar(Long profesionalId, LocalDate desde, LocalDate hasta, Set<DayOfWeek> diasSemana) {
+        PerfilProfesional profesional = repositorioPerfilProfesional.findById(profesionalId).orElse(null);
+        if (profesional == null) {
+            return 0;
+        }
+        List<LocalDate> fechas = fechasDelHorizonte(profesional.getEmpresa(), desde, hasta, diasSemana);
+        if (fechas.isEmpty()) {
+            return 0;
+        }
+        LocalDate inicio = fechas.get(0);
+        LocalDate fin = fechas.get(fechas.size() - 1);
+
+        List<Long> ids = repositorioAgendaDia.findEnRangoForUpdate(profesional, inicio, fin).stream()
+                .filter(dia -> diasSemana == null || diasSemana.contains(dia.getFecha().getDayOfWeek()))
+                .map(AgendaDia::getId)
+                .toList();
+        if (!ids.isEmpty()) {
+            repositorioFranjaLibre.eliminarPorAgendaDias(ids);
+            repositorioAgendaDia.deleteAllByIdInBatch(ids);
+        }
+
+        // La caché pudo haberse llenado desde las franjas descartadas
+        if (inicio.equals(fin)) {
+            cacheSlots.invalidar(profesionalId, inicio);
+        } else {
+            cacheSlots.invalidarProfesional(profesionalId);
+        }
+        return ids.size();
+    }
+
+    /**
+     * Fechas de [desde, hasta] recortadas al horizonte de reserva [hoy, hoy + diasMaximosReserva]
+     * y limitadas a {@code diasSemana} (null = todas). {@code desde}/{@code hasta} nulos = todo el horizonte.
+     */
+    private List<LocalDate> fechasDelHorizonte(Empresa empresa, LocalDate desde, LocalDate hasta,
+                                               Set<DayOfWeek> diasSemana) {
+        LocalDate hoy = LocalDate.now(ZoneId.of(empresa.getTimezone()));
+        LocalDate horizonte = hoy.plusDays(empresa.getDiasMaximosReserva());
+        LocalDate inicio = desde == null || desde.isBefore(hoy) ? hoy : desde;
+        LocalDate fin = hasta == null || hasta.isAfter(horizonte) ? horizonte : hasta;
+
+        List<LocalDate> fechas = new ArrayList<>();
+        for (LocalDate fecha = inicio; !fecha.isAfter(fin); fecha = fecha.plusDays(1)) {
+            if (diasSemana == null || diasSemana.contains(fecha.getDayOfWeek())) {
+                fechas.add(fecha);
+            }
+        }
+        return fechas;
+    }
+
+    /**
+     * Día materializado como mapa de ocupación (cada franja es un rango libre), o vacío si
+     * el día todavía no fue materializado.
+     */
+    @Transactional(readOnly = true)
+    public Optional<MapaOcupacionDia> leer(Long profesionalId, LocalDate fecha) {
+        return repositorioAgendaDia.findConFranjas(profesionalId, fecha).map(this::aMapa);
+    }
+
+    /**
+     * Días materializados de [desde, hasta] (los faltantes no aparecen en el mapa).
+     */
+    @Transactional(readOnly = true)
+    public Map<LocalDate, MapaOcupacionDia> leerRango(Long profesionalId, LocalDate desde, LocalDate hasta) {
+        Map<LocalDate, MapaOcupacionDia> mapas = new HashMap<>();
+        for (AgendaDia dia : repositorioAgendaDia.findConFranjasEnRango(profesionalId, desde, hasta)) {
+            mapas.put(dia.getFecha(), aMapa(dia));
+        }
+        return mapas;
+    }
+
+    /**
+     * Días materializados de [desde, hasta] de varios profesionales, por id de profesional y
+     * fecha (los días no materializados no aparecen en el mapa).
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Map<LocalDate, MapaOcupacionDia>> leerVarios(Collection<Long> profesionalIds,
+                                                                  LocalDate desde, LocalDate hasta) {
+        Map<Long, Map<LocalDate, MapaOcupacionDia>> mapas = new HashMap<>();
+        if (profesionalIds.isEmpty()) {
+            return mapas;
+        }
+        for (AgendaDia dia : repositorioAgendaDia.findConFranjasDeProfesionalesEnRango(profesionalIds, desde, hasta)) {
+            mapas.computeIfAbsent(dia.getProfesional().getId(), k -> new HashMap<>()).put(dia.getFecha(), aMapa(dia));
+        }
+        return mapas;
+    }
+
+    /**
+     * Purgar días anteriores a {@code fecha} (ya no se pueden reservar).
+     */
+    @Transactional
+    public int purgarAnterioresA(LocalDate fecha) {
+        repositorioFranjaLibre.eliminarAnterioresA(fecha);
+        return repositorioAgendaDia.eliminarAnterioresA(fecha);
+    }
+
+    private MapaOcupacionDia aMapa(AgendaDia dia) {
+        MapaOcupacionDia mapa = new MapaOcupacionDia();
+        for (FranjaLibre franja : dia.getFranjas()) {
+            mapa.agregarRango(franja.getHoraInicio(), franja.getHoraFin());
+        }
+        return mapa;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import com.example.sitema_de_turnos.evento.AgendaModificadaEvent;
+import com.example.sitema_de_turnos.evento.CatalogoModificadoEvent;
+import com.example.sitema_de_turnos.evento.SlotTurnoEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versiones monótonas de agenda y catálogo para los ETag de los endpoints públicos.
+ *
+ * - Agenda por (profesional, fecha): cualquier cambio de turno, bloqueo o disponibilidad,
+ *   y las retenciones temporales de checkout (filtran los slots publicados).
+ *   Los cambios de rango/horizonte avanzan un contador por profesional que se suma al del día,
+ *   así la versión de cada fecha sigue siendo monótona sin recorrer fechas.
+ * - Agenda por (empresa, fecha): lo mismo agregado por empresa, para el modo "cualquier profesional".
+ * - Catálogo por empresa: empresa, servicios, profesionales y habilitaciones.
+ *
+ * Se avanzan en AFTER_COMMIT: quien lee la versión ANTES de calcular nunca asocia datos viejos
+ * a una versión nueva (a lo sumo datos nuevos a una versión vieja, que solo cuesta un 200 extra).
+ * En memoria como {@link CacheSlotsDisponibilidad}; la época de arranque forma parte del ETag
+ * para que un reinicio no reutilice versiones.
+ */
+@Component
+@Slf4j
+public class VersionesAgenda {
+
+    private final long epoca = System.currentTimeMillis();
+    private final ConcurrentHashMap<Object, AtomicLong> contadores = new ConcurrentHashMap<>();
+
+    public long epoca() {
+        return epoca;
+    }
+
+    public long versionAgenda(Long profesionalId, LocalDate fecha) {
+        return valor(new Profesional(profesionalId)) + valor(new ProfesionalDia(profesionalId, fecha));
+    }
+
+    public long versionAgendaEmpresa(String empresaSlug, LocalDate fecha) {
+        return valor(new EmpresaAgenda(empresaSlug)) + valor(new EmpresaDia(empresaSlug, fecha));
+    }
+
+    public long versionCatalogo(String empresaSlug) {
+        return valor(new Catalogo(empresaSlug));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAgendaModificada(AgendaModificadaEvent event) {
+        boolean unSoloDia = !event.esTodoElHorizonte() && event.getDesde().equals(event.getHasta());
+        if (unSoloDia) {
+            avanzar(new ProfesionalDia(event.getProfesionalId(), event.getDesde()));
+        } else {
+            avanzar(new Profesional(event.getProfesionalId()));
+        }
+        if (event.getEmpresaSlug() != null) {
+            if (unSoloDia) {
+                avanzar(new EmpresaDia(event.getEmpresaSlug(), event.getDesde()));
+            } else {
+                avanzar(new EmpresaAgenda(event.getEmpresaSlug()));
+            }
+        }
+    }
+
+    /**
+     * Las retenciones no publican {@link AgendaModificadaEvent}; los turnos ya avanzan por ese evento.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRetencion(SlotTurnoEvent event) {
+        if (!event.esRetencion()) {
+            return;
+        }
+        avanzar(new ProfesionalDia(event.getProfesionalId(), event.getFecha()));
+        if (event.getEmpresaSlug() != null) {
+            avanzar(new EmpresaDia(event.getEmpresaSlug(), event.getFecha()));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogoModificado(CatalogoModificadoEvent event) {
+        if (event.getEmpresaSlug() != null) {
+            avanzar(new Catalogo(event.getEmpresaSlug()));
+        }
+    }
+
+    /**
+     * Descartar contadores de fechas pasadas (ya no se consultan: no son reservables).
+     */
+    @Scheduled(cron = "${app.agenda.versiones.purga-cron:0 15 4 * * *}", zone = "${app.scheduler.zone:UTC}")
+    public void purgarFechasPasadas() {
+        LocalDate limite = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        int antes = contadores.size();
+        contadores.keySet().removeIf(clave ->
+                (clave instanceof ProfesionalDia d && d.fecha().isBefore(limite))
+                        || (clave instanceof EmpresaDia d && d.fecha().isBefore(limite)));
+        log.debug("🧹 Versiones de agenda purgadas: {}", antes - contadores.size());
+    }
+
+    private long valor(Object clave) {
+        AtomicLong contador = contadores.get(clave);
+        return contador != null ? contador.get() : 0L;
+    }
+
+    private void avanzar(Object clave) {
+        contadores.computeIfAbsent(clave, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private record Profesional(Long id) {}
+
+    private record ProfesionalDia(Long id, LocalDate fecha) {}
+
+    private record EmpresaAgenda(String slug) {}
+
+    private record EmpresaDia(String slug, LocalDate fecha) {}
+
+    private record Catalogo(String slug) {}
+}
@@ -0,0 +1,190 @@
+package com.example.sitema_de_turnos.servicio.catalogo;
+
+import com.example.sitema_de_turnos.evento.CatalogoModificadoEvent;
+import com.example.sitema_de_turnos.modelo.Empresa;
+import com.example.sitema_de_turnos.repositorio.RepositorioEmpresa;
+import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioPoliticaCancelacion;
+import com.example.sitema_de_turnos.repositorio.RepositorioProfesionalServicio;
+import com.example.sitema_de_turnos.repositorio.RepositorioServicio;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Caché de {@link CatalogoEmpresa} por id de empresa, con índice por slug.
+ *
+ * Un fallo arma el snapshot con 5 consultas (empresa, servicios, profesionales con usuario, habilitaciones
+ * activas y políticas activas); a partir de ahí cada request de la vista pública o del bot resuelve
+ * empresa/servicio/profesional/política en memoria.
+ *
+ * Invalidación con {@link CatalogoModificadoEvent} (ABM de empresa, servicios, profesionales,
+ * habilitaciones y políticas): en el momento y otra vez al confirmar la transacción, igual que
+ * {@code CacheSlotsDisponibilidad}. Una carga que empezó antes de una invalidación no se guarda
+ * (generación global: las invalidaciones son raras). El TTL acota la desactualización entre nodos.
+ */
+@Component
+@Slf4j
+public class CacheCatalogoEmpresa {
+
+    private final RepositorioEmpresa repositorioEmpresa;
+    private final RepositorioServicio repositorioServicio;
+    private final RepositorioPerfilProfesional repositorioPerfilProfesional;
+    private final RepositorioProfesionalServicio repositorioProfesionalServicio;
+    private final RepositorioPoliticaCancelacion repositorioPoliticaCancelacion;
+    private final TransactionTemplate lectura;
+    private final int maxEntradas;
+    private final long ttlNanos;
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<Long, Entrada> porId;
+    private final Map<String, Long> idPorSlug = new HashMap<>();
+    private long generacion;
+
+    public CacheCatalogoEmpresa(
+            RepositorioEmpresa repositorioEmpresa,
+            RepositorioServicio repositorioServicio,
+            RepositorioPerfilProfesional repositorioPerfilProfesional,
+            RepositorioProfesionalServicio repositorioProfesionalServicio,
+            RepositorioPoliticaCancelacion repositorioPoliticaCancelacion,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.catalogo.cache.max-entradas:500}") int maxEntradas,
+            @Value("${app.catalogo.cache.ttl-segundos:60}") long ttlSegundos) {
+        this.repositorioEmpresa = repositorioEmpresa;
+        this.repositorioServicio = repositorioServicio;
+        this.repositorioPerfilProfesional = repositorioPerfilProfesional;
+        this.repositorioProfesionalServicio = repositorioProfesionalServicio;
+        this.repositorioPoliticaCancelacion = repositorioPoliticaCancelacion;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.maxEntradas = maxEntradas;
+        this.ttlNanos = ttlSegundos * 1_000_000_000L;
+        this.porId = new LinkedHashMap<>(Math.min(maxEntradas, 256), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entrada> eldest) {
+                if (size() > CacheCatalogoEmpresa.this.maxEntradas) {
+                    idPorSlug.remove(eldest.getValue().catalogo().slug());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Catálogo de una empresa ACTIVA por slug (mismo criterio que findBySlugAndActivaTrue).
+     */
+    public Optional<CatalogoEmpresa> obtenerPorSlug(String slug) {
+        CatalogoEmpresa catalogo;
+        synchronized (lock) {
+            Long id = idPorSlug.get(slug);
+            catalogo = id != null ? vigente(id) : null;
+        }
+        if (catalogo == null) {
+            catalogo = cargar(() -> repositorioEmpresa.findBySlugAndActivaTrue(slug));
+        }
+        return Optional.ofNullable(catalogo).filter(CatalogoEmpresa::activa);
+    }
+
+    /**
+     * Catálogo por id de empresa, activa o no (el llamador decide qué hacer con una inactiva).
+     */
+    public Optional<CatalogoEmpresa> obtenerPorId(Long empresaId) {
+        CatalogoEmpresa catalogo;
+        synchronized (lock) {
+            catalogo = vigente(empresaId);
+        }
+        if (catalogo == null) {
+            catalogo = cargar(() -> repositorioEmpresa.findById(empresaId));
+        }
+        return Optional.ofNullable(catalogo);
+    }
+
+    @EventListener
+    public void onCatalogoModificado(CatalogoModificadoEvent event) {
+        invalidar(event.getEmpresaId(), event.getEmpresaSlug());
+    }
+
+    /**
+     * Descartar el snapshot de una empresa (por id y por slug, por si el slug cambió).
+     */
+    public void invalidar(Long empresaId, String slug) {
+        Runnable invalidacion = () -> {
+            synchronized (lock) {
+                generacion++;
+                Long id = empresaId != null ? empresaId : (slug != null ? idPorSlug.get(slug) : null);
+                if (id != null) {
+                    Entrada entrada = porId.remove(id);
+                    if (entrada != null) {
+                        idPorSlug.remove(entrada.catalogo().slug());
+                    }
+                }
+                if (slug != null) {
+                    idPorSlug.remove(slug);
+                }
+            }
+        };
+        invalidacion.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidacion.run();
+                }
+            });
+        }
+    }
+
+    private CatalogoEmpresa vigente(Long empresaId) {
+        Entrada entrada = porId.get(empresaId);
+        if (entrada == null) {
+            return null;
+        }
+        if (System.nanoTime() - entrada.creadaNanos() > ttlNanos) {
+            porId.remove(empresaId);
+            idPorSlug.remove(entrada.catalogo().slug());
+            return null;
+        }
+        return entrada.catalogo();
+    }
+
+    private CatalogoEmpresa cargar(Supplier<Optional<Empresa>> busqueda) {
+        long generacionLeida;
+        synchronized (lock) {
+            generacionLeida = generacion;
+        }
+        CatalogoEmpresa catalogo = lectura.execute(status -> busqueda.get()
+                .map(empresa -> CatalogoEmpresa.desde(
+                        empresa,
+                        repositorioServicio.findByEmpresa(empresa),
+                        repositorioPerfilProfesional.findByEmpresa(empresa),
+                        repositorioProfesionalServicio.findHabilitacionesActivasByTenantId(empresa.getId()),
+                        repositorioPoliticaCancelacion.findByEmpresaAndActivaTrue(empresa)))
+                .orElse(null));
+        if (catalogo == null) {
+            return null;
+        }
+        synchronized (lock) {
+            if (generacion == generacionLeida) {
+                porId.put(catalogo.id(), new Entrada(catalogo, System.nanoTime()));
+                idPorSlug.put(catalogo.slug(), catalogo.id());
+            }
+        }
+        log.debug("📦 Catálogo de empresa {} cargado ({} servicios, {} profesionales)",
+                catalogo.slug(), catalogo.servicios().size(), catalogo.profesionales().size());
+        return catalogo;
+    }
+
+    private record Entrada(CatalogoEmpresa catalogo, long creadaNanos) {}
+}
@@ -0,0 +1,180 @@
+package com.example.sitema_de_turnos.servicio.catalogo;
+
+import com.example.sitema_de_turnos.modelo.Empresa;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import com.example.sitema_de_turnos.modelo.PoliticaCancelacion;
+import com.example.sitema_de_turnos.modelo.Servicio;
+import com.example.sitema_de_turnos.modelo.TipoPoliticaCancelacion;
+import com.example.sitema_de_turnos.repositorio.RepositorioProfesionalServicio.HabilitacionServicio;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Snapshot inmutable del catálogo público de una empresa: datos de la empresa con la configuración
+ * ya resuelta (zona horaria parseada, buffer por defecto, anticipación mínima, ventana de reserva),
+ * servicios, profesionales, profesionales habilitados por servicio y políticas de cancelación activas.
+ *
+ * Lo arma {@link CacheCatalogoEmpresa}; los caminos calientes (reserva pública, slots, bot) lo leen en
+ * lugar de consultar empresa, servicio, profesional, habilitación y política en cada request.
+ * Solo contiene valores: para asociar entidades (p. ej. al crear un Turno) usar getReferenceById.
+ */
+public record CatalogoEmpresa(
+        Long id,
+        String slug,
+        String nombre,
+        String descripcion,
+        String direccion,
+        String ciudad,
+        String provincia,
+        String telefono,
+        String email,
+        String datosBancarios,
+        boolean activa,
+        ZoneId zona,
+        int diasMaximosReserva,
+        int tiempoMinimoAnticipacionMinutos,
+        int bufferPorDefecto,
+        Map<Long, ServicioCatalogo> servicios,
+        Map<Long, ProfesionalCatalogo> profesionales,
+        Map<Long, List<ProfesionalCatalogo>> profesionalesPorServicio,
+        List<PoliticaVigente> politicasActivas
+) {
+
+    private static final int DIAS_MAXIMOS_RESERVA_DEFECTO = 30;
+    private static final int ANTICIPACION_MINIMA_DEFECTO = 30;
+    private static final int BUFFER_DEFECTO = 10;
+
+    public record ServicioCatalogo(Long id, String nombre, String descripcion, int duracionMinutos,
+                                   Integer bufferMinutos, BigDecimal precio, boolean requiereSena,
+                                   BigDecimal montoSena, boolean activo) {}
+
+    public record ProfesionalCatalogo(Long id, String nombre, String apellido, String descripcion, boolean activo) {
+        public String nombreCompleto() {
+            return nombre + " " + apellido;
+        }
+    }
+
+    public record PoliticaVigente(Long id, TipoPoliticaCancelacion tipo, Integer horasLimiteCancelacion) {}
+
+    /**
+     * Armar el snapshot. {@code profesionales} debe traer el usuario inicializado (JOIN FETCH).
+     */
+    public static CatalogoEmpresa desde(Empresa empresa, List<Servicio> servicios, List<PerfilProfesional> profesionales,
+                                        List<HabilitacionServicio> habilitaciones, List<PoliticaCancelacion> politicas) {
+        Map<Long, ServicioCatalogo> serviciosPorId = new LinkedHashMap<>();
+        servicios.stream()
+                .sorted(Comparator.comparing(Servicio::getId))
+                .forEach(s -> serviciosPorId.put(s.getId(), new ServicioCatalogo(
+                        s.getId(), s.getNombre(), s.getDescripcion(), s.getDuracionMinutos(), s.getBufferMinutos(),
+                        s.getPrecio(), Boolean.TRUE.equals(s.getRequiereSena()), s.getMontoSena(),
+                        Boolean.TRUE.equals(s.getActivo()))));
+
+        Map<Long, ProfesionalCatalogo> profesionalesPorId = new LinkedHashMap<>();
+        profesionales.stream()
+                .sorted(Comparator.comparing(PerfilProfesional::getId))
+                .forEach(p -> profesionalesPorId.put(p.getId(), new ProfesionalCatalogo(
+                        p.getId(), p.getUsuario().getNombre(), p.getUsuario().getApellido(), p.getDescripcion(),
+                        Boolean.TRUE.equals(p.getActivo()))));
+
+        Map<Long, List<ProfesionalCatalogo>> habilitados = new HashMap<>();
+        for (HabilitacionServicio h : habilitaciones) {
+            ProfesionalCatalogo profesional = profesionalesPorId.get(h.getProfesionalId());
+            if (profesional != null && profesional.activo()) {
+                habilitados.computeIfAbsent(h.getServicioId(), k -> new ArrayList<>()).add(profesional);
+            }
+        }
+        Map<Long, List<ProfesionalCatalogo>> habilitadosInmutable = new HashMap<>();
+        habilitados.forEach((servicioId, lista) -> habilitadosInmutable.put(servicioId,
+                lista.stream().distinct().sorted(Comparator.comparing(ProfesionalCatalogo::id)).toList()));
+
+        List<PoliticaVigente> vigentes = politicas.stream()
+                .filter(p -> Boolean.TRUE.equals(p.getActiva()))
+                .map(p -> new PoliticaVigente(p.getId(), p.getTipo(), p.getHorasLimiteCancelacion()))
+                .toList();
+
+        return new CatalogoEmpresa(
+                empresa.getId(),
+                empresa.getSlug(),
+                empresa.getNombre(),
+                empresa.getDescripcion(),
+                empresa.getDireccion(),
+                empresa.getCiudad(),
+                empresa.getProvincia(),
+                empresa.getTelefono(),
+                empresa.getEmail(),
+                empresa.getDatosBancarios(),
+                Boolean.TRUE.equals(empresa.getActiva()),
+                ZoneId.of(empresa.getTimezone()),
+                empresa.getDiasMaximosReserva() != null ? empresa.getDiasMaximosReserva() : DIAS_MAXIMOS_RESERVA_DEFECTO,
+                empresa.getTiempoMinimoAnticipacionMinutos() != null
+                        ? empresa.getTiempoMinimoAnticipacionMinutos() : ANTICIPACION_MINIMA_DEFECTO,
+                empresa.getBufferPorDefecto() != null ? empresa.getBufferPorDefecto() : BUFFER_DEFECTO,
+                Collections.unmodifiableMap(serviciosPorId),
+                Collections.unmodifiableMap(profesionalesPorId),
+                Collections.unmodifiableMap(habilitadosInmutable),
+                vigentes
+        );
+    }
+
+    public Optional<ServicioCatalogo> servicio(Long servicioId) {
+        return Optional.ofNullable(servicios.get(servicioId));
+    }
+
+    public Optional<ProfesionalCatalogo> profesional(Long profesionalId) {
+        return Optional.ofNullable(profesionales.get(profesionalId));
+    }
+
+    public List<ServicioCatalogo> serviciosActivos() {
+        return servicios.values().stream().filter(ServicioCatalogo::activo).toList();
+    }
+
+    /**
+     * Profesionales activos con el servicio habilitado en profesional_servicio, ordenados por id.
+     */
+    public List<ProfesionalCatalogo> profesionalesHabilitados(Long servicioId) {
+        return profesionalesPorServicio.getOrDefault(servicioId, List.of());
+    }
+
+    public boolean estaHabilitado(Long profesionalId, Long servicioId) {
+        return profesionalesHabilitados(servicioId).stream().anyMatch(p -> p.id().equals(profesionalId));
+    }
+
+    /**
+     * Buffer efectivo: Servicio > Empresa.
+     */
+    public int bufferEfectivo(ServicioCatalogo servicio) {
+        return servicio.bufferMinutos() != null ? servicio.bufferMinutos() : bufferPorDefecto;
+    }
+
+    /**
+     * Horas límite de la política de cancelación aplicable: la activa de tipo CANCELACION o, si no hay, AMBOS.
+     */
+    public Optional<Integer> horasLimiteCancelacion() {
+        return politicaActiva(TipoPoliticaCancelacion.CANCELACION)
+                .or(() -> politicaActiva(TipoPoliticaCancelacion.AMBOS))
+                .map(PoliticaVigente::horasLimiteCancelacion);
+    }
+
+    public Optional<PoliticaVigente> politicaActiva(TipoPoliticaCancelacion tipo) {
+        return politicasActivas.stream().filter(p -> p.tipo() == tipo).findFirst();
+    }
+
+    public LocalDate hoy() {
+        return LocalDate.now(zona);
+    }
+
+    public ZonedDateTime ahora() {
+        return ZonedDateTime.now(zona);
+    }
+}
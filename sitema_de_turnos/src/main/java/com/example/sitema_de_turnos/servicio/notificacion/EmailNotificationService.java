@@ -58,6 +58,7 @@ public class EmailNotificationService implements NotificationService {
     private final RestTemplate restTemplate;
     private final RepositorioPago repositorioPago;
     private final TemplateEngine templateEngine;
+    private final LimitadorEnvioEmail limitadorEnvio;
     private final String reminderTemplate;
     private final String confirmacionTurnoTemplate;
     
@@ -70,10 +71,12 @@ public class EmailNotificationService implements NotificationService {
     @Value("${app.frontend.url:http://localhost:5173}")
     private String frontendUrl;
     
-    public EmailNotificationService(RepositorioPago repositorioPago, TemplateEngine templateEngine) {
+    public EmailNotificationService(RepositorioPago repositorioPago, TemplateEngine templateEngine,
+                                    LimitadorEnvioEmail limitadorEnvio) {
         this.restTemplate = new RestTemplate();
         this.repositorioPago = repositorioPago;
         this.templateEngine = templateEngine;
+        this.limitadorEnvio = limitadorEnvio;
         this.reminderTemplate = cargarTemplate(TEMPLATE_RECORDATORIO_PATH);
         this.confirmacionTurnoTemplate = cargarTemplate(TEMPLATE_CONFIRMACION_PATH);
     }
@@ -88,11 +91,15 @@ public class EmailNotificationService implements NotificationService {
             validateReminderData(data);
             String subject = "⏰ Recordatorio de turno - " + data.getEmpresaNombre();
             String html = construirCuerpoHTML(data);
-            enviarEmailBrevo(data.getClienteEmail(), data.getClienteNombre(), subject, html);
+            enviarEmailBrevo(data.getClienteEmail(), data.getClienteNombre(), subject, html,
+                    LimitadorEnvioEmail.Carril.MASIVO);
             
             log.info("✅ Recordatorio enviado exitosamente - Turno {} - Email: {}", 
                     data.getTurnoId(), data.getClienteEmail());
         } catch (Exception e) {
+            if (e instanceof NotificationException ne && ne.getCause() instanceof InterruptedException) {
+                throw ne;
+            }
             log.error("❌ Error inesperado al enviar recordatorio para turno {}: {}",
                     data != null ? data.getTurnoId() : null,
                     e.getMessage(),
@@ -102,136 +109,175 @@ public class EmailNotificationService implements NotificationService {
 
     @Async("notificacionesExecutor")
     public void enviarCorreoConfirmacionTurno(Turno turno) {
-        String emailDestino = turno != null && turno.getCliente() != null ? turno.getCliente().getEmail() : "desconocido";
         try {
-            if (!enabled) {
-                log.warn("⚠️ Sistema de email deshabilitado - No se enviará confirmación para turno {}",
-                        turno != null ? turno.getId() : null);
-                return;
-            }
+            entregarCorreoConfirmacionTurno(turno);
+        } catch (Exception e) {
+            log.error("Error al enviar el correo a {}: ", emailDestino(turno), e);
+        }
+    }
+
+    /**
+     * Envío síncrono de la confirmación, para el outbox: lanza si el correo no salió, así el evento
+     * se reintenta con backoff en lugar de cerrarse como procesado.
+     */
+    public void entregarCorreoConfirmacionTurno(Turno turno) {
+        if (!enabled) {
+            log.warn("⚠️ Sistema de email deshabilitado - No se enviará confirmación para turno {}",
+                    turno != null ? turno.getId() : null);
+            return;
+        }
 
-            validarDatosTurno(turno);
+        validarDatosTurno(turno);
 
-            BigDecimal precioTotal = valorSeguro(turno.getPrecio());
-            BigDecimal montoSena = repositorioPago.findByTurnoId(turno.getId())
-                    .map(Pago::getMonto)
-                    .map(this::valorSeguro)
-                    .orElse(BigDecimal.ZERO);
-            BigDecimal saldoRestante = precioTotal.subtract(montoSena).max(BigDecimal.ZERO);
+        BigDecimal precioTotal = valorSeguro(turno.getPrecio());
+        BigDecimal montoSena = repositorioPago.findByTurnoId(turno.getId())
+                .map(Pago::getMonto)
+                .map(this::valorSeguro)
+                .orElse(BigDecimal.ZERO);
+        BigDecimal saldoRestante = precioTotal.subtract(montoSena).max(BigDecimal.ZERO);
 
-                String subject = "✅ Confirmación de turno - " + turno.getEmpresa().getNombre();
-                String html = construirCuerpoConfirmacionTurno(turno, precioTotal, montoSena, saldoRestante);
-                enviarEmailBrevo(turno.getCliente().getEmail(), turno.getCliente().getNombre(), subject, html);
+        String subject = "✅ Confirmación de turno - " + turno.getEmpresa().getNombre();
+        String html = construirCuerpoConfirmacionTurno(turno, precioTotal, montoSena, saldoRestante);
+        enviarEmailBrevo(turno.getCliente().getEmail(), turno.getCliente().getNombre(), subject, html,
+                LimitadorEnvioEmail.Carril.TRANSACCIONAL);
 
-            log.info("✅ Confirmación de turno enviada - Turno {} - Email: {}",
-                    turno.getId(), turno.getCliente().getEmail());
-        } catch (Exception e) {
-            log.error("Error al enviar el correo a {}: ", emailDestino, e);
-        }
+        log.info("✅ Confirmación de turno enviada - Turno {} - Email: {}",
+                turno.getId(), turno.getCliente().getEmail());
     }
 
     @Async("notificacionesExecutor")
     public void enviarCorreoReprogramacionPorProfesional(Turno turno) {
-        enviarCorreoReprogramacionTurno(turno, TEMPLATE_REPROGRAMACION_PROFESIONAL,
-            "📅 Tu turno fue reprogramado - ");
+        try {
+            entregarCorreoReprogramacionPorProfesional(turno);
+        } catch (Exception e) {
+            log.error("Error al enviar correo de reprogramación a {}: ", emailDestino(turno), e);
+        }
     }
 
     @Async("notificacionesExecutor")
     public void enviarCorreoReprogramacionPorCliente(Turno turno) {
-        enviarCorreoReprogramacionTurno(turno, TEMPLATE_REPROGRAMACION_CLIENTE,
-            "✅ Reprogramación confirmada - ");
+        try {
+            entregarCorreoReprogramacionPorCliente(turno);
+        } catch (Exception e) {
+            log.error("Error al enviar correo de reprogramación a {}: ", emailDestino(turno), e);
+        }
     }
 
     @Async("notificacionesExecutor")
     public void enviarCorreoTurnoExpirado(Turno turno) {
-        String emailDestino = turno != null && turno.getCliente() != null ? turno.getCliente().getEmail() : "desconocido";
         try {
-            if (!enabled) {
-                log.warn("⚠️ Sistema de email deshabilitado - No se enviará expiración para turno {}",
-                        turno != null ? turno.getId() : null);
-                return;
-            }
+            entregarCorreoTurnoExpirado(turno);
+        } catch (Exception e) {
+            log.error("Error al enviar correo de expiración a {}: ", emailDestino(turno), e);
+        }
+    }
 
-            validarDatosTurno(turno);
+    /**
+     * Envíos síncronos para el outbox (igual que {@link #entregarCorreoConfirmacionTurno}).
+     */
+    public void entregarCorreoReprogramacionPorProfesional(Turno turno) {
+        enviarCorreoReprogramacionTurno(turno, TEMPLATE_REPROGRAMACION_PROFESIONAL,
+            "📅 Tu turno fue reprogramado - ");
+    }
 
-            String subject = "⚠️ Tu turno fue cancelado por falta de pago - " + turno.getEmpresa().getNombre();
+    public void entregarCorreoReprogramacionPorCliente(Turno turno) {
+        enviarCorreoReprogramacionTurno(turno, TEMPLATE_REPROGRAMACION_CLIENTE,
+            "✅ Reprogramación confirmada - ");
+    }
 
-            String fecha = turno.getFecha().format(FORMATTER_FECHA_TURNO);
-            String horaInicio = turno.getHoraInicio().format(FORMATTER_HORA_TURNO);
-            String horaFin = turno.getHoraInicio().plusMinutes(turno.getDuracionMinutos()).format(FORMATTER_HORA_TURNO);
-            String slugEmpresa = turno.getEmpresa() != null ? turno.getEmpresa().getSlug() : null;
-            String frontendBase = frontendUrl != null ? frontendUrl.replaceAll("/+$", "") : "";
-            String urlReserva = frontendBase + "/empresa/" + slugEmpresa;
+    public void entregarCorreoTurnoExpirado(Turno turno) {
+        if (!enabled) {
+            log.warn("⚠️ Sistema de email deshabilitado - No se enviará expiración para turno {}",
+                    turno != null ? turno.getId() : null);
+            return;
+        }
 
-            Context context = new Context(new Locale("es", "AR"));
-            context.setVariable("clienteNombre", turno.getCliente().getNombre());
-            context.setVariable("empresaNombre", turno.getEmpresa().getNombre());
-            context.setVariable("servicioNombre", turno.getServicio().getNombre());
-            context.setVariable("fecha", fecha);
-            context.setVariable("horaInicio", horaInicio);
-            context.setVariable("horaFin", horaFin);
-            context.setVariable("urlReserva", urlReserva);
+        validarDatosTurno(turno);
 
-            String html = templateEngine.process(TEMPLATE_TURNO_EXPIRADO, context);
-            enviarEmailBrevo(turno.getCliente().getEmail(), turno.getCliente().getNombre(), subject, html);
+        String subject = "⚠️ Tu turno fue cancelado por falta de pago - " + turno.getEmpresa().getNombre();
 
-            log.info("✅ Correo de expiración de turno enviado - Turno {} - Email: {}",
-                    turno.getId(), turno.getCliente().getEmail());
-        } catch (Exception e) {
-            log.error("Error al enviar correo de expiración a {}: ", emailDestino, e);
-        }
+        String fecha = turno.getFecha().format(FORMATTER_FECHA_TURNO);
+        String horaInicio = turno.getHoraInicio().format(FORMATTER_HORA_TURNO);
+        String horaFin = turno.getHoraInicio().plusMinutes(turno.getDuracionMinutos()).format(FORMATTER_HORA_TURNO);
+        String slugEmpresa = turno.getEmpresa() != null ? turno.getEmpresa().getSlug() : null;
+        String frontendBase = frontendUrl != null ? frontendUrl.replaceAll("/+$", "") : "";
+        String urlReserva = frontendBase + "/empresa/" + slugEmpresa;
+
+        Context context = new Context(new Locale("es", "AR"));
+        context.setVariable("clienteNombre", turno.getCliente().getNombre());
+        context.setVariable("empresaNombre", turno.getEmpresa().getNombre());
+        context.setVariable("servicioNombre", turno.getServicio().getNombre());
+        context.setVariable("fecha", fecha);
+        context.setVariable("horaInicio", horaInicio);
+        context.setVariable("horaFin", horaFin);
+        context.setVariable("urlReserva", urlReserva);
+
+        String html = templateEngine.process(TEMPLATE_TURNO_EXPIRADO, context);
+        enviarEmailBrevo(turno.getCliente().getEmail(), turno.getCliente().getNombre(), subject, html,
+                LimitadorEnvioEmail.Carril.TRANSACCIONAL);
+
+        log.info("✅ Correo de expiración de turno enviado - Turno {} - Email: {}",
+                turno.getId(), turno.getCliente().getEmail());
     }
 
     private void enviarCorreoReprogramacionTurno(Turno turno, String templateNombre, String prefijoAsunto) {
-        String emailDestino = turno != null && turno.getCliente() != null ? turno.getCliente().getEmail() : "desconocido";
-        try {
-            if (!enabled) {
-                log.warn("⚠️ Sistema de email deshabilitado - No se enviará reprogramación para turno {}",
-                        turno != null ? turno.getId() : null);
-                return;
-            }
-
-            validarDatosTurno(turno);
-
-            String subject = prefijoAsunto + turno.getEmpresa().getNombre();
-
-            String fecha = turno.getFecha().format(FORMATTER_FECHA_TURNO);
-            String horaInicio = turno.getHoraInicio().format(FORMATTER_HORA_TURNO);
-            String horaFin = turno.getHoraInicio().plusMinutes(turno.getDuracionMinutos()).format(FORMATTER_HORA_TURNO);
-            String profesional = turno.getProfesional().getUsuario().getNombre() + " "
-                    + turno.getProfesional().getUsuario().getApellido();
-                String slugEmpresa = turno.getEmpresa() != null ? turno.getEmpresa().getSlug() : null;
-                String frontendBase = frontendUrl != null ? frontendUrl.replaceAll("/+$", "") : "";
-                String urlLogin = frontendBase + "/empresa/" + slugEmpresa + "/login-cliente";
+        if (!enabled) {
+            log.warn("⚠️ Sistema de email deshabilitado - No se enviará reprogramación para turno {}",
+                    turno != null ? turno.getId() : null);
+            return;
+        }
 
-            Context context = new Context(new Locale("es", "AR"));
-            context.setVariable("clienteNombre", turno.getCliente().getNombre());
-            context.setVariable("profesionalNombre", profesional.trim());
-            context.setVariable("empresaNombre", turno.getEmpresa().getNombre());
-            context.setVariable("servicioNombre", turno.getServicio().getNombre());
-            context.setVariable("fecha", fecha);
-            context.setVariable("horaInicio", horaInicio);
-            context.setVariable("horaFin", horaFin);
-            context.setVariable("urlLogin", urlLogin);
+        validarDatosTurno(turno);
 
-            String html = templateEngine.process(templateNombre, context);
+        String subject = prefijoAsunto + turno.getEmpresa().getNombre();
 
-            enviarEmailBrevo(turno.getCliente().getEmail(), turno.getCliente().getNombre(), subject, html);
+        String fecha = turno.getFecha().format(FORMATTER_FECHA_TURNO);
+        String horaInicio = turno.getHoraInicio().format(FORMATTER_HORA_TURNO);
+        String horaFin = turno.getHoraInicio().plusMinutes(turno.getDuracionMinutos()).format(FORMATTER_HORA_TURNO);
+        String profesional = turno.getProfesional().getUsuario().getNombre() + " "
+                + turno.getProfesional().getUsuario().getApellido();
+        String slugEmpresa = turno.getEmpresa() != null ? turno.getEmpresa().getSlug() : null;
+        String frontendBase = frontendUrl != null ? frontendUrl.replaceAll("/+$", "") : "";
+        String urlLogin = frontendBase + "/empresa/" + slugEmpresa + "/login-cliente";
+
+        Context context = new Context(new Locale("es", "AR"));
+        context.setVariable("clienteNombre", turno.getCliente().getNombre());
+        context.setVariable("profesionalNombre", profesional.trim());
+        context.setVariable("empresaNombre", turno.getEmpresa().getNombre());
+        context.setVariable("servicioNombre", turno.getServicio().getNombre());
+        context.setVariable("fecha", fecha);
+        context.setVariable("horaInicio", horaInicio);
+        context.setVariable("horaFin", horaFin);
+        context.setVariable("urlLogin", urlLogin);
+
+        String html = templateEngine.process(templateNombre, context);
+
+        enviarEmailBrevo(turno.getCliente().getEmail(), turno.getCliente().getNombre(), subject, html,
+                LimitadorEnvioEmail.Carril.TRANSACCIONAL);
+
+        log.info("✅ Reprogramación de turno enviada - Turno {} - Email: {}",
+                turno.getId(), turno.getCliente().getEmail());
+    }
 
-            log.info("✅ Reprogramación de turno enviada - Turno {} - Email: {}",
-                    turno.getId(), turno.getCliente().getEmail());
-        } catch (Exception e) {
-            log.error("Error al enviar correo de reprogramación a {}: ", emailDestino, e);
-        }
+    private static String emailDestino(Turno turno) {
+        return turno != null && turno.getCliente() != null ? turno.getCliente().getEmail() : "desconocido";
     }
 
-    private void enviarEmailBrevo(String emailDestino, String nombreDestino, String subject, String htmlContent) {
+    /**
+     * Todos los envíos pasan por {@link LimitadorEnvioEmail}: el carril separa los transaccionales de los masivos.
+     * Lanza {@link NotificationException} si Brevo no aceptó el correo (los envíos @Async la registran y siguen;
+     * el outbox la usa para reintentar).
+     */
+    private void enviarEmailBrevo(String emailDestino, String nombreDestino, String subject, String htmlContent,
+                                  LimitadorEnvioEmail.Carril carril) {
         try {
             if (brevoApiKey == null || brevoApiKey.isBlank()) {
                 log.error("BREVO_API_KEY no está configurada. No se enviará email a {}", emailDestino);
                 return;
             }
 
+            limitadorEnvio.adquirir(carril);
+
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             headers.set("api-key", brevoApiKey);
@@ -263,9 +309,17 @@ public class EmailNotificationService implements NotificationService {
                         emailDestino,
                         response.getStatusCode(),
                         response.getBody());
+                throw new NotificationException("Brevo devolvió " + response.getStatusCode() + " al enviar email a " + emailDestino);
             }
+        } catch (InterruptedException e) {
+            // No se envió: propagar para que el recordatorio no quede como enviado (el scheduler libera el reclamo)
+            Thread.currentThread().interrupt();
+            throw new NotificationException("Envío de email a " + emailDestino + " interrumpido esperando el límite de envío", e);
+        } catch (NotificationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error al enviar email vía Brevo a {}: {}", emailDestino, e.getMessage(), e);
+            throw new NotificationException("Error al enviar email vía Brevo a " + emailDestino, e);
         }
     }
     
@@ -314,8 +368,9 @@ public class EmailNotificationService implements NotificationService {
     /**
      * ✅ B6: Construye HTML desde template externalizado
      * Los placeholders {variable} se reemplazan con los datos del turno
+     * Package-private para los benchmarks JMH (perfil {@code jmh}).
      */
-    private String construirCuerpoHTML(ReminderData data) {
+    String construirCuerpoHTML(ReminderData data) {
         // Formatear fecha (sin día de la semana, se maneja por separado)
         DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("d 'de' MMMM 'de' yyyy", Locale.forLanguageTag("es-ES"));
         String fechaFormateada = data.getFecha().format(dateFormatter);
@@ -392,7 +447,7 @@ public class EmailNotificationService implements NotificationService {
             .replace("{telefonoValor}", telefonoValor);
     }
 
-    private String construirCuerpoConfirmacionTurno(
+    String construirCuerpoConfirmacionTurno(
             Turno turno,
             BigDecimal precioTotal,
             BigDecimal montoSena,
@@ -0,0 +1,101 @@
+package com.example.sitema_de_turnos.servicio.notificacion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Límite de ritmo de los emails salientes (API de Brevo), compartido por todos los envíos del nodo.
+ *
+ * Reemplaza la pausa fija que el scheduler hacía después de cada recordatorio: en lugar de dormir
+ * siempre, cada envío toma un token de una cubeta con ráfaga y ritmo sostenido configurables, y solo
+ * espera cuando la cubeta está vacía.
+ *
+ * Un carril por prioridad, cada uno con su propia cubeta: los correos transaccionales (confirmación,
+ * reprogramación, expiración) nunca quedan detrás de un lote de recordatorios o de cancelaciones por
+ * bloqueo. La suma de los ritmos de ambos carriles debe respetar la cuota del proveedor.
+ *
+ * Sin locks: el estado de cada cubeta es un único AtomicLong (instante teórico en que se libera el
+ * próximo token, algoritmo GCRA) que se reserva con compareAndSet.
+ */
+@Component
+public class LimitadorEnvioEmail {
+
+    private static final Logger log = LoggerFactory.getLogger(LimitadorEnvioEmail.class);
+
+    /**
+     * Prioridad del envío.
+     */
+    public enum Carril {
+        /** Respuesta a una acción del usuario: confirmación, reprogramación, expiración. */
+        TRANSACCIONAL,
+        /** Envíos en lote: recordatorios y cancelaciones por bloqueo de agenda. */
+        MASIVO
+    }
+
+    private final Map<Carril, Cubeta> cubetas = new EnumMap<>(Carril.class);
+
+    public LimitadorEnvioEmail(
+            @Value("${app.notification.email.limite.transaccional.por-segundo:5}") double transaccionalPorSegundo,
+            @Value("${app.notification.email.limite.transaccional.rafaga:10}") int transaccionalRafaga,
+            @Value("${app.notification.email.limite.masivo.por-segundo:2}") double masivoPorSegundo,
+            @Value("${app.notification.email.limite.masivo.rafaga:4}") int masivoRafaga) {
+        cubetas.put(Carril.TRANSACCIONAL, new Cubeta(transaccionalPorSegundo, transaccionalRafaga, System.nanoTime()));
+        cubetas.put(Carril.MASIVO, new Cubeta(masivoPorSegundo, masivoRafaga, System.nanoTime()));
+    }
+
+    /**
+     * Tomar un token del carril, esperando lo necesario si la ráfaga está agotada.
+     * El token queda reservado aunque la espera se interrumpa (se pierde un envío de la cuota, no se excede).
+     */
+    public void adquirir(Carril carril) throws InterruptedException {
+        long esperaNanos = cubetas.get(carril).reservar(System.nanoTime());
+        if (esperaNanos > 0) {
+            log.debug("⏳ Límite de envío de emails ({}) - esperando {}ms", carril, TimeUnit.NANOSECONDS.toMillis(esperaNanos));
+            TimeUnit.NANOSECONDS.sleep(esperaNanos);
+        }
+    }
+
+    /**
+     * Cubeta de tokens en forma GCRA: con ritmo r y ráfaga b, cada token "ocupa" 1/r y se permite ir
+     * hasta b tokens por delante del reloj.
+     */
+    static final class Cubeta {
+
+        private final long intervaloNanos;
+        private final long toleranciaNanos;
+        /** Instante (System.nanoTime) en que quedaría libre el próximo token si no hubiera ráfaga. */
+        private final AtomicLong proximoToken;
+
+        Cubeta(double porSegundo, int rafaga, long ahoraNanos) {
+            if (porSegundo <= 0 || rafaga < 1) {
+                throw new IllegalArgumentException("El límite de emails requiere ritmo > 0 y ráfaga >= 1");
+            }
+            this.intervaloNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / porSegundo));
+            this.toleranciaNanos = intervaloNanos * rafaga;
+            // Arranca llena: la primera ráfaga sale sin esperar
+            this.proximoToken = new AtomicLong(ahoraNanos);
+        }
+
+        /**
+         * Reservar un token y devolver cuánto esperar (nanos) antes de usarlo; 0 si hay ráfaga disponible.
+         */
+        long reservar(long ahoraNanos) {
+            while (true) {
+                long actual = proximoToken.get();
+                // Una cubeta inactiva no acumula más que la ráfaga: el reloj manda (comparación segura ante overflow)
+                long base = actual - ahoraNanos > 0 ? actual : ahoraNanos;
+                long siguiente = base + intervaloNanos;
+                if (proximoToken.compareAndSet(actual, siguiente)) {
+                    return Math.max(0L, siguiente - ahoraNanos - toleranciaNanos);
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.sitema_de_turnos.servicio.notificacion;
 
 import com.example.sitema_de_turnos.dto.notificacion.CancelacionBloqueoData;
+import com.example.sitema_de_turnos.excepcion.NotificationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -35,6 +36,9 @@ import java.util.stream.Collectors;
  *
  * La instancia del template HTML se carga en construcción (igual que
  * EmailNotificationService) para evitar I/O repetido por cada envío.
+ *
+ * Un bloqueo puede cancelar muchos turnos a la vez: los envíos van por el carril MASIVO de
+ * {@link LimitadorEnvioEmail}, sin demorar las confirmaciones de otras reservas.
  */
 @Service
 public class ServicioNotificacionBloqueo {
@@ -46,6 +50,7 @@ public class ServicioNotificacionBloqueo {
     private static final String BREVO_SENDER_NAME = "Sistema de Turnos";
 
     private final RestTemplate restTemplate;
+    private final LimitadorEnvioEmail limitadorEnvio;
     private final String htmlTemplate;
 
     @Value("${BREVO_API_KEY}")
@@ -57,8 +62,9 @@ public class ServicioNotificacionBloqueo {
     @Value("${app.frontend.url}")
     private String frontendUrl;
 
-    public ServicioNotificacionBloqueo() {
+    public ServicioNotificacionBloqueo(LimitadorEnvioEmail limitadorEnvio) {
         this.restTemplate = new RestTemplate();
+        this.limitadorEnvio = limitadorEnvio;
         this.htmlTemplate = cargarTemplate();
     }
 
@@ -84,6 +90,10 @@ public class ServicioNotificacionBloqueo {
         int enviados = 0;
         int errores = 0;
         for (CancelacionBloqueoData dato : datos) {
+            if (Thread.currentThread().isInterrupted()) {
+                log.warn("⚠️ Notificaciones de cancelación interrumpidas - {} sin enviar", datos.size() - enviados - errores);
+                break;
+            }
             try {
                 enviarEmail(dato);
                 enviados++;
@@ -105,6 +115,8 @@ public class ServicioNotificacionBloqueo {
                 return;
             }
 
+            limitadorEnvio.adquirir(LimitadorEnvioEmail.Carril.MASIVO);
+
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             headers.set("api-key", brevoApiKey);
@@ -136,6 +148,11 @@ public class ServicioNotificacionBloqueo {
             }
 
             log.info("✅ Cancelación notificada a {} <{}>", dato.getClienteNombre(), dato.getClienteEmail());
+        } catch (InterruptedException e) {
+            // Propagar: el email no salió y el lote se corta (no se cuenta como enviado)
+            Thread.currentThread().interrupt();
+            throw new NotificationException("Notificación de cancelación a <" + dato.getClienteEmail()
+                    + "> interrumpida esperando el límite de envío", e);
         } catch (Exception e) {
             log.error("❌ Error al notificar cancelación a {} <{}>: {}",
                     dato.getClienteNombre(), dato.getClienteEmail(), e.getMessage(), e);
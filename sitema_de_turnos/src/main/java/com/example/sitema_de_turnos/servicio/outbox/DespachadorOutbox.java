@@ -0,0 +1,198 @@
+package com.example.sitema_de_turnos.servicio.outbox;
+
+import com.example.sitema_de_turnos.modelo.EstadoEventoOutbox;
+import com.example.sitema_de_turnos.modelo.EventoOutbox;
+import com.example.sitema_de_turnos.modelo.Turno;
+import com.example.sitema_de_turnos.repositorio.RepositorioEventoOutbox;
+import com.example.sitema_de_turnos.repositorio.RepositorioTurno;
+import com.example.sitema_de_turnos.servicio.ServicioNotificacion;
+import com.example.sitema_de_turnos.servicio.notificacion.EmailNotificationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Consumidor del outbox transaccional.
+ *
+ * Cada ronda reclama un lote con {@code FOR UPDATE SKIP LOCKED} en una transacción corta (los marca
+ * EN_PROCESO con un vencimiento de reclamo) y los despacha en paralelo en "outboxExecutor". Varios nodos
+ * pueden correr el despachador a la vez: SKIP LOCKED les reparte lotes disjuntos y el número de intento
+ * impide que un reclamo vencido pise al nuevo.
+ *
+ * Entrega al menos una vez: un nodo que muere entre el envío y el cierre hace que el evento se reenvíe
+ * al vencer el reclamo.
+ */
+@Slf4j
+@Component
+public class DespachadorOutbox {
+
+    private static final int MAX_LONGITUD_ERROR = 500;
+    /** Rondas seguidas por ejecución mientras haya lotes completos (evita monopolizar el scheduler). */
+    private static final int MAX_RONDAS = 10;
+
+    private final RepositorioEventoOutbox repositorioEventoOutbox;
+    private final RepositorioTurno repositorioTurno;
+    private final EmailNotificationService emailNotificationService;
+    private final ServicioNotificacion servicioNotificacion;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor outboxExecutor;
+    private final int tamanioLote;
+    private final long reclamoSegundos;
+    private final int maxIntentos;
+    private final long esperaBaseSegundos;
+    private final int retencionDias;
+
+    public DespachadorOutbox(
+            RepositorioEventoOutbox repositorioEventoOutbox,
+            RepositorioTurno repositorioTurno,
+            EmailNotificationService emailNotificationService,
+            ServicioNotificacion servicioNotificacion,
+            TransactionTemplate transactionTemplate,
+            @Qualifier("outboxExecutor") Executor outboxExecutor,
+            @Value("${app.outbox.lote:50}") int tamanioLote,
+            @Value("${app.outbox.reclamo-segundos:60}") long reclamoSegundos,
+            @Value("${app.outbox.max-intentos:8}") int maxIntentos,
+            @Value("${app.outbox.espera-base-segundos:5}") long esperaBaseSegundos,
+            @Value("${app.outbox.retencion-dias:7}") int retencionDias) {
+        this.repositorioEventoOutbox = repositorioEventoOutbox;
+        this.repositorioTurno = repositorioTurno;
+        this.emailNotificationService = emailNotificationService;
+        this.servicioNotificacion = servicioNotificacion;
+        this.transactionTemplate = transactionTemplate;
+        this.outboxExecutor = outboxExecutor;
+        this.tamanioLote = tamanioLote;
+        this.reclamoSegundos = reclamoSegundos;
+        this.maxIntentos = maxIntentos;
+        this.esperaBaseSegundos = esperaBaseSegundos;
+        this.retencionDias = retencionDias;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.intervalo-ms:500}")
+    public void despachar() {
+        for (int ronda = 0; ronda < MAX_RONDAS; ronda++) {
+            List<EventoOutbox> lote;
+            try {
+                lote = reclamarLote();
+            } catch (Exception e) {
+                log.warn("⚠️ Outbox: no se pudo reclamar un lote: {}", e.getMessage());
+                return;
+            }
+            if (lote.isEmpty()) {
+                return;
+            }
+
+            CompletableFuture.allOf(lote.stream()
+                    .map(evento -> CompletableFuture.runAsync(() -> procesar(evento), outboxExecutor))
+                    .toArray(CompletableFuture[]::new))
+                .join();
+
+            if (lote.size() < tamanioLote) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Limpieza diaria de eventos ya procesados (los FALLIDOS quedan para diagnóstico).
+     */
+    @Scheduled(cron = "${app.outbox.purga-cron:0 45 4 * * *}", zone = "${app.scheduler.zone:UTC}")
+    public void purgarProcesados() {
+        try {
+            int eliminados = repositorioEventoOutbox.eliminarProcesadosAnterioresA(
+                LocalDateTime.now(ZoneOffset.UTC).minusDays(retencionDias));
+            log.info("🧹 Outbox: {} eventos procesados eliminados", eliminados);
+        } catch (Exception e) {
+            log.error("❌ Error al purgar el outbox", e);
+        }
+    }
+
+    private List<EventoOutbox> reclamarLote() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime ahora = LocalDateTime.now(ZoneOffset.UTC);
+            List<EventoOutbox> lote = repositorioEventoOutbox.reclamarLote(ahora, tamanioLote);
+            for (EventoOutbox evento : lote) {
+                evento.setEstado(EstadoEventoOutbox.EN_PROCESO);
+                evento.setIntentos(evento.getIntentos() + 1);
+                evento.setProximoIntento(ahora.plusSeconds(reclamoSegundos));
+            }
+            return lote;
+        });
+    }
+
+    private void procesar(EventoOutbox evento) {
+        try {
+            switch (evento.getTipo()) {
+                case CORREO_CONFIRMACION_TURNO, CORREO_REPROGRAMACION_CLIENTE,
+                     CORREO_REPROGRAMACION_PROFESIONAL, CORREO_TURNO_EXPIRADO -> enviarCorreo(evento);
+                case WEBSOCKET_NOTIFICACION -> servicioNotificacion.despacharPorWebSocket(evento.getAgregadoId());
+                case PUSH_NOTIFICACION -> servicioNotificacion.despacharPush(evento.getAgregadoId());
+            }
+            cerrar(evento, EstadoEventoOutbox.PROCESADO, null);
+        } catch (Exception e) {
+            fallar(evento, e);
+        }
+    }
+
+    /**
+     * Los correos se envían en línea (ya estamos en outboxExecutor): si Brevo falla, la excepción llega a
+     * procesar() y el evento se reintenta con backoff hasta maxIntentos, en lugar de cerrarse como
+     * PROCESADO con el envío todavía en cola.
+     */
+    private void enviarCorreo(EventoOutbox evento) {
+        Turno turno = repositorioTurno.findParaCorreoById(evento.getAgregadoId()).orElse(null);
+        if (turno == null) {
+            log.warn("⚠️ Outbox: turno {} no existe, se descarta {}", evento.getAgregadoId(), evento.getTipo());
+            return;
+        }
+        switch (evento.getTipo()) {
+            case CORREO_CONFIRMACION_TURNO -> emailNotificationService.entregarCorreoConfirmacionTurno(turno);
+            case CORREO_REPROGRAMACION_CLIENTE -> emailNotificationService.entregarCorreoReprogramacionPorCliente(turno);
+            case CORREO_REPROGRAMACION_PROFESIONAL -> emailNotificationService.entregarCorreoReprogramacionPorProfesional(turno);
+            case CORREO_TURNO_EXPIRADO -> emailNotificationService.entregarCorreoTurnoExpirado(turno);
+            default -> throw new IllegalStateException("Tipo de correo no soportado: " + evento.getTipo());
+        }
+    }
+
+    private void fallar(EventoOutbox evento, Exception e) {
+        String error = recortar(e.getClass().getSimpleName() + ": " + e.getMessage());
+        try {
+            if (evento.getIntentos() >= maxIntentos) {
+                cerrar(evento, EstadoEventoOutbox.FALLIDO, error);
+                log.error("❌ Outbox: evento {} ({}) descartado tras {} intentos: {}",
+                    evento.getId(), evento.getTipo(), evento.getIntentos(), error);
+                return;
+            }
+            // Backoff exponencial: base, 2·base, 4·base...
+            long espera = esperaBaseSegundos << Math.min(evento.getIntentos() - 1, 16);
+            repositorioEventoOutbox.reprogramar(evento.getId(), evento.getIntentos(),
+                LocalDateTime.now(ZoneOffset.UTC).plusSeconds(espera), error);
+            log.warn("⚠️ Outbox: evento {} ({}) falló (intento {}), reintento en {}s: {}",
+                evento.getId(), evento.getTipo(), evento.getIntentos(), espera, error);
+        } catch (Exception ex) {
+            // El reclamo vence solo y el evento se vuelve a tomar
+            log.error("❌ Outbox: no se pudo registrar el fallo del evento {}", evento.getId(), ex);
+        }
+    }
+
+    private void cerrar(EventoOutbox evento, EstadoEventoOutbox estado, String error) {
+        int actualizados = repositorioEventoOutbox.cerrar(evento.getId(), evento.getIntentos(), estado,
+            LocalDateTime.now(ZoneOffset.UTC), error);
+        if (actualizados == 0) {
+            log.warn("⚠️ Outbox: el reclamo del evento {} venció antes de cerrarlo (intento {})",
+                evento.getId(), evento.getIntentos());
+        }
+    }
+
+    private static String recortar(String texto) {
+        return texto.length() <= MAX_LONGITUD_ERROR ? texto : texto.substring(0, MAX_LONGITUD_ERROR);
+    }
+}
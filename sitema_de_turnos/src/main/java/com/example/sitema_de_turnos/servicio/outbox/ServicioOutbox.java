@@ -0,0 +1,62 @@
+package com.example.sitema_de_turnos.servicio.outbox;
+
+import com.example.sitema_de_turnos.modelo.EventoOutbox;
+import com.example.sitema_de_turnos.modelo.Notificacion;
+import com.example.sitema_de_turnos.modelo.TipoEventoOutbox;
+import com.example.sitema_de_turnos.modelo.TipoNotificacion;
+import com.example.sitema_de_turnos.repositorio.RepositorioEventoOutbox;
+import com.example.sitema_de_turnos.servicio.ServicioNotificacion;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Alta de efectos secundarios en el outbox transaccional ({@code outbox_eventos}).
+ *
+ * Todos los métodos exigen una transacción activa (MANDATORY): el evento se confirma o se descarta junto
+ * con el turno que lo origina. El envío real lo hace {@link DespachadorOutbox} después del commit.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ServicioOutbox {
+
+    private final RepositorioEventoOutbox repositorioEventoOutbox;
+    private final ServicioNotificacion servicioNotificacion;
+
+    /**
+     * Encolar un correo al cliente del turno ({@code CORREO_*}).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarCorreo(TipoEventoOutbox tipo, Long turnoId) {
+        registrar(tipo, turnoId);
+    }
+
+    /**
+     * Notificación al profesional: la fila de {@code notificaciones} es un dato más de la transacción,
+     * así que se guarda acá mismo; solo el WebSocket y el push pasan por el outbox.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarNotificacionProfesional(
+            Long profesionalId,
+            TipoNotificacion tipo,
+            String titulo,
+            String mensaje,
+            Object datosAdicionales,
+            Long turnoId) {
+        Notificacion notificacion = servicioNotificacion.registrarNotificacion(
+            profesionalId, tipo, titulo, mensaje, datosAdicionales, turnoId);
+        registrar(TipoEventoOutbox.WEBSOCKET_NOTIFICACION, notificacion.getId());
+        registrar(TipoEventoOutbox.PUSH_NOTIFICACION, notificacion.getId());
+    }
+
+    private void registrar(TipoEventoOutbox tipo, Long agregadoId) {
+        EventoOutbox evento = new EventoOutbox();
+        evento.setTipo(tipo);
+        evento.setAgregadoId(agregadoId);
+        repositorioEventoOutbox.save(evento);
+        log.debug("📤 Outbox: {} encolado para {}", tipo, agregadoId);
+    }
+}
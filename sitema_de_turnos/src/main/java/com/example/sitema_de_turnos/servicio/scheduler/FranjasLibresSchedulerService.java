@@ -0,0 +1,57 @@
+package com.example.sitema_de_turnos.servicio.scheduler;
+
+import com.example.sitema_de_turnos.modelo.Empresa;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioEmpresa;
+import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
+import com.example.sitema_de_turnos.servicio.agenda.ServicioFranjasLibres;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Reconstrucción programada de {@code franjas_libres}.
+ *
+ * - Repara desfasajes (un recálculo AFTER_COMMIT que falló, cambios hechos fuera de los servicios).
+ * - Materializa el día que entra en el horizonte de reserva y purga los que ya pasaron.
+ *
+ * Cada profesional se recalcula en su propia transacción: un error no frena al resto.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FranjasLibresSchedulerService {
+
+    private final RepositorioEmpresa repositorioEmpresa;
+    private final RepositorioPerfilProfesional repositorioPerfilProfesional;
+    private final ServicioFranjasLibres servicioFranjasLibres;
+
+    @Scheduled(cron = "${app.agenda.franjas.rebuild-cron:0 30 3 * * *}", zone = "${app.scheduler.zone:UTC}")
+    public void reconstruirFranjasLibres() {
+        // Margen de un día: ninguna zona horaria de empresa está más de un día detrás de UTC
+        int purgados = servicioFranjasLibres.purgarAnterioresA(LocalDate.now(ZoneOffset.UTC).minusDays(1));
+
+        int profesionales = 0;
+        int dias = 0;
+        int errores = 0;
+        for (Empresa empresa : repositorioEmpresa.findByActivaTrue()) {
+            for (PerfilProfesional profesional : repositorioPerfilProfesional.findByEmpresaAndActivoTrue(empresa)) {
+                try {
+                    dias += servicioFranjasLibres.recalcular(profesional.getId(), null, null);
+                    profesionales++;
+                } catch (Exception e) {
+                    errores++;
+                    log.error("❌ Error reconstruyendo franjas libres del profesional {}: {}",
+                            profesional.getId(), e.getMessage(), e);
+                }
+            }
+        }
+
+        log.info("✅ Franjas libres reconstruidas: {} profesionales, {} días, {} días pasados purgados, {} errores",
+                profesionales, dias, purgados, errores);
+    }
+}
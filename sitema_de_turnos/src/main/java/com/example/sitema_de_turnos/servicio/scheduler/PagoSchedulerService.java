@@ -3,13 +3,17 @@ package com.example.sitema_de_turnos.servicio.scheduler;
 import com.example.sitema_de_turnos.modelo.EstadoPago;
 import com.example.sitema_de_turnos.modelo.EstadoTurno;
 import com.example.sitema_de_turnos.modelo.Pago;
+import com.example.sitema_de_turnos.modelo.TipoEventoOutbox;
 import com.example.sitema_de_turnos.modelo.Turno;
 import com.example.sitema_de_turnos.repositorio.RepositorioPago;
 import com.example.sitema_de_turnos.repositorio.RepositorioTurno;
-import com.example.sitema_de_turnos.servicio.notificacion.EmailNotificationService;
+import com.example.sitema_de_turnos.evento.AgendaModificadaEvent;
+import com.example.sitema_de_turnos.evento.SlotTurnoEvent;
+import com.example.sitema_de_turnos.servicio.outbox.ServicioOutbox;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
@@ -31,8 +35,9 @@ public class PagoSchedulerService {
 
     private final RepositorioTurno repositorioTurno;
     private final RepositorioPago repositorioPago;
-    private final EmailNotificationService emailNotificationService;
+    private final ServicioOutbox servicioOutbox;
     private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${app.turnos.expiration.grace-minutes}")
     private int graceMinutes;
@@ -48,16 +53,9 @@ public class PagoSchedulerService {
                 limiteCreacion
             );
 
+        // Los correos de expiración se encolan en el outbox dentro de la misma transacción
         List<Turno> turnosLiberadosPersistidos = actualizarEstadosExpirados(turnosExpirados, ahoraUtc);
 
-        for (Turno turno : turnosLiberadosPersistidos) {
-            try {
-                emailNotificationService.enviarCorreoTurnoExpirado(turno);
-            } catch (Exception e) {
-                log.error("❌ Error enviando correo de turno expirado para turno {}: {}", turno.getId(), e.getMessage(), e);
-            }
-        }
-
         log.info("✅ Limpieza completada: {} turnos expirados liberados.", turnosLiberadosPersistidos.size());
     }
 
@@ -95,6 +93,11 @@ public class PagoSchedulerService {
 
             if (!turnosActualizados.isEmpty()) {
                 repositorioTurno.saveAll(turnosActualizados);
+                turnosActualizados.forEach(t -> {
+                    eventPublisher.publishEvent(AgendaModificadaEvent.dia(t.getProfesional(), t.getFecha()));
+                    eventPublisher.publishEvent(SlotTurnoEvent.liberado(t));
+                    servicioOutbox.registrarCorreo(TipoEventoOutbox.CORREO_TURNO_EXPIRADO, t.getId());
+                });
             }
             if (!pagosActualizados.isEmpty()) {
                 repositorioPago.saveAll(pagosActualizados);
@@ -36,10 +36,24 @@ public class ReminderConfig {
     private long retryDelayMs;
 
     /**
-     * Pausa entre emails sucesivos (ms) para no saturar el SMTP de Gmail.
-     * Gmail tiene límite de ~100 mails/segundo en cuentas estándar.
-     * 1500 ms = ~40 emails/minuto — margen seguro para recordatorios masivos.
+     * Envíos simultáneos permitidos en TODO el nodo (todas las empresas).
+     * Acota las llamadas en curso al proveedor; el ritmo de envío lo fija LimitadorEnvioEmail
+     * (app.notification.email.limite.masivo.*).
      */
-    @Value("${app.reminder.throttle-delay-ms:1500}")
-    private long throttleDelayMs;
+    @Value("${app.reminder.max-envios-concurrentes:4}")
+    private int maxEnviosConcurrentes;
+
+    /**
+     * Turnos que un nodo reclama por vez (UPDATE … FOR UPDATE SKIP LOCKED). Con varios nodos,
+     * cada uno toma lotes disjuntos y se reparten el volumen de recordatorios.
+     */
+    @Value("${app.reminder.lote:100}")
+    private int loteRecordatorios;
+
+    /**
+     * Vencimiento del reclamo (segundos): si el nodo cae a mitad de un lote, otro retoma esos
+     * turnos pasado este tiempo. Debe superar lo que tarda en enviarse un lote al ritmo del limitador.
+     */
+    @Value("${app.reminder.reclamo-segundos:600}")
+    private long reclamoSegundos;
 }
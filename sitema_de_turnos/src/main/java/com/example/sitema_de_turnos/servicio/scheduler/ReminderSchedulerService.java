@@ -3,9 +3,7 @@ package com.example.sitema_de_turnos.servicio.scheduler;
 import com.example.sitema_de_turnos.dto.notificacion.ReminderData;
 import com.example.sitema_de_turnos.excepcion.NotificationException;
 import com.example.sitema_de_turnos.modelo.Empresa;
-import com.example.sitema_de_turnos.modelo.EstadoTurno;
 import com.example.sitema_de_turnos.modelo.Turno;
-import com.example.sitema_de_turnos.repositorio.RepositorioEmpresa;
 import com.example.sitema_de_turnos.repositorio.RepositorioTurno;
 import com.example.sitema_de_turnos.servicio.notificacion.NotificationService;
 import jakarta.annotation.PostConstruct;
@@ -14,35 +12,64 @@ import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Scheduler que ejecuta el envío de recordatorios de turnos
  * Se ejecuta según el cron configurado en application.properties
+ *
+ * OPTIMIZADO: cada lote de recordatorios vencidos de todas las empresas se reclama con una sola consulta
+ * (segura entre nodos, ver reclamarLote) y cada turno se procesa en paralelo sobre su propio hilo virtual.
+ * El único límite es {@link #permisosEnvio}, global al nodo. Un envío fallido no espera: su reintento
+ * queda agendado en la base (recordatorioProximoIntento) y lo toma una ejecución posterior. Cada ejecución informa enviados/s y demora máxima.
  */
 @Service
 public class ReminderSchedulerService {
 
     private static final Logger log = LoggerFactory.getLogger(ReminderSchedulerService.class);
     
+    /**
+     * Misma zona que usa reclamarRecordatoriosVencidos para empresas sin timezone.
+     */
+    private static final String ZONA_POR_DEFECTO = "America/Argentina/Buenos_Aires";
+    
+    /**
+     * Lotes máximos por ejecución: acota una ejecución aunque el backlog sea grande (sigue el próximo minuto).
+     */
+    private static final int MAX_RONDAS = 20;
+    
     private final RepositorioTurno repositorioTurno;
-    private final RepositorioEmpresa repositorioEmpresa;
     private final NotificationService notificationService;
     private final ReminderConfig config;
+
+    /**
+     * Permisos de envío compartidos por todas las empresas (ver ReminderConfig#maxEnviosConcurrentes).
+     */
+    private final Semaphore permisosEnvio;
+
+    /**
+     * Resumen de la última ejecución de este nodo (ver {@link #estadisticas()}).
+     */
+    private volatile Estadisticas ultimaEjecucion;
     
     public ReminderSchedulerService(
             RepositorioTurno repositorioTurno,
-            RepositorioEmpresa repositorioEmpresa,
             NotificationService notificationService,
             ReminderConfig config) {
         this.repositorioTurno = repositorioTurno;
-        this.repositorioEmpresa = repositorioEmpresa;
         this.notificationService = notificationService;
         this.config = config;
+        this.permisosEnvio = new Semaphore(Math.max(1, config.getMaxEnviosConcurrentes()), true);
     }
     
     @PostConstruct
@@ -52,6 +79,7 @@ public class ReminderSchedulerService {
             log.info("📧 Tipo de notificación: {}", notificationService.getNotificationType());
             log.info("⏰ Recordatorios se enviarán {} horas antes del turno", config.getHoursBefore());
             log.info("🔁 Máximo de reintentos: {}", config.getMaxRetries());
+            log.info("🚦 Envíos simultáneos permitidos: {}", permisosEnvio.availablePermits());
         } else {
             log.warn("⚠️ Scheduler de recordatorios DESHABILITADO");
         }
@@ -80,28 +108,41 @@ public class ReminderSchedulerService {
         long startTime = System.currentTimeMillis();
         
         try {
-            // Procesar cada empresa activa (multi-tenant)
-            List<Empresa> empresasActivas = repositorioEmpresa.findByActivaTrue();
-            
-            log.info("📊 Procesando {} empresas activas", empresasActivas.size());
-            
-            int totalEnviados = 0;
-            int totalErrores = 0;
+            EjecucionRecordatorios ejecucion = new EjecucionRecordatorios();
+            int reclamados = 0;
             
-            for (Empresa empresa : empresasActivas) {
-                try {
-                    int[] resultados = procesarEmpresa(empresa);
-                    totalEnviados += resultados[0];
-                    totalErrores += resultados[1];
-                } catch (Exception e) {
-                    log.error("❌ Error al procesar empresa {}: {}", empresa.getId(), e.getMessage());
-                    totalErrores++;
+            // Lotes reclamados atómicamente (una consulta por lote para todas las empresas). Otros nodos
+            // reclaman lotes disjuntos al mismo tiempo y se reparten el volumen.
+            for (int ronda = 0; ronda < MAX_RONDAS; ronda++) {
+                List<Turno> lote = reclamarLote();
+                if (lote.isEmpty()) {
+                    break;
+                }
+                reclamados += lote.size();
+                
+                // Un hilo virtual por turno (los permisos de envío acotan la concurrencia real); close() espera
+                // a todos. Si el hilo del scheduler es interrumpido, close() interrumpe las tareas en curso y
+                // espera a que liberen sus turnos.
+                try (ExecutorService tareasTurnos = Executors.newVirtualThreadPerTaskExecutor()) {
+                    for (Turno turno : lote) {
+                        tareasTurnos.submit(() -> procesarTurnoEnEjecucion(turno, ejecucion));
+                    }
+                }
+                
+                if (lote.size() < config.getLoteRecordatorios() || Thread.currentThread().isInterrupted()) {
+                    break;
                 }
             }
             
             long duration = System.currentTimeMillis() - startTime;
-            log.info("✅ Proceso completado en {}ms - Enviados: {} | Errores: {}", 
-                    duration, totalEnviados, totalErrores);
+            int totalEnviados = ejecucion.enviados.get();
+            long enReintento = repositorioTurno.contarRecordatoriosEnReintento();
+            log.info("✅ Proceso completado en {}ms - Reclamados: {} | Enviados: {} | Errores: {} | {} envíos/s | demora máx {}s (prom {}s) | En reintento: {}", 
+                    duration, reclamados, totalEnviados, ejecucion.errores.get(),
+                    String.format("%.1f", duration > 0 ? totalEnviados * 1000.0 / duration : 0.0),
+                    ejecucion.demoraMaximaSegundos.get(), ejecucion.demoraPromedioSegundos(), enReintento);
+            ultimaEjecucion = new Estadisticas(enReintento, LocalDateTime.now(), reclamados, totalEnviados,
+                    ejecucion.errores.get(), duration, ejecucion.demoraMaximaSegundos.get());
                 log.info("✅ Scheduler de recordatorios finalizado: {} recordatorios enviados en total.", totalEnviados);
             
         } catch (Exception e) {
@@ -109,79 +150,77 @@ public class ReminderSchedulerService {
         }
     }
     
-    private int[] procesarEmpresa(Empresa empresa) {
-        int enviados = 0;
-        int errores = 0;
+    /**
+     * Métricas expuestas en /api/admin/metricas/recordatorios: backlog de reintentos (consultado en el
+     * momento, de todas las empresas y nodos) y el resumen de la última ejecución de este nodo.
+     */
+    public Estadisticas estadisticas() {
+        long enReintento = repositorioTurno.contarRecordatoriosEnReintento();
+        Estadisticas ultima = ultimaEjecucion;
+        if (ultima == null) {
+            return new Estadisticas(enReintento, null, 0, 0, 0, 0, 0);
+        }
+        return new Estadisticas(enReintento, ultima.ultimaEjecucion(), ultima.reclamados(), ultima.enviados(),
+                ultima.errores(), ultima.duracionMs(), ultima.demoraMaximaSegundos());
+    }
+    
+    /**
+     * ✅ A4: Reclamar un lote de turnos con recordatorio vencido, de todas las empresas, y cargarlos.
+     *
+     * OPTIMIZADO: una consulta por lote sin importar la cantidad de empresas (índice parcial de
+     * recordatorios sin enviar) más la carga de los turnos con sus relaciones.
+     * CORREGIDO (multi-nodo): seleccionar y marcar es un único UPDATE … FOR UPDATE SKIP LOCKED; la marca
+     * (recordatorioPrimerIntento) es el token del reclamo con el que se cierra cada turno.
+     */
+    private List<Turno> reclamarLote() {
+        // Milisegundos: el token se compara por igualdad contra la columna timestamp
+        LocalDateTime reclamo = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
         
+        // ✅ A3: Ventana [ahora + minMinutesBefore, ahora + horas de la empresa] (horas de config como fallback)
+        List<Long> ids = repositorioTurno.reclamarRecordatoriosVencidos(
+                reclamo,
+                reclamo.minusSeconds(config.getReclamoSegundos()),
+                config.getMinMinutesBefore(),
+                config.getHoursBefore(),
+                config.getLoteRecordatorios());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        
+        List<Turno> turnos = repositorioTurno.findParaRecordatorioByIdIn(ids);
+        turnos.forEach(turno -> turno.setRecordatorioPrimerIntento(reclamo));
+        
+        log.info("📊 {} turnos reclamados para recordatorio (todas las empresas)", turnos.size());
+        return turnos;
+    }
+    
+    private void procesarTurnoEnEjecucion(Turno turno, EjecucionRecordatorios ejecucion) {
         try {
-            // Verificar si la empresa tiene recordatorios habilitados
-            if (empresa.getEnviarRecordatorios() == null || !empresa.getEnviarRecordatorios()) {
-                log.debug("⏭️ Empresa '{}' tiene recordatorios deshabilitados - Saltando", empresa.getNombre());
-                return new int[]{0, 0};
-            }
-            
-            // Obtener horas antes de recordatorio de la empresa (con fallback a config global)
-            Integer horasAntesEmpresa = empresa.getHorasAntesRecordatorio();
-            int horasAntes = (horasAntesEmpresa != null && horasAntesEmpresa > 0) 
-                    ? horasAntesEmpresa 
-                    : config.getHoursBefore();
-            
-            // Calcular ventana de tiempo usando timezone de la empresa
-            ZoneId timezone = ZoneId.of(empresa.getTimezone());
-            LocalDateTime ahoraLocal = LocalDateTime.now(timezone);
-            log.debug("Empresa ID {} ({}): Hora local calculada {}", empresa.getId(), timezone.getId(), ahoraLocal);
-            
-            // ✅ A3: Ventana de recordatorios con límites inferior y superior
-            // Lógica: ahora + minMinutos <= turno <= ahora + horasAntes
-            // 
-            // - Límite INFERIOR: No enviar si el turno es muy cercano (menos de X minutos)
-            //   Ejemplo: Si minMinutesBefore=30, un turno en 20 minutos NO recibe recordatorio
-            // 
-            // - Límite SUPERIOR: No enviar si el turno es muy lejano (más de X horas)
-            //   Ejemplo: Si hoursBefore=24, un turno en 48 horas NO recibe recordatorio
-            LocalDateTime fechaHoraMin = ahoraLocal.plusMinutes(config.getMinMinutesBefore()); // No muy cercano
-            LocalDateTime fechaHoraMax = ahoraLocal.plusHours(horasAntes); // No muy lejano
-            
-            // ✅ A2: Descomponer fecha/hora para query JPQL portable
-            LocalDate fechaMin = fechaHoraMin.toLocalDate();
-            LocalTime horaMin = fechaHoraMin.toLocalTime();
-            LocalDate fechaMax = fechaHoraMax.toLocalDate();
-            LocalTime horaMax = fechaHoraMax.toLocalTime();
-            
-            // Buscar turnos pendientes de recordatorio (SOLO CONFIRMADOS)
-            List<Turno> turnosPendientes = repositorioTurno.findTurnosPendientesRecordatorio(
-                    empresa.getId(), fechaMin, horaMin, fechaMax, horaMax, EstadoTurno.CONFIRMADO);
-
-            // 🔍 LOG SIEMPRE VISIBLE: permite confirmar la consulta y el rango calculado
-            log.info("📧 Empresa '{}' (tz={}) - {} turnos pendientes | ventana: {} a {} (+{}min → +{}h)",
-                    empresa.getNombre(), timezone.getId(), turnosPendientes.size(),
-                    fechaHoraMin, fechaHoraMax,
-                    config.getMinMinutesBefore(), horasAntes);
-            
-            for (Turno turno : turnosPendientes) {
-                try {
-                    if (procesarTurno(turno)) {
-                        enviados++;
-                        // Anti-bloqueo: pausa entre envíos para no saturar SMTP de Gmail
-                        if (config.getThrottleDelayMs() > 0) {
-                            try { Thread.sleep(config.getThrottleDelayMs()); }
-                            catch (InterruptedException ie) { Thread.currentThread().interrupt(); }
-                        }
-                    } else {
-                        errores++;
-                    }
-                } catch (Exception e) {
-                    log.error("❌ Error inesperado al procesar turno {}: {}", turno.getId(), e.getMessage(), e);
-                    errores++;
-                }
+            if (procesarTurno(turno)) {
+                ejecucion.registrarEnvio(calcularDemora(turno));
+            } else {
+                ejecucion.errores.incrementAndGet();
             }
-            
         } catch (Exception e) {
-            log.error("❌ Error al procesar turnos de empresa {}: {}", empresa.getId(), e.getMessage());
-            errores++;
+            log.error("❌ Error inesperado al procesar turno {}: {}", turno.getId(), e.getMessage(), e);
+            ejecucion.errores.incrementAndGet();
         }
+    }
+    
+    /**
+     * Demora del envío: cuánto después de abrirse su ventana (inicio - horas de anticipación) salió
+     * el recordatorio, en la zona horaria de la empresa.
+     */
+    private Duration calcularDemora(Turno turno) {
+        Empresa empresa = turno.getEmpresa();
+        Integer horasAntesEmpresa = empresa.getHorasAntesRecordatorio();
+        int horasAntes = (horasAntesEmpresa != null && horasAntesEmpresa > 0)
+                ? horasAntesEmpresa
+                : config.getHoursBefore();
+        ZoneId timezone = ZoneId.of(empresa.getTimezone() != null ? empresa.getTimezone() : ZONA_POR_DEFECTO);
         
-        return new int[]{enviados, errores};
+        LocalDateTime aperturaVentana = LocalDateTime.of(turno.getFecha(), turno.getHoraInicio()).minusHours(horasAntes);
+        return Duration.between(aperturaVentana, LocalDateTime.now(timezone));
     }
     
     /**
@@ -189,10 +228,12 @@ public class ReminderSchedulerService {
      * REFACTORIZADO (C3): Thread.sleep() ahora está FUERA de cualquier transacción.
      * Las operaciones de BD se hacen en métodos transaccionales separados y cortos.
      * OPTIMIZADO (M1): Pasa objeto Turno a métodos transaccionales, evitando findById repetidos.
+     * OPTIMIZADO: un solo intento por ejecución. Si falla, el reintento queda agendado en
+     * recordatorioProximoIntento (backoff exponencial) y lo retoma una ejecución posterior,
+     * en lugar de dormir el hilo entre reintentos.
      */
     private boolean procesarTurno(Turno turno) {
-        // ✅ A4: Marcar inicio de procesamiento para prevenir duplicados
-        marcarInicioProcesamiento(turno);
+        // ✅ A4: El turno ya llega reclamado (reclamarLote): ningún otro nodo lo procesa mientras tanto
         
         // Verificar si ya alcanzó el máximo de reintentos (transacción corta)
         if (verificarMaximosReintentosAlcanzados(turno)) {
@@ -201,85 +242,80 @@ public class ReminderSchedulerService {
         
         // Construir datos del recordatorio (sin transacción, solo lectura de objetos ya cargados)
         ReminderData reminderData = construirReminderData(turno);
+        int intento = (turno.getRecordatorioIntentos() != null ? turno.getRecordatorioIntentos() : 0) + 1;
         
-        // Intentar enviar con retry exponencial (SIN transacción activa)
-        for (int intento = 0; intento <= config.getMaxRetries(); intento++) {
-            try {
-                // Enviar email (operación externa, sin transacción)
-                notificationService.sendReminder(reminderData);
-                
-                // Éxito - actualizar turno (transacción corta y específica)
-                actualizarTurnoExitoso(turno, intento + 1);
-                
-                // ✅ M6: Nivel debug para logs individuales de turnos (evita spam en producción)
-                log.debug("✅ Recordatorio enviado - Turno {} - Cliente: {} (Intento {}/{})", 
-                        turno.getId(), turno.getCliente().getEmail(), intento + 1, config.getMaxRetries());
-                
-                return true;
-                
-            } catch (NotificationException e) {
-                String errorMsg = e.getRootCauseMessage();
-                
-                // Actualizar intento fallido (transacción corta)
-                actualizarIntentoFallido(turno, intento + 1, errorMsg);
-                
-                // ✅ M4: Usar warn para fallos individuales que se reintentaran, error solo cuando se agoten todos los intentos
-                if (intento < config.getMaxRetries()) {
-                    log.warn("⚠️ Intento {}/{} falló para turno {} - Error: {} (se reintentará)", 
-                            intento + 1, config.getMaxRetries() + 1, turno.getId(), errorMsg);
-                } else {
-                    log.error("❌ Intento final {}/{} falló para turno {} - Error: {}", 
-                            intento + 1, config.getMaxRetries() + 1, turno.getId(), errorMsg);
-                }
-                
-                // ✅ Thread.sleep() FUERA de transacción
-                if (intento < config.getMaxRetries()) {
-                    long delay = config.getRetryDelayMs() * (long) Math.pow(2, intento);
-                    
-                    // ✅ M6: Debug en lugar de info para evitar spam en logs
-                    log.debug("⏳ Reintentando en {}ms...", delay);
-                    
-                    try {
-                        Thread.sleep(delay); // ✅ AHORA ESTÁ FUERA DE @Transactional
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        log.error("❌ Proceso interrumpido para turno {}", turno.getId());
-                        
-                        // ✅ A4: Resetear marca de procesamiento para permitir reintentos futuros
-                        resetearMarcaProcesamiento(turno);
-                        return false;
-                    }
-                }
-            } catch (Exception e) {
-                log.error("❌ Error inesperado al procesar turno {}: {}", turno.getId(), e.getMessage(), e);
-                
-                // ✅ A4: Resetear marca de procesamiento para permitir reintentos futuros
+        try {
+            // Enviar email (operación externa, sin transacción) con un permiso global
+            enviarConPermiso(reminderData);
+            
+            // Éxito - actualizar turno (transacción corta y específica)
+            if (!actualizarTurnoExitoso(turno, intento)) {
+                log.warn("⚠️ Turno {} - recordatorio enviado pero el reclamo había vencido (otro nodo lo retomó)",
+                        turno.getId());
+            }
+            
+            // ✅ M6: Nivel debug para logs individuales de turnos (evita spam en producción)
+            log.debug("✅ Recordatorio enviado - Turno {} - Cliente: {} (Intento {}/{})", 
+                    turno.getId(), turno.getCliente().getEmail(), intento, config.getMaxRetries() + 1);
+            
+            return true;
+            
+        } catch (NotificationException e) {
+            if (e.getCause() instanceof InterruptedException) {
+                // Interrumpido esperando el límite de envío: no salió, se libera sin consumir un intento
+                Thread.currentThread().interrupt();
+                log.error("❌ Envío interrumpido para turno {} esperando el límite de envío", turno.getId());
                 resetearMarcaProcesamiento(turno);
                 return false;
             }
+            // Agendar el reintento o, si era el último, cerrar el recordatorio (transacción corta)
+            actualizarIntentoFallido(turno, intento, e.getRootCauseMessage());
+            return false;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            log.error("❌ Proceso interrumpido para turno {} esperando permiso de envío", turno.getId());
+            
+            // ✅ A4: Resetear marca de procesamiento para permitir reintentos futuros
+            resetearMarcaProcesamiento(turno);
+            return false;
+        } catch (Exception e) {
+            log.error("❌ Error inesperado al procesar turno {}: {}", turno.getId(), e.getMessage(), e);
+            
+            // ✅ A4: Resetear marca de procesamiento para permitir reintentos futuros
+            resetearMarcaProcesamiento(turno);
+            return false;
+        }
+    }
+    
+    /**
+     * Enviar reteniendo un permiso global: como mucho N recordatorios en curso, sumando todas las empresas.
+     * El ritmo lo fija el carril MASIVO de LimitadorEnvioEmail (antes, una pausa fija tras cada envío).
+     */
+    private void enviarConPermiso(ReminderData reminderData) throws InterruptedException {
+        permisosEnvio.acquire();
+        try {
+            notificationService.sendReminder(reminderData);
+        } finally {
+            permisosEnvio.release();
         }
-        
-        // ✅ A4: Todos los intentos fallaron - resetear marca para permitir reintentos en el futuro
-        resetearMarcaProcesamiento(turno);
-        
-        log.warn("⚠️ Turno {} - Todos los intentos fallaron", turno.getId());
-        return false;
     }
     
     /**
-     * Verificar si el turno ya alcanzó el máximo de reintentos.
+     * Verificar si el turno ya alcanzó el máximo de reintentos (1 intento + maxRetries reintentos).
      * Transacción corta y específica.
      */
     private boolean verificarMaximosReintentosAlcanzados(Turno turno) {
         int intentos = turno.getRecordatorioIntentos() != null ? turno.getRecordatorioIntentos() : 0;
         
-        if (intentos >= config.getMaxRetries()) {
+        if (intentos > config.getMaxRetries()) {
             log.warn("⚠️ Turno {} alcanzó máximo de reintentos ({}) - Marcando como fallido", 
                     turno.getId(), config.getMaxRetries());
             
             turno.setRecordatorioEnviado(true);
             turno.setRecordatorioError("Máximo de reintentos alcanzado");
-            repositorioTurno.save(turno);
+            turno.setRecordatorioProximoIntento(null);
+            repositorioTurno.descartarRecordatorio(
+                    turno.getId(), turno.getRecordatorioPrimerIntento(), intentos, turno.getRecordatorioError());
             return true;
         }
         
@@ -315,21 +351,25 @@ public class ReminderSchedulerService {
     /**
      * Actualizar turno tras envío exitoso.
      * Transacción corta y específica - solo escribe y commitea rápido.
-     * OPTIMIZADO (M1): Recibe objeto Turno, evita findById adicional.
+     * CORREGIDO (multi-nodo): UPDATE condicionado al reclamo en lugar de save() de la entidad completa.
+     * @return false si el reclamo ya no es de este nodo
      */
-    private void actualizarTurnoExitoso(Turno turno, int numeroIntento) {
+    private boolean actualizarTurnoExitoso(Turno turno, int numeroIntento) {
         turno.setRecordatorioEnviado(true);
         turno.setFechaRecordatorioEnviado(LocalDateTime.now());
         turno.setRecordatorioIntentos(numeroIntento);
         turno.setRecordatorioError(null);
         
-        repositorioTurno.save(turno); // save() hace merge automático si está detached
+        return repositorioTurno.confirmarRecordatorioEnviado(
+                turno.getId(), turno.getRecordatorioPrimerIntento(), turno.getFechaRecordatorioEnviado(), numeroIntento) > 0;
     }
     
     /**
      * Actualizar turno tras intento fallido.
      * Transacción corta y específica - solo escribe y commitea rápido.
-     * OPTIMIZADO (M1): Recibe objeto Turno, evita findById adicional.
+     * Con reintentos disponibles agenda el próximo (retryDelayMs * 2^(intento-1)) y libera el reclamo;
+     * si era el último (maxRetries + 1, igual que el bucle de reintentos original) cierra el recordatorio
+     * conservando el error.
      */
     private void actualizarIntentoFallido(Turno turno, int numeroIntento, String errorMsg) {
         turno.setRecordatorioIntentos(numeroIntento);
@@ -338,39 +378,75 @@ public class ReminderSchedulerService {
         String errorTruncado = errorMsg.length() > 500 ? errorMsg.substring(0, 500) : errorMsg;
         turno.setRecordatorioError(errorTruncado);
         
-        repositorioTurno.save(turno); // save() hace merge automático si está detached
-    }
-    
-    /**
-     * ✅ A4: Marcar inicio de procesamiento para prevenir duplicados.
-     * 
-     * Este timestamp se setea ANTES de empezar a procesar el turno.
-     * Mientras esté presente, la query de findTurnosPendientesRecordatorio excluirá este turno,
-     * previniendo que múltiples ejecuciones del scheduler procesen el mismo turno simultáneamente.
-     * 
-     * Transacción corta y específica.
-     * OPTIMIZADO (M1): Recibe objeto Turno, evita findById adicional.
-     */
-    private void marcarInicioProcesamiento(Turno turno) {
-        turno.setRecordatorioPrimerIntento(LocalDateTime.now());
-        repositorioTurno.save(turno); // save() hace merge automático si está detached
+        LocalDateTime reclamo = turno.getRecordatorioPrimerIntento();
+        int actualizados;
+        
+        // ✅ M4: Usar warn para fallos individuales que se reintentaran, error solo cuando se agoten todos los intentos
+        if (numeroIntento > config.getMaxRetries()) {
+            log.error("❌ Intento final {}/{} falló para turno {} - Error: {}", 
+                    numeroIntento, config.getMaxRetries() + 1, turno.getId(), errorMsg);
+            
+            turno.setRecordatorioEnviado(true);
+            turno.setRecordatorioProximoIntento(null);
+            actualizados = repositorioTurno.descartarRecordatorio(turno.getId(), reclamo, numeroIntento, errorTruncado);
+        } else {
+            long delay = config.getRetryDelayMs() * (long) Math.pow(2, numeroIntento - 1);
+            LocalDateTime proximoIntento = LocalDateTime.now().plus(delay, ChronoUnit.MILLIS);
+            log.warn("⚠️ Intento {}/{} falló para turno {} - Error: {} (se reintentará desde {})", 
+                    numeroIntento, config.getMaxRetries() + 1, turno.getId(), errorMsg, proximoIntento);
+            
+            turno.setRecordatorioProximoIntento(proximoIntento);
+            turno.setRecordatorioPrimerIntento(null);
+            actualizados = repositorioTurno.reprogramarRecordatorio(
+                    turno.getId(), reclamo, numeroIntento, errorTruncado, proximoIntento);
+        }
         
-        log.debug("🔒 Turno {} marcado como 'en procesamiento'", turno.getId());
+        if (actualizados == 0) {
+            // El reclamo venció y otro nodo retomó el turno: su registro manda
+            log.warn("⚠️ Turno {} - reclamo vencido, el fallo no se registra (lo procesa otro nodo)", turno.getId());
+        }
     }
     
     /**
-     * ✅ A4: Resetear marca de procesamiento cuando todos los intentos fallan.
+     * ✅ A4: Liberar el reclamo ante un error que no es del envío (interrupción, error inesperado).
      * 
-     * Esto permite que el scheduler vuelva a intentar enviar el recordatorio en el futuro
-     * (útil para errores transitorios de red, SMTP caído, etc.).
+     * Esto permite que el scheduler (de cualquier nodo) vuelva a intentar enviar el recordatorio en el futuro,
+     * sin consumir un intento. Si el reclamo ya venció, no toca nada.
      * 
      * Transacción corta y específica.
-     * OPTIMIZADO (M1): Recibe objeto Turno, evita findById adicional.
      */
     private void resetearMarcaProcesamiento(Turno turno) {
+        repositorioTurno.liberarReclamoRecordatorio(turno.getId(), turno.getRecordatorioPrimerIntento());
         turno.setRecordatorioPrimerIntento(null);
-        repositorioTurno.save(turno); // save() hace merge automático si está detached
         
         log.debug("🔓 Turno {} liberado para reintentos futuros", turno.getId());
     }
+
+    /**
+     * Contadores de una ejecución, compartidos por los hilos virtuales de los turnos.
+     */
+    private static final class EjecucionRecordatorios {
+        private final AtomicInteger enviados = new AtomicInteger();
+        private final AtomicInteger errores = new AtomicInteger();
+        private final LongAdder demoraTotalSegundos = new LongAdder();
+        private final AtomicLong demoraMaximaSegundos = new AtomicLong();
+
+        void registrarEnvio(Duration demora) {
+            long segundos = Math.max(0, demora.toSeconds());
+            enviados.incrementAndGet();
+            demoraTotalSegundos.add(segundos);
+            demoraMaximaSegundos.accumulateAndGet(segundos, Math::max);
+        }
+
+        long demoraPromedioSegundos() {
+            int total = enviados.get();
+            return total > 0 ? demoraTotalSegundos.sum() / total : 0;
+        }
+    }
+
+    /**
+     * Métricas del scheduler de recordatorios.
+     */
+    public record Estadisticas(long recordatoriosEnReintento, LocalDateTime ultimaEjecucion, int reclamados,
+                               int enviados, int errores, long duracionMs, long demoraMaximaSegundos) {}
 }
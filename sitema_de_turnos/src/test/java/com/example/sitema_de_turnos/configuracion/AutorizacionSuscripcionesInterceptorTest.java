@@ -0,0 +1,77 @@
+package com.example.sitema_de_turnos.configuracion;
+
+import com.example.sitema_de_turnos.modelo.Usuario;
+import com.example.sitema_de_turnos.repositorio.RepositorioUsuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.security.Principal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de AutorizacionSuscripcionesInterceptor: tópicos públicos, propios y ajenos.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AutorizacionSuscripcionesInterceptor Tests")
+class AutorizacionSuscripcionesInterceptorTest {
+
+    private static final Principal PROFESIONAL = () -> "pro@test.com";
+
+    @Mock
+    private RepositorioUsuario repositorioUsuario;
+
+    @InjectMocks
+    private AutorizacionSuscripcionesInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        Usuario usuario = new Usuario();
+        usuario.setId(42L);
+        usuario.setEmail("pro@test.com");
+        lenient().when(repositorioUsuario.findByEmail("pro@test.com")).thenReturn(Optional.of(usuario));
+    }
+
+    @Test
+    @DisplayName("Los tópicos de disponibilidad se pueden suscribir sin sesión")
+    void debePermitirDisponibilidadAnonima() {
+        assertDoesNotThrow(() -> interceptor.autorizar("/topic/disponibilidad/empresa/3/2030-01-10", null));
+    }
+
+    @Test
+    @DisplayName("Un profesional puede suscribirse a su propio tópico de notificaciones")
+    void debePermitirTopicoPropio() {
+        assertDoesNotThrow(() -> interceptor.autorizar("/topic/notifications/42", PROFESIONAL));
+    }
+
+    @Test
+    @DisplayName("Un usuario autenticado no puede suscribirse a las notificaciones de otro")
+    void debeRechazarTopicoAjeno() {
+        assertThrows(AccessDeniedException.class, () -> interceptor.autorizar("/topic/notifications/43", PROFESIONAL));
+        assertThrows(AccessDeniedException.class, () -> interceptor.autorizar("/topic/notifications/*", PROFESIONAL));
+        assertThrows(AccessDeniedException.class, () -> interceptor.autorizar("/topic/notifications/42", () -> "cliente:1:otro@test.com"));
+    }
+
+    @Test
+    @DisplayName("Sin sesión solo se permiten los tópicos públicos")
+    void debeRechazarAnonimoFueraDeDisponibilidad() {
+        assertThrows(AccessDeniedException.class, () -> interceptor.autorizar("/topic/notifications/42", null));
+        assertThrows(AccessDeniedException.class, () -> interceptor.autorizar("/user/queue/errores", null));
+        verifyNoInteractions(repositorioUsuario);
+    }
+
+    @Test
+    @DisplayName("Otros tópicos de broadcast se rechazan aunque haya sesión")
+    void debeRechazarTopicosDesconocidos() {
+        assertThrows(AccessDeniedException.class, () -> interceptor.autorizar("/topic/otro", PROFESIONAL));
+        assertThrows(AccessDeniedException.class, () -> interceptor.autorizar(null, PROFESIONAL));
+    }
+}
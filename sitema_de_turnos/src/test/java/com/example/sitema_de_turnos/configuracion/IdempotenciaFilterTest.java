@@ -0,0 +1,248 @@
+package com.example.sitema_de_turnos.configuracion;
+
+import com.example.sitema_de_turnos.modelo.ClaveIdempotencia;
+import com.example.sitema_de_turnos.repositorio.RepositorioClaveIdempotencia;
+import com.example.sitema_de_turnos.servicio.ServicioIdempotencia;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de IdempotenciaFilter con el ServicioIdempotencia real y el repositorio simulado:
+ * repetición de la respuesta guardada, 409 en proceso, 422 con otro cuerpo y liberación ante errores.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotenciaFilter Tests")
+class IdempotenciaFilterTest {
+
+    private static final String URI_RESERVA = "/api/publico/empresa/demo/turnos";
+    private static final String CUERPO = "{\"servicioId\":1,\"fecha\":\"2030-01-10\",\"horaInicio\":\"10:00\"}";
+    private static final String RESPUESTA = "{\"exito\":true,\"datos\":{\"id\":99}}";
+
+    @Mock
+    private RepositorioClaveIdempotencia repositorioClaveIdempotencia;
+
+    private IdempotenciaFilter filtro;
+    private AtomicInteger llamadasControlador;
+
+    @BeforeEach
+    void setUp() {
+        ServicioIdempotencia servicio = new ServicioIdempotencia(repositorioClaveIdempotencia, 24, 120, 100);
+        filtro = new IdempotenciaFilter(servicio);
+        llamadasControlador = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Un reintento con la misma clave y cuerpo recibe la respuesta guardada sin llegar al controlador")
+    void debeRepetirRespuestaGuardada() throws Exception {
+        when(repositorioClaveIdempotencia.reservar(anyString(), anyString(), any(), any())).thenReturn(1);
+
+        MockHttpServletResponse primera = ejecutar(solicitud("clave-1", CUERPO), controlador(201, RESPUESTA));
+        MockHttpServletResponse repetida = ejecutar(solicitud("clave-1", CUERPO), controlador(201, RESPUESTA));
+
+        assertEquals(1, llamadasControlador.get());
+        assertEquals(201, primera.getStatus());
+        assertEquals(201, repetida.getStatus());
+        assertEquals(RESPUESTA, repetida.getContentAsString());
+        assertEquals("true", repetida.getHeader("Idempotent-Replayed"));
+        assertNull(primera.getHeader("Idempotent-Replayed"));
+        verify(repositorioClaveIdempotencia).completar(anyString(), eq(201), anyString(), eq(RESPUESTA), any());
+        verify(repositorioClaveIdempotencia, never()).liberar(anyString());
+    }
+
+    @Test
+    @DisplayName("La respuesta guardada en otro nodo también se repite (fila con estado)")
+    void debeRepetirRespuestaDeLaBase() throws Exception {
+        when(repositorioClaveIdempotencia.reservar(anyString(), anyString(), any(), any())).thenReturn(0);
+        when(repositorioClaveIdempotencia.findById(anyString())).thenAnswer(inv ->
+                Optional.of(fila(inv.getArgument(0), huellaDe(CUERPO), 201, RESPUESTA)));
+
+        MockHttpServletResponse respuesta = ejecutar(solicitud("clave-1", CUERPO), controlador(201, "otra"));
+
+        assertEquals(0, llamadasControlador.get());
+        assertEquals(201, respuesta.getStatus());
+        assertEquals(RESPUESTA, respuesta.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Mientras la original se procesa, el reintento recibe 409")
+    void debeResponder409EnProceso() throws Exception {
+        when(repositorioClaveIdempotencia.reservar(anyString(), anyString(), any(), any())).thenReturn(0);
+        when(repositorioClaveIdempotencia.findById(anyString())).thenAnswer(inv ->
+                Optional.of(fila(inv.getArgument(0), huellaDe(CUERPO), null, null)));
+
+        MockHttpServletResponse respuesta = ejecutar(solicitud("clave-1", CUERPO), controlador(201, RESPUESTA));
+
+        assertEquals(409, respuesta.getStatus());
+        assertEquals(0, llamadasControlador.get());
+    }
+
+    @Test
+    @DisplayName("La misma clave con otro cuerpo recibe 422")
+    void debeResponder422ConOtroCuerpo() throws Exception {
+        when(repositorioClaveIdempotencia.reservar(anyString(), anyString(), any(), any())).thenReturn(1);
+        ejecutar(solicitud("clave-1", CUERPO), controlador(201, RESPUESTA));
+
+        MockHttpServletResponse respuesta = ejecutar(
+                solicitud("clave-1", CUERPO.replace("10:00", "11:00")), controlador(201, RESPUESTA));
+
+        assertEquals(422, respuesta.getStatus());
+        assertEquals(1, llamadasControlador.get());
+    }
+
+    @Test
+    @DisplayName("Una respuesta de error libera la clave y no se guarda")
+    void debeLiberarAnteErrores() throws Exception {
+        when(repositorioClaveIdempotencia.reservar(anyString(), anyString(), any(), any())).thenReturn(1);
+
+        MockHttpServletResponse respuesta = ejecutar(solicitud("clave-1", CUERPO),
+                controlador(409, "{\"exito\":false}"));
+
+        assertEquals(409, respuesta.getStatus());
+        assertEquals("{\"exito\":false}", respuesta.getContentAsString());
+        verify(repositorioClaveIdempotencia).liberar(anyString());
+        verify(repositorioClaveIdempotencia, never()).completar(anyString(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Una excepción del controlador libera la clave")
+    void debeLiberarAnteExcepcion() {
+        when(repositorioClaveIdempotencia.reservar(anyString(), anyString(), any(), any())).thenReturn(1);
+
+        assertThrows(IllegalStateException.class, () -> ejecutar(solicitud("clave-1", CUERPO), (req, res) -> {
+            throw new IllegalStateException("falla");
+        }));
+
+        verify(repositorioClaveIdempotencia).liberar(anyString());
+    }
+
+    @Test
+    @DisplayName("Si falla guardar una respuesta 2xx la clave no se libera y el cliente recibe la respuesta")
+    void noDebeLiberarSiFallaRegistrarExito() throws Exception {
+        when(repositorioClaveIdempotencia.reservar(anyString(), anyString(), any(), any())).thenReturn(1);
+        when(repositorioClaveIdempotencia.completar(anyString(), anyInt(), any(), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("base caída"));
+
+        MockHttpServletResponse respuesta = ejecutar(solicitud("clave-1", CUERPO), controlador(201, RESPUESTA));
+
+        assertEquals(201, respuesta.getStatus());
+        assertEquals(RESPUESTA, respuesta.getContentAsString());
+        verify(repositorioClaveIdempotencia, never()).liberar(anyString());
+    }
+
+    @Test
+    @DisplayName("El controlador puede leer el cuerpo también con lectura asíncrona (ReadListener)")
+    void debeSoportarReadListener() throws Exception {
+        when(repositorioClaveIdempotencia.reservar(anyString(), anyString(), any(), any())).thenReturn(1);
+        ByteArrayOutputStream leido = new ByteArrayOutputStream();
+        AtomicInteger completas = new AtomicInteger();
+
+        ejecutar(solicitud("clave-1", CUERPO), (req, res) -> {
+            ServletInputStream entrada = req.getInputStream();
+            entrada.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    byte[] buffer = new byte[8];
+                    while (entrada.isReady() && !entrada.isFinished()) {
+                        int n = entrada.read(buffer);
+                        if (n > 0) {
+                            leido.write(buffer, 0, n);
+                        }
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    completas.incrementAndGet();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    fail(t);
+                }
+            });
+            ((HttpServletResponse) res).setStatus(200);
+        });
+
+        assertEquals(CUERPO, leido.toString(StandardCharsets.UTF_8));
+        assertEquals(1, completas.get());
+    }
+
+    @Test
+    @DisplayName("Sin Idempotency-Key la solicitud pasa sin tocar el registro")
+    void debeIgnorarSolicitudesSinClave() throws Exception {
+        MockHttpServletRequest request = solicitud(null, CUERPO);
+
+        ejecutar(request, controlador(201, RESPUESTA));
+
+        assertEquals(1, llamadasControlador.get());
+        verifyNoInteractions(repositorioClaveIdempotencia);
+    }
+
+    private MockHttpServletResponse ejecutar(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request, response, chain);
+        return response;
+    }
+
+    private FilterChain controlador(int estado, String cuerpoRespuesta) {
+        return (req, res) -> {
+            llamadasControlador.incrementAndGet();
+            // El controlador vuelve a leer el cuerpo que el filtro ya consumió para la huella
+            assertEquals(CUERPO.length(), req.getInputStream().readAllBytes().length, "cuerpo disponible");
+            HttpServletResponse http = (HttpServletResponse) res;
+            http.setStatus(estado);
+            http.setContentType("application/json");
+            http.getOutputStream().write(cuerpoRespuesta.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private static MockHttpServletRequest solicitud(String clave, String cuerpo) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", URI_RESERVA);
+        if (clave != null) {
+            request.addHeader("Idempotency-Key", clave);
+        }
+        request.setContentType("application/json");
+        request.setContent(cuerpo.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static ClaveIdempotencia fila(String clave, String huella, Integer estado, String cuerpo) {
+        ClaveIdempotencia fila = new ClaveIdempotencia();
+        fila.setClave(clave);
+        fila.setHuella(huella);
+        fila.setEstadoHttp(estado);
+        fila.setTipoContenido(estado != null ? "application/json" : null);
+        fila.setCuerpoRespuesta(cuerpo);
+        fila.setExpiraEn(Instant.now().plusSeconds(3600));
+        return fila;
+    }
+
+    private static String huellaDe(String cuerpo) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(cuerpo.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.sitema_de_turnos.controlador;
+
+import com.example.sitema_de_turnos.dto.ApiResponse;
+import com.example.sitema_de_turnos.dto.publico.SlotDisponibleResponse;
+import com.example.sitema_de_turnos.evento.AgendaModificadaEvent;
+import com.example.sitema_de_turnos.evento.CatalogoModificadoEvent;
+import com.example.sitema_de_turnos.evento.SlotTurnoEvent;
+import com.example.sitema_de_turnos.modelo.Empresa;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import com.example.sitema_de_turnos.servicio.ServicioAutenticacionCliente;
+import com.example.sitema_de_turnos.servicio.ServicioPublico;
+import com.example.sitema_de_turnos.servicio.ServicioRetencionSlot;
+import com.example.sitema_de_turnos.servicio.ServicioSerieTurnos;
+import com.example.sitema_de_turnos.servicio.ServicioTurno;
+import com.example.sitema_de_turnos.servicio.agenda.VersionesAgenda;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de los ETag de disponibilidad (ControladorPublico + VersionesAgenda): 304 con If-None-Match
+ * vigente y ETag nuevo después de una reserva o un cambio de agenda.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ControladorPublico - ETag de disponibilidad")
+class ControladorPublicoEtagTest {
+
+    private static final String SLUG = "peluqueria";
+    private static final Long SERVICIO_ID = 10L;
+    private static final Long PROFESIONAL_ID = 5L;
+
+    @Mock private ServicioPublico servicioPublico;
+    @Mock private ServicioTurno servicioTurno;
+    @Mock private ServicioAutenticacionCliente servicioAutenticacionCliente;
+    @Mock private AuthenticationManager authenticationManager;
+    @Mock private ServicioRetencionSlot servicioRetencionSlot;
+    @Mock private ServicioSerieTurnos servicioSerieTurnos;
+
+    private VersionesAgenda versionesAgenda;
+    private ControladorPublico controlador;
+    private PerfilProfesional profesional;
+    /** Fuera de los días sensibles al reloj: el ETag solo cambia por versión (o al cambiar la hora). */
+    private LocalDate fecha;
+
+    @BeforeEach
+    void setUp() {
+        versionesAgenda = new VersionesAgenda();
+        controlador = new ControladorPublico(servicioPublico, servicioTurno, servicioAutenticacionCliente,
+            authenticationManager, versionesAgenda, servicioRetencionSlot, servicioSerieTurnos);
+
+        Empresa empresa = new Empresa();
+        empresa.setId(1L);
+        empresa.setSlug(SLUG);
+        profesional = new PerfilProfesional();
+        profesional.setId(PROFESIONAL_ID);
+        profesional.setEmpresa(empresa);
+
+        fecha = LocalDate.now(ZoneOffset.UTC).plusDays(10);
+        lenient().when(servicioPublico.obtenerSlotsDisponibles(anyString(), anyLong(), any(), any(), any()))
+            .thenReturn(List.of());
+    }
+
+    private ResponseEntity<ApiResponse<List<SlotDisponibleResponse>>> consultar(Long profesionalId, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/publico/disponibilidad");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        ServletWebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+        return controlador.obtenerDisponibilidad(SLUG, SERVICIO_ID, profesionalId, fecha, null, webRequest);
+    }
+
+    @Test
+    @DisplayName("Con If-None-Match vigente responde 304 sin calcular slots")
+    void debeResponder304ConEtagVigente() {
+        ResponseEntity<?> primera = consultar(PROFESIONAL_ID, null);
+        String etag = primera.getHeaders().getETag();
+        assertEquals(HttpStatus.OK, primera.getStatusCode());
+        assertNotNull(etag);
+
+        ResponseEntity<?> segunda = consultar(PROFESIONAL_ID, etag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, segunda.getStatusCode());
+        assertNull(segunda.getBody());
+        verify(servicioPublico, times(1)).obtenerSlotsDisponibles(anyString(), anyLong(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Una reserva en la fecha cambia el ETag del profesional y del modo cualquier profesional")
+    void debeCambiarEtagTrasUnaReserva() {
+        String etagProfesional = consultar(PROFESIONAL_ID, null).getHeaders().getETag();
+        String etagEmpresa = consultar(null, null).getHeaders().getETag();
+
+        versionesAgenda.onAgendaModificada(AgendaModificadaEvent.dia(profesional, fecha));
+
+        ResponseEntity<?> profesionalDespues = consultar(PROFESIONAL_ID, etagProfesional);
+        ResponseEntity<?> empresaDespues = consultar(null, etagEmpresa);
+        assertEquals(HttpStatus.OK, profesionalDespues.getStatusCode());
+        assertEquals(HttpStatus.OK, empresaDespues.getStatusCode());
+        assertNotEquals(etagProfesional, profesionalDespues.getHeaders().getETag());
+        assertNotEquals(etagEmpresa, empresaDespues.getHeaders().getETag());
+    }
+
+    @Test
+    @DisplayName("Un cambio de disponibilidad semanal (todo el horizonte) cambia el ETag de cada fecha")
+    void debeCambiarEtagTrasCambioDeAgenda() {
+        String etag = consultar(PROFESIONAL_ID, null).getHeaders().getETag();
+
+        versionesAgenda.onAgendaModificada(AgendaModificadaEvent.todo(profesional));
+
+        ResponseEntity<?> despues = consultar(PROFESIONAL_ID, etag);
+        assertEquals(HttpStatus.OK, despues.getStatusCode());
+        assertNotEquals(etag, despues.getHeaders().getETag());
+    }
+
+    @Test
+    @DisplayName("Retenciones y cambios de catálogo también invalidan el ETag")
+    void debeCambiarEtagTrasRetencionOCatalogo() {
+        String etag = consultar(PROFESIONAL_ID, null).getHeaders().getETag();
+        versionesAgenda.onRetencion(SlotTurnoEvent.retenido(SLUG, PROFESIONAL_ID, fecha,
+            LocalTime.of(10, 0), LocalTime.of(10, 30)));
+        String trasRetencion = consultar(PROFESIONAL_ID, null).getHeaders().getETag();
+        versionesAgenda.onCatalogoModificado(new CatalogoModificadoEvent(1L, SLUG));
+        String trasCatalogo = consultar(PROFESIONAL_ID, null).getHeaders().getETag();
+
+        assertNotEquals(etag, trasRetencion);
+        assertNotEquals(trasRetencion, trasCatalogo);
+    }
+
+    @Test
+    @DisplayName("Una reserva de otro día u otro profesional no invalida el ETag")
+    void noDebeCambiarEtagPorCambiosAjenos() {
+        String etag = consultar(PROFESIONAL_ID, null).getHeaders().getETag();
+
+        versionesAgenda.onAgendaModificada(AgendaModificadaEvent.dia(profesional, fecha.plusDays(1)));
+        PerfilProfesional otro = new PerfilProfesional();
+        otro.setId(PROFESIONAL_ID + 1);
+        otro.setEmpresa(profesional.getEmpresa());
+        versionesAgenda.onAgendaModificada(AgendaModificadaEvent.dia(otro, fecha));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, consultar(PROFESIONAL_ID, etag).getStatusCode());
+    }
+}
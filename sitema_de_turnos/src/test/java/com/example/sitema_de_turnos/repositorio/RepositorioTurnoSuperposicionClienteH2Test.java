@@ -0,0 +1,190 @@
+package com.example.sitema_de_turnos.repositorio;
+
+import com.example.sitema_de_turnos.configuracion.IndicesConcurrenciaConfig;
+import com.example.sitema_de_turnos.modelo.Cliente;
+import com.example.sitema_de_turnos.modelo.Empresa;
+import com.example.sitema_de_turnos.modelo.EstadoTurno;
+import com.example.sitema_de_turnos.modelo.PerfilDueno;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import com.example.sitema_de_turnos.modelo.RolUsuario;
+import com.example.sitema_de_turnos.modelo.Servicio;
+import com.example.sitema_de_turnos.modelo.Turno;
+import com.example.sitema_de_turnos.modelo.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Consulta EXISTS de superposición global del cliente (RepositorioTurno#existeSuperposicionCliente)
+ * sobre H2 en memoria (modo PostgreSQL): intervalos semiabiertos sin buffer, email sin distinguir
+ * mayúsculas, turnos de otras sucursales y estados que no bloquean.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:superposicion;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.notification.email.enabled=false",
+        "app.turnos.expiration.cron=-",
+        "app.reminder.cron=-",
+        "app.outbox.intervalo-ms=3600000"
+})
+class RepositorioTurnoSuperposicionClienteH2Test {
+
+    private static final List<String> ESTADOS_BLOQUEANTES =
+        List.of(EstadoTurno.CONFIRMADO.name(), EstadoTurno.PENDIENTE_PAGO.name());
+    private static final LocalTime INICIO = LocalTime.of(10, 0);
+    private static final int DURACION_MINUTOS = 30;
+    private static final int BUFFER_MINUTOS = 15;
+
+    // La restricción de exclusión y el índice parcial son DDL de PostgreSQL
+    @MockitoBean private IndicesConcurrenciaConfig indicesConcurrenciaConfig;
+
+    @Autowired private RepositorioTurno repositorioTurno;
+    @Autowired private RepositorioUsuario repositorioUsuario;
+    @Autowired private RepositorioEmpresa repositorioEmpresa;
+    @Autowired private RepositorioPerfilProfesional repositorioPerfilProfesional;
+    @Autowired private RepositorioServicio repositorioServicio;
+    @Autowired private RepositorioCliente repositorioCliente;
+
+    private String sufijo;
+    private String email;
+    private LocalDate fecha;
+
+    @BeforeEach
+    void setUp() {
+        sufijo = Long.toString(System.nanoTime());
+        email = "cliente" + sufijo + "@superposicion.test";
+        fecha = LocalDate.of(2030, 3, 15);
+    }
+
+    @Test
+    @DisplayName("Turnos que solo se tocan en un extremo no se superponen (el buffer no cuenta)")
+    void turnosContiguosNoSeSuperponen() {
+        // Ocupa [10:00, 10:30) más 15 minutos de buffer del profesional
+        reservar(nuevaEmpresa("a"), email, INICIO, EstadoTurno.CONFIRMADO);
+
+        assertFalse(existe(email, LocalTime.of(10, 30), LocalTime.of(11, 0)), "Empieza justo cuando termina");
+        assertFalse(existe(email, LocalTime.of(9, 30), LocalTime.of(10, 0)), "Termina justo cuando empieza");
+        assertFalse(existe(email, LocalTime.of(10, 35), LocalTime.of(11, 5)), "Dentro del buffer, fuera del turno");
+    }
+
+    @Test
+    @DisplayName("Un minuto de cruce en cualquier extremo, o un intervalo que lo contiene, se superpone")
+    void cruceDeUnMinutoSeSuperpone() {
+        reservar(nuevaEmpresa("a"), email, INICIO, EstadoTurno.PENDIENTE_PAGO);
+
+        assertTrue(existe(email, LocalTime.of(10, 29), LocalTime.of(10, 59)));
+        assertTrue(existe(email, LocalTime.of(9, 31), LocalTime.of(10, 1)));
+        assertTrue(existe(email, LocalTime.of(9, 0), LocalTime.of(11, 0)));
+        assertTrue(existe(email, LocalTime.of(10, 10), LocalTime.of(10, 20)));
+    }
+
+    @Test
+    @DisplayName("Compara el email sin distinguir mayúsculas y encuentra turnos de cualquier sucursal")
+    void debeEncontrarTurnoDeOtraSucursal() {
+        // Misma persona registrada como cliente en dos empresas
+        reservar(nuevaEmpresa("a"), email.toUpperCase(), INICIO, EstadoTurno.CONFIRMADO);
+        reservar(nuevaEmpresa("b"), email, LocalTime.of(12, 0), EstadoTurno.CONFIRMADO);
+
+        assertTrue(existe(email, LocalTime.of(10, 15), LocalTime.of(10, 45)));
+        assertTrue(existe(email.toUpperCase(), LocalTime.of(12, 15), LocalTime.of(12, 45)));
+        assertFalse(existe(email, LocalTime.of(11, 0), LocalTime.of(11, 30)));
+    }
+
+    @Test
+    @DisplayName("Turnos cancelados, de otra fecha o de otro cliente no bloquean")
+    void noDebenBloquearTurnosAjenos() {
+        Empresa empresa = nuevaEmpresa("a");
+        reservar(empresa, email, INICIO, EstadoTurno.CANCELADO);
+        reservar(empresa, "otro" + sufijo + "@superposicion.test", INICIO, EstadoTurno.CONFIRMADO);
+
+        assertFalse(existe(email, INICIO, INICIO.plusMinutes(DURACION_MINUTOS)));
+        assertFalse(repositorioTurno.existeSuperposicionCliente(email, fecha.plusDays(1), ESTADOS_BLOQUEANTES,
+            INICIO, INICIO.plusMinutes(DURACION_MINUTOS)));
+    }
+
+    private boolean existe(String emailCliente, LocalTime horaInicio, LocalTime horaFin) {
+        return repositorioTurno.existeSuperposicionCliente(emailCliente, fecha, ESTADOS_BLOQUEANTES, horaInicio, horaFin);
+    }
+
+    private Empresa nuevaEmpresa(String sucursal) {
+        String clave = sucursal + sufijo;
+        PerfilDueno dueno = new PerfilDueno();
+        dueno.setUsuario(repositorioUsuario.save(nuevoUsuario("dueno" + clave, RolUsuario.DUENO)));
+
+        Empresa empresa = new Empresa();
+        empresa.setNombre("Sucursal " + sucursal);
+        empresa.setSlug("superposicion-" + clave);
+        empresa.setCuit("2" + (sucursal.charAt(0) - 'a') + sufijo.substring(sufijo.length() - 9));
+        empresa.setPerfilDueno(dueno);
+        return repositorioEmpresa.save(empresa);
+    }
+
+    private void reservar(Empresa empresa, String emailCliente, LocalTime horaInicio, EstadoTurno estado) {
+        PerfilProfesional profesional = new PerfilProfesional();
+        profesional.setUsuario(repositorioUsuario.save(
+            nuevoUsuario("profesional" + System.nanoTime(), RolUsuario.PROFESIONAL)));
+        profesional.setEmpresa(empresa);
+        profesional = repositorioPerfilProfesional.save(profesional);
+
+        Servicio servicio = new Servicio();
+        servicio.setNombre("Consulta");
+        servicio.setDuracionMinutos(DURACION_MINUTOS);
+        servicio.setBufferMinutos(BUFFER_MINUTOS);
+        servicio.setPrecio(BigDecimal.valueOf(1000));
+        servicio.setRequiereSena(false);
+        servicio.setEmpresa(empresa);
+        servicio = repositorioServicio.save(servicio);
+
+        Cliente cliente = new Cliente();
+        cliente.setEmpresa(empresa);
+        cliente.setNombre("Cliente");
+        cliente.setEmail(emailCliente);
+        cliente.setTieneUsuario(false);
+        cliente.setTelefonoValidado(false);
+        cliente.setActivo(true);
+        cliente = repositorioCliente.save(cliente);
+
+        Turno turno = new Turno();
+        turno.setEmpresa(empresa);
+        turno.setServicio(servicio);
+        turno.setProfesional(profesional);
+        turno.setCliente(cliente);
+        turno.setFecha(fecha);
+        turno.setHoraInicio(horaInicio);
+        turno.setHoraFin(horaInicio.plusMinutes(DURACION_MINUTOS + BUFFER_MINUTOS));
+        turno.setDuracionMinutos(DURACION_MINUTOS);
+        turno.setBufferMinutos(BUFFER_MINUTOS);
+        turno.setPrecio(servicio.getPrecio());
+        turno.setEstado(estado);
+        repositorioTurno.save(turno);
+    }
+
+    private Usuario nuevoUsuario(String rol, RolUsuario rolUsuario) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Superposicion");
+        usuario.setApellido(rol);
+        usuario.setEmail(rol + "@superposicion-h2.test");
+        usuario.setContrasena("secret");
+        usuario.setTelefono("+5491100000000");
+        usuario.getRoles().add(rolUsuario);
+        return usuario;
+    }
+}
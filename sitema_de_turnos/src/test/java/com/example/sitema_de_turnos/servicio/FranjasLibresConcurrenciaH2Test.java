@@ -0,0 +1,311 @@
+package com.example.sitema_de_turnos.servicio;
+
+import com.example.sitema_de_turnos.configuracion.IndicesConcurrenciaConfig;
+import com.example.sitema_de_turnos.dto.publico.CrearTurnoRequest;
+import com.example.sitema_de_turnos.dto.publico.SlotDisponibleResponse;
+import com.example.sitema_de_turnos.excepcion.SolapamientoException;
+import com.example.sitema_de_turnos.modelo.Cliente;
+import com.example.sitema_de_turnos.modelo.DiaSemana;
+import com.example.sitema_de_turnos.modelo.DisponibilidadProfesional;
+import com.example.sitema_de_turnos.modelo.Empresa;
+import com.example.sitema_de_turnos.modelo.PerfilDueno;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import com.example.sitema_de_turnos.modelo.RolUsuario;
+import com.example.sitema_de_turnos.modelo.Servicio;
+import com.example.sitema_de_turnos.modelo.Usuario;
+import com.example.sitema_de_turnos.repositorio.RepositorioCliente;
+import com.example.sitema_de_turnos.repositorio.RepositorioDisponibilidadProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioEmpresa;
+import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioServicio;
+import com.example.sitema_de_turnos.repositorio.RepositorioUsuario;
+import com.example.sitema_de_turnos.servicio.agenda.CargadorAgenda;
+import com.example.sitema_de_turnos.servicio.agenda.MapaOcupacionDia;
+import com.example.sitema_de_turnos.servicio.agenda.ServicioFranjasLibres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Recálculo concurrente de {@code franjas_libres} sobre H2 en memoria (modo PostgreSQL).
+ *
+ * Un día todavía sin fila en agenda_dias no tiene nada que bloquear con FOR UPDATE: los recálculos
+ * concurrentes deben serializarse con el advisory lock de agenda (emulado con {@link H2EmulacionPostgres})
+ * y el modelo de lectura tiene que terminar igual al cálculo en vivo. Si el recálculo falla, el día se
+ * descarta y las consultas vuelven al cálculo en vivo.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:franjas;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=16",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.notification.email.enabled=false",
+        "app.turnos.expiration.cron=-",
+        "app.reminder.cron=-",
+        "app.outbox.intervalo-ms=3600000"
+})
+class FranjasLibresConcurrenciaH2Test {
+
+    private static final LocalTime APERTURA = LocalTime.of(8, 0);
+    private static final LocalTime CIERRE = LocalTime.of(20, 0);
+    private static final int DURACION_MINUTOS = 30;
+    private static final int CONCURRENTES = 12;
+
+    // La restricción de exclusión y el índice parcial son DDL de PostgreSQL: los reemplaza el trigger de H2
+    @MockitoBean private IndicesConcurrenciaConfig indicesConcurrenciaConfig;
+
+    @Autowired private ServicioTurno servicioTurno;
+    // Espía: el test de recálculo fallido lo hace lanzar; el resto usa el comportamiento real
+    @MockitoSpyBean private ServicioFranjasLibres servicioFranjasLibres;
+    @Autowired private ServicioPublico servicioPublico;
+    @Autowired private CargadorAgenda cargadorAgenda;
+    @Autowired private RepositorioUsuario repositorioUsuario;
+    @Autowired private RepositorioEmpresa repositorioEmpresa;
+    @Autowired private RepositorioPerfilProfesional repositorioPerfilProfesional;
+    @Autowired private RepositorioServicio repositorioServicio;
+    @Autowired private RepositorioDisponibilidadProfesional repositorioDisponibilidadProfesional;
+    @Autowired private RepositorioCliente repositorioCliente;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private Empresa empresa;
+    private PerfilProfesional profesional;
+    private Servicio servicio;
+    private LocalDate dia;
+
+    @BeforeEach
+    void setUp() {
+        H2EmulacionPostgres.instalar(jdbcTemplate);
+        String sufijo = Long.toString(System.nanoTime());
+
+        PerfilDueno dueno = new PerfilDueno();
+        dueno.setUsuario(repositorioUsuario.save(nuevoUsuario("dueno" + sufijo, RolUsuario.DUENO)));
+
+        empresa = new Empresa();
+        empresa.setNombre("Franjas H2");
+        empresa.setSlug("franjas-h2-" + sufijo);
+        empresa.setCuit("20" + sufijo.substring(sufijo.length() - 9));
+        empresa.setDiasMaximosReserva(7);
+        empresa.setPerfilDueno(dueno);
+        empresa = repositorioEmpresa.save(empresa);
+
+        profesional = new PerfilProfesional();
+        profesional.setUsuario(repositorioUsuario.save(nuevoUsuario("profesional" + sufijo, RolUsuario.PROFESIONAL)));
+        profesional.setEmpresa(empresa);
+        profesional = repositorioPerfilProfesional.save(profesional);
+
+        for (DiaSemana diaSemana : DiaSemana.values()) {
+            DisponibilidadProfesional disponibilidad = new DisponibilidadProfesional();
+            disponibilidad.setProfesional(profesional);
+            disponibilidad.setDiaSemana(diaSemana);
+            disponibilidad.setHoraInicio(APERTURA);
+            disponibilidad.setHoraFin(CIERRE);
+            repositorioDisponibilidadProfesional.save(disponibilidad);
+        }
+
+        servicio = new Servicio();
+        servicio.setNombre("Consulta");
+        servicio.setDuracionMinutos(DURACION_MINUTOS);
+        servicio.setBufferMinutos(0);
+        servicio.setPrecio(BigDecimal.valueOf(1000));
+        servicio.setRequiereSena(false);
+        servicio.setEmpresa(empresa);
+        servicio = repositorioServicio.save(servicio);
+
+        // Mismo reloj que el servicio: "hoy" en la zona horaria de la empresa
+        dia = LocalDate.now(ZoneId.of(empresa.getTimezone())).plusDays(2);
+    }
+
+    @Test
+    @DisplayName("Recálculos concurrentes de un día sin fila: todos terminan y queda una sola fila")
+    void recalculosConcurrentesDeDiaSinFila() throws Exception {
+        List<Callable<Integer>> recalculos = new ArrayList<>();
+        for (int i = 0; i < CONCURRENTES; i++) {
+            recalculos.add(() -> servicioFranjasLibres.recalcular(profesional.getId(), dia, dia));
+        }
+
+        for (Integer dias : ejecutarALaVez(recalculos)) {
+            assertEquals(1, dias, "Cada recálculo debe materializar el día sin chocar con uk_agenda_dia_profesional_fecha");
+        }
+        assertEquals(1, filasAgendaDia(), "Debe quedar una sola fila de agenda_dias para el día");
+        assertArrayEquals(iniciosEnVivo(), iniciosMaterializados());
+    }
+
+    @Test
+    @DisplayName("Reservas concurrentes en un día sin materializar: las franjas terminan iguales al cálculo en vivo")
+    void reservasConcurrentesDejanFranjasAlDia() throws Exception {
+        List<Callable<Object>> reservas = new ArrayList<>();
+        for (int i = 0; i < CONCURRENTES; i++) {
+            String email = "cliente" + i + "@franjas.test";
+            Cliente cliente = nuevoClienteInvitado("Cliente " + i, email);
+            CrearTurnoRequest request = nuevaReserva(APERTURA.plusMinutes(30L * i), "Cliente " + i, email);
+            reservas.add(() -> {
+                try {
+                    return servicioTurno.crearTurnoPublico(empresa.getSlug(), cliente, request);
+                } catch (SolapamientoException e) {
+                    return null;
+                }
+            });
+        }
+
+        // Cada commit dispara su recálculo (AFTER_COMMIT): compiten por materializar el mismo día
+        ejecutarALaVez(reservas);
+
+        assertEquals(1, filasAgendaDia());
+        int[] materializados = iniciosMaterializados();
+        assertArrayEquals(iniciosEnVivo(), materializados,
+            "Ninguna reserva confirmada puede seguir apareciendo libre en franjas_libres");
+        Integer confirmados = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM turnos WHERE profesional_id = ? AND fecha = ?", Integer.class, profesional.getId(), dia);
+        assertEquals(CONCURRENTES, confirmados, "Los horarios no se superponen: todas las reservas se confirman");
+    }
+
+    @Test
+    @DisplayName("Un cambio de disponibilidad semanal solo recalcula los días de la semana afectados")
+    void recalculoPorDiaDeLaSemana() {
+        DayOfWeek afectado = dia.getDayOfWeek();
+
+        int dias = servicioFranjasLibres.recalcular(profesional.getId(), null, null, EnumSet.of(afectado));
+
+        Integer filas = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM agenda_dias WHERE profesional_id = ?", Integer.class, profesional.getId());
+        assertEquals(dias, filas);
+        // Horizonte [hoy, hoy + 7]: el día de la semana de hoy + 2 aparece una sola vez
+        assertEquals(1, dias, "Solo deben materializarse los " + afectado + " del horizonte");
+        List<LocalDate> fechas = jdbcTemplate.queryForList(
+            "SELECT fecha FROM agenda_dias WHERE profesional_id = ?", LocalDate.class, profesional.getId());
+        assertTrue(fechas.stream().allMatch(f -> f.getDayOfWeek() == afectado));
+    }
+
+    @Test
+    @DisplayName("Si el recálculo tras una reserva falla, el día se descarta y los slots salen del cálculo en vivo")
+    void recalculoFallidoVuelveAlCalculoEnVivo() {
+        servicioFranjasLibres.recalcular(profesional.getId(), dia, dia);
+        assertEquals(1, filasAgendaDia());
+        doThrow(new IllegalStateException("recálculo caído"))
+            .when(servicioFranjasLibres).recalcular(eq(profesional.getId()), any(), any(), any());
+
+        String email = "caido@franjas.test";
+        servicioTurno.crearTurnoPublico(empresa.getSlug(), nuevoClienteInvitado("Cliente", email),
+            nuevaReserva(APERTURA, "Cliente", email));
+
+        // Las franjas viejas todavía ofrecían las 8:00: no pueden seguir usándose
+        assertEquals(0, filasAgendaDia(), "El día que no se pudo recalcular debe descartarse");
+        List<SlotDisponibleResponse> slots = servicioPublico.obtenerSlotsDisponibles(
+            empresa.getSlug(), servicio.getId(), profesional.getId(), dia);
+        int[] ofrecidos = slots.stream()
+            .mapToInt(slot -> slot.getHoraInicio().toLocalTime().toSecondOfDay() / 60)
+            .toArray();
+        assertArrayEquals(iniciosEnVivo(), ofrecidos);
+        assertTrue(slots.stream().noneMatch(slot -> slot.getHoraInicio().toLocalTime().equals(APERTURA)),
+            "El horario recién reservado no puede ofrecerse");
+    }
+
+    private <T> List<T> ejecutarALaVez(List<Callable<T>> tareas) throws Exception {
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<T>> futuros = new ArrayList<>();
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Callable<T> tarea : tareas) {
+                futuros.add(hilos.submit(() -> {
+                    largada.await();
+                    return tarea.call();
+                }));
+            }
+            largada.countDown();
+            List<T> resultados = new ArrayList<>();
+            for (Future<T> futuro : futuros) {
+                resultados.add(futuro.get(1, TimeUnit.MINUTES));
+            }
+            return resultados;
+        }
+    }
+
+    private int filasAgendaDia() {
+        Integer filas = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM agenda_dias WHERE profesional_id = ? AND fecha = ?",
+            Integer.class, profesional.getId(), dia);
+        return filas != null ? filas : 0;
+    }
+
+    private int[] iniciosMaterializados() {
+        MapaOcupacionDia mapa = servicioFranjasLibres.leer(profesional.getId(), dia).orElseThrow();
+        return mapa.inicios(DURACION_MINUTOS, 0);
+    }
+
+    private int[] iniciosEnVivo() {
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        return lectura.execute(status -> {
+            PerfilProfesional enVivo = repositorioPerfilProfesional.findById(profesional.getId()).orElseThrow();
+            return cargadorAgenda.cargar(enVivo, dia, dia).get(dia).inicios(DURACION_MINUTOS, 0);
+        });
+    }
+
+    private Cliente nuevoClienteInvitado(String nombre, String email) {
+        Cliente cliente = new Cliente();
+        cliente.setEmpresa(empresa);
+        cliente.setNombre(nombre);
+        cliente.setEmail(email);
+        cliente.setTieneUsuario(false);
+        cliente.setTelefonoValidado(false);
+        cliente.setActivo(true);
+        return repositorioCliente.save(cliente);
+    }
+
+    private CrearTurnoRequest nuevaReserva(LocalTime horaInicio, String nombre, String email) {
+        CrearTurnoRequest request = new CrearTurnoRequest();
+        request.setServicioId(servicio.getId());
+        request.setProfesionalId(profesional.getId());
+        request.setFecha(dia.toString());
+        request.setHoraInicio(horaInicio.toString());
+        request.setNombreCliente(nombre);
+        request.setEmailCliente(email);
+        return request;
+    }
+
+    private Usuario nuevoUsuario(String rol, RolUsuario rolUsuario) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Franjas");
+        usuario.setApellido(rol);
+        usuario.setEmail(rol + "@franjas-h2.test");
+        usuario.setContrasena("secret");
+        usuario.setTelefono("+5491100000000");
+        usuario.getRoles().add(rolUsuario);
+        return usuario;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.sitema_de_turnos.servicio;
+
+import org.h2.tools.TriggerAdapter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Piezas de PostgreSQL que la reserva necesita y H2 no trae, para correr el stress de concurrencia en memoria.
+ *
+ * - {@code pg_advisory_xact_lock(int, int)}: alias que actualiza una fila de {@code h2_advisory_locks}
+ *   (ranura = hash de la clave). El lock de fila dura hasta el commit/rollback, igual que el advisory lock
+ *   de transacción; una colisión de ranura solo serializa dos reservas no relacionadas.
+ * - {@code turno_sin_solapamiento}: trigger BEFORE INSERT/UPDATE que rechaza un turno ocupante superpuesto
+ *   con SQLSTATE 23P01 (exclusion_violation), como la restricción de exclusión sobre rango_horario.
+ *   Corre en READ_COMMITTED: solo es un árbitro correcto junto con el lock de agenda, que es lo que se prueba.
+ */
+public class H2EmulacionPostgres extends TriggerAdapter {
+
+    private static final int RANURAS = 4096;
+
+    static void instalar(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS h2_advisory_locks (ranura INT PRIMARY KEY, usos BIGINT NOT NULL)");
+        Integer ranuras = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM h2_advisory_locks", Integer.class);
+        if (ranuras == null || ranuras == 0) {
+            jdbcTemplate.execute("INSERT INTO h2_advisory_locks SELECT X, 0 FROM SYSTEM_RANGE(0, " + (RANURAS - 1) + ")");
+        }
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS pg_advisory_xact_lock FOR '"
+            + H2EmulacionPostgres.class.getName() + ".advisoryXactLock'");
+        jdbcTemplate.execute("CREATE TRIGGER IF NOT EXISTS turno_sin_solapamiento BEFORE INSERT, UPDATE ON turnos "
+            + "FOR EACH ROW CALL '" + H2EmulacionPostgres.class.getName() + "'");
+    }
+
+    public static Boolean advisoryXactLock(Connection conexion, int namespace, int clave) throws SQLException {
+        try (PreparedStatement ps = conexion.prepareStatement("UPDATE h2_advisory_locks SET usos = usos + 1 WHERE ranura = ?")) {
+            ps.setInt(1, Math.floorMod(31 * namespace + clave, RANURAS));
+            ps.executeUpdate();
+        }
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public void fire(Connection conexion, ResultSet anterior, ResultSet nuevo) throws SQLException {
+        String estado = nuevo.getString("estado");
+        if (!"CONFIRMADO".equals(estado) && !"PENDIENTE_PAGO".equals(estado)) {
+            return;
+        }
+        Object id = nuevo.getObject("id");
+        try (PreparedStatement ps = conexion.prepareStatement("""
+                SELECT COUNT(*) FROM turnos
+                WHERE profesional_id = ? AND fecha = ? AND id <> ?
+                  AND estado IN ('CONFIRMADO', 'PENDIENTE_PAGO')
+                  AND hora_inicio < ? AND ? < hora_fin
+                """)) {
+            ps.setObject(1, nuevo.getObject("profesional_id"));
+            ps.setObject(2, nuevo.getObject("fecha"));
+            ps.setObject(3, id != null ? id : -1L);
+            ps.setObject(4, nuevo.getObject("hora_fin"));
+            ps.setObject(5, nuevo.getObject("hora_inicio"));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && rs.getInt(1) > 0) {
+                    throw new SQLException("conflicting key value violates exclusion constraint \"turno_sin_solapamiento\"", "23P01");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.sitema_de_turnos.servicio;
+
+import com.example.sitema_de_turnos.configuracion.IndicesConcurrenciaConfig;
+import com.example.sitema_de_turnos.dto.publico.CrearTurnoRequest;
+import com.example.sitema_de_turnos.dto.publico.ReservaReprogramarRequest;
+import com.example.sitema_de_turnos.excepcion.SolapamientoException;
+import com.example.sitema_de_turnos.excepcion.ValidacionException;
+import com.example.sitema_de_turnos.modelo.Cliente;
+import com.example.sitema_de_turnos.modelo.DiaSemana;
+import com.example.sitema_de_turnos.modelo.DisponibilidadProfesional;
+import com.example.sitema_de_turnos.modelo.Empresa;
+import com.example.sitema_de_turnos.modelo.PerfilDueno;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import com.example.sitema_de_turnos.modelo.RolUsuario;
+import com.example.sitema_de_turnos.modelo.Servicio;
+import com.example.sitema_de_turnos.modelo.Usuario;
+import com.example.sitema_de_turnos.repositorio.RepositorioCliente;
+import com.example.sitema_de_turnos.repositorio.RepositorioDisponibilidadProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioEmpresa;
+import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioServicio;
+import com.example.sitema_de_turnos.repositorio.RepositorioUsuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress de reservas, reprogramaciones y cancelaciones concurrentes sobre H2 en memoria (modo PostgreSQL).
+ *
+ * Todas las operaciones apuntan al mismo profesional y al mismo día, lanzadas desde hilos virtuales.
+ * Los advisory locks y la restricción de exclusión se emulan con {@link H2EmulacionPostgres}; el test
+ * verifica invariantes (sin turnos ocupantes superpuestos, sin pagos perdidos) y reporta reservas/s y
+ * latencias p50/p99 por operación, para comparar cambios de locking con números.
+ * Para correrlo contra PostgreSQL real ver {@link ReservaConcurrenteStressTest}.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stress;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;LOCK_TIMEOUT=30000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=24",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.notification.email.enabled=false",
+        "app.turnos.expiration.cron=-",
+        "app.reminder.cron=-",
+        "app.outbox.intervalo-ms=3600000"
+})
+class ReservaConcurrenteH2StressTest {
+
+    private static final int RESERVAS = 240;
+    private static final int TURNOS_INICIALES = 12;
+    private static final LocalTime APERTURA = LocalTime.of(8, 0);
+    private static final LocalTime CIERRE = LocalTime.of(20, 0);
+    private static final int DURACION_MINUTOS = 30;
+
+    private enum Operacion { RESERVA, REPROGRAMACION, CANCELACION }
+
+    private record Inicial(Long turnoId, Cliente cliente) {}
+
+    // La restricción de exclusión y el índice parcial son DDL de PostgreSQL: los reemplaza el trigger de H2
+    @MockitoBean private IndicesConcurrenciaConfig indicesConcurrenciaConfig;
+
+    @Autowired private ServicioTurno servicioTurno;
+    @Autowired private RepositorioUsuario repositorioUsuario;
+    @Autowired private RepositorioEmpresa repositorioEmpresa;
+    @Autowired private RepositorioPerfilProfesional repositorioPerfilProfesional;
+    @Autowired private RepositorioServicio repositorioServicio;
+    @Autowired private RepositorioDisponibilidadProfesional repositorioDisponibilidadProfesional;
+    @Autowired private RepositorioCliente repositorioCliente;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private Empresa empresa;
+    private PerfilProfesional profesional;
+    private Servicio servicio;
+    private LocalDate dia;
+
+    @BeforeEach
+    void setUp() {
+        H2EmulacionPostgres.instalar(jdbcTemplate);
+
+        PerfilDueno dueno = new PerfilDueno();
+        dueno.setUsuario(repositorioUsuario.save(nuevoUsuario("dueno", RolUsuario.DUENO)));
+
+        empresa = new Empresa();
+        empresa.setNombre("Stress H2");
+        empresa.setSlug("stress-h2");
+        empresa.setCuit("20111111112");
+        empresa.setDiasMaximosReserva(7);
+        empresa.setPerfilDueno(dueno);
+        empresa = repositorioEmpresa.save(empresa);
+
+        profesional = new PerfilProfesional();
+        profesional.setUsuario(repositorioUsuario.save(nuevoUsuario("profesional", RolUsuario.PROFESIONAL)));
+        profesional.setEmpresa(empresa);
+        profesional = repositorioPerfilProfesional.save(profesional);
+
+        for (DiaSemana diaSemana : DiaSemana.values()) {
+            DisponibilidadProfesional disponibilidad = new DisponibilidadProfesional();
+            disponibilidad.setProfesional(profesional);
+            disponibilidad.setDiaSemana(diaSemana);
+            disponibilidad.setHoraInicio(APERTURA);
+            disponibilidad.setHoraFin(CIERRE);
+            repositorioDisponibilidadProfesional.save(disponibilidad);
+        }
+
+        // Con seña: cada reserva crea su Pago y la reprogramación lo traslada al turno nuevo
+        servicio = new Servicio();
+        servicio.setNombre("Corte");
+        servicio.setDuracionMinutos(DURACION_MINUTOS);
+        servicio.setBufferMinutos(0);
+        servicio.setPrecio(BigDecimal.valueOf(1000));
+        servicio.setRequiereSena(true);
+        servicio.setMontoSena(BigDecimal.valueOf(300));
+        servicio.setEmpresa(empresa);
+        servicio = repositorioServicio.save(servicio);
+
+        // Misma zona que usa el servicio para validar la ventana de reserva
+        dia = LocalDate.now(ZoneId.of(empresa.getTimezone())).plusDays(2);
+    }
+
+    @Test
+    @DisplayName("Reservas, reprogramaciones y cancelaciones concurrentes: sin solapamientos ni pagos perdidos")
+    void operacionesConcurrentesMantienenInvariantes() throws Exception {
+        // Turnos iniciales uno por hora (8:00, 9:00, ...): la mitad se cancela y la otra mitad se reprograma
+        List<Inicial> iniciales = new ArrayList<>();
+        for (int i = 0; i < TURNOS_INICIALES; i++) {
+            String email = "inicial" + i + "@stress.test";
+            Cliente cliente = nuevoClienteInvitado("Inicial " + i, email);
+            Long turnoId = servicioTurno.crearTurnoPublico(empresa.getSlug(), cliente,
+                nuevaReserva(APERTURA.plusHours(i), "Inicial " + i, email)).getId();
+            iniciales.add(new Inicial(turnoId, cliente));
+        }
+
+        // Inicios cada 15 minutos con servicio de 30: cada horario choca con sus vecinos
+        Random random = new Random(42);
+        int inicios = (int) (Duration.between(APERTURA, CIERRE).toMinutes() - DURACION_MINUTOS) / 15 + 1;
+        List<Operacion> tipos = new ArrayList<>();
+        List<Callable<Object>> operaciones = new ArrayList<>();
+        // Clientes creados de antemano: el obtener-o-crear por email es un INSERT … ON CONFLICT … RETURNING
+        // dentro de un CTE que H2 no soporta (el alta concurrente de invitados la cubre ReservaConcurrenteStressTest)
+        for (int i = 0; i < RESERVAS; i++) {
+            String email = "cliente" + i + "@stress.test";
+            Cliente cliente = nuevoClienteInvitado("Cliente " + i, email);
+            CrearTurnoRequest request = nuevaReserva(
+                APERTURA.plusMinutes(15L * random.nextInt(inicios)), "Cliente " + i, email);
+            tipos.add(Operacion.RESERVA);
+            operaciones.add(() -> servicioTurno.crearTurnoPublico(empresa.getSlug(), cliente, request));
+        }
+        for (int i = 0; i < iniciales.size(); i++) {
+            Inicial inicial = iniciales.get(i);
+            if (i % 2 == 0) {
+                tipos.add(Operacion.CANCELACION);
+                operaciones.add(() -> {
+                    servicioTurno.cancelarTurnoPorCliente(inicial.turnoId(), inicial.cliente(), "stress");
+                    return null;
+                });
+            } else {
+                ReservaReprogramarRequest request = new ReservaReprogramarRequest(
+                    dia.toString(), APERTURA.plusMinutes(15L * random.nextInt(inicios)).toString(), null);
+                tipos.add(Operacion.REPROGRAMACION);
+                operaciones.add(() -> servicioTurno.reprogramarReservaPorCliente(inicial.turnoId(), inicial.cliente(), request));
+            }
+        }
+
+        // Mezclar tipos para que cancelaciones y reprogramaciones compitan con las reservas
+        List<Integer> orden = new ArrayList<>();
+        for (int i = 0; i < operaciones.size(); i++) {
+            orden.add(i);
+        }
+        Collections.shuffle(orden, random);
+
+        Map<Operacion, ConcurrentLinkedQueue<Long>> latencias = new EnumMap<>(Operacion.class);
+        Map<Operacion, AtomicInteger> exitos = new EnumMap<>(Operacion.class);
+        for (Operacion operacion : Operacion.values()) {
+            latencias.put(operacion, new ConcurrentLinkedQueue<>());
+            exitos.put(operacion, new AtomicInteger());
+        }
+        AtomicInteger rechazadas = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> inesperados = new ConcurrentLinkedQueue<>();
+        CountDownLatch largada = new CountDownLatch(1);
+
+        List<Future<?>> resultados = new ArrayList<>();
+        long inicio;
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int indice : orden) {
+                Operacion tipo = tipos.get(indice);
+                Callable<Object> operacion = operaciones.get(indice);
+                resultados.add(hilos.submit(() -> {
+                    largada.await();
+                    long t0 = System.nanoTime();
+                    try {
+                        operacion.call();
+                        exitos.get(tipo).incrementAndGet();
+                    } catch (SolapamientoException | ValidacionException e) {
+                        rechazadas.incrementAndGet();
+                    } catch (Throwable e) {
+                        inesperados.add(e);
+                    } finally {
+                        latencias.get(tipo).add(System.nanoTime() - t0);
+                    }
+                    return null;
+                }));
+            }
+            inicio = System.nanoTime();
+            largada.countDown();
+            for (Future<?> resultado : resultados) {
+                resultado.get(5, TimeUnit.MINUTES);
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+
+        System.out.printf("📊 Stress H2 (hilos virtuales): %d operaciones en %.2fs → %.1f reservas intentadas/s, %.1f confirmadas/s, %d rechazadas%n",
+            operaciones.size(), segundos, RESERVAS / segundos, exitos.get(Operacion.RESERVA).get() / segundos, rechazadas.get());
+        for (Operacion operacion : Operacion.values()) {
+            List<Long> muestras = new ArrayList<>(latencias.get(operacion));
+            Collections.sort(muestras);
+            System.out.printf("   %-15s %3d ok / %3d   p50 %7.1f ms   p99 %7.1f ms%n",
+                operacion, exitos.get(operacion).get(), muestras.size(), percentilMs(muestras, 0.50), percentilMs(muestras, 0.99));
+        }
+
+        inesperados.forEach(Throwable::printStackTrace);
+        assertTrue(inesperados.isEmpty(), "Ninguna operación debe fallar con un error inesperado: " + inesperados.size());
+        assertTrue(exitos.get(Operacion.RESERVA).get() > 0, "Debe confirmarse al menos una reserva");
+        assertEquals(TURNOS_INICIALES / 2, exitos.get(Operacion.CANCELACION).get(), "Todas las cancelaciones deben aplicarse");
+
+        Integer solapados = jdbcTemplate.queryForObject("""
+            SELECT COUNT(*) FROM turnos a JOIN turnos b
+              ON a.profesional_id = b.profesional_id AND a.fecha = b.fecha AND a.id < b.id
+             AND a.hora_inicio < b.hora_fin AND b.hora_inicio < a.hora_fin
+            WHERE a.profesional_id = ?
+              AND a.estado IN ('CONFIRMADO', 'PENDIENTE_PAGO') AND b.estado IN ('CONFIRMADO', 'PENDIENTE_PAGO')
+            """, Integer.class, profesional.getId());
+        assertEquals(0, solapados, "No puede haber turnos ocupantes superpuestos");
+
+        // Cada reserva confirmada (inicial o concurrente) tiene exactamente un Pago; la reprogramación solo lo mueve
+        Integer pagos = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM pagos p JOIN turnos t ON t.id = p.turno_id WHERE t.profesional_id = ?",
+            Integer.class, profesional.getId());
+        assertEquals(TURNOS_INICIALES + exitos.get(Operacion.RESERVA).get(), pagos, "No se puede perder ni duplicar ningún Pago");
+
+        Integer ocupantesSinPago = jdbcTemplate.queryForObject("""
+            SELECT COUNT(*) FROM turnos t
+            WHERE t.profesional_id = ? AND t.estado = 'PENDIENTE_PAGO'
+              AND NOT EXISTS (SELECT 1 FROM pagos p WHERE p.turno_id = t.id)
+            """, Integer.class, profesional.getId());
+        assertEquals(0, ocupantesSinPago, "Todo turno pendiente de pago debe conservar su Pago");
+    }
+
+    private Cliente nuevoClienteInvitado(String nombre, String email) {
+        Cliente cliente = new Cliente();
+        cliente.setEmpresa(empresa);
+        cliente.setNombre(nombre);
+        cliente.setEmail(email);
+        cliente.setTieneUsuario(false);
+        cliente.setTelefonoValidado(false);
+        cliente.setActivo(true);
+        return repositorioCliente.save(cliente);
+    }
+
+    private CrearTurnoRequest nuevaReserva(LocalTime horaInicio, String nombre, String email) {
+        CrearTurnoRequest request = new CrearTurnoRequest();
+        request.setServicioId(servicio.getId());
+        request.setProfesionalId(profesional.getId());
+        request.setFecha(dia.toString());
+        request.setHoraInicio(horaInicio.toString());
+        request.setNombreCliente(nombre);
+        request.setEmailCliente(email);
+        return request;
+    }
+
+    private static double percentilMs(List<Long> ordenadas, double percentil) {
+        if (ordenadas.isEmpty()) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(percentil * ordenadas.size()) - 1;
+        return ordenadas.get(Math.max(0, indice)) / 1_000_000.0;
+    }
+
+    private Usuario nuevoUsuario(String rol, RolUsuario rolUsuario) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Stress");
+        usuario.setApellido(rol);
+        usuario.setEmail(rol + "@stress-h2.test");
+        usuario.setContrasena("secret");
+        usuario.setTelefono("+5491100000000");
+        usuario.getRoles().add(rolUsuario);
+        return usuario;
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.sitema_de_turnos.servicio;
+
+import com.example.sitema_de_turnos.dto.publico.CrearTurnoRequest;
+import com.example.sitema_de_turnos.excepcion.SolapamientoException;
+import com.example.sitema_de_turnos.excepcion.ValidacionException;
+import com.example.sitema_de_turnos.modelo.DiaSemana;
+import com.example.sitema_de_turnos.modelo.DisponibilidadProfesional;
+import com.example.sitema_de_turnos.modelo.Empresa;
+import com.example.sitema_de_turnos.modelo.EstadoTurno;
+import com.example.sitema_de_turnos.modelo.PerfilDueno;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import com.example.sitema_de_turnos.modelo.RolUsuario;
+import com.example.sitema_de_turnos.modelo.Servicio;
+import com.example.sitema_de_turnos.modelo.Usuario;
+import com.example.sitema_de_turnos.repositorio.RepositorioDisponibilidadProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioEmpresa;
+import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioServicio;
+import com.example.sitema_de_turnos.repositorio.RepositorioUsuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress de reservas concurrentes sobre PostgreSQL real.
+ *
+ * Los advisory locks y la restricción de exclusión turno_sin_solapamiento son exclusivos de PostgreSQL,
+ * por eso el test solo corre si se define STRESS_PG_URL (y opcionalmente STRESS_PG_USER / STRESS_PG_PASSWORD):
+ *   STRESS_PG_URL=jdbc:postgresql://localhost:5432/turnos_stress ./mvnw test -Dtest=ReservaConcurrenteStressTest
+ * Usar una base descartable: los datos de cada corrida quedan con slug único y no se limpian.
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "STRESS_PG_URL", matches = ".+")
+class ReservaConcurrenteStressTest {
+
+    private static final int HILOS = 16;
+    private static final int RESERVAS = 200;
+    private static final int DIAS = 5;
+
+    @DynamicPropertySource
+    static void baseDeDatos(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("STRESS_PG_URL"));
+        registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("STRESS_PG_USER", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("STRESS_PG_PASSWORD", "postgres"));
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> HILOS + 4);
+    }
+
+    @Autowired private ServicioTurno servicioTurno;
+    @Autowired private RepositorioUsuario repositorioUsuario;
+    @Autowired private RepositorioEmpresa repositorioEmpresa;
+    @Autowired private RepositorioPerfilProfesional repositorioPerfilProfesional;
+    @Autowired private RepositorioServicio repositorioServicio;
+    @Autowired private RepositorioDisponibilidadProfesional repositorioDisponibilidadProfesional;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private Empresa empresa;
+    private PerfilProfesional profesional;
+    private Servicio servicio;
+    private String sufijo;
+
+    @BeforeEach
+    void setUp() {
+        sufijo = UUID.randomUUID().toString().substring(0, 8);
+
+        PerfilDueno dueno = new PerfilDueno();
+        dueno.setUsuario(repositorioUsuario.save(nuevoUsuario("dueno", RolUsuario.DUENO)));
+
+        empresa = new Empresa();
+        empresa.setNombre("Stress " + sufijo);
+        empresa.setSlug("stress-" + sufijo);
+        empresa.setCuit(String.valueOf(Math.abs(sufijo.hashCode())));
+        empresa.setDiasMaximosReserva(DIAS + 2);
+        empresa.setPerfilDueno(dueno);
+        empresa = repositorioEmpresa.save(empresa);
+
+        profesional = new PerfilProfesional();
+        profesional.setUsuario(repositorioUsuario.save(nuevoUsuario("profesional", RolUsuario.PROFESIONAL)));
+        profesional.setEmpresa(empresa);
+        profesional = repositorioPerfilProfesional.save(profesional);
+
+        for (DiaSemana dia : DiaSemana.values()) {
+            DisponibilidadProfesional disponibilidad = new DisponibilidadProfesional();
+            disponibilidad.setProfesional(profesional);
+            disponibilidad.setDiaSemana(dia);
+            disponibilidad.setHoraInicio(LocalTime.of(8, 0));
+            disponibilidad.setHoraFin(LocalTime.of(20, 0));
+            repositorioDisponibilidadProfesional.save(disponibilidad);
+        }
+
+        servicio = new Servicio();
+        servicio.setNombre("Corte");
+        servicio.setDuracionMinutos(30);
+        servicio.setBufferMinutos(0);
+        servicio.setPrecio(BigDecimal.valueOf(1000));
+        servicio.setEmpresa(empresa);
+        servicio = repositorioServicio.save(servicio);
+    }
+
+    @Test
+    @DisplayName("Reservas concurrentes sobre horarios superpuestos: cero doble reserva")
+    void reservasConcurrentesNoGeneranDobleReserva() throws Exception {
+        // Inicios cada 15 minutos con servicio de 30: cada horario choca con sus vecinos
+        LocalDate primerDia = LocalDate.now().plusDays(1);
+        AtomicInteger confirmadas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> resultados = new ArrayList<>();
+        for (int i = 0; i < RESERVAS; i++) {
+            final int n = i;
+            resultados.add(pool.submit(() -> {
+                largada.await();
+                CrearTurnoRequest request = new CrearTurnoRequest();
+                request.setServicioId(servicio.getId());
+                request.setProfesionalId(profesional.getId());
+                request.setFecha(primerDia.plusDays(n % DIAS).toString());
+                request.setHoraInicio(LocalTime.of(9, 0).plusMinutes(15L * ((n / DIAS) % 32)).toString());
+                request.setNombreCliente("Cliente " + n);
+                request.setEmailCliente("cliente" + n + "-" + sufijo + "@stress.test");
+                try {
+                    servicioTurno.crearTurnoPublico(empresa.getSlug(), null, request);
+                    confirmadas.incrementAndGet();
+                } catch (SolapamientoException | ValidacionException e) {
+                    rechazadas.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Future<?> resultado : resultados) {
+            resultado.get(2, TimeUnit.MINUTES);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+        pool.shutdown();
+
+        System.out.printf("📊 Stress reservas: %d intentos en %.2fs (%.1f/s) → %d confirmadas, %d rechazadas%n",
+            RESERVAS, segundos, RESERVAS / segundos, confirmadas.get(), rechazadas.get());
+
+        assertEquals(RESERVAS, confirmadas.get() + rechazadas.get(), "Ninguna reserva debe fallar con un error inesperado");
+        assertTrue(confirmadas.get() > 0, "Debe confirmarse al menos una reserva");
+
+        Integer ocupantes = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM turnos WHERE profesional_id = ? AND estado IN (?, ?)",
+            Integer.class, profesional.getId(), EstadoTurno.CONFIRMADO.name(), EstadoTurno.PENDIENTE_PAGO.name());
+        assertEquals(confirmadas.get(), ocupantes, "Cada reserva confirmada debe existir exactamente una vez");
+
+        Integer solapados = jdbcTemplate.queryForObject("""
+            SELECT COUNT(*) FROM turnos a JOIN turnos b
+              ON a.profesional_id = b.profesional_id AND a.fecha = b.fecha AND a.id < b.id
+             AND a.hora_inicio < b.hora_fin AND b.hora_inicio < a.hora_fin
+            WHERE a.profesional_id = ?
+              AND a.estado IN ('CONFIRMADO', 'PENDIENTE_PAGO') AND b.estado IN ('CONFIRMADO', 'PENDIENTE_PAGO')
+            """, Integer.class, profesional.getId());
+        assertEquals(0, solapados, "No puede haber turnos ocupantes superpuestos");
+    }
+
+    @Test
+    @DisplayName("Reservas concurrentes de invitados con el mismo email o teléfono: un solo cliente por identidad")
+    void reservasConcurrentesDeInvitadosCreanUnSoloCliente() throws Exception {
+        LocalDate dia = LocalDate.now(ZoneId.of(empresa.getTimezone())).plusDays(1);
+        String email = "invitado-" + sufijo + "@stress.test";
+        String telefono = "+54911" + String.format("%08d", Math.abs(sufijo.hashCode()) % 100_000_000);
+
+        // Mismo email (y teléfono) en horarios que no se superponen: todas se confirman sobre el mismo cliente
+        List<CrearTurnoRequest> mismoEmail = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            mismoEmail.add(reservaInvitado(dia, LocalTime.of(8, 0).plusMinutes(30L * i),
+                i % 2 == 0 ? email : email.toUpperCase(), telefono));
+        }
+        int[] resultadoEmail = reservarALaVez(mismoEmail, new ConcurrentLinkedQueue<>());
+        assertEquals(HILOS, resultadoEmail[0], "Ninguna reserva del mismo invitado debe chocar al crear el cliente");
+        Integer clientesPorEmail = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM clientes WHERE empresa_id = ? AND email = ?", Integer.class, empresa.getId(), email);
+        assertEquals(1, clientesPorEmail, "Un email debe producir exactamente un cliente");
+        Integer turnosDelCliente = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM turnos t JOIN clientes c ON c.id = t.cliente_id WHERE c.empresa_id = ? AND c.email = ?",
+            Integer.class, empresa.getId(), email);
+        assertEquals(HILOS, turnosDelCliente);
+
+        // Mismo teléfono con emails distintos: una sola reserva crea el cliente, el resto se rechaza sin error inesperado
+        String otroTelefono = telefono.substring(0, telefono.length() - 1) + (telefono.endsWith("9") ? "0" : "9");
+        List<CrearTurnoRequest> mismoTelefono = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            mismoTelefono.add(reservaInvitado(dia.plusDays(1), LocalTime.of(8, 0).plusMinutes(30L * i),
+                "telefono" + i + "-" + sufijo + "@stress.test", otroTelefono));
+        }
+        ConcurrentLinkedQueue<String> motivos = new ConcurrentLinkedQueue<>();
+        int[] resultadoTelefono = reservarALaVez(mismoTelefono, motivos);
+        assertEquals(1, resultadoTelefono[0], "Solo la reserva que creó al cliente del teléfono se confirma");
+        assertEquals(HILOS - 1, resultadoTelefono[1]);
+        assertTrue(motivos.stream().allMatch(m -> m.startsWith("El teléfono ya está registrado")),
+            "El rechazo debe explicar el choque de teléfono, no pedir reintentar: " + motivos);
+        Integer clientesPorTelefono = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM clientes WHERE empresa_id = ? AND telefono = ?", Integer.class, empresa.getId(), otroTelefono);
+        assertEquals(1, clientesPorTelefono, "Un teléfono debe producir exactamente un cliente");
+    }
+
+    /**
+     * Lanzar las reservas (sin cliente autenticado) a la vez y devolver {confirmadas, rechazadas};
+     * los mensajes de rechazo quedan en motivos. Cualquier otra excepción hace fallar el test.
+     */
+    private int[] reservarALaVez(List<CrearTurnoRequest> reservas, Collection<String> motivos) throws Exception {
+        AtomicInteger confirmadas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> resultados = new ArrayList<>();
+        for (CrearTurnoRequest request : reservas) {
+            resultados.add(pool.submit(() -> {
+                largada.await();
+                try {
+                    servicioTurno.crearTurnoPublico(empresa.getSlug(), null, request);
+                    confirmadas.incrementAndGet();
+                } catch (SolapamientoException | ValidacionException e) {
+                    rechazadas.incrementAndGet();
+                    motivos.add(e.getMessage());
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> resultado : resultados) {
+            resultado.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+        return new int[]{confirmadas.get(), rechazadas.get()};
+    }
+
+    private CrearTurnoRequest reservaInvitado(LocalDate dia, LocalTime horaInicio, String email, String telefono) {
+        CrearTurnoRequest request = new CrearTurnoRequest();
+        request.setServicioId(servicio.getId());
+        request.setProfesionalId(profesional.getId());
+        request.setFecha(dia.toString());
+        request.setHoraInicio(horaInicio.toString());
+        request.setNombreCliente("Invitado");
+        request.setEmailCliente(email);
+        request.setTelefonoCliente(telefono);
+        return request;
+    }
+
+    private Usuario nuevoUsuario(String rol, RolUsuario rolUsuario) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Stress");
+        usuario.setApellido(rol);
+        usuario.setEmail(rol + "-" + sufijo + "@stress.test");
+        usuario.setContrasena("secret");
+        usuario.setTelefono("+5491100000000");
+        usuario.getRoles().add(rolUsuario);
+        return usuario;
+    }
+}
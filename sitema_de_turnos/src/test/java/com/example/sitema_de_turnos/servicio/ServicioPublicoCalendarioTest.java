@@ -0,0 +1,221 @@
+package com.example.sitema_de_turnos.servicio;
+
+import com.example.sitema_de_turnos.dto.publico.DisponibilidadDiaResponse;
+import com.example.sitema_de_turnos.dto.publico.SlotDisponibleResponse;
+import com.example.sitema_de_turnos.excepcion.ValidacionException;
+import com.example.sitema_de_turnos.modelo.Empresa;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import com.example.sitema_de_turnos.modelo.Servicio;
+import com.example.sitema_de_turnos.modelo.Usuario;
+import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioProfesionalServicio.HabilitacionServicio;
+import com.example.sitema_de_turnos.repositorio.RepositorioServicio;
+import com.example.sitema_de_turnos.servicio.agenda.CacheSlotsDisponibilidad;
+import com.example.sitema_de_turnos.servicio.agenda.CargadorAgenda;
+import com.example.sitema_de_turnos.servicio.agenda.MapaOcupacionDia;
+import com.example.sitema_de_turnos.servicio.agenda.RegistroRetenciones;
+import com.example.sitema_de_turnos.servicio.agenda.ServicioFranjasLibres;
+import com.example.sitema_de_turnos.servicio.catalogo.CacheCatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de obtenerCalendarioDisponibilidad: recorte a la ventana de reserva, una sola carga por
+ * rango para los días que faltan en la caché y modo solo indicadores.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ServicioPublico - calendario de disponibilidad")
+class ServicioPublicoCalendarioTest {
+
+    private static final String SLUG = "peluqueria";
+    private static final Long SERVICIO_ID = 10L;
+    private static final Long PROFESIONAL_ID = 5L;
+    private static final int DURACION = 30;
+    private static final int DIAS_MAXIMOS = 30;
+
+    @Mock private ServicioPoliticaCancelacion servicioPoliticaCancelacion;
+    @Mock private RepositorioServicio repositorioServicio;
+    @Mock private RepositorioPerfilProfesional repositorioPerfilProfesional;
+    @Mock private ServicioFranjasLibres servicioFranjasLibres;
+    @Mock private CargadorAgenda cargadorAgenda;
+    @Mock private RegistroRetenciones registroRetenciones;
+    @Mock private CacheCatalogoEmpresa cacheCatalogo;
+
+    private CacheSlotsDisponibilidad cacheSlots;
+    private ServicioPublico servicioPublico;
+    private PerfilProfesional profesional;
+    private LocalDate hoy;
+
+    @BeforeEach
+    void setUp() {
+        cacheSlots = new CacheSlotsDisponibilidad(1000, 300);
+        servicioPublico = new ServicioPublico(servicioPoliticaCancelacion, repositorioServicio,
+            repositorioPerfilProfesional, cacheSlots, servicioFranjasLibres, cargadorAgenda,
+            registroRetenciones, cacheCatalogo);
+
+        Empresa empresa = new Empresa();
+        empresa.setId(1L);
+        empresa.setSlug(SLUG);
+        empresa.setActiva(true);
+        empresa.setBufferPorDefecto(0);
+        empresa.setDiasMaximosReserva(DIAS_MAXIMOS);
+
+        Servicio servicio = new Servicio();
+        servicio.setId(SERVICIO_ID);
+        servicio.setNombre("Corte");
+        servicio.setDuracionMinutos(DURACION);
+        servicio.setBufferMinutos(0);
+        servicio.setPrecio(BigDecimal.valueOf(500));
+        servicio.setActivo(true);
+        servicio.setEmpresa(empresa);
+
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Ana");
+        usuario.setApellido("Pérez");
+        profesional = new PerfilProfesional();
+        profesional.setId(PROFESIONAL_ID);
+        profesional.setUsuario(usuario);
+        profesional.setActivo(true);
+        profesional.setEmpresa(empresa);
+
+        hoy = LocalDate.now(ZoneId.of(empresa.getTimezone()));
+
+        CatalogoEmpresa catalogo = CatalogoEmpresa.desde(empresa, List.of(servicio), List.of(profesional),
+            List.of(habilitacion(PROFESIONAL_ID, SERVICIO_ID)), List.of());
+        lenient().when(cacheCatalogo.obtenerPorSlug(SLUG)).thenReturn(Optional.of(catalogo));
+        lenient().when(repositorioPerfilProfesional.getReferenceById(PROFESIONAL_ID)).thenReturn(profesional);
+        lenient().when(servicioFranjasLibres.leerRango(anyLong(), any(), any())).thenAnswer(inv -> new HashMap<>());
+        lenient().when(registroRetenciones.filtrarInicios(anyLong(), any(), any(), anyInt()))
+            .thenAnswer(inv -> inv.getArgument(2));
+        // Carga en vivo: cada día del rango con agenda de 9 a 11 (4 slots de 30 minutos)
+        lenient().when(cargadorAgenda.cargar(any(PerfilProfesional.class), any(), any())).thenAnswer(inv -> {
+            Map<LocalDate, MapaOcupacionDia> mapas = new HashMap<>();
+            for (LocalDate dia = inv.getArgument(1); !dia.isAfter(inv.getArgument(2)); dia = dia.plusDays(1)) {
+                mapas.put(dia, agenda(LocalTime.of(9, 0), LocalTime.of(11, 0)));
+            }
+            return mapas;
+        });
+    }
+
+    @Test
+    @DisplayName("Debe recortar el rango a [hoy, hoy + diasMaximosReserva] y cargarlo con una sola consulta por rango")
+    void debeRecortarALaVentanaYCargarUnaVez() {
+        List<DisponibilidadDiaResponse> calendario = servicioPublico.obtenerCalendarioDisponibilidad(
+            SLUG, SERVICIO_ID, PROFESIONAL_ID, hoy.minusDays(5), hoy.plusDays(DIAS_MAXIMOS + 10), null, false);
+
+        assertEquals(DIAS_MAXIMOS + 1, calendario.size());
+        assertEquals(hoy, calendario.get(0).getFecha());
+        assertEquals(hoy.plusDays(DIAS_MAXIMOS), calendario.get(calendario.size() - 1).getFecha());
+        verify(servicioFranjasLibres).leerRango(PROFESIONAL_ID, hoy, hoy.plusDays(DIAS_MAXIMOS));
+        verify(cargadorAgenda, times(1)).cargar(profesional, hoy, hoy.plusDays(DIAS_MAXIMOS));
+
+        DisponibilidadDiaResponse manana = calendario.get(1);
+        assertTrue(manana.isTieneDisponibilidad());
+        assertEquals(4, manana.getCantidadSlots());
+        SlotDisponibleResponse primero = manana.getSlots().get(0);
+        assertEquals(LocalDateTime.of(hoy.plusDays(1), LocalTime.of(9, 0)), primero.getHoraInicio());
+        assertEquals(LocalDateTime.of(hoy.plusDays(1), LocalTime.of(9, 30)), primero.getHoraFin());
+        assertEquals(PROFESIONAL_ID, primero.getProfesionalId());
+    }
+
+    @Test
+    @DisplayName("Los días cacheados o materializados en franjas_libres no se vuelven a cargar en vivo")
+    void debeCargarSoloLosDiasFaltantes() {
+        LocalDate desde = hoy.plusDays(1);
+        LocalDate hasta = hoy.plusDays(5);
+        cacheSlots.guardar(PROFESIONAL_ID, desde, DURACION, new int[]{600}, cacheSlots.generacion(PROFESIONAL_ID));
+        cacheSlots.guardar(PROFESIONAL_ID, desde.plusDays(1), DURACION, new int[]{600},
+            cacheSlots.generacion(PROFESIONAL_ID));
+        when(servicioFranjasLibres.leerRango(PROFESIONAL_ID, desde.plusDays(2), hasta)).thenAnswer(inv -> {
+            Map<LocalDate, MapaOcupacionDia> materializados = new HashMap<>();
+            materializados.put(desde.plusDays(2), agenda(LocalTime.of(14, 0), LocalTime.of(15, 0)));
+            return materializados;
+        });
+
+        List<DisponibilidadDiaResponse> calendario = servicioPublico.obtenerCalendarioDisponibilidad(
+            SLUG, SERVICIO_ID, PROFESIONAL_ID, desde, hasta, null, false);
+
+        assertEquals(5, calendario.size());
+        assertEquals(1, calendario.get(0).getCantidadSlots());
+        assertEquals(LocalTime.of(10, 0), calendario.get(0).getSlots().get(0).getHoraInicio().toLocalTime());
+        assertEquals(2, calendario.get(2).getCantidadSlots());
+        assertEquals(4, calendario.get(4).getCantidadSlots());
+        verify(cargadorAgenda, times(1)).cargar(profesional, desde.plusDays(3), hasta);
+
+        // Lo calculado queda cacheado: la segunda consulta no toca la base
+        servicioPublico.obtenerCalendarioDisponibilidad(SLUG, SERVICIO_ID, PROFESIONAL_ID, desde, hasta, null, false);
+        verify(servicioFranjasLibres, times(1)).leerRango(anyLong(), any(), any());
+        verify(cargadorAgenda, times(1)).cargar(any(PerfilProfesional.class), any(), any());
+    }
+
+    @Test
+    @DisplayName("En modo solo indicadores devuelve flag y cantidad por día (sin slots), descontando retenciones")
+    void debeDevolverSoloIndicadores() {
+        LocalDate dia = hoy.plusDays(2);
+        LocalDate sinLugar = hoy.plusDays(3);
+        when(registroRetenciones.filtrarInicios(eq(PROFESIONAL_ID), eq(dia), any(), eq(DURACION)))
+            .thenReturn(new int[]{540, 600});
+        when(registroRetenciones.filtrarInicios(eq(PROFESIONAL_ID), eq(sinLugar), any(), eq(DURACION)))
+            .thenReturn(new int[0]);
+
+        List<DisponibilidadDiaResponse> calendario = servicioPublico.obtenerCalendarioDisponibilidad(
+            SLUG, SERVICIO_ID, PROFESIONAL_ID, dia, sinLugar, null, true);
+
+        assertEquals(2, calendario.size());
+        assertTrue(calendario.get(0).isTieneDisponibilidad());
+        assertEquals(2, calendario.get(0).getCantidadSlots());
+        assertNull(calendario.get(0).getSlots());
+        assertFalse(calendario.get(1).isTieneDisponibilidad());
+        assertEquals(0, calendario.get(1).getCantidadSlots());
+    }
+
+    @Test
+    @DisplayName("Un rango fuera de la ventana devuelve vacío sin consultar; 'hasta' anterior a 'desde' es inválido")
+    void debeValidarElRango() {
+        assertTrue(servicioPublico.obtenerCalendarioDisponibilidad(SLUG, SERVICIO_ID, PROFESIONAL_ID,
+            hoy.plusDays(DIAS_MAXIMOS + 1), hoy.plusDays(DIAS_MAXIMOS + 5), null, false).isEmpty());
+        assertThrows(ValidacionException.class, () -> servicioPublico.obtenerCalendarioDisponibilidad(
+            SLUG, SERVICIO_ID, PROFESIONAL_ID, hoy.plusDays(3), hoy.plusDays(1), null, false));
+
+        verifyNoInteractions(servicioFranjasLibres, cargadorAgenda);
+    }
+
+    private static MapaOcupacionDia agenda(LocalTime inicio, LocalTime fin) {
+        MapaOcupacionDia mapa = new MapaOcupacionDia();
+        mapa.agregarRango(inicio, fin);
+        return mapa;
+    }
+
+    private static HabilitacionServicio habilitacion(Long profesionalId, Long servicioId) {
+        return new HabilitacionServicio() {
+            @Override
+            public Long getProfesionalId() {
+                return profesionalId;
+            }
+
+            @Override
+            public Long getServicioId() {
+                return servicioId;
+            }
+        };
+    }
+}
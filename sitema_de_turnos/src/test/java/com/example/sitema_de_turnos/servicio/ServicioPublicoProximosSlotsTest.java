@@ -0,0 +1,191 @@
+package com.example.sitema_de_turnos.servicio;
+
+import com.example.sitema_de_turnos.dto.publico.SlotDisponibleResponse;
+import com.example.sitema_de_turnos.excepcion.ValidacionException;
+import com.example.sitema_de_turnos.modelo.Empresa;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import com.example.sitema_de_turnos.modelo.Servicio;
+import com.example.sitema_de_turnos.modelo.Usuario;
+import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioProfesionalServicio.HabilitacionServicio;
+import com.example.sitema_de_turnos.repositorio.RepositorioServicio;
+import com.example.sitema_de_turnos.servicio.agenda.CacheSlotsDisponibilidad;
+import com.example.sitema_de_turnos.servicio.agenda.CargadorAgenda;
+import com.example.sitema_de_turnos.servicio.agenda.MapaOcupacionDia;
+import com.example.sitema_de_turnos.servicio.agenda.RegistroRetenciones;
+import com.example.sitema_de_turnos.servicio.agenda.ServicioFranjasLibres;
+import com.example.sitema_de_turnos.servicio.catalogo.CacheCatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de buscarProximosSlots: corte apenas se junta la cantidad pedida, avance por bloques de
+ * días, asignación de cada horario al primer profesional libre y límites de la cantidad.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ServicioPublico - próximos horarios libres")
+class ServicioPublicoProximosSlotsTest {
+
+    private static final String SLUG = "peluqueria";
+    private static final Long SERVICIO_ID = 10L;
+    private static final int DURACION = 30;
+
+    @Mock private ServicioPoliticaCancelacion servicioPoliticaCancelacion;
+    @Mock private RepositorioServicio repositorioServicio;
+    @Mock private RepositorioPerfilProfesional repositorioPerfilProfesional;
+    @Mock private ServicioFranjasLibres servicioFranjasLibres;
+    @Mock private CargadorAgenda cargadorAgenda;
+    @Mock private RegistroRetenciones registroRetenciones;
+    @Mock private CacheCatalogoEmpresa cacheCatalogo;
+
+    private ServicioPublico servicioPublico;
+    private final Map<Long, PerfilProfesional> profesionales = new HashMap<>();
+    private LocalDate hoy;
+
+    @BeforeEach
+    void setUp() {
+        servicioPublico = new ServicioPublico(servicioPoliticaCancelacion, repositorioServicio,
+            repositorioPerfilProfesional, new CacheSlotsDisponibilidad(1000, 300), servicioFranjasLibres,
+            cargadorAgenda, registroRetenciones, cacheCatalogo);
+
+        Empresa empresa = new Empresa();
+        empresa.setId(1L);
+        empresa.setSlug(SLUG);
+        empresa.setActiva(true);
+        empresa.setBufferPorDefecto(0);
+        empresa.setDiasMaximosReserva(30);
+
+        Servicio servicio = new Servicio();
+        servicio.setId(SERVICIO_ID);
+        servicio.setNombre("Corte");
+        servicio.setDuracionMinutos(DURACION);
+        servicio.setBufferMinutos(0);
+        servicio.setPrecio(BigDecimal.valueOf(500));
+        servicio.setActivo(true);
+        servicio.setEmpresa(empresa);
+
+        profesionales.put(1L, profesional(1L, empresa));
+        profesionales.put(2L, profesional(2L, empresa));
+        hoy = LocalDate.now(ZoneId.of(empresa.getTimezone()));
+
+        CatalogoEmpresa catalogo = CatalogoEmpresa.desde(empresa, List.of(servicio),
+            List.copyOf(profesionales.values()),
+            List.of(habilitacion(1L, SERVICIO_ID), habilitacion(2L, SERVICIO_ID)), List.of());
+        lenient().when(cacheCatalogo.obtenerPorSlug(SLUG)).thenReturn(Optional.of(catalogo));
+        lenient().when(repositorioPerfilProfesional.getReferenceById(anyLong())).thenAnswer(inv ->
+            profesionales.get(inv.<Long>getArgument(0)));
+        lenient().when(servicioFranjasLibres.leerVarios(anyCollection(), any(), any())).thenAnswer(inv -> new HashMap<>());
+        lenient().when(registroRetenciones.filtrarInicios(anyLong(), any(), any(), anyInt()))
+            .thenAnswer(inv -> inv.getArgument(2));
+        // Hoy sin agenda (el corte por hora actual no interviene); desde mañana el profesional 1
+        // atiende de 9:00 a 10:00 y el 2 de 9:30 a 11:00
+        lenient().when(cargadorAgenda.cargar(anyList(), any(), any())).thenAnswer(inv -> {
+            Map<Long, Map<LocalDate, MapaOcupacionDia>> agendas = new HashMap<>();
+            for (PerfilProfesional profesional : inv.<List<PerfilProfesional>>getArgument(0)) {
+                Map<LocalDate, MapaOcupacionDia> porFecha = new HashMap<>();
+                for (LocalDate dia = inv.getArgument(1); !dia.isAfter(inv.getArgument(2)); dia = dia.plusDays(1)) {
+                    MapaOcupacionDia mapa = new MapaOcupacionDia();
+                    if (!dia.equals(hoy)) {
+                        mapa.agregarRango(profesional.getId() == 1L ? LocalTime.of(9, 0) : LocalTime.of(9, 30),
+                            profesional.getId() == 1L ? LocalTime.of(10, 0) : LocalTime.of(11, 0));
+                    }
+                    porFecha.put(dia, mapa);
+                }
+                agendas.put(profesional.getId(), porFecha);
+            }
+            return agendas;
+        });
+    }
+
+    @Test
+    @DisplayName("Cualquier profesional: cada horario una sola vez, asignado al primer profesional libre, y corta en el primer bloque")
+    void debeAsignarAlPrimerLibreYCortarAlJuntarLaCantidad() {
+        List<SlotDisponibleResponse> slots = servicioPublico.buscarProximosSlots(SLUG, SERVICIO_ID, null, 4);
+
+        LocalDate manana = hoy.plusDays(1);
+        assertEquals(4, slots.size());
+        assertSlot(slots.get(0), manana, LocalTime.of(9, 0), 1L);
+        assertSlot(slots.get(1), manana, LocalTime.of(9, 30), 1L);
+        assertSlot(slots.get(2), manana, LocalTime.of(10, 0), 2L);
+        assertSlot(slots.get(3), manana, LocalTime.of(10, 30), 2L);
+        verify(cargadorAgenda, times(1)).cargar(anyList(), eq(hoy), eq(hoy.plusDays(6)));
+
+        // El bloque quedó cacheado: repetir la búsqueda no vuelve a la base
+        servicioPublico.buscarProximosSlots(SLUG, SERVICIO_ID, null, 4);
+        verify(cargadorAgenda, times(1)).cargar(anyList(), any(), any());
+        verify(servicioFranjasLibres, times(1)).leerVarios(anyCollection(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Con profesional elegido solo busca en su agenda y sigue con el bloque siguiente si hace falta")
+    void debeAvanzarAlBloqueSiguiente() {
+        // El profesional 1 tiene 2 horarios por día: 6 días del primer bloque no alcanzan para 15
+        List<SlotDisponibleResponse> slots = servicioPublico.buscarProximosSlots(SLUG, SERVICIO_ID, 1L, 15);
+
+        assertEquals(15, slots.size());
+        assertTrue(slots.stream().allMatch(s -> s.getProfesionalId().equals(1L)));
+        assertSlot(slots.get(14), hoy.plusDays(8), LocalTime.of(9, 0), 1L);
+        verify(cargadorAgenda).cargar(eq(List.of(profesionales.get(1L))), eq(hoy), eq(hoy.plusDays(6)));
+        verify(cargadorAgenda).cargar(eq(List.of(profesionales.get(1L))), eq(hoy.plusDays(7)), eq(hoy.plusDays(13)));
+        verify(cargadorAgenda, times(2)).cargar(anyList(), any(), any());
+    }
+
+    @Test
+    @DisplayName("La cantidad debe estar entre 1 y 50")
+    void debeValidarLaCantidad() {
+        assertThrows(ValidacionException.class, () -> servicioPublico.buscarProximosSlots(SLUG, SERVICIO_ID, null, 0));
+        assertThrows(ValidacionException.class, () -> servicioPublico.buscarProximosSlots(SLUG, SERVICIO_ID, null, 51));
+        assertEquals(50, servicioPublico.buscarProximosSlots(SLUG, SERVICIO_ID, null, 50).size());
+    }
+
+    private static void assertSlot(SlotDisponibleResponse slot, LocalDate fecha, LocalTime hora, Long profesionalId) {
+        assertEquals(LocalDateTime.of(fecha, hora), slot.getHoraInicio());
+        assertEquals(LocalDateTime.of(fecha, hora.plusMinutes(DURACION)), slot.getHoraFin());
+        assertEquals(profesionalId, slot.getProfesionalId());
+    }
+
+    private static PerfilProfesional profesional(Long id, Empresa empresa) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Profesional " + id);
+        usuario.setApellido("Apellido");
+        PerfilProfesional profesional = new PerfilProfesional();
+        profesional.setId(id);
+        profesional.setUsuario(usuario);
+        profesional.setActivo(true);
+        profesional.setEmpresa(empresa);
+        return profesional;
+    }
+
+    private static HabilitacionServicio habilitacion(Long profesionalId, Long servicioId) {
+        return new HabilitacionServicio() {
+            @Override
+            public Long getProfesionalId() {
+                return profesionalId;
+            }
+
+            @Override
+            public Long getServicioId() {
+                return servicioId;
+            }
+        };
+    }
+}
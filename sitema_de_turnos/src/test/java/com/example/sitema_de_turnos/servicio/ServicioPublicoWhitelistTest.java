@@ -1,19 +1,17 @@
 package com.example.sitema_de_turnos.servicio;
 
 import com.example.sitema_de_turnos.dto.publico.ProfesionalPublicoResponse;
+import com.example.sitema_de_turnos.excepcion.RecursoNoEncontradoException;
+import com.example.sitema_de_turnos.excepcion.ValidacionException;
 import com.example.sitema_de_turnos.modelo.Empresa;
 import com.example.sitema_de_turnos.modelo.PerfilProfesional;
-import com.example.sitema_de_turnos.modelo.ProfesionalServicio;
 import com.example.sitema_de_turnos.modelo.Servicio;
 import com.example.sitema_de_turnos.modelo.Usuario;
-import com.example.sitema_de_turnos.repositorio.RepositorioBloqueoFecha;
-import com.example.sitema_de_turnos.repositorio.RepositorioDisponibilidadProfesional;
-import com.example.sitema_de_turnos.repositorio.RepositorioEmpresa;
-import com.example.sitema_de_turnos.repositorio.RepositorioHorarioEmpresa;
 import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
-import com.example.sitema_de_turnos.repositorio.RepositorioProfesionalServicio;
+import com.example.sitema_de_turnos.repositorio.RepositorioProfesionalServicio.HabilitacionServicio;
 import com.example.sitema_de_turnos.repositorio.RepositorioServicio;
-import com.example.sitema_de_turnos.repositorio.RepositorioTurno;
+import com.example.sitema_de_turnos.servicio.catalogo.CacheCatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -23,7 +21,6 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,21 +29,17 @@ import static org.mockito.Mockito.*;
 
 /**
  * Tests unitarios para ServicioPublico.
- * Cubre la lógica de obtenerProfesionalesPorServicio() con el modelo whitelist.
+ * Cubre la lógica de obtenerProfesionalesPorServicio() con el modelo whitelist, resuelta desde el
+ * snapshot del catálogo (sin consultas por profesional).
  */
 @ExtendWith(MockitoExtension.class)
 @DisplayName("ServicioPublico - obtenerProfesionalesPorServicio Whitelist")
 class ServicioPublicoWhitelistTest {
 
     @Mock private ServicioPoliticaCancelacion servicioPoliticaCancelacion;
-    @Mock private RepositorioEmpresa repositorioEmpresa;
     @Mock private RepositorioServicio repositorioServicio;
     @Mock private RepositorioPerfilProfesional repositorioPerfilProfesional;
-    @Mock private RepositorioProfesionalServicio repositorioProfesionalServicio;
-    @Mock private RepositorioDisponibilidadProfesional repositorioDisponibilidad;
-    @Mock private RepositorioHorarioEmpresa repositorioHorarioEmpresa;
-    @Mock private RepositorioBloqueoFecha repositorioBloqueoFecha;
-    @Mock private RepositorioTurno repositorioTurno;
+    @Mock private CacheCatalogoEmpresa cacheCatalogo;
 
     @InjectMocks
     private ServicioPublico servicioPublico;
@@ -58,19 +51,22 @@ class ServicioPublicoWhitelistTest {
     void setUp() {
         empresa = new Empresa();
         empresa.setId(1L);
+        empresa.setSlug("test-slug");
         empresa.setNombre("Peluquería Test");
         empresa.setActiva(true);
 
-        servicio = new Servicio();
-        servicio.setId(10L);
-        servicio.setNombre("Corte");
-        servicio.setDuracionMinutos(30);
-        servicio.setPrecio(BigDecimal.valueOf(500));
-        servicio.setActivo(true);
-        servicio.setEmpresa(empresa);
+        servicio = crearServicio(10L);
+    }
 
-        when(repositorioEmpresa.findBySlugAndActivaTrue("test-slug")).thenReturn(Optional.of(empresa));
-        when(repositorioServicio.findById(10L)).thenReturn(Optional.of(servicio));
+    private Servicio crearServicio(Long id) {
+        Servicio srv = new Servicio();
+        srv.setId(id);
+        srv.setNombre("Servicio " + id);
+        srv.setDuracionMinutos(30);
+        srv.setPrecio(BigDecimal.valueOf(500));
+        srv.setActivo(true);
+        srv.setEmpresa(empresa);
+        return srv;
     }
 
     private PerfilProfesional crearProfesional(Long id, boolean activo) {
@@ -86,53 +82,55 @@ class ServicioPublicoWhitelistTest {
         return p;
     }
 
-    private ProfesionalServicio crearHabilitacion(PerfilProfesional profesional, Servicio srv) {
-        ProfesionalServicio ps = new ProfesionalServicio();
-        ps.setId(100L + profesional.getId());
-        ps.setProfesional(profesional);
-        ps.setServicio(srv);
-        ps.setActivo(true);
-        return ps;
+    private static HabilitacionServicio habilitacion(Long profesionalId, Long servicioId) {
+        return new HabilitacionServicio() {
+            @Override
+            public Long getProfesionalId() {
+                return profesionalId;
+            }
+
+            @Override
+            public Long getServicioId() {
+                return servicioId;
+            }
+        };
+    }
+
+    private void stubCatalogo(List<Servicio> servicios, List<PerfilProfesional> profesionales,
+                              List<HabilitacionServicio> habilitaciones) {
+        CatalogoEmpresa catalogo = CatalogoEmpresa.desde(empresa, servicios, profesionales, habilitaciones, List.of());
+        when(cacheCatalogo.obtenerPorSlug("test-slug")).thenReturn(Optional.of(catalogo));
     }
 
     @Test
     @DisplayName("Profesional activo con habilitación → aparece en la lista")
     void obtenerProfesionalesPorServicio_profesionalActivoConHabilitacion_apareceEnLista() {
         PerfilProfesional profesionalActivo = crearProfesional(1L, true);
-        ProfesionalServicio habilitacion = crearHabilitacion(profesionalActivo, servicio);
-
-        when(repositorioPerfilProfesional.findByEmpresaAndActivoTrue(empresa)).thenReturn(List.of(profesionalActivo));
-        when(repositorioProfesionalServicio.findByProfesionalAndActivoTrue(profesionalActivo))
-                .thenReturn(List.of(habilitacion));
+        stubCatalogo(List.of(servicio), List.of(profesionalActivo), List.of(habilitacion(1L, 10L)));
 
         List<ProfesionalPublicoResponse> resultado = servicioPublico.obtenerProfesionalesPorServicio("test-slug", 10L);
 
         assertEquals(1, resultado.size());
         assertEquals(1L, resultado.get(0).getId());
+        assertEquals("Profesional 1", resultado.get(0).getNombre());
     }
 
     @Test
     @DisplayName("Profesional inactivo (activo=false) con habilitación → NO aparece en la lista")
     void obtenerProfesionalesPorServicio_profesionalInactivo_noApareceEnLista() {
         PerfilProfesional profesionalInactivo = crearProfesional(2L, false);
-
-        when(repositorioPerfilProfesional.findByEmpresaAndActivoTrue(empresa)).thenReturn(Collections.emptyList());
-        // No se llama a findByProfesionalAndActivoTrue porque findByEmpresaAndActivoTrue ya filtra inactivos
+        stubCatalogo(List.of(servicio), List.of(profesionalInactivo), List.of(habilitacion(2L, 10L)));
 
         List<ProfesionalPublicoResponse> resultado = servicioPublico.obtenerProfesionalesPorServicio("test-slug", 10L);
 
         assertTrue(resultado.isEmpty(), "Un profesional inactivo no debe aparecer aunque tenga habilitación");
-        verify(repositorioProfesionalServicio, never()).findByProfesionalAndActivoTrue(profesionalInactivo);
     }
 
     @Test
     @DisplayName("Profesional activo sin registro en profesional_servicio → NO aparece en la lista")
     void obtenerProfesionalesPorServicio_profesionalActivoSinHabilitacion_noApareceEnLista() {
         PerfilProfesional profesionalSinHabilitacion = crearProfesional(3L, true);
-
-        when(repositorioPerfilProfesional.findByEmpresaAndActivoTrue(empresa)).thenReturn(List.of(profesionalSinHabilitacion));
-        when(repositorioProfesionalServicio.findByProfesionalAndActivoTrue(profesionalSinHabilitacion))
-                .thenReturn(Collections.emptyList());
+        stubCatalogo(List.of(servicio), List.of(profesionalSinHabilitacion), List.of());
 
         List<ProfesionalPublicoResponse> resultado = servicioPublico.obtenerProfesionalesPorServicio("test-slug", 10L);
 
@@ -140,30 +138,43 @@ class ServicioPublicoWhitelistTest {
                 "Un profesional activo sin habilitación en profesional_servicio no debe aparecer");
     }
 
+    @Test
+    @DisplayName("Se resuelve desde el catálogo: sin consultas a la base por profesional")
+    void obtenerProfesionalesPorServicio_noConsultaLaBase() {
+        stubCatalogo(List.of(servicio), List.of(crearProfesional(1L, true), crearProfesional(2L, true)),
+                List.of(habilitacion(1L, 10L), habilitacion(2L, 10L)));
+
+        List<ProfesionalPublicoResponse> resultado = servicioPublico.obtenerProfesionalesPorServicio("test-slug", 10L);
+
+        assertEquals(List.of(1L, 2L), resultado.stream().map(ProfesionalPublicoResponse::getId).toList());
+        verifyNoInteractions(repositorioServicio, repositorioPerfilProfesional);
+    }
+
     // ===== Bloque C - edge cases =====
 
     @Test
     @DisplayName("[C3] Profesional con habilitación para OTRO servicio → NO aparece para el servicio consultado")
     void obtenerProfesionalesPorServicio_profesionalConHabilitacionParaOtroServicio_noAparece() {
-        // Profesional activo pero su PS record es para el servicio 99, no para el 10 que se consulta
+        // Profesional activo pero su habilitación es para el servicio 99, no para el 10 que se consulta
         PerfilProfesional profesional = crearProfesional(4L, true);
-
-        Servicio otroServicio = new Servicio();
-        otroServicio.setId(99L);
-
-        ProfesionalServicio psParaOtroServicio = new ProfesionalServicio();
-        psParaOtroServicio.setId(400L);
-        psParaOtroServicio.setProfesional(profesional);
-        psParaOtroServicio.setServicio(otroServicio);
-        psParaOtroServicio.setActivo(true);
-
-        when(repositorioPerfilProfesional.findByEmpresaAndActivoTrue(empresa)).thenReturn(List.of(profesional));
-        when(repositorioProfesionalServicio.findByProfesionalAndActivoTrue(profesional))
-                .thenReturn(List.of(psParaOtroServicio)); // список не пустой, но не совпадает с id=10
+        stubCatalogo(List.of(servicio, crearServicio(99L)), List.of(profesional), List.of(habilitacion(4L, 99L)));
 
         List<ProfesionalPublicoResponse> resultado = servicioPublico.obtenerProfesionalesPorServicio("test-slug", 10L);
 
         assertTrue(resultado.isEmpty(),
                 "Un profesional habilitado para el servicio 99 no debe aparecer en el listado del servicio 10");
     }
+
+    @Test
+    @DisplayName("[C4] Servicio de otra empresa → ValidacionException; inexistente → RecursoNoEncontradoException")
+    void obtenerProfesionalesPorServicio_servicioAjenoOInexistente() {
+        stubCatalogo(List.of(servicio), List.of(), List.of());
+        when(repositorioServicio.existsById(50L)).thenReturn(true);
+        when(repositorioServicio.existsById(60L)).thenReturn(false);
+
+        assertThrows(ValidacionException.class,
+                () -> servicioPublico.obtenerProfesionalesPorServicio("test-slug", 50L));
+        assertThrows(RecursoNoEncontradoException.class,
+                () -> servicioPublico.obtenerProfesionalesPorServicio("test-slug", 60L));
+    }
 }
@@ -0,0 +1,266 @@
+package com.example.sitema_de_turnos.servicio;
+
+import com.example.sitema_de_turnos.dto.publico.CrearSerieTurnosRequest;
+import com.example.sitema_de_turnos.dto.publico.SerieTurnosResponse;
+import com.example.sitema_de_turnos.excepcion.SolapamientoException;
+import com.example.sitema_de_turnos.modelo.Cliente;
+import com.example.sitema_de_turnos.modelo.Empresa;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import com.example.sitema_de_turnos.modelo.Servicio;
+import com.example.sitema_de_turnos.modelo.TipoEventoOutbox;
+import com.example.sitema_de_turnos.modelo.Usuario;
+import com.example.sitema_de_turnos.repositorio.RepositorioEmpresa;
+import com.example.sitema_de_turnos.repositorio.RepositorioPago;
+import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioProfesionalServicio.HabilitacionServicio;
+import com.example.sitema_de_turnos.repositorio.RepositorioRetencionSlot;
+import com.example.sitema_de_turnos.repositorio.RepositorioServicio;
+import com.example.sitema_de_turnos.repositorio.RepositorioTurno;
+import com.example.sitema_de_turnos.servicio.agenda.CargadorAgenda;
+import com.example.sitema_de_turnos.servicio.agenda.MapaOcupacionDia;
+import com.example.sitema_de_turnos.servicio.agenda.SerializadorReservas;
+import com.example.sitema_de_turnos.servicio.catalogo.CacheCatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.outbox.ServicioOutbox;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de ServicioSerieTurnos: modos TODO_O_NADA y MEJOR_ESFUERZO y límites de la serie.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ServicioSerieTurnos Tests")
+class ServicioSerieTurnosTest {
+
+    private static final String SLUG = "kinesio";
+    private static final LocalTime HORA = LocalTime.of(10, 0);
+
+    @Mock private RepositorioEmpresa repositorioEmpresa;
+    @Mock private RepositorioServicio repositorioServicio;
+    @Mock private RepositorioPerfilProfesional repositorioPerfilProfesional;
+    @Mock private RepositorioTurno repositorioTurno;
+    @Mock private RepositorioPago repositorioPago;
+    @Mock private RepositorioRetencionSlot repositorioRetencionSlot;
+    @Mock private CacheCatalogoEmpresa cacheCatalogo;
+    @Mock private CargadorAgenda cargadorAgenda;
+    @Mock private SerializadorReservas serializadorReservas;
+    @Mock private ServicioTurno servicioTurno;
+    @Mock private ServicioOutbox servicioOutbox;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @InjectMocks
+    private ServicioSerieTurnos servicioSerieTurnos;
+
+    private PerfilProfesional profesional;
+    /** Primera ocurrencia: dentro de la ventana de reserva y lejos de la anticipación mínima. */
+    private LocalDate fechaInicio;
+
+    @BeforeEach
+    void setUp() {
+        Empresa empresa = new Empresa();
+        empresa.setId(1L);
+        empresa.setSlug(SLUG);
+        empresa.setActiva(true);
+        empresa.setBufferPorDefecto(0);
+        empresa.setDiasMaximosReserva(60);
+
+        Servicio servicio = new Servicio();
+        servicio.setId(10L);
+        servicio.setNombre("Kinesiología");
+        servicio.setDuracionMinutos(30);
+        servicio.setBufferMinutos(0);
+        servicio.setPrecio(BigDecimal.valueOf(1000));
+        servicio.setRequiereSena(false);
+        servicio.setActivo(true);
+        servicio.setEmpresa(empresa);
+
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Ana");
+        usuario.setApellido("Pérez");
+        profesional = new PerfilProfesional();
+        profesional.setId(5L);
+        profesional.setUsuario(usuario);
+        profesional.setActivo(true);
+        profesional.setEmpresa(empresa);
+
+        HabilitacionServicio habilitacion = new HabilitacionServicio() {
+            @Override
+            public Long getProfesionalId() {
+                return 5L;
+            }
+
+            @Override
+            public Long getServicioId() {
+                return 10L;
+            }
+        };
+        CatalogoEmpresa catalogo = CatalogoEmpresa.desde(empresa, List.of(servicio), List.of(profesional),
+            List.of(habilitacion), List.of());
+        fechaInicio = LocalDate.now(ZoneId.of(empresa.getTimezone())).plusDays(2);
+
+        Cliente cliente = new Cliente();
+        cliente.setId(50L);
+        cliente.setNombre("Juan");
+        cliente.setEmail("juan@test.com");
+
+        lenient().when(cacheCatalogo.obtenerPorSlug(SLUG)).thenReturn(Optional.of(catalogo));
+        lenient().when(serializadorReservas.ejecutar(anyString(), any())).thenAnswer(inv ->
+            inv.<Supplier<?>>getArgument(1).get());
+        lenient().when(repositorioPerfilProfesional.getReferenceById(5L)).thenReturn(profesional);
+        lenient().when(repositorioEmpresa.getReferenceById(1L)).thenReturn(empresa);
+        lenient().when(repositorioServicio.getReferenceById(10L)).thenReturn(servicio);
+        lenient().when(servicioTurno.obtenerOCrearCliente(any(), any())).thenReturn(cliente);
+        // El batch devuelve un id por fila insertada
+        lenient().when(namedParameterJdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class),
+            any(KeyHolder.class), any(String[].class))).thenAnswer(inv -> {
+                SqlParameterSource[] filas = inv.getArgument(1);
+                KeyHolder claves = inv.getArgument(2);
+                for (int i = 0; i < filas.length; i++) {
+                    claves.getKeyList().add(Map.<String, Object>of("id", 1000L + i));
+                }
+                return new int[filas.length];
+            });
+    }
+
+    /** Agenda de 9 a 18 en cada ocurrencia semanal; {@code ocupadas} ya tienen un turno a las 10:00. */
+    private void stubAgenda(int repeticiones, LocalDate... ocupadas) {
+        Map<LocalDate, MapaOcupacionDia> agenda = new LinkedHashMap<>();
+        for (LocalDate dia = fechaInicio; !dia.isAfter(fechaInicio.plusWeeks(repeticiones - 1)); dia = dia.plusDays(1)) {
+            MapaOcupacionDia mapa = new MapaOcupacionDia();
+            mapa.agregarRango(LocalTime.of(9, 0), LocalTime.of(18, 0));
+            agenda.put(dia, mapa);
+        }
+        for (LocalDate ocupada : ocupadas) {
+            agenda.get(ocupada).ocupar(HORA, HORA.plusMinutes(30));
+        }
+        when(cargadorAgenda.cargar(eq(profesional), any(), any())).thenReturn(agenda);
+    }
+
+    private CrearSerieTurnosRequest request(CrearSerieTurnosRequest.Modo modo, int repeticiones) {
+        CrearSerieTurnosRequest request = new CrearSerieTurnosRequest();
+        request.setServicioId(10L);
+        request.setProfesionalId(5L);
+        request.setFechaInicio(fechaInicio.toString());
+        request.setHoraInicio("10:00");
+        request.setFrecuencia(CrearSerieTurnosRequest.Frecuencia.SEMANAL);
+        request.setIntervalo(1);
+        request.setRepeticiones(repeticiones);
+        request.setModo(modo);
+        request.setNombreCliente("Juan");
+        request.setEmailCliente("juan@test.com");
+        return request;
+    }
+
+    @Test
+    @DisplayName("TODO_O_NADA: una ocurrencia ocupada descarta la serie completa sin insertar ni crear cliente")
+    void todoONadaDescartaLaSerieSiUnaOcurrenciaChoca() {
+        LocalDate ocupada = fechaInicio.plusWeeks(2);
+        stubAgenda(4, ocupada);
+
+        SerieTurnosResponse respuesta = servicioSerieTurnos.crearSeriePublica(SLUG, null,
+            request(CrearSerieTurnosRequest.Modo.TODO_O_NADA, 4));
+
+        assertEquals(4, respuesta.getSolicitados());
+        assertEquals(0, respuesta.getReservados());
+        assertTrue(respuesta.getOcurrencias().stream().noneMatch(SerieTurnosResponse.Ocurrencia::isReservado));
+        assertEquals("El profesional ya tiene un turno en ese horario", respuesta.getOcurrencias().get(2).getMotivo());
+        assertEquals("No se reservó: otra ocurrencia de la serie no está disponible",
+            respuesta.getOcurrencias().get(0).getMotivo());
+        verify(namedParameterJdbcTemplate, never()).batchUpdate(anyString(), any(SqlParameterSource[].class),
+            any(KeyHolder.class), any(String[].class));
+        verify(servicioTurno, never()).obtenerOCrearCliente(any(), any());
+        verifyNoInteractions(servicioOutbox, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("TODO_O_NADA: si otra reserva gana una ocurrencia al insertar, la serie entera falla (rollback)")
+    void todoONadaFallaEnteraSiElBatchChoca() {
+        stubAgenda(4);
+        doThrow(new DataIntegrityViolationException("turno_sin_solapamiento")).when(namedParameterJdbcTemplate)
+            .batchUpdate(anyString(), any(SqlParameterSource[].class), any(KeyHolder.class), any(String[].class));
+
+        assertThrows(SolapamientoException.class, () -> servicioSerieTurnos.crearSeriePublica(SLUG, null,
+            request(CrearSerieTurnosRequest.Modo.TODO_O_NADA, 4)));
+
+        // La excepción sale de la transacción antes de cualquier efecto secundario
+        verifyNoInteractions(servicioOutbox, eventPublisher, repositorioPago);
+    }
+
+    @Test
+    @DisplayName("MEJOR_ESFUERZO: reserva las disponibles en un solo batch e informa las salteadas")
+    void mejorEsfuerzoReservaElRestoEInformaSalteadas() {
+        LocalDate ocupada = fechaInicio.plusWeeks(1);
+        stubAgenda(4, ocupada);
+
+        SerieTurnosResponse respuesta = servicioSerieTurnos.crearSeriePublica(SLUG, null,
+            request(CrearSerieTurnosRequest.Modo.MEJOR_ESFUERZO, 4));
+
+        assertEquals(4, respuesta.getSolicitados());
+        assertEquals(3, respuesta.getReservados());
+        SerieTurnosResponse.Ocurrencia salteada = respuesta.getOcurrencias().get(1);
+        assertEquals(ocupada.toString(), salteada.getFecha());
+        assertFalse(salteada.isReservado());
+        assertEquals("El profesional ya tiene un turno en ese horario", salteada.getMotivo());
+        assertTrue(respuesta.getOcurrencias().get(3).isReservado());
+        assertNull(respuesta.getOcurrencias().get(3).getMotivo());
+
+        ArgumentCaptor<SqlParameterSource[]> filas = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(namedParameterJdbcTemplate).batchUpdate(anyString(), filas.capture(), any(KeyHolder.class),
+            any(String[].class));
+        assertEquals(3, filas.getValue().length);
+        assertTrue(List.of(filas.getValue()).stream().noneMatch(f -> ocupada.equals(f.getValue("fecha"))));
+        verify(servicioOutbox, times(3)).registrarCorreo(eq(TipoEventoOutbox.CORREO_CONFIRMACION_TURNO), anyLong());
+    }
+
+    @Test
+    @DisplayName("La cantidad de repeticiones se valida entre 2 y 26")
+    void debeValidarLimitesDeRepeticiones() {
+        try (ValidatorFactory factory = Validation.buildDefaultValidatorFactory()) {
+            Validator validator = factory.getValidator();
+
+            for (int repeticiones : new int[]{2, 26}) {
+                assertTrue(violacionesRepeticiones(validator, repeticiones).isEmpty(),
+                    repeticiones + " repeticiones deben aceptarse");
+            }
+            for (int repeticiones : new int[]{1, 27}) {
+                assertEquals(1, violacionesRepeticiones(validator, repeticiones).size(),
+                    repeticiones + " repeticiones deben rechazarse");
+            }
+        }
+    }
+
+    private Set<ConstraintViolation<CrearSerieTurnosRequest>> violacionesRepeticiones(Validator validator, int repeticiones) {
+        return validator.validateProperty(request(CrearSerieTurnosRequest.Modo.TODO_O_NADA, repeticiones), "repeticiones");
+    }
+}
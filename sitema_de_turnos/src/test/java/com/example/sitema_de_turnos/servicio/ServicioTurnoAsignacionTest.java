@@ -0,0 +1,306 @@
+package com.example.sitema_de_turnos.servicio;
+
+import com.example.sitema_de_turnos.dto.publico.CrearTurnoRequest;
+import com.example.sitema_de_turnos.dto.publico.TurnoResponsePublico;
+import com.example.sitema_de_turnos.excepcion.RecursoNoEncontradoException;
+import com.example.sitema_de_turnos.excepcion.ValidacionException;
+import com.example.sitema_de_turnos.modelo.Cliente;
+import com.example.sitema_de_turnos.modelo.Empresa;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import com.example.sitema_de_turnos.modelo.Servicio;
+import com.example.sitema_de_turnos.modelo.Turno;
+import com.example.sitema_de_turnos.modelo.Usuario;
+import com.example.sitema_de_turnos.repositorio.RepositorioBloqueoFecha;
+import com.example.sitema_de_turnos.repositorio.RepositorioCliente;
+import com.example.sitema_de_turnos.repositorio.RepositorioDisponibilidadProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioEmpresa;
+import com.example.sitema_de_turnos.repositorio.RepositorioPago;
+import com.example.sitema_de_turnos.repositorio.RepositorioPerfilDueno;
+import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
+import com.example.sitema_de_turnos.repositorio.RepositorioProfesionalServicio.HabilitacionServicio;
+import com.example.sitema_de_turnos.repositorio.RepositorioServicio;
+import com.example.sitema_de_turnos.repositorio.RepositorioTurno;
+import com.example.sitema_de_turnos.repositorio.RepositorioTurno.CantidadTurnosProfesional;
+import com.example.sitema_de_turnos.servicio.agenda.CargadorAgenda;
+import com.example.sitema_de_turnos.servicio.agenda.MapaOcupacionDia;
+import com.example.sitema_de_turnos.servicio.agenda.RegistroRetenciones;
+import com.example.sitema_de_turnos.servicio.agenda.SerializadorReservas;
+import com.example.sitema_de_turnos.servicio.catalogo.CacheCatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.catalogo.CatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.outbox.ServicioOutbox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests del modo "cualquier profesional" de crearTurnoPublico: asignación al profesional libre
+ * menos cargado del día, desempate por id y ausencia de profesionales elegibles.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ServicioTurno - asignación al profesional menos cargado")
+class ServicioTurnoAsignacionTest {
+
+    private static final String SLUG = "peluqueria";
+    private static final Long SERVICIO_ID = 10L;
+    private static final LocalTime HORA = LocalTime.of(10, 0);
+
+    @Mock private RepositorioTurno repositorioTurno;
+    @Mock private RepositorioCliente repositorioCliente;
+    @Mock private RepositorioServicio repositorioServicio;
+    @Mock private RepositorioPerfilProfesional repositorioPerfilProfesional;
+    @Mock private RepositorioPerfilDueno repositorioPerfilDueno;
+    @Mock private RepositorioEmpresa repositorioEmpresa;
+    @Mock private RepositorioBloqueoFecha repositorioBloqueoFecha;
+    @Mock private RepositorioDisponibilidadProfesional repositorioDisponibilidadProfesional;
+    @Mock private RepositorioPago repositorioPago;
+    @Mock private ServicioOutbox servicioOutbox;
+    @Mock private ServicioPublico servicioPublico;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private CargadorAgenda cargadorAgenda;
+    @Mock private SerializadorReservas serializadorReservas;
+    @Mock private RegistroRetenciones registroRetenciones;
+    @Mock private CacheCatalogoEmpresa cacheCatalogo;
+
+    private ServicioTurno servicioTurno;
+    private Empresa empresa;
+    private Servicio servicio;
+    private Cliente cliente;
+    private LocalDate fecha;
+    private final Map<Long, PerfilProfesional> profesionales = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        servicioTurno = new ServicioTurno(
+            repositorioTurno,
+            repositorioCliente,
+            repositorioServicio,
+            repositorioPerfilProfesional,
+            repositorioPerfilDueno,
+            repositorioEmpresa,
+            repositorioBloqueoFecha,
+            repositorioDisponibilidadProfesional,
+            repositorioPago,
+            servicioOutbox,
+            servicioPublico,
+            eventPublisher,
+            cargadorAgenda,
+            serializadorReservas,
+            registroRetenciones,
+            cacheCatalogo
+        );
+
+        empresa = new Empresa();
+        empresa.setId(1L);
+        empresa.setSlug(SLUG);
+        empresa.setActiva(true);
+        empresa.setBufferPorDefecto(0);
+
+        servicio = new Servicio();
+        servicio.setId(SERVICIO_ID);
+        servicio.setNombre("Corte");
+        servicio.setDuracionMinutos(30);
+        servicio.setBufferMinutos(0);
+        servicio.setPrecio(BigDecimal.valueOf(500));
+        servicio.setRequiereSena(false);
+        servicio.setActivo(true);
+        servicio.setEmpresa(empresa);
+
+        cliente = new Cliente();
+        cliente.setId(50L);
+        cliente.setNombre("Juan");
+        cliente.setEmail("juan@test.com");
+        cliente.setEmpresa(empresa);
+
+        fecha = LocalDate.now(ZoneId.of(empresa.getTimezone())).plusDays(3);
+
+        lenient().when(serializadorReservas.ejecutar(anyString(), any())).thenAnswer(inv ->
+            inv.<Supplier<?>>getArgument(1).get());
+        lenient().when(repositorioPerfilProfesional.getReferenceById(anyLong())).thenAnswer(inv ->
+            profesionales.get(inv.<Long>getArgument(0)));
+        lenient().when(repositorioEmpresa.getReferenceById(1L)).thenReturn(empresa);
+        lenient().when(repositorioServicio.getReferenceById(SERVICIO_ID)).thenReturn(servicio);
+        lenient().when(repositorioBloqueoFecha.findBloqueoEnFecha(any(), any())).thenReturn(List.of());
+        lenient().when(repositorioTurno.save(any(Turno.class))).thenAnswer(inv -> {
+            Turno turno = inv.getArgument(0);
+            turno.setId(900L);
+            return turno;
+        });
+    }
+
+    /** Profesionales activos y habilitados para el servicio, con agenda de 9 a 18 y los turnos del día indicados. */
+    private void stubProfesionales(Map<Long, Long> turnosDelDia, Long... ocupadosALas10) {
+        List<HabilitacionServicio> habilitaciones = turnosDelDia.keySet().stream()
+            .map(id -> habilitacion(id, SERVICIO_ID))
+            .toList();
+        turnosDelDia.keySet().forEach(id -> profesionales.put(id, profesional(id)));
+
+        CatalogoEmpresa catalogo = CatalogoEmpresa.desde(empresa, List.of(servicio),
+            List.copyOf(profesionales.values()), habilitaciones, List.of());
+        when(cacheCatalogo.obtenerPorSlug(SLUG)).thenReturn(Optional.of(catalogo));
+
+        Map<Long, Map<LocalDate, MapaOcupacionDia>> agendas = new HashMap<>();
+        for (Long id : turnosDelDia.keySet()) {
+            MapaOcupacionDia mapa = new MapaOcupacionDia();
+            mapa.agregarRango(LocalTime.of(9, 0), LocalTime.of(18, 0));
+            if (List.of(ocupadosALas10).contains(id)) {
+                mapa.ocupar(HORA, HORA.plusMinutes(30));
+            }
+            agendas.put(id, Map.of(fecha, mapa));
+        }
+        lenient().when(cargadorAgenda.cargar(anyList(), eq(fecha), eq(fecha))).thenReturn(agendas);
+
+        List<CantidadTurnosProfesional> cantidades = turnosDelDia.entrySet().stream()
+            .filter(e -> e.getValue() > 0)
+            .map(e -> cantidad(e.getKey(), e.getValue()))
+            .toList();
+        lenient().when(repositorioTurno.contarTurnosPorProfesionalEnFecha(anyCollection(), eq(fecha), anyList()))
+            .thenReturn(cantidades);
+    }
+
+    private CrearTurnoRequest request() {
+        CrearTurnoRequest request = new CrearTurnoRequest();
+        request.setServicioId(SERVICIO_ID);
+        request.setProfesionalId(null);
+        request.setFecha(fecha.toString());
+        request.setHoraInicio("10:00");
+        return request;
+    }
+
+    @Test
+    @DisplayName("Debe asignar al profesional libre con menos turnos en el día")
+    void debeAsignarAlMenosCargado() {
+        Map<Long, Long> turnosDelDia = new LinkedHashMap<>();
+        turnosDelDia.put(1L, 4L);
+        turnosDelDia.put(2L, 1L);
+        turnosDelDia.put(3L, 2L);
+        stubProfesionales(turnosDelDia);
+
+        TurnoResponsePublico respuesta = servicioTurno.crearTurnoPublico(SLUG, cliente, request());
+
+        assertEquals(2L, respuesta.getProfesionalId());
+        verify(serializadorReservas).bloquearAgenda(2L, fecha);
+    }
+
+    @Test
+    @DisplayName("Ante empate de carga gana el id menor; un profesional ocupado en el horario no compite")
+    void debeDesempatarPorIdYExcluirOcupados() {
+        Map<Long, Long> turnosDelDia = new LinkedHashMap<>();
+        turnosDelDia.put(1L, 0L);
+        turnosDelDia.put(3L, 2L);
+        turnosDelDia.put(4L, 2L);
+        // El 1 tiene menos turnos pero ya atiende a las 10:00
+        stubProfesionales(turnosDelDia, 1L);
+
+        TurnoResponsePublico respuesta = servicioTurno.crearTurnoPublico(SLUG, cliente, request());
+
+        assertEquals(3L, respuesta.getProfesionalId());
+    }
+
+    @Test
+    @DisplayName("Un profesional con el horario retenido por otro cliente no es elegible")
+    void debeExcluirProfesionalesConRetencion() {
+        Map<Long, Long> turnosDelDia = new LinkedHashMap<>();
+        turnosDelDia.put(1L, 0L);
+        turnosDelDia.put(2L, 3L);
+        stubProfesionales(turnosDelDia);
+        when(registroRetenciones.estaRetenido(eq(1L), eq(fecha), anyInt(), anyInt())).thenReturn(true);
+
+        TurnoResponsePublico respuesta = servicioTurno.crearTurnoPublico(SLUG, cliente, request());
+
+        assertEquals(2L, respuesta.getProfesionalId());
+    }
+
+    @Test
+    @DisplayName("Sin profesionales habilitados → RecursoNoEncontradoException; todos ocupados → ValidacionException")
+    void debeFallarSinProfesionalElegible() {
+        stubProfesionales(Map.of());
+        assertThrows(RecursoNoEncontradoException.class,
+            () -> servicioTurno.crearTurnoPublico(SLUG, cliente, request()));
+
+        profesionales.clear();
+        Map<Long, Long> turnosDelDia = new LinkedHashMap<>();
+        turnosDelDia.put(1L, 0L);
+        turnosDelDia.put(2L, 0L);
+        stubProfesionales(turnosDelDia, 1L, 2L);
+        assertThrows(ValidacionException.class,
+            () -> servicioTurno.crearTurnoPublico(SLUG, cliente, request()));
+
+        verify(repositorioTurno, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Un turno que pasaría la medianoche se rechaza como fuera de horario, sin llegar a insertarse")
+    void debeRechazarTurnoQueCruzaLaMedianoche() {
+        Map<Long, Long> turnosDelDia = new LinkedHashMap<>();
+        turnosDelDia.put(1L, 0L);
+        stubProfesionales(turnosDelDia);
+        CrearTurnoRequest request = request();
+        request.setHoraInicio("23:45");
+
+        ValidacionException error = assertThrows(ValidacionException.class,
+            () -> servicioTurno.crearTurnoPublico(SLUG, cliente, request));
+
+        assertEquals("El horario solicitado está fuera del horario de atención", error.getMessage());
+        verify(serializadorReservas, never()).bloquearAgenda(anyLong(), any());
+        verify(repositorioTurno, never()).save(any());
+    }
+
+    private PerfilProfesional profesional(Long id) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Profesional " + id);
+        usuario.setApellido("Apellido");
+        PerfilProfesional profesional = new PerfilProfesional();
+        profesional.setId(id);
+        profesional.setUsuario(usuario);
+        profesional.setActivo(true);
+        profesional.setEmpresa(empresa);
+        return profesional;
+    }
+
+    private static HabilitacionServicio habilitacion(Long profesionalId, Long servicioId) {
+        return new HabilitacionServicio() {
+            @Override
+            public Long getProfesionalId() {
+                return profesionalId;
+            }
+
+            @Override
+            public Long getServicioId() {
+                return servicioId;
+            }
+        };
+    }
+
+    private static CantidadTurnosProfesional cantidad(Long profesionalId, Long cantidad) {
+        return new CantidadTurnosProfesional() {
+            @Override
+            public Long getProfesionalId() {
+                return profesionalId;
+            }
+
+            @Override
+            public Long getCantidad() {
+                return cantidad;
+            }
+        };
+    }
+}
@@ -17,13 +17,19 @@ import com.example.sitema_de_turnos.repositorio.RepositorioPerfilDueno;
 import com.example.sitema_de_turnos.repositorio.RepositorioPerfilProfesional;
 import com.example.sitema_de_turnos.repositorio.RepositorioServicio;
 import com.example.sitema_de_turnos.repositorio.RepositorioTurno;
-import com.example.sitema_de_turnos.servicio.notificacion.EmailNotificationService;
+import com.example.sitema_de_turnos.servicio.agenda.CargadorAgenda;
+import com.example.sitema_de_turnos.servicio.agenda.RegistroRetenciones;
+import com.example.sitema_de_turnos.servicio.agenda.SerializadorReservas;
+import com.example.sitema_de_turnos.servicio.catalogo.CacheCatalogoEmpresa;
+import com.example.sitema_de_turnos.servicio.outbox.ServicioOutbox;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
@@ -36,10 +42,10 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -54,10 +60,13 @@ class ServicioTurnoReprogramacionTest {
     @Mock private RepositorioBloqueoFecha repositorioBloqueoFecha;
     @Mock private RepositorioDisponibilidadProfesional repositorioDisponibilidadProfesional;
     @Mock private RepositorioPago repositorioPago;
-    @Mock private ServicioNotificacion servicioNotificacion;
-    @Mock private ServicioPoliticaCancelacion servicioPoliticaCancelacion;
+    @Mock private ServicioOutbox servicioOutbox;
     @Mock private ServicioPublico servicioPublico;
-    @Mock private EmailNotificationService emailNotificationService;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private CargadorAgenda cargadorAgenda;
+    @Mock private SerializadorReservas serializadorReservas;
+    @Mock private RegistroRetenciones registroRetenciones;
+    @Mock private CacheCatalogoEmpresa cacheCatalogo;
 
     private ServicioTurno servicioTurno;
 
@@ -73,10 +82,13 @@ class ServicioTurnoReprogramacionTest {
             repositorioBloqueoFecha,
             repositorioDisponibilidadProfesional,
             repositorioPago,
-            servicioNotificacion,
-            servicioPoliticaCancelacion,
+            servicioOutbox,
             servicioPublico,
-            emailNotificationService
+            eventPublisher,
+            cargadorAgenda,
+            serializadorReservas,
+            registroRetenciones,
+            cacheCatalogo
         );
     }
 
@@ -126,8 +138,8 @@ class ServicioTurnoReprogramacionTest {
     }
 
     @Test
-    @DisplayName("testReprogramacionExcluyeTurnoOriginalDeColisiones")
-    void testReprogramacionExcluyeTurnoOriginalDeColisiones() {
+    @DisplayName("testReprogramacionLiberaTurnoOriginalAntesDeInsertar")
+    void testReprogramacionLiberaTurnoOriginalAntesDeInsertar() {
         Turno turnoOriginal = construirTurnoBase(EstadoTurno.CONFIRMADO, 0);
         PerfilProfesional profesionalDestino = turnoOriginal.getProfesional();
         LocalDate nuevaFecha = LocalDate.now().plusDays(3);
@@ -143,14 +155,15 @@ class ServicioTurnoReprogramacionTest {
             "PROFESIONAL"
         );
 
-        verify(repositorioTurno).existeSolapamientoExcluyendo(
-            eq(profesionalDestino),
-            eq(nuevaFecha),
-            eq(nuevaHoraInicio),
-            eq(nuevaHoraInicio.plusMinutes(turnoOriginal.getDuracionMinutos() + turnoOriginal.getBufferMinutos())),
-            eq(turnoOriginal.getId()),
-            anyList()
-        );
+        // El original deja de ocupar su rango (REPROGRAMADO + flush) antes de insertar el nuevo,
+        // así la restricción de exclusión solo puede chocar con otros turnos ocupantes.
+        InOrder orden = inOrder(repositorioTurno);
+        orden.verify(repositorioTurno).save(turnoOriginal);
+        orden.verify(repositorioTurno).flush();
+        orden.verify(repositorioTurno).save(argThat((Turno t) -> t != turnoOriginal
+            && nuevaFecha.equals(t.getFecha())
+            && nuevaHoraInicio.equals(t.getHoraInicio())));
+        assertEquals(EstadoTurno.REPROGRAMADO, turnoOriginal.getEstado());
     }
 
     private void prepararStubsHappyPath(Turno turnoOriginal, PerfilProfesional profesionalDestino) {
@@ -166,24 +179,6 @@ class ServicioTurnoReprogramacionTest {
             any()
         )).thenReturn(Collections.singletonList(disponibilidad));
 
-        when(repositorioTurno.findIdsTurnosOcupantesSolapadosForUpdate(
-            eq(profesionalDestino),
-            any(LocalDate.class),
-            any(LocalTime.class),
-            any(LocalTime.class),
-            eq(turnoOriginal.getId()),
-            anyList()
-        )).thenReturn(Collections.emptyList());
-
-        when(repositorioTurno.existeSolapamientoExcluyendo(
-            eq(profesionalDestino),
-            any(LocalDate.class),
-            any(LocalTime.class),
-            any(LocalTime.class),
-            eq(turnoOriginal.getId()),
-            anyList()
-        )).thenReturn(false);
-
         when(repositorioTurno.save(any(Turno.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(repositorioPago.findByTurnoId(anyLong())).thenReturn(Optional.empty());
     }
@@ -0,0 +1,130 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import com.example.sitema_de_turnos.evento.AgendaModificadaEvent;
+import com.example.sitema_de_turnos.modelo.Empresa;
+import com.example.sitema_de_turnos.modelo.PerfilProfesional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de CacheSlotsDisponibilidad: aciertos, desalojo LRU, invalidación por fecha y por
+ * profesional, y descarte de cálculos que empezaron antes de una invalidación.
+ */
+@DisplayName("CacheSlotsDisponibilidad Tests")
+class CacheSlotsDisponibilidadTest {
+
+    private static final Long PROFESIONAL_ID = 7L;
+    private static final LocalDate FECHA = LocalDate.of(2030, 3, 15);
+    private static final int DURACION = 30;
+
+    private CacheSlotsDisponibilidad cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CacheSlotsDisponibilidad(3, 300);
+    }
+
+    @Test
+    @DisplayName("obtenerOCalcular calcula una sola vez y después responde desde la caché")
+    void debeResponderDesdeLaCacheTrasElPrimerCalculo() {
+        AtomicInteger calculos = new AtomicInteger();
+        int[] inicios = {540, 570};
+
+        int[] primero = cache.obtenerOCalcular(PROFESIONAL_ID, FECHA, DURACION, () -> {
+            calculos.incrementAndGet();
+            return inicios;
+        });
+        int[] segundo = cache.obtenerOCalcular(PROFESIONAL_ID, FECHA, DURACION, () -> {
+            calculos.incrementAndGet();
+            return new int[0];
+        });
+
+        assertEquals(1, calculos.get());
+        assertSame(primero, segundo);
+        CacheSlotsDisponibilidad.Estadisticas estadisticas = cache.estadisticas();
+        assertEquals(1, estadisticas.aciertos());
+        assertEquals(1, estadisticas.fallos());
+        assertEquals(0.5, estadisticas.tasaAciertos());
+        // Otra duración es otra entrada
+        assertNull(cache.obtener(PROFESIONAL_ID, FECHA, DURACION + 15));
+    }
+
+    @Test
+    @DisplayName("Al superar el máximo se desaloja la entrada usada hace más tiempo")
+    void debeDesalojarLaMenosUsada() {
+        guardar(PROFESIONAL_ID, FECHA);
+        guardar(PROFESIONAL_ID, FECHA.plusDays(1));
+        guardar(PROFESIONAL_ID, FECHA.plusDays(2));
+        // Leer la primera la vuelve la más reciente: el desalojo se lleva la segunda
+        assertNotNull(cache.obtener(PROFESIONAL_ID, FECHA, DURACION));
+
+        guardar(PROFESIONAL_ID, FECHA.plusDays(3));
+
+        assertNotNull(cache.obtener(PROFESIONAL_ID, FECHA, DURACION));
+        assertNull(cache.obtener(PROFESIONAL_ID, FECHA.plusDays(1), DURACION));
+        assertNotNull(cache.obtener(PROFESIONAL_ID, FECHA.plusDays(3), DURACION));
+        CacheSlotsDisponibilidad.Estadisticas estadisticas = cache.estadisticas();
+        assertEquals(1, estadisticas.desalojos());
+        assertEquals(3, estadisticas.tamanio());
+    }
+
+    @Test
+    @DisplayName("Un turno del día invalida todas las duraciones de esa fecha y solo de ese profesional")
+    void debeInvalidarLaFechaDelProfesional() {
+        cache.guardar(PROFESIONAL_ID, FECHA, DURACION, new int[]{540}, 0);
+        cache.guardar(PROFESIONAL_ID, FECHA, DURACION + 15, new int[]{540}, 0);
+        cache.guardar(PROFESIONAL_ID + 1, FECHA, DURACION, new int[]{540}, 0);
+
+        cache.onAgendaModificada(AgendaModificadaEvent.dia(profesional(PROFESIONAL_ID), FECHA));
+
+        assertNull(cache.obtener(PROFESIONAL_ID, FECHA, DURACION));
+        assertNull(cache.obtener(PROFESIONAL_ID, FECHA, DURACION + 15));
+        assertNotNull(cache.obtener(PROFESIONAL_ID + 1, FECHA, DURACION));
+    }
+
+    @Test
+    @DisplayName("Un cambio de disponibilidad semanal invalida todas las fechas del profesional")
+    void debeInvalidarTodasLasFechas() {
+        guardar(PROFESIONAL_ID, FECHA);
+        guardar(PROFESIONAL_ID, FECHA.plusDays(10));
+
+        cache.onAgendaModificada(AgendaModificadaEvent.todo(profesional(PROFESIONAL_ID)));
+
+        assertNull(cache.obtener(PROFESIONAL_ID, FECHA, DURACION));
+        assertNull(cache.obtener(PROFESIONAL_ID, FECHA.plusDays(10), DURACION));
+        assertEquals(1, cache.estadisticas().invalidaciones());
+    }
+
+    @Test
+    @DisplayName("Un cálculo que empezó antes de una invalidación no se guarda")
+    void noDebeGuardarCalculoAnteriorALaInvalidacion() {
+        long generacion = cache.generacion(PROFESIONAL_ID);
+        // Se reserva mientras se consultaba la base
+        cache.invalidar(PROFESIONAL_ID, FECHA);
+
+        cache.guardar(PROFESIONAL_ID, FECHA, DURACION, new int[]{540}, generacion);
+        assertNull(cache.obtener(PROFESIONAL_ID, FECHA, DURACION));
+
+        cache.guardar(PROFESIONAL_ID, FECHA, DURACION, new int[]{570}, cache.generacion(PROFESIONAL_ID));
+        assertArrayEquals(new int[]{570}, cache.obtener(PROFESIONAL_ID, FECHA, DURACION));
+    }
+
+    private void guardar(Long profesionalId, LocalDate fecha) {
+        cache.guardar(profesionalId, fecha, DURACION, new int[]{540}, cache.generacion(profesionalId));
+    }
+
+    private static PerfilProfesional profesional(Long id) {
+        Empresa empresa = new Empresa();
+        empresa.setSlug("peluqueria");
+        PerfilProfesional profesional = new PerfilProfesional();
+        profesional.setId(id);
+        profesional.setEmpresa(empresa);
+        return profesional;
+    }
+}
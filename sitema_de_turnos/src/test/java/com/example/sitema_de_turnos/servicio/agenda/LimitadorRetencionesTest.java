@@ -0,0 +1,75 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import com.example.sitema_de_turnos.excepcion.LimiteSolicitudesException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de LimitadorRetenciones: ráfaga por origen, rechazo sin consumir y limpieza de orígenes inactivos.
+ */
+@DisplayName("LimitadorRetenciones Tests")
+class LimitadorRetencionesTest {
+
+    private static final long UN_MINUTO = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    @DisplayName("Tras la ráfaga se rechaza hasta que se libera el próximo token")
+    void debeRechazarTrasLaRafaga() {
+        LimitadorRetenciones limitador = new LimitadorRetenciones(6, 2, 100);
+        long t0 = 1_000_000L;
+
+        assertEquals(0, limitador.reservar("10.0.0.1", t0));
+        assertEquals(0, limitador.reservar("10.0.0.1", t0));
+        // 6 por minuto: el tercero debe esperar 10 segundos; el rechazo no consume
+        assertEquals(UN_MINUTO / 6, limitador.reservar("10.0.0.1", t0));
+        assertEquals(UN_MINUTO / 6, limitador.reservar("10.0.0.1", t0));
+        assertEquals(0, limitador.reservar("10.0.0.1", t0 + UN_MINUTO / 6));
+    }
+
+    @Test
+    @DisplayName("Cada origen tiene su propia cubeta")
+    void debeSepararOrigenes() {
+        LimitadorRetenciones limitador = new LimitadorRetenciones(1, 1, 100);
+        long t0 = 1_000_000L;
+
+        assertEquals(0, limitador.reservar("10.0.0.1", t0));
+        assertTrue(limitador.reservar("10.0.0.1", t0) > 0);
+        assertEquals(0, limitador.reservar("10.0.0.2", t0));
+    }
+
+    @Test
+    @DisplayName("Al llegar a max-origenes se descartan las cubetas que volvieron a estar llenas")
+    void debeDescartarOrigenesInactivos() {
+        LimitadorRetenciones limitador = new LimitadorRetenciones(60, 1, 3);
+        long t0 = 1_000_000L;
+        limitador.reservar("a", t0);
+        limitador.reservar("b", t0);
+        limitador.reservar("c", t0);
+
+        limitador.reservar("d", t0 + UN_MINUTO);
+
+        assertEquals(1, limitador.cantidadOrigenes());
+    }
+
+    @Test
+    @DisplayName("verificar lanza LimiteSolicitudesException con los segundos a esperar")
+    void debeLanzarExcepcionAlExceder() {
+        LimitadorRetenciones limitador = new LimitadorRetenciones(1, 1, 100);
+        limitador.verificar("10.0.0.1");
+
+        LimiteSolicitudesException ex = assertThrows(LimiteSolicitudesException.class,
+                () -> limitador.verificar("10.0.0.1"));
+        assertTrue(ex.getReintentarEnSegundos() >= 1 && ex.getReintentarEnSegundos() <= 60);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar configuración inválida")
+    void debeRechazarConfiguracionInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> new LimitadorRetenciones(0, 5, 100));
+        assertThrows(IllegalArgumentException.class, () -> new LimitadorRetenciones(10, 0, 100));
+    }
+}
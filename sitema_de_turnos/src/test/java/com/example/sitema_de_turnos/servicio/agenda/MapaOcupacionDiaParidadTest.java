@@ -0,0 +1,229 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de paridad entre {@link MapaOcupacionDia} y el algoritmo anterior de
+ * ServicioPublico.generarSlots / generarSlotsEnHueco (reproducido acá como oráculo).
+ *
+ * Las agendas generadas son "bien formadas" (rangos sin solapamiento, turnos que empiezan
+ * dentro de un rango y no se pisan entre sí), que es el dominio donde ambos deben coincidir.
+ */
+@DisplayName("MapaOcupacionDia - Paridad con algoritmo de slots anterior")
+class MapaOcupacionDiaParidadTest {
+
+    private static final int[] DURACIONES = {10, 15, 20, 30, 45, 60, 90, 120};
+    private static final int[] BUFFERS = {0, 5, 10, 15};
+
+    @Test
+    @DisplayName("Agendas aleatorias: mismos inicios que el algoritmo anterior")
+    void agendasAleatorias_mismosInicios() {
+        Random random = new Random(20240601L);
+
+        for (int caso = 0; caso < 5_000; caso++) {
+            List<LocalTime[]> rangos = generarRangos(random);
+            List<LocalTime[]> turnos = generarTurnos(random, rangos);
+            int duracion = DURACIONES[random.nextInt(DURACIONES.length)];
+            int buffer = BUFFERS[random.nextInt(BUFFERS.length)];
+            LocalTime horaLimite = random.nextInt(3) == 0
+                    ? LocalTime.of(random.nextInt(22), random.nextInt(60), random.nextInt(60))
+                    : null;
+
+            List<LocalTime> esperado = algoritmoAnterior(rangos, turnos, duracion + buffer, horaLimite);
+            List<LocalTime> obtenido = algoritmoNuevo(rangos, turnos, duracion + buffer, horaLimite);
+
+            assertEquals(esperado, obtenido, "Caso " + caso + ": rangos=" + describir(rangos)
+                    + " turnos=" + describir(turnos) + " total=" + (duracion + buffer) + " limite=" + horaLimite);
+        }
+    }
+
+    @Test
+    @DisplayName("Override de reprogramación (bloque total, buffer 0): mismos inicios")
+    void bloqueTotalOverride_mismosInicios() {
+        List<LocalTime[]> rangos = List.of(
+                new LocalTime[]{LocalTime.of(9, 0), LocalTime.of(13, 0)},
+                new LocalTime[]{LocalTime.of(15, 0), LocalTime.of(19, 30)});
+        List<LocalTime[]> turnos = List.of(
+                new LocalTime[]{LocalTime.of(10, 0), LocalTime.of(10, 40)},
+                new LocalTime[]{LocalTime.of(16, 15), LocalTime.of(17, 5)});
+
+        for (int bloqueTotal = 5; bloqueTotal <= 240; bloqueTotal += 5) {
+            assertEquals(algoritmoAnterior(rangos, turnos, bloqueTotal, null),
+                    algoritmoNuevo(rangos, turnos, bloqueTotal, null), "bloqueTotal=" + bloqueTotal);
+        }
+    }
+
+    @Test
+    @DisplayName("Anticipación de hoy: omite inicios anteriores al límite sin correr la grilla")
+    void anticipacionHoy_mantieneGrilla() {
+        List<LocalTime[]> rangos = List.<LocalTime[]>of(new LocalTime[]{LocalTime.of(9, 0), LocalTime.of(12, 0)});
+        LocalTime limite = LocalTime.of(9, 50, 30);
+
+        List<LocalTime> obtenido = algoritmoNuevo(rangos, List.of(), 40, limite);
+
+        assertEquals(List.of(LocalTime.of(10, 20), LocalTime.of(11, 0)), obtenido);
+        assertEquals(algoritmoAnterior(rangos, List.of(), 40, limite), obtenido);
+    }
+
+    @Test
+    @DisplayName("Límite con segundos: el minuto exacto queda excluido igual que antes")
+    void limiteConSegundos_excluyeMinutoExacto() {
+        List<LocalTime[]> rangos = List.<LocalTime[]>of(new LocalTime[]{LocalTime.of(10, 0), LocalTime.of(11, 0)});
+
+        assertEquals(List.of(LocalTime.of(10, 30)),
+                algoritmoNuevo(rangos, List.of(), 30, LocalTime.of(10, 0, 1)));
+        assertEquals(List.of(LocalTime.of(10, 0), LocalTime.of(10, 30)),
+                algoritmoNuevo(rangos, List.of(), 30, LocalTime.of(10, 0)));
+    }
+
+    @Test
+    @DisplayName("Turnos superpuestos: ocupan todos sus minutos (el algoritmo anterior los ignoraba)")
+    void turnosSuperpuestos_ocupanTodosSusMinutos() {
+        List<LocalTime[]> rangos = List.<LocalTime[]>of(new LocalTime[]{LocalTime.of(10, 0), LocalTime.of(12, 0)});
+        List<LocalTime[]> turnos = List.of(
+                new LocalTime[]{LocalTime.of(10, 0), LocalTime.of(11, 0)},
+                new LocalTime[]{LocalTime.of(10, 15), LocalTime.of(10, 30)});
+
+        assertEquals(List.of(LocalTime.of(11, 0), LocalTime.of(11, 30)),
+                algoritmoNuevo(rangos, turnos, 30, null));
+    }
+
+    @Test
+    @DisplayName("Rango cerca de medianoche: la grilla no da la vuelta al día siguiente")
+    void rangoCercaDeMedianoche_noDaLaVuelta() {
+        List<LocalTime[]> rangos = List.<LocalTime[]>of(new LocalTime[]{LocalTime.of(21, 0), LocalTime.of(23, 59)});
+
+        // Antes: 23:00 + 60 = 00:00 <= 23:59 emitía 23:00 y seguía dando vueltas
+        assertEquals(List.of(LocalTime.of(21, 0), LocalTime.of(22, 0)),
+                algoritmoNuevo(rangos, List.of(), 60, null));
+    }
+
+    @Test
+    @DisplayName("tieneInicio coincide con recorrerInicios > 0")
+    void tieneInicio_coincideConCantidad() {
+        Random random = new Random(7L);
+        for (int caso = 0; caso < 2_000; caso++) {
+            MapaOcupacionDia mapa = construir(generarRangos(random), List.of());
+            int total = DURACIONES[random.nextInt(DURACIONES.length)];
+            int minimo = random.nextInt(MapaOcupacionDia.MINUTOS_DIA + 60);
+            assertEquals(mapa.recorrerInicios(total, minimo, null) > 0, mapa.tieneInicio(total, minimo));
+        }
+    }
+
+    // ==================== Implementaciones comparadas ====================
+
+    private List<LocalTime> algoritmoNuevo(List<LocalTime[]> rangos, List<LocalTime[]> turnos,
+                                           int duracionTotal, LocalTime horaLimite) {
+        MapaOcupacionDia mapa = construir(rangos, turnos);
+        int minutoMinimo = 0;
+        if (horaLimite != null) {
+            minutoMinimo = MapaOcupacionDia.aMinuto(horaLimite)
+                    + (horaLimite.getSecond() > 0 || horaLimite.getNano() > 0 ? 1 : 0);
+        }
+        List<LocalTime> inicios = new ArrayList<>();
+        mapa.recorrerInicios(duracionTotal, minutoMinimo, m -> inicios.add(MapaOcupacionDia.aHora(m)));
+        return inicios;
+    }
+
+    private MapaOcupacionDia construir(List<LocalTime[]> rangos, List<LocalTime[]> turnos) {
+        MapaOcupacionDia mapa = new MapaOcupacionDia();
+        rangos.forEach(r -> mapa.agregarRango(r[0], r[1]));
+        turnos.forEach(t -> mapa.ocupar(t[0], t[1]));
+        return mapa;
+    }
+
+    /**
+     * Copia fiel del algoritmo anterior (recorrido de huecos con LocalTime).
+     */
+    private List<LocalTime> algoritmoAnterior(List<LocalTime[]> rangos, List<LocalTime[]> turnosDia,
+                                              int duracionTotal, LocalTime horaLimite) {
+        List<LocalTime> slots = new ArrayList<>();
+        List<LocalTime[]> turnosOrdenados = new ArrayList<>(turnosDia);
+        turnosOrdenados.sort(Comparator.comparing(t -> t[0]));
+
+        for (LocalTime[] rango : rangos) {
+            List<LocalTime[]> turnosEnRango = turnosOrdenados.stream()
+                    .filter(t -> !t[0].isBefore(rango[0]) && t[0].isBefore(rango[1]))
+                    .collect(Collectors.toList());
+
+            LocalTime inicioBusqueda = rango[0];
+            for (LocalTime[] turno : turnosEnRango) {
+                if (inicioBusqueda.isBefore(turno[0])) {
+                    hueco(slots, inicioBusqueda, turno[0], duracionTotal, horaLimite);
+                }
+                inicioBusqueda = turno[1];
+            }
+            if (inicioBusqueda.isBefore(rango[1])) {
+                hueco(slots, inicioBusqueda, rango[1], duracionTotal, horaLimite);
+            }
+        }
+        return slots;
+    }
+
+    private void hueco(List<LocalTime> slots, LocalTime inicio, LocalTime fin, int duracionTotal, LocalTime horaLimite) {
+        LocalTime horaActual = inicio;
+        while (horaActual.plusMinutes(duracionTotal).compareTo(fin) <= 0) {
+            if (horaLimite != null && horaActual.isBefore(horaLimite)) {
+                horaActual = horaActual.plusMinutes(duracionTotal);
+                continue;
+            }
+            slots.add(horaActual);
+            horaActual = horaActual.plusMinutes(duracionTotal);
+        }
+    }
+
+    // ==================== Generadores ====================
+
+    /**
+     * 1 a 3 rangos sin solapamiento ni contigüidad, dentro de [06:00, 21:00).
+     * El límite deja margen para que la grilla del algoritmo anterior no dé la vuelta por medianoche.
+     */
+    private List<LocalTime[]> generarRangos(Random random) {
+        List<LocalTime[]> rangos = new ArrayList<>();
+        int cursor = 6 * 60 + random.nextInt(120);
+        int cantidad = 1 + random.nextInt(3);
+        for (int i = 0; i < cantidad && cursor < 20 * 60; i++) {
+            int fin = Math.min(cursor + 30 + random.nextInt(300), 21 * 60);
+            rangos.add(new LocalTime[]{MapaOcupacionDia.aHora(cursor), MapaOcupacionDia.aHora(fin)});
+            cursor = fin + 5 + random.nextInt(90);
+        }
+        return rangos;
+    }
+
+    /**
+     * Turnos que empiezan dentro de un rango, sin pisarse entre sí y sin invadir el rango siguiente.
+     */
+    private List<LocalTime[]> generarTurnos(Random random, List<LocalTime[]> rangos) {
+        List<LocalTime[]> turnos = new ArrayList<>();
+        for (LocalTime[] rango : rangos) {
+            int cursor = MapaOcupacionDia.aMinuto(rango[0]);
+            int finRango = MapaOcupacionDia.aMinuto(rango[1]);
+            while (cursor < finRango && random.nextInt(4) != 0) {
+                int inicio = cursor + random.nextInt(60);
+                if (inicio >= finRango) {
+                    break;
+                }
+                int fin = Math.min(inicio + 10 + random.nextInt(80), finRango);
+                turnos.add(new LocalTime[]{MapaOcupacionDia.aHora(inicio), MapaOcupacionDia.aHora(fin)});
+                cursor = fin;
+            }
+        }
+        // El algoritmo anterior ordenaba; el nuevo no depende del orden
+        java.util.Collections.shuffle(turnos, random);
+        return turnos;
+    }
+
+    private String describir(List<LocalTime[]> intervalos) {
+        return intervalos.stream().map(i -> i[0] + "-" + i[1]).collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import com.example.sitema_de_turnos.evento.SlotTurnoEvent;
+import com.example.sitema_de_turnos.excepcion.SolapamientoException;
+import com.example.sitema_de_turnos.modelo.RetencionSlot;
+import com.example.sitema_de_turnos.repositorio.RepositorioRetencionSlot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de RegistroRetenciones: colisiones con los slots publicados y con la reserva,
+ * liberación anticipada, reemplazo por titular y vencimiento por la rueda.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RegistroRetenciones Tests")
+class RegistroRetencionesTest {
+
+    private static final Long PROFESIONAL_ID = 7L;
+    private static final LocalDate FECHA = LocalDate.of(2030, 3, 15);
+
+    @Mock
+    private RepositorioRetencionSlot repositorioRetencionSlot;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private RegistroRetenciones registro;
+
+    @BeforeEach
+    void setUp() {
+        // Tick de una hora: la rueda no avanza sola durante el test
+        registro = new RegistroRetenciones(repositorioRetencionSlot, eventPublisher, 3_600_000L, 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registro.detener();
+    }
+
+    @Test
+    @DisplayName("Una retención bloquea los intervalos que la pisan, no los que solo la tocan")
+    void debeDetectarColisiones() {
+        registro.registrar(retencion("t1", "10:00", "10:30", Instant.now().plus(5, ChronoUnit.MINUTES)));
+
+        assertTrue(registro.estaRetenido(PROFESIONAL_ID, FECHA, minuto("10:15"), minuto("10:45")));
+        assertTrue(registro.estaRetenido(PROFESIONAL_ID, FECHA, minuto("09:00"), minuto("12:00")));
+        assertFalse(registro.estaRetenido(PROFESIONAL_ID, FECHA, minuto("09:30"), minuto("10:00")));
+        assertFalse(registro.estaRetenido(PROFESIONAL_ID, FECHA, minuto("10:30"), minuto("11:00")));
+        assertFalse(registro.estaRetenido(PROFESIONAL_ID, FECHA.plusDays(1), minuto("10:00"), minuto("10:30")));
+        assertFalse(registro.estaRetenido(99L, FECHA, minuto("10:00"), minuto("10:30")));
+    }
+
+    @Test
+    @DisplayName("filtrarInicios quita solo los slots que pisan una retención y no copia si no hay")
+    void debeFiltrarIniciosRetenidos() {
+        int[] inicios = {minuto("09:30"), minuto("10:00"), minuto("10:30"), minuto("11:00")};
+        assertSame(inicios, registro.filtrarInicios(PROFESIONAL_ID, FECHA, inicios, 30));
+
+        registro.registrar(retencion("t1", "10:00", "10:30", Instant.now().plus(5, ChronoUnit.MINUTES)));
+        registro.registrar(retencion("t2", "11:00", "11:15", Instant.now().plus(5, ChronoUnit.MINUTES)));
+
+        assertArrayEquals(new int[]{minuto("09:30"), minuto("10:30")},
+                registro.filtrarInicios(PROFESIONAL_ID, FECHA, inicios, 30));
+    }
+
+    @Test
+    @DisplayName("Reservar sobre la retención de otro cliente lanza SolapamientoException")
+    void debeRechazarRetencionAjena() {
+        when(repositorioRetencionSlot.findVigentesSolapadas(eq(PROFESIONAL_ID), eq(FECHA), any(), any(), any()))
+                .thenReturn(List.of(retencion("ajena", "10:00", "10:30", Instant.now().plus(5, ChronoUnit.MINUTES))));
+
+        assertThrows(SolapamientoException.class, () -> registro.verificarYConsumir(
+                PROFESIONAL_ID, FECHA, LocalTime.of(10, 15), LocalTime.of(10, 45), "propia"));
+        verify(repositorioRetencionSlot, never()).delete(any());
+    }
+
+    @Test
+    @DisplayName("Reservar con el token propio consume la retención sin publicar liberación")
+    void debeConsumirRetencionPropia() {
+        RetencionSlot propia = retencion("propia", "10:00", "10:30", Instant.now().plus(5, ChronoUnit.MINUTES));
+        registro.registrar(propia);
+        when(repositorioRetencionSlot.findVigentesSolapadas(eq(PROFESIONAL_ID), eq(FECHA), any(), any(), any()))
+                .thenReturn(List.of(propia));
+        when(repositorioRetencionSlot.findByToken("propia")).thenReturn(Optional.of(propia));
+
+        registro.verificarYConsumir(PROFESIONAL_ID, FECHA, LocalTime.of(10, 0), LocalTime.of(10, 30), "propia");
+
+        verify(repositorioRetencionSlot).delete(propia);
+        assertEquals(0, registro.cantidadVigentes());
+        assertFalse(registro.estaRetenido(PROFESIONAL_ID, FECHA, minuto("10:00"), minuto("10:30")));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Liberar quita la retención y publica el delta; un token desconocido devuelve false")
+    void debeLiberarRetencion() {
+        registro.registrar(retencion("t1", "10:00", "10:30", Instant.now().plus(5, ChronoUnit.MINUTES)));
+        when(repositorioRetencionSlot.eliminarPorTokens(List.of("t1"))).thenReturn(1);
+        when(repositorioRetencionSlot.eliminarPorTokens(List.of("desconocido"))).thenReturn(0);
+
+        assertTrue(registro.liberar("t1"));
+        assertFalse(registro.liberar("desconocido"));
+
+        assertEquals(0, registro.cantidadVigentes());
+        assertFalse(registro.estaRetenido(PROFESIONAL_ID, FECHA, minuto("10:00"), minuto("10:30")));
+        ArgumentCaptor<SlotTurnoEvent> evento = ArgumentCaptor.forClass(SlotTurnoEvent.class);
+        verify(eventPublisher).publishEvent(evento.capture());
+        assertEquals(SlotTurnoEvent.Tipo.LIBERADO, evento.getValue().getTipo());
+        assertTrue(evento.getValue().esRetencion());
+    }
+
+    @Test
+    @DisplayName("Registrar dos veces el mismo token no duplica la retención")
+    void debeIgnorarTokenDuplicado() {
+        RetencionSlot retencion = retencion("t1", "10:00", "10:30", Instant.now().plus(5, ChronoUnit.MINUTES));
+        registro.registrar(retencion);
+        registro.registrar(retencion);
+
+        assertEquals(1, registro.cantidadVigentes());
+        assertArrayEquals(new int[]{minuto("09:00")},
+                registro.filtrarInicios(PROFESIONAL_ID, FECHA, new int[]{minuto("09:00"), minuto("10:00")}, 60));
+    }
+
+    @Test
+    @DisplayName("Reemplazar borra las retenciones anteriores del titular y las libera")
+    void debeReemplazarRetencionesDelTitular() {
+        RetencionSlot anterior = retencion("anterior", "10:00", "10:30", Instant.now().plus(5, ChronoUnit.MINUTES));
+        registro.registrar(anterior);
+        when(repositorioRetencionSlot.eliminarPorTokens(List.of("anterior"))).thenReturn(1);
+
+        assertEquals(1, registro.reemplazar(List.of(anterior)));
+        assertEquals(0, registro.reemplazar(List.of()));
+
+        assertEquals(0, registro.cantidadVigentes());
+        verify(eventPublisher).publishEvent(any(SlotTurnoEvent.class));
+    }
+
+    @Test
+    @DisplayName("Al vencer, la rueda quita la retención, borra la fila y publica la liberación")
+    void debeVencerRetenciones() throws InterruptedException {
+        registro.detener();
+        registro = new RegistroRetenciones(repositorioRetencionSlot, eventPublisher, 20L, 64);
+        registro.registrar(retencion("corta", "10:00", "10:30", Instant.now().plusMillis(60)));
+        registro.registrar(retencion("larga", "11:00", "11:30", Instant.now().plus(5, ChronoUnit.MINUTES)));
+
+        long limite = System.currentTimeMillis() + 5_000;
+        while (registro.cantidadVigentes() > 1 && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, registro.cantidadVigentes());
+        assertFalse(registro.estaRetenido(PROFESIONAL_ID, FECHA, minuto("10:00"), minuto("10:30")));
+        assertTrue(registro.estaRetenido(PROFESIONAL_ID, FECHA, minuto("11:00"), minuto("11:30")));
+        verify(repositorioRetencionSlot, timeout(1_000)).eliminarPorTokens(List.of("corta"));
+        verify(eventPublisher, timeout(1_000)).publishEvent(any(SlotTurnoEvent.class));
+        verify(repositorioRetencionSlot, never()).eliminarPorTokens(argThat(tokens -> tokens.contains("larga")));
+    }
+
+    private static RetencionSlot retencion(String token, String inicio, String fin, Instant expiraEn) {
+        RetencionSlot retencion = new RetencionSlot();
+        retencion.setToken(token);
+        retencion.setEmpresaSlug("empresa-test");
+        retencion.setProfesionalId(PROFESIONAL_ID);
+        retencion.setFecha(FECHA);
+        retencion.setHoraInicio(LocalTime.parse(inicio));
+        retencion.setHoraFin(LocalTime.parse(fin));
+        retencion.setExpiraEn(expiraEn);
+        return retencion;
+    }
+
+    private static int minuto(String hora) {
+        return MapaOcupacionDia.aMinuto(LocalTime.parse(hora));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.sitema_de_turnos.servicio.agenda;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de RuedaTemporizadora: vencimiento por tick, cancelación y entradas a más de una vuelta.
+ */
+@DisplayName("RuedaTemporizadora Tests")
+class RuedaTemporizadoraTest {
+
+    private static final long TICK_MS = 100;
+    private static final long T0 = 1_000_000L;
+
+    @Test
+    @DisplayName("Una entrada vence en el primer avance posterior a su tick, nunca antes")
+    void debeVencerEnSuTick() {
+        RuedaTemporizadora<String> rueda = new RuedaTemporizadora<>(TICK_MS, 8, T0);
+        rueda.programar("a", T0 + 250);
+        List<String> vencidos = new ArrayList<>();
+
+        assertEquals(0, rueda.avanzar(T0 + 200, vencidos::add));
+        assertEquals(0, rueda.avanzar(T0 + 299, vencidos::add));
+        assertEquals(1, rueda.avanzar(T0 + 300, vencidos::add));
+        assertEquals(List.of("a"), vencidos);
+        assertEquals(0, rueda.tamanio());
+    }
+
+    @Test
+    @DisplayName("Una entrada cancelada no se entrega y se descarta al pasar por su ranura")
+    void debeDescartarCanceladas() {
+        RuedaTemporizadora<String> rueda = new RuedaTemporizadora<>(TICK_MS, 8, T0);
+        RuedaTemporizadora.Entrada<String> cancelada = rueda.programar("cancelada", T0 + 100);
+        rueda.programar("vigente", T0 + 100);
+        cancelada.cancelar();
+        List<String> vencidos = new ArrayList<>();
+
+        assertEquals(1, rueda.avanzar(T0 + 100, vencidos::add));
+        assertEquals(List.of("vigente"), vencidos);
+        assertEquals(0, rueda.tamanio());
+    }
+
+    @Test
+    @DisplayName("Un vencimiento a más de una vuelta queda en su ranura hasta que llega su tick")
+    void debeRespetarEntradasDeVariasVueltas() {
+        RuedaTemporizadora<String> rueda = new RuedaTemporizadora<>(TICK_MS, 4, T0);
+        // El tick 10010 comparte ranura con los ticks 10002 y 10006: se recorre dos veces antes de vencer
+        rueda.programar("lejana", T0 + 1_000);
+        List<String> vencidos = new ArrayList<>();
+
+        assertEquals(0, rueda.avanzar(T0 + 200, vencidos::add));
+        assertEquals(0, rueda.avanzar(T0 + 600, vencidos::add));
+        assertEquals(1, rueda.tamanio());
+        assertEquals(1, rueda.avanzar(T0 + 1_000, vencidos::add));
+        assertEquals(List.of("lejana"), vencidos);
+    }
+
+    @Test
+    @DisplayName("Un vencimiento ya pasado se entrega en el próximo avance")
+    void debeEntregarVencidasEnElProximoAvance() {
+        RuedaTemporizadora<String> rueda = new RuedaTemporizadora<>(TICK_MS, 8, T0);
+        rueda.programar("pasada", T0 - 5_000);
+        List<String> vencidos = new ArrayList<>();
+
+        assertEquals(0, rueda.avanzar(T0 + 50, vencidos::add));
+        assertEquals(1, rueda.avanzar(T0 + 100, vencidos::add));
+        assertEquals(List.of("pasada"), vencidos);
+    }
+
+    @Test
+    @DisplayName("Con un atraso de varias vueltas se entregan todas las vencidas una sola vez")
+    void debeAlcanzarAtrasosLargos() {
+        RuedaTemporizadora<Integer> rueda = new RuedaTemporizadora<>(TICK_MS, 4, T0);
+        for (int i = 1; i <= 10; i++) {
+            rueda.programar(i, T0 + i * TICK_MS);
+        }
+        List<Integer> vencidos = new ArrayList<>();
+
+        assertEquals(10, rueda.avanzar(T0 + 50 * TICK_MS, vencidos::add));
+        assertEquals(10, vencidos.stream().distinct().count());
+        assertEquals(0, rueda.avanzar(T0 + 60 * TICK_MS, vencidos::add));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar tick o cantidad de ranuras inválidos")
+    void debeRechazarConfiguracionInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> new RuedaTemporizadora<String>(0, 8, T0));
+        assertThrows(IllegalArgumentException.class, () -> new RuedaTemporizadora<String>(TICK_MS, 0, T0));
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.sitema_de_turnos.servicio.notificacion;
 
 import com.example.sitema_de_turnos.dto.notificacion.ReminderData;
+import com.example.sitema_de_turnos.excepcion.NotificationException;
 import com.example.sitema_de_turnos.modelo.Cliente;
 import com.example.sitema_de_turnos.modelo.Empresa;
 import com.example.sitema_de_turnos.modelo.Pago;
@@ -48,7 +49,7 @@ class EmailNotificationServiceTest {
 
     @BeforeEach
     void setUp() {
-        emailService = new EmailNotificationService(repositorioPago, templateEngine);
+        emailService = new EmailNotificationService(repositorioPago, templateEngine, new LimitadorEnvioEmail(1000, 1000, 1000, 1000));
         
         ReflectionTestUtils.setField(emailService, "enabled", true);
         ReflectionTestUtils.setField(emailService, "brevoApiKey", "test-api-key");
@@ -115,6 +116,26 @@ class EmailNotificationServiceTest {
         assertDoesNotThrow(() -> emailService.sendReminder(reminderDataValido));
     }
 
+    @Test
+    @DisplayName("sendReminder interrumpido esperando el límite de envío lanza NotificationException")
+    void sendReminderInterrumpidoDebePropagarNotificationException() throws Exception {
+        LimitadorEnvioEmail limitador = mock(LimitadorEnvioEmail.class);
+        doThrow(new InterruptedException()).when(limitador).adquirir(LimitadorEnvioEmail.Carril.MASIVO);
+        EmailNotificationService servicio = new EmailNotificationService(repositorioPago, templateEngine, limitador);
+        ReflectionTestUtils.setField(servicio, "enabled", true);
+        ReflectionTestUtils.setField(servicio, "brevoApiKey", "test-api-key");
+        ReflectionTestUtils.setField(servicio, "frontendUrl", "http://localhost:5173");
+
+        try {
+            NotificationException ex = assertThrows(NotificationException.class,
+                    () -> servicio.sendReminder(reminderDataValido));
+            assertInstanceOf(InterruptedException.class, ex.getCause());
+            assertTrue(Thread.currentThread().isInterrupted(), "debe conservar el estado de interrupción");
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
     @Test
     @DisplayName("enviarCorreoConfirmacionTurno no debe propagar excepción")
     void enviarCorreoConfirmacionTurnoNoDebePropagarExcepcion() {
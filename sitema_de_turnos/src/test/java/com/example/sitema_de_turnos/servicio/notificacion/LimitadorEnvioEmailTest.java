@@ -0,0 +1,67 @@
+package com.example.sitema_de_turnos.servicio.notificacion;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de LimitadorEnvioEmail: ráfaga, ritmo sostenido y carriles independientes.
+ */
+@DisplayName("LimitadorEnvioEmail Tests")
+class LimitadorEnvioEmailTest {
+
+    private static final long UN_SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("La ráfaga sale sin esperar y luego se respeta el ritmo sostenido")
+    void debeRespetarRafagaYRitmo() {
+        long t0 = 1_000_000L;
+        LimitadorEnvioEmail.Cubeta cubeta = new LimitadorEnvioEmail.Cubeta(2, 3, t0);
+
+        assertEquals(0, cubeta.reservar(t0));
+        assertEquals(0, cubeta.reservar(t0));
+        assertEquals(0, cubeta.reservar(t0));
+        // 2 por segundo: el cuarto espera medio segundo y el quinto uno entero
+        assertEquals(UN_SEGUNDO / 2, cubeta.reservar(t0));
+        assertEquals(UN_SEGUNDO, cubeta.reservar(t0));
+    }
+
+    @Test
+    @DisplayName("Una cubeta inactiva se rellena hasta la ráfaga, no más")
+    void debeRellenarSinSuperarLaRafaga() {
+        long t0 = 1_000_000L;
+        LimitadorEnvioEmail.Cubeta cubeta = new LimitadorEnvioEmail.Cubeta(2, 2, t0);
+        cubeta.reservar(t0);
+        cubeta.reservar(t0);
+
+        // Diez segundos sin envíos: vuelven a estar disponibles solo 2 tokens
+        long t1 = t0 + 10 * UN_SEGUNDO;
+        assertEquals(0, cubeta.reservar(t1));
+        assertEquals(0, cubeta.reservar(t1));
+        assertTrue(cubeta.reservar(t1) > 0);
+    }
+
+    @Test
+    @DisplayName("Un carril MASIVO agotado no demora a los transaccionales")
+    void debeSepararCarriles() {
+        LimitadorEnvioEmail limitador = new LimitadorEnvioEmail(100, 5, 0.1, 1);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            limitador.adquirir(LimitadorEnvioEmail.Carril.MASIVO);
+            for (int i = 0; i < 5; i++) {
+                limitador.adquirir(LimitadorEnvioEmail.Carril.TRANSACCIONAL);
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Debe rechazar ritmo o ráfaga inválidos")
+    void debeRechazarConfiguracionInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> new LimitadorEnvioEmail(0, 10, 2, 4));
+        assertThrows(IllegalArgumentException.class, () -> new LimitadorEnvioEmail(5, 10, 2, 0));
+    }
+}
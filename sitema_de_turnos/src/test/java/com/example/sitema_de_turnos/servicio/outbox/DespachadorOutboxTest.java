@@ -0,0 +1,189 @@
+package com.example.sitema_de_turnos.servicio.outbox;
+
+import com.example.sitema_de_turnos.excepcion.NotificationException;
+import com.example.sitema_de_turnos.modelo.EstadoEventoOutbox;
+import com.example.sitema_de_turnos.modelo.EventoOutbox;
+import com.example.sitema_de_turnos.modelo.TipoEventoOutbox;
+import com.example.sitema_de_turnos.modelo.Turno;
+import com.example.sitema_de_turnos.repositorio.RepositorioEventoOutbox;
+import com.example.sitema_de_turnos.repositorio.RepositorioTurno;
+import com.example.sitema_de_turnos.servicio.ServicioNotificacion;
+import com.example.sitema_de_turnos.servicio.notificacion.EmailNotificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de DespachadorOutbox: reclamo de lotes, reintento con backoff, descarte tras el máximo
+ * de intentos y que un fallo del handler no pierda el evento.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DespachadorOutbox Tests")
+class DespachadorOutboxTest {
+
+    private static final int LOTE = 50;
+    private static final long RECLAMO_SEGUNDOS = 60;
+    private static final int MAX_INTENTOS = 8;
+    private static final long ESPERA_BASE_SEGUNDOS = 5;
+
+    @Mock
+    private RepositorioEventoOutbox repositorioEventoOutbox;
+
+    @Mock
+    private RepositorioTurno repositorioTurno;
+
+    @Mock
+    private EmailNotificationService emailNotificationService;
+
+    @Mock
+    private ServicioNotificacion servicioNotificacion;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private DespachadorOutbox despachador;
+
+    @BeforeEach
+    void setUp() {
+        // Transacción de reclamo ejecutada en línea; lote despachado en el mismo hilo
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(inv ->
+            inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(repositorioEventoOutbox.cerrar(anyLong(), anyInt(), any(), any(), any())).thenReturn(1);
+        lenient().when(repositorioEventoOutbox.reprogramar(anyLong(), anyInt(), any(), any())).thenReturn(1);
+
+        despachador = new DespachadorOutbox(repositorioEventoOutbox, repositorioTurno, emailNotificationService,
+            servicioNotificacion, transactionTemplate, Runnable::run,
+            LOTE, RECLAMO_SEGUNDOS, MAX_INTENTOS, ESPERA_BASE_SEGUNDOS, 7);
+    }
+
+    @Test
+    @DisplayName("Debe reclamar los pendientes (EN_PROCESO, intento +1, vencimiento de reclamo) y cerrarlos como PROCESADO")
+    void debeReclamarYProcesarPendientes() {
+        EventoOutbox correo = evento(1L, TipoEventoOutbox.CORREO_CONFIRMACION_TURNO, 100L, 0);
+        EventoOutbox websocket = evento(2L, TipoEventoOutbox.WEBSOCKET_NOTIFICACION, 200L, 0);
+        Turno turno = new Turno();
+        when(repositorioEventoOutbox.reclamarLote(any(), eq(LOTE))).thenReturn(List.of(correo, websocket));
+        when(repositorioTurno.findParaCorreoById(100L)).thenReturn(Optional.of(turno));
+
+        LocalDateTime antes = LocalDateTime.now(ZoneOffset.UTC);
+        despachador.despachar();
+
+        assertEquals(EstadoEventoOutbox.EN_PROCESO, correo.getEstado());
+        assertEquals(1, correo.getIntentos());
+        assertFalse(correo.getProximoIntento().isBefore(antes.plusSeconds(RECLAMO_SEGUNDOS)));
+
+        verify(emailNotificationService).entregarCorreoConfirmacionTurno(turno);
+        verify(servicioNotificacion).despacharPorWebSocket(200L);
+        verify(repositorioEventoOutbox).cerrar(eq(1L), eq(1), eq(EstadoEventoOutbox.PROCESADO), any(), isNull());
+        verify(repositorioEventoOutbox).cerrar(eq(2L), eq(1), eq(EstadoEventoOutbox.PROCESADO), any(), isNull());
+        // Lote incompleto: no hay segunda ronda
+        verify(repositorioEventoOutbox, times(1)).reclamarLote(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Un fallo reprograma el evento como PENDIENTE con backoff exponencial")
+    void debeReintentarConBackoff() {
+        // Tercer intento tras el reclamo: espera = base · 2^(3-1)
+        EventoOutbox push = evento(3L, TipoEventoOutbox.PUSH_NOTIFICACION, 300L, 2);
+        when(repositorioEventoOutbox.reclamarLote(any(), anyInt())).thenReturn(List.of(push));
+        doThrow(new IllegalStateException("push caído")).when(servicioNotificacion).despacharPush(300L);
+
+        LocalDateTime antes = LocalDateTime.now(ZoneOffset.UTC);
+        despachador.despachar();
+        LocalDateTime despues = LocalDateTime.now(ZoneOffset.UTC);
+
+        ArgumentCaptor<LocalDateTime> proximo = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<String> error = ArgumentCaptor.forClass(String.class);
+        verify(repositorioEventoOutbox).reprogramar(eq(3L), eq(3), proximo.capture(), error.capture());
+        long espera = ESPERA_BASE_SEGUNDOS * 4;
+        assertFalse(proximo.getValue().isBefore(antes.plusSeconds(espera)));
+        assertFalse(proximo.getValue().isAfter(despues.plusSeconds(espera)));
+        assertEquals("IllegalStateException: push caído", error.getValue());
+        verify(repositorioEventoOutbox, never()).cerrar(anyLong(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Un correo que Brevo rechaza no se cierra como PROCESADO: se reprograma con backoff")
+    void debeReintentarCorreoFallido() {
+        EventoOutbox correo = evento(7L, TipoEventoOutbox.CORREO_CONFIRMACION_TURNO, 700L, 0);
+        Turno turno = new Turno();
+        when(repositorioEventoOutbox.reclamarLote(any(), anyInt())).thenReturn(List.of(correo));
+        when(repositorioTurno.findParaCorreoById(700L)).thenReturn(Optional.of(turno));
+        doThrow(new NotificationException("Brevo devolvió 503"))
+            .when(emailNotificationService).entregarCorreoConfirmacionTurno(turno);
+
+        despachador.despachar();
+
+        verify(repositorioEventoOutbox).reprogramar(eq(7L), eq(1), any(),
+            eq("NotificationException: Brevo devolvió 503"));
+        verify(repositorioEventoOutbox, never()).cerrar(anyLong(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Al llegar al máximo de intentos el evento queda FALLIDO con el último error")
+    void debeMarcarFallidoTrasMaximoDeIntentos() {
+        EventoOutbox websocket = evento(4L, TipoEventoOutbox.WEBSOCKET_NOTIFICACION, 400L, MAX_INTENTOS - 1);
+        when(repositorioEventoOutbox.reclamarLote(any(), anyInt())).thenReturn(List.of(websocket));
+        doThrow(new IllegalStateException("sin conexión")).when(servicioNotificacion).despacharPorWebSocket(400L);
+
+        despachador.despachar();
+
+        verify(repositorioEventoOutbox).cerrar(eq(4L), eq(MAX_INTENTOS), eq(EstadoEventoOutbox.FALLIDO), any(),
+            eq("IllegalStateException: sin conexión"));
+        verify(repositorioEventoOutbox, never()).reprogramar(anyLong(), anyInt(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Si registrar el fallo también falla, el evento queda reclamado (se retoma al vencer) y el lote sigue")
+    void noDebePerderElEventoSiFallaElHandler() {
+        EventoOutbox falla = evento(5L, TipoEventoOutbox.PUSH_NOTIFICACION, 500L, 0);
+        EventoOutbox siguiente = evento(6L, TipoEventoOutbox.WEBSOCKET_NOTIFICACION, 600L, 0);
+        when(repositorioEventoOutbox.reclamarLote(any(), anyInt())).thenReturn(List.of(falla, siguiente));
+        doThrow(new IllegalStateException("push caído")).when(servicioNotificacion).despacharPush(500L);
+        when(repositorioEventoOutbox.reprogramar(eq(5L), anyInt(), any(), any()))
+            .thenThrow(new IllegalStateException("base caída"));
+
+        assertDoesNotThrow(() -> despachador.despachar());
+
+        // Ni PROCESADO ni FALLIDO: sigue EN_PROCESO hasta que venza el reclamo
+        verify(repositorioEventoOutbox, never()).cerrar(eq(5L), anyInt(), any(), any(), any());
+        assertEquals(EstadoEventoOutbox.EN_PROCESO, falla.getEstado());
+        assertTrue(falla.getProximoIntento().isAfter(LocalDateTime.now(ZoneOffset.UTC)));
+        verify(repositorioEventoOutbox).cerrar(eq(6L), eq(1), eq(EstadoEventoOutbox.PROCESADO), any(), isNull());
+    }
+
+    @Test
+    @DisplayName("Un error al reclamar no despacha nada ni propaga")
+    void noDebeDespacharSiFallaElReclamo() {
+        when(repositorioEventoOutbox.reclamarLote(any(), anyInt())).thenThrow(new IllegalStateException("timeout"));
+
+        assertDoesNotThrow(() -> despachador.despachar());
+
+        verifyNoInteractions(emailNotificationService, servicioNotificacion);
+    }
+
+    private static EventoOutbox evento(Long id, TipoEventoOutbox tipo, Long agregadoId, int intentos) {
+        EventoOutbox evento = new EventoOutbox();
+        evento.setId(id);
+        evento.setTipo(tipo);
+        evento.setAgregadoId(agregadoId);
+        evento.setIntentos(intentos);
+        evento.setProximoIntento(LocalDateTime.now(ZoneOffset.UTC).minusSeconds(1));
+        return evento;
+    }
+}
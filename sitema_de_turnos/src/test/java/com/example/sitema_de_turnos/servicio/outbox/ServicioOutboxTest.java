@@ -0,0 +1,75 @@
+package com.example.sitema_de_turnos.servicio.outbox;
+
+import com.example.sitema_de_turnos.modelo.EstadoEventoOutbox;
+import com.example.sitema_de_turnos.modelo.EventoOutbox;
+import com.example.sitema_de_turnos.modelo.Notificacion;
+import com.example.sitema_de_turnos.modelo.TipoEventoOutbox;
+import com.example.sitema_de_turnos.modelo.TipoNotificacion;
+import com.example.sitema_de_turnos.repositorio.RepositorioEventoOutbox;
+import com.example.sitema_de_turnos.servicio.ServicioNotificacion;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de ServicioOutbox: los eventos se encolan PENDIENTES y sin intentos, listos para el despachador.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ServicioOutbox Tests")
+class ServicioOutboxTest {
+
+    @Mock
+    private RepositorioEventoOutbox repositorioEventoOutbox;
+
+    @Mock
+    private ServicioNotificacion servicioNotificacion;
+
+    @InjectMocks
+    private ServicioOutbox servicioOutbox;
+
+    @Test
+    @DisplayName("Debe encolar el correo como PENDIENTE con el turno como agregado")
+    void debeEncolarCorreoPendiente() {
+        servicioOutbox.registrarCorreo(TipoEventoOutbox.CORREO_CONFIRMACION_TURNO, 10L);
+
+        ArgumentCaptor<EventoOutbox> captor = ArgumentCaptor.forClass(EventoOutbox.class);
+        verify(repositorioEventoOutbox).save(captor.capture());
+        EventoOutbox evento = captor.getValue();
+        assertEquals(TipoEventoOutbox.CORREO_CONFIRMACION_TURNO, evento.getTipo());
+        assertEquals(10L, evento.getAgregadoId());
+        assertEquals(EstadoEventoOutbox.PENDIENTE, evento.getEstado());
+        assertEquals(0, evento.getIntentos());
+    }
+
+    @Test
+    @DisplayName("La notificación al profesional se guarda en la transacción y encola WebSocket y push")
+    void debeEncolarWebSocketYPushDeLaNotificacion() {
+        Notificacion notificacion = new Notificacion();
+        notificacion.setId(77L);
+        when(servicioNotificacion.registrarNotificacion(eq(5L), eq(TipoNotificacion.NUEVO_TURNO), anyString(),
+            anyString(), any(), eq(10L))).thenReturn(notificacion);
+
+        servicioOutbox.registrarNotificacionProfesional(5L, TipoNotificacion.NUEVO_TURNO, "Nuevo Turno",
+            "Juan reservó un turno", null, 10L);
+
+        ArgumentCaptor<EventoOutbox> captor = ArgumentCaptor.forClass(EventoOutbox.class);
+        verify(repositorioEventoOutbox, times(2)).save(captor.capture());
+        List<EventoOutbox> eventos = captor.getAllValues();
+        assertEquals(List.of(TipoEventoOutbox.WEBSOCKET_NOTIFICACION, TipoEventoOutbox.PUSH_NOTIFICACION),
+            eventos.stream().map(EventoOutbox::getTipo).toList());
+        assertTrue(eventos.stream().allMatch(e -> e.getAgregadoId().equals(77L)));
+        // Los envíos reales los hace el despachador después del commit
+        verify(servicioNotificacion, never()).despacharPorWebSocket(anyLong());
+        verify(servicioNotificacion, never()).despacharPush(anyLong());
+    }
+}
@@ -2,10 +2,7 @@ package com.example.sitema_de_turnos.servicio.scheduler;
 
 import com.example.sitema_de_turnos.dto.notificacion.ReminderData;
 import com.example.sitema_de_turnos.excepcion.NotificationException;
-import com.example.sitema_de_turnos.modelo.Empresa;
-import com.example.sitema_de_turnos.modelo.EstadoTurno;
 import com.example.sitema_de_turnos.modelo.Turno;
-import com.example.sitema_de_turnos.repositorio.RepositorioEmpresa;
 import com.example.sitema_de_turnos.repositorio.RepositorioTurno;
 import com.example.sitema_de_turnos.servicio.notificacion.NotificationService;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,10 +14,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.time.LocalDate;
-import java.time.LocalTime;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -37,9 +35,6 @@ class ReminderSchedulerServiceTest {
     @Mock
     private RepositorioTurno repositorioTurno;
 
-    @Mock
-    private RepositorioEmpresa repositorioEmpresa;
-
     @Mock
     private NotificationService notificationService;
 
@@ -49,7 +44,6 @@ class ReminderSchedulerServiceTest {
     @InjectMocks
     private ReminderSchedulerService schedulerService;
 
-    private Empresa empresaActiva;
     private Turno turnoConfirmado;
 
     @BeforeEach
@@ -60,14 +54,13 @@ class ReminderSchedulerServiceTest {
         lenient().when(config.getMinMinutesBefore()).thenReturn(30);
         lenient().when(config.getMaxRetries()).thenReturn(3);
         lenient().when(config.getRetryDelayMs()).thenReturn(100L); // Reducido para tests rápidos
+        lenient().when(config.getLoteRecordatorios()).thenReturn(100);
+        lenient().when(config.getReclamoSegundos()).thenReturn(600L);
 
-        // Empresa activa con recordatorios habilitados
-        empresaActiva = new Empresa();
-        empresaActiva.setId(1L);
-        empresaActiva.setNombre("Test Empresa");
-        empresaActiva.setActiva(true);
-        empresaActiva.setEnviarRecordatorios(true);
-        empresaActiva.setTimezone("America/Argentina/Buenos_Aires");
+        // Cierres del reclamo: por defecto el reclamo sigue siendo de este nodo
+        lenient().when(repositorioTurno.confirmarRecordatorioEnviado(anyLong(), any(), any(), anyInt())).thenReturn(1);
+        lenient().when(repositorioTurno.reprogramarRecordatorio(anyLong(), any(), anyInt(), any(), any())).thenReturn(1);
+        lenient().when(repositorioTurno.descartarRecordatorio(anyLong(), any(), anyInt(), any())).thenReturn(1);
 
         // Turno confirmado pendiente de recordatorio
         turnoConfirmado = TestDataBuilder.crearTurnoConfirmado();
@@ -84,7 +77,7 @@ class ReminderSchedulerServiceTest {
 
         schedulerService.procesarRecordatorios();
 
-        verify(repositorioEmpresa, never()).findByActivaTrue();
+        verify(repositorioTurno, never()).reclamarRecordatoriosVencidos(any(), any(), anyInt(), anyInt(), anyInt());
         verify(notificationService, never()).sendReminder(any());
     }
 
@@ -95,60 +88,55 @@ class ReminderSchedulerServiceTest {
 
         schedulerService.procesarRecordatorios();
 
-        verify(repositorioEmpresa, never()).findByActivaTrue();
+        verify(repositorioTurno, never()).reclamarRecordatoriosVencidos(any(), any(), anyInt(), anyInt(), anyInt());
         verify(notificationService, never()).sendReminder(any());
     }
 
-    // ==================== TESTS DE PROCESAMIENTO DE EMPRESAS ====================
+    // ==================== TESTS DE CONSULTA DE PENDIENTES ====================
 
     @Test
-    @DisplayName("Debe procesar todas las empresas activas")
-    void debeProcesarTodasEmpresasActivas() {
-        Empresa empresa1 = crearEmpresa(1L, "Empresa 1", true);
-        Empresa empresa2 = crearEmpresa(2L, "Empresa 2", true);
-        
-        when(repositorioEmpresa.findByActivaTrue()).thenReturn(Arrays.asList(empresa1, empresa2));
+    @DisplayName("Debe reclamar con una sola consulta los pendientes de todas las empresas")
+    void debeConsultarUnaSolaVezParaTodasLasEmpresas() {
         when(notificationService.isAvailable()).thenReturn(true);
-        when(repositorioTurno.findTurnosPendientesRecordatorio(
-            anyLong(), any(), any(), any(), any(), any())).thenReturn(Collections.emptyList());
+        when(repositorioTurno.reclamarRecordatoriosVencidos(any(), any(), anyInt(), anyInt(), anyInt())).thenReturn(Collections.emptyList());
 
         schedulerService.procesarRecordatorios();
 
-        verify(repositorioTurno, times(2)).findTurnosPendientesRecordatorio(
-            anyLong(), any(), any(), any(), any(), any());
+        verify(repositorioTurno, times(1)).reclamarRecordatoriosVencidos(any(), any(), anyInt(), anyInt(), anyInt());
+        verify(repositorioTurno, never()).findParaRecordatorioByIdIn(any());
+        verify(notificationService, never()).sendReminder(any());
     }
 
     @Test
-    @DisplayName("Debe saltear empresas con recordatorios deshabilitados")
-    void debeSaltearEmpresasConRecordatoriosDeshabilitados() {
-        empresaActiva.setEnviarRecordatorios(false);
-        when(repositorioEmpresa.findByActivaTrue()).thenReturn(Collections.singletonList(empresaActiva));
+    @DisplayName("Debe pasar ventana, lote y vencimiento del reclamo de configuración a la consulta")
+    void debePasarVentanaDeConfiguracion() {
         when(notificationService.isAvailable()).thenReturn(true);
+        when(repositorioTurno.reclamarRecordatoriosVencidos(any(), any(), anyInt(), anyInt(), anyInt())).thenReturn(Collections.emptyList());
 
         schedulerService.procesarRecordatorios();
 
-        verify(repositorioTurno, never()).findTurnosPendientesRecordatorio(
-            anyLong(), any(), any(), any(), any(), any());
+        // Las horas por empresa (horasAntesRecordatorio) se aplican en SQL; config es el fallback
+        ArgumentCaptor<LocalDateTime> reclamoCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> vencidoCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repositorioTurno).reclamarRecordatoriosVencidos(
+            reclamoCaptor.capture(), vencidoCaptor.capture(), eq(30), eq(24), eq(100));
+
+        // Se retoman los reclamos de más de reclamoSegundos (nodo caído)
+        assertEquals(reclamoCaptor.getValue().minusSeconds(600), vencidoCaptor.getValue());
     }
 
     @Test
-    @DisplayName("Debe usar configuración de horas antes de la empresa si está definida")
-    void debeUsarHorasAntesDeEmpresa() {
-        empresaActiva.setHorasAntesRecordatorio(48);
-        when(repositorioEmpresa.findByActivaTrue()).thenReturn(Collections.singletonList(empresaActiva));
+    @DisplayName("Debe omitir turnos que desaparecieron entre el reclamo y la carga")
+    void debeOmitirTurnosDesaparecidos() {
         when(notificationService.isAvailable()).thenReturn(true);
-        when(repositorioTurno.findTurnosPendientesRecordatorio(
-            anyLong(), any(), any(), any(), any(), any())).thenReturn(Collections.emptyList());
+        when(repositorioTurno.reclamarRecordatoriosVencidos(any(), any(), anyInt(), anyInt(), anyInt()))
+            .thenReturn(Arrays.asList(99L, turnoConfirmado.getId()));
+        when(repositorioTurno.findParaRecordatorioByIdIn(any())).thenReturn(Collections.singletonList(turnoConfirmado));
 
         schedulerService.procesarRecordatorios();
 
-        ArgumentCaptor<LocalDate> fechaMaxCaptor = ArgumentCaptor.forClass(LocalDate.class);
-        verify(repositorioTurno).findTurnosPendientesRecordatorio(
-            eq(1L), any(), any(), fechaMaxCaptor.capture(), any(), eq(EstadoTurno.CONFIRMADO));
-
-        // Verificar que se usaron 48 horas en lugar de las 24 por defecto
-        LocalDate fechaEsperada = LocalDate.now().plusDays(2);
-        assertEquals(fechaEsperada, fechaMaxCaptor.getValue());
+        verify(notificationService, times(1)).sendReminder(any(ReminderData.class));
+        assertTrue(turnoConfirmado.getRecordatorioEnviado());
     }
 
     // ==================== TESTS DE ENVÍO EXITOSO ====================
@@ -156,10 +144,8 @@ class ReminderSchedulerServiceTest {
     @Test
     @DisplayName("Debe enviar recordatorio exitosamente al primer intento")
     void debeEnviarRecordatorioExitoso() throws Exception {
-        when(repositorioEmpresa.findByActivaTrue()).thenReturn(Collections.singletonList(empresaActiva));
         when(notificationService.isAvailable()).thenReturn(true);
-        when(repositorioTurno.findTurnosPendientesRecordatorio(
-            anyLong(), any(), any(), any(), any(), any())).thenReturn(Collections.singletonList(turnoConfirmado));
+        stubPendientes(turnoConfirmado);
         
         // Simular envío exitoso
         doNothing().when(notificationService).sendReminder(any(ReminderData.class));
@@ -169,9 +155,10 @@ class ReminderSchedulerServiceTest {
         // Verificar que se envió el recordatorio
         verify(notificationService, times(1)).sendReminder(any(ReminderData.class));
         
-        // Verificar que se actualizó el turno correctamente
-        // Se llama save() 2 veces: marcarInicioProcesamiento y actualizarTurnoExitoso
-        verify(repositorioTurno, times(2)).save(turnoConfirmado);
+        // Verificar que se actualizó el turno correctamente, condicionado al reclamo y sin save() de la entidad
+        verify(repositorioTurno).confirmarRecordatorioEnviado(
+            eq(turnoConfirmado.getId()), eq(turnoConfirmado.getRecordatorioPrimerIntento()), any(), eq(1));
+        verify(repositorioTurno, never()).save(any());
         assertTrue(turnoConfirmado.getRecordatorioEnviado());
         assertNotNull(turnoConfirmado.getFechaRecordatorioEnviado());
         assertEquals(1, turnoConfirmado.getRecordatorioIntentos());
@@ -181,10 +168,8 @@ class ReminderSchedulerServiceTest {
     @Test
     @DisplayName("Debe construir ReminderData con todos los campos correctos")
     void debeConstruirReminderDataCorrectamente() {
-        when(repositorioEmpresa.findByActivaTrue()).thenReturn(Collections.singletonList(empresaActiva));
         when(notificationService.isAvailable()).thenReturn(true);
-        when(repositorioTurno.findTurnosPendientesRecordatorio(
-            anyLong(), any(), any(), any(), any(), any())).thenReturn(Collections.singletonList(turnoConfirmado));
+        stubPendientes(turnoConfirmado);
 
         ArgumentCaptor<ReminderData> reminderCaptor = ArgumentCaptor.forClass(ReminderData.class);
 
@@ -200,57 +185,64 @@ class ReminderSchedulerServiceTest {
         assertEquals(turnoConfirmado.getHoraInicio(), reminder.getHoraInicio());
         assertEquals(turnoConfirmado.getServicio().getNombre(), reminder.getServicioNombre());
         assertEquals(turnoConfirmado.getProfesional().getUsuario().getNombre(), reminder.getProfesionalNombre());
-        assertEquals(empresaActiva.getNombre(), reminder.getEmpresaNombre());
+        assertEquals(turnoConfirmado.getEmpresa().getNombre(), reminder.getEmpresaNombre());
     }
 
     // ==================== TESTS DE REINTENTOS ====================
 
     @Test
-    @DisplayName("Debe reintentar hasta 3 veces ante fallo transitorio")
+    @DisplayName("Debe reintentar en ejecuciones sucesivas hasta 3 veces ante fallo transitorio")
     void debeReintentarHastaTresVeces() throws Exception {
-        when(repositorioEmpresa.findByActivaTrue()).thenReturn(Collections.singletonList(empresaActiva));
         when(notificationService.isAvailable()).thenReturn(true);
-        when(repositorioTurno.findTurnosPendientesRecordatorio(
-            anyLong(), any(), any(), any(), any(), any())).thenReturn(Collections.singletonList(turnoConfirmado));
         
-        // Simular fallo en los primeros 2 intentos, éxito en el 3ro
+        // Simular fallo en el intento inicial y en 2 reintentos, éxito en el 3er reintento (4to intento)
         doThrow(new NotificationException("Error temporal"))
+            .doThrow(new NotificationException("Error temporal"))
             .doThrow(new NotificationException("Error temporal"))
             .doNothing()
             .when(notificationService).sendReminder(any(ReminderData.class));
 
-        schedulerService.procesarRecordatorios();
+        // Un intento por ejecución: el reintento lo toma la siguiente (cuando vence recordatorioProximoIntento)
+        for (int ejecucion = 0; ejecucion < 4; ejecucion++) {
+            stubPendientes(turnoConfirmado);
+            schedulerService.procesarRecordatorios();
+        }
 
-        // Verificar 3 intentos
-        verify(notificationService, times(3)).sendReminder(any(ReminderData.class));
+        // Verificar 4 intentos (1 + maxRetries reintentos)
+        verify(notificationService, times(4)).sendReminder(any(ReminderData.class));
+        verify(repositorioTurno, times(3)).reprogramarRecordatorio(eq(turnoConfirmado.getId()), any(), anyInt(), any(), any());
+        verify(repositorioTurno, never()).descartarRecordatorio(any(), any(), anyInt(), any());
         
         // Verificar que finalmente se marcó como exitoso
         assertTrue(turnoConfirmado.getRecordatorioEnviado());
-        assertEquals(3, turnoConfirmado.getRecordatorioIntentos());
+        assertEquals(4, turnoConfirmado.getRecordatorioIntentos());
         assertNull(turnoConfirmado.getRecordatorioError());
+        assertNull(turnoConfirmado.getRecordatorioProximoIntento());
     }
 
     @Test
-    @DisplayName("Debe fallar definitivamente después de 4 intentos fallidos")
-    void debeFallarDespuesDeCuatroIntentos() {
-        when(repositorioEmpresa.findByActivaTrue()).thenReturn(Collections.singletonList(empresaActiva));
+    @DisplayName("Debe cerrar el recordatorio al fallar el último de los 3 reintentos")
+    void debeCerrarTrasTresReintentos() {
         when(notificationService.isAvailable()).thenReturn(true);
-        when(repositorioTurno.findTurnosPendientesRecordatorio(
-            anyLong(), any(), any(), any(), any(), any())).thenReturn(Collections.singletonList(turnoConfirmado));
         
         // Simular fallo en todos los intentos
         doThrow(new NotificationException("Error persistente"))
             .when(notificationService).sendReminder(any(ReminderData.class));
 
-        schedulerService.procesarRecordatorios();
+        for (int ejecucion = 0; ejecucion < 4; ejecucion++) {
+            stubPendientes(turnoConfirmado);
+            schedulerService.procesarRecordatorios();
+        }
 
-        // Verificar 4 intentos (1 inicial + 3 reintentos)
+        // Verificar 4 intentos (el inicial más maxRetries reintentos)
         verify(notificationService, times(4)).sendReminder(any(ReminderData.class));
+        verify(repositorioTurno, times(3)).reprogramarRecordatorio(eq(turnoConfirmado.getId()), any(), anyInt(), any(), any());
+        verify(repositorioTurno).descartarRecordatorio(eq(turnoConfirmado.getId()), any(), eq(4), contains("Error persistente"));
         
-        // Verificar que se registró el error
-        assertFalse(turnoConfirmado.getRecordatorioEnviado());
+        // Cerrado sin enviar: no vuelve a reclamarse, pero conserva el error
+        assertTrue(turnoConfirmado.getRecordatorioEnviado());
         assertEquals(4, turnoConfirmado.getRecordatorioIntentos());
-        assertNotNull(turnoConfirmado.getRecordatorioError());
+        assertNull(turnoConfirmado.getRecordatorioProximoIntento());
         assertTrue(turnoConfirmado.getRecordatorioError().contains("Error persistente"));
     }
 
@@ -259,10 +251,8 @@ class ReminderSchedulerServiceTest {
     void debeTruncarErroresLargos() {
         String errorMuyLargo = "X".repeat(600);
         
-        when(repositorioEmpresa.findByActivaTrue()).thenReturn(Collections.singletonList(empresaActiva));
         when(notificationService.isAvailable()).thenReturn(true);
-        when(repositorioTurno.findTurnosPendientesRecordatorio(
-            anyLong(), any(), any(), any(), any(), any())).thenReturn(Collections.singletonList(turnoConfirmado));
+        stubPendientes(turnoConfirmado);
         
         doThrow(new NotificationException(errorMuyLargo))
             .when(notificationService).sendReminder(any(ReminderData.class));
@@ -276,35 +266,110 @@ class ReminderSchedulerServiceTest {
     // ==================== TESTS DE MARCA DE PROCESAMIENTO ====================
 
     @Test
-    @DisplayName("Debe marcar turno como 'en procesamiento' antes de enviar")
+    @DisplayName("Debe marcar turno como 'en procesamiento' con la marca del reclamo")
     void debeMarcarTurnoEnProcesamiento() {
-        when(repositorioEmpresa.findByActivaTrue()).thenReturn(Collections.singletonList(empresaActiva));
         when(notificationService.isAvailable()).thenReturn(true);
-        when(repositorioTurno.findTurnosPendientesRecordatorio(
-            anyLong(), any(), any(), any(), any(), any())).thenReturn(Collections.singletonList(turnoConfirmado));
+        stubPendientes(turnoConfirmado);
 
         schedulerService.procesarRecordatorios();
 
-        // Verificar que se seteo recordatorioPrimerIntento
-        assertNotNull(turnoConfirmado.getRecordatorioPrimerIntento());
-        verify(repositorioTurno, atLeastOnce()).save(turnoConfirmado);
+        // Verificar que se seteo recordatorioPrimerIntento con el mismo instante del reclamo atómico
+        ArgumentCaptor<LocalDateTime> reclamoCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repositorioTurno).reclamarRecordatoriosVencidos(reclamoCaptor.capture(), any(), anyInt(), anyInt(), anyInt());
+        assertEquals(reclamoCaptor.getValue(), turnoConfirmado.getRecordatorioPrimerIntento());
     }
 
     @Test
-    @DisplayName("Debe resetear marca de procesamiento si todos los intentos fallan")
-    void debeResetearMarcaSiTodosFallan() {
-        when(repositorioEmpresa.findByActivaTrue()).thenReturn(Collections.singletonList(empresaActiva));
+    @DisplayName("Debe agendar el reintento y liberar el reclamo si el envío falla")
+    void debeAgendarReintentoSiElEnvioFalla() {
         when(notificationService.isAvailable()).thenReturn(true);
-        when(repositorioTurno.findTurnosPendientesRecordatorio(
-            anyLong(), any(), any(), any(), any(), any())).thenReturn(Collections.singletonList(turnoConfirmado));
+        stubPendientes(turnoConfirmado);
         
         doThrow(new NotificationException("Error"))
             .when(notificationService).sendReminder(any(ReminderData.class));
 
+        LocalDateTime antes = LocalDateTime.now();
         schedulerService.procesarRecordatorios();
 
-        // Verificar que se reseteo la marca para permitir reintentos futuros
+        // Un solo intento en esta ejecución: sin dormir el hilo entre reintentos
+        verify(notificationService, times(1)).sendReminder(any(ReminderData.class));
+
+        // Próximo intento agendado con backoff (retryDelayMs * 2^0) y reclamo liberado en la misma sentencia
+        ArgumentCaptor<LocalDateTime> proximoCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repositorioTurno).reprogramarRecordatorio(
+            eq(turnoConfirmado.getId()), any(), eq(1), eq("Error"), proximoCaptor.capture());
+        assertFalse(proximoCaptor.getValue().isBefore(antes.plusNanos(100_000_000L)));
+        assertEquals(proximoCaptor.getValue(), turnoConfirmado.getRecordatorioProximoIntento());
         assertNull(turnoConfirmado.getRecordatorioPrimerIntento());
+        assertFalse(turnoConfirmado.getRecordatorioEnviado());
+        verify(repositorioTurno, never()).liberarReclamoRecordatorio(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Debe abandonar el turno sin liberarlo si su reclamo venció")
+    void debeAbandonarTurnoSiPerdioElReclamo() {
+        when(notificationService.isAvailable()).thenReturn(true);
+        stubPendientes(turnoConfirmado);
+        when(repositorioTurno.reprogramarRecordatorio(anyLong(), any(), anyInt(), any(), any())).thenReturn(0);
+
+        doThrow(new NotificationException("Error"))
+            .when(notificationService).sendReminder(any(ReminderData.class));
+
+        schedulerService.procesarRecordatorios();
+
+        // Otro nodo retomó el turno: un solo intento y sin tocar su reclamo
+        verify(notificationService, times(1)).sendReminder(any(ReminderData.class));
+        verify(repositorioTurno, never()).liberarReclamoRecordatorio(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Debe exponer el backlog de reintentos en las estadísticas")
+    void debeExponerBacklogDeReintentos() {
+        when(repositorioTurno.contarRecordatoriosEnReintento()).thenReturn(7L);
+
+        ReminderSchedulerService.Estadisticas estadisticas = schedulerService.estadisticas();
+
+        assertEquals(7L, estadisticas.recordatoriosEnReintento());
+        assertNull(estadisticas.ultimaEjecucion());
+    }
+
+    // ==================== TESTS DE CONCURRENCIA ====================
+
+    @Test
+    @DisplayName("Debe despachar el lote en paralelo sin superar el límite global de envíos simultáneos")
+    void debeRespetarLimiteGlobalDeEnviosConcurrentes() {
+        when(config.getMaxEnviosConcurrentes()).thenReturn(2);
+        when(notificationService.isAvailable()).thenReturn(true);
+        ReminderSchedulerService scheduler = new ReminderSchedulerService(repositorioTurno, notificationService, config);
+
+        Turno[] turnos = new Turno[8];
+        for (int i = 0; i < turnos.length; i++) {
+            turnos[i] = TestDataBuilder.crearTurnoConfirmado();
+            turnos[i].setId(100L + i);
+            turnos[i].setRecordatorioEnviado(false);
+            turnos[i].setRecordatorioIntentos(0);
+        }
+        stubPendientes(turnos);
+
+        // Cada envío tarda lo suficiente para que los hilos virtuales compitan por los permisos
+        AtomicInteger enCurso = new AtomicInteger();
+        AtomicInteger maximoEnCurso = new AtomicInteger();
+        doAnswer(inv -> {
+            maximoEnCurso.accumulateAndGet(enCurso.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } finally {
+                enCurso.decrementAndGet();
+            }
+            return null;
+        }).when(notificationService).sendReminder(any(ReminderData.class));
+
+        scheduler.procesarRecordatorios();
+
+        verify(notificationService, times(turnos.length)).sendReminder(any(ReminderData.class));
+        assertEquals(2, maximoEnCurso.get(), "Nunca más de 2 envíos a la vez, y el lote no se despacha en serie");
+        assertTrue(Arrays.stream(turnos).allMatch(Turno::getRecordatorioEnviado));
+        assertEquals(turnos.length, scheduler.estadisticas().enviados());
     }
 
     // ==================== TESTS DE MÁXIMO DE REINTENTOS ====================
@@ -312,12 +377,10 @@ class ReminderSchedulerServiceTest {
     @Test
     @DisplayName("Debe saltear turno que ya alcanzó el máximo de reintentos")
     void debeSaltearTurnoConMaximosReintentos() {
-        turnoConfirmado.setRecordatorioIntentos(3);
+        turnoConfirmado.setRecordatorioIntentos(4);
         
-        when(repositorioEmpresa.findByActivaTrue()).thenReturn(Collections.singletonList(empresaActiva));
         when(notificationService.isAvailable()).thenReturn(true);
-        when(repositorioTurno.findTurnosPendientesRecordatorio(
-            anyLong(), any(), any(), any(), any(), any())).thenReturn(Collections.singletonList(turnoConfirmado));
+        stubPendientes(turnoConfirmado);
 
         schedulerService.procesarRecordatorios();
 
@@ -329,72 +392,24 @@ class ReminderSchedulerServiceTest {
         assertEquals("Máximo de reintentos alcanzado", turnoConfirmado.getRecordatorioError());
     }
 
-    // ==================== TESTS DE VALIDACIÓN DE VENTANA TEMPORAL ====================
-
-    @Test
-    @DisplayName("Debe respetar ventana temporal (minMinutesBefore a hoursBefore)")
-    void debeRespetarVentanaTemporal() {
-        when(repositorioEmpresa.findByActivaTrue()).thenReturn(Collections.singletonList(empresaActiva));
-        when(notificationService.isAvailable()).thenReturn(true);
-        when(repositorioTurno.findTurnosPendientesRecordatorio(
-            anyLong(), any(), any(), any(), any(), any())).thenReturn(Collections.emptyList());
-
-        schedulerService.procesarRecordatorios();
-
-        ArgumentCaptor<LocalDate> fechaMinCaptor = ArgumentCaptor.forClass(LocalDate.class);
-        ArgumentCaptor<LocalTime> horaMinCaptor = ArgumentCaptor.forClass(LocalTime.class);
-        ArgumentCaptor<LocalDate> fechaMaxCaptor = ArgumentCaptor.forClass(LocalDate.class);
-        ArgumentCaptor<LocalTime> horaMaxCaptor = ArgumentCaptor.forClass(LocalTime.class);
-
-        verify(repositorioTurno).findTurnosPendientesRecordatorio(
-            eq(1L), 
-            fechaMinCaptor.capture(), 
-            horaMinCaptor.capture(), 
-            fechaMaxCaptor.capture(), 
-            horaMaxCaptor.capture(), 
-            eq(EstadoTurno.CONFIRMADO)
-        );
-
-        // Verificar que los límites son razonables
-        assertNotNull(fechaMinCaptor.getValue());
-        assertNotNull(fechaMaxCaptor.getValue());
-        assertTrue(fechaMinCaptor.getValue().isBefore(fechaMaxCaptor.getValue()) || 
-                   fechaMinCaptor.getValue().equals(fechaMaxCaptor.getValue()));
-    }
-
     // ==================== TESTS DE MANEJO DE ERRORES ====================
 
     @Test
-    @DisplayName("Debe continuar procesando otras empresas si una falla")
-    void debeContinuarConOtrasEmpresasSiUnaFalla() {
-        Empresa empresa1 = crearEmpresa(1L, "Empresa 1", true);
-        Empresa empresa2 = crearEmpresa(2L, "Empresa 2", true);
-        
-        when(repositorioEmpresa.findByActivaTrue()).thenReturn(Arrays.asList(empresa1, empresa2));
+    @DisplayName("Debe absorber un fallo de la consulta de pendientes sin enviar nada")
+    void debeAbsorberFalloDeConsulta() {
         when(notificationService.isAvailable()).thenReturn(true);
-        
-        // Primera empresa lanza excepción, segunda no
-        when(repositorioTurno.findTurnosPendientesRecordatorio(
-            eq(1L), any(), any(), any(), any(), any())).thenThrow(new RuntimeException("Error BD"));
-        when(repositorioTurno.findTurnosPendientesRecordatorio(
-            eq(2L), any(), any(), any(), any(), any())).thenReturn(Collections.emptyList());
+        when(repositorioTurno.reclamarRecordatoriosVencidos(any(), any(), anyInt(), anyInt(), anyInt())).thenThrow(new RuntimeException("Error BD"));
 
-        schedulerService.procesarRecordatorios();
+        assertDoesNotThrow(() -> schedulerService.procesarRecordatorios());
 
-        // Verificar que se procesaron ambas empresas
-        verify(repositorioTurno).findTurnosPendientesRecordatorio(
-            eq(1L), any(), any(), any(), any(), any());
-        verify(repositorioTurno).findTurnosPendientesRecordatorio(
-            eq(2L), any(), any(), any(), any(), any());
+        verify(notificationService, never()).sendReminder(any());
     }
 
     @Test
     @DisplayName("Debe manejar InterruptedException correctamente")
     void debeManejarInterruptedException() {
-        when(repositorioEmpresa.findByActivaTrue()).thenReturn(Collections.singletonList(empresaActiva));
         when(notificationService.isAvailable()).thenReturn(true);
-        when(repositorioTurno.findTurnosPendientesRecordatorio(
-            anyLong(), any(), any(), any(), any(), any())).thenReturn(Collections.singletonList(turnoConfirmado));
+        stubPendientes(turnoConfirmado);
         
         // Simular fallo que cause InterruptedException en el retry
         doThrow(new NotificationException("Error"))
@@ -409,15 +424,33 @@ class ReminderSchedulerServiceTest {
         assertNull(turnoConfirmado.getRecordatorioPrimerIntento());
     }
 
+    @Test
+    @DisplayName("Debe liberar el reclamo sin consumir un intento si el envío se interrumpe")
+    void debeLiberarReclamoSiElEnvioSeInterrumpe() {
+        when(notificationService.isAvailable()).thenReturn(true);
+        stubPendientes(turnoConfirmado);
+
+        doThrow(new NotificationException("Envío interrumpido", new InterruptedException()))
+            .when(notificationService).sendReminder(any(ReminderData.class));
+
+        schedulerService.procesarRecordatorios();
+
+        // No salió: ni enviado ni intento fallido, el reclamo vuelve a estar disponible
+        verify(repositorioTurno).liberarReclamoRecordatorio(eq(turnoConfirmado.getId()), any());
+        verify(repositorioTurno, never()).confirmarRecordatorioEnviado(anyLong(), any(), any(), anyInt());
+        verify(repositorioTurno, never()).reprogramarRecordatorio(anyLong(), any(), anyInt(), any(), any());
+        verify(repositorioTurno, never()).descartarRecordatorio(anyLong(), any(), anyInt(), any());
+        assertFalse(turnoConfirmado.getRecordatorioEnviado());
+        assertNull(turnoConfirmado.getRecordatorioPrimerIntento());
+    }
+
     // ==================== HELPERS ====================
 
-    private Empresa crearEmpresa(Long id, String nombre, boolean enviarRecordatorios) {
-        Empresa empresa = new Empresa();
-        empresa.setId(id);
-        empresa.setNombre(nombre);
-        empresa.setActiva(true);
-        empresa.setEnviarRecordatorios(enviarRecordatorios);
-        empresa.setTimezone("America/Argentina/Buenos_Aires");
-        return empresa;
+    private void stubPendientes(Turno... turnos) {
+        List<Turno> lista = Arrays.asList(turnos);
+        // Primer lote con los turnos; el siguiente ya no encuentra pendientes
+        when(repositorioTurno.reclamarRecordatoriosVencidos(any(), any(), anyInt(), anyInt(), anyInt()))
+            .thenReturn(lista.stream().map(Turno::getId).toList(), Collections.emptyList());
+        when(repositorioTurno.findParaRecordatorioByIdIn(any())).thenReturn(lista);
     }
 }